@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * <b>Internal</b>. Do not use this class.
+ * <p>
+ * Persistent on-disk cache for decoded assets. Stores assets in a ready-to-use form, e.g. raw ARGB rasters instead of
+ * PNG files, so that decoding can be skipped when the same asset is loaded again in a later run. Entries are keyed by
+ * a hash of the undecoded content and are read by mapping the cache file into memory.
+ * <p>
+ * The cache is disabled by default. It is enabled by setting the property <tt>jeda.cache.enabled</tt> to
+ * <tt>true</tt>. The cache directory can be set with the property <tt>jeda.cache.directory</tt>.
+ */
+public final class AssetCache {
+
+    private static final String DIRECTORY_PROPERTY = "jeda.cache.directory";
+    private static final String ENABLED_PROPERTY = "jeda.cache.enabled";
+    private static final String FILE_EXTENSION = ".bin";
+    // Increment if the format of cache entries changes. Old entries will not be found anymore.
+    private static final int FORMAT_VERSION = 1;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final String HASH_ALGORITHM = "SHA-1";
+    private static final int INTS_MAGIC = 0x4a444931;
+    private static final Object LOCK = new Object();
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static File directory;
+
+    /**
+     * <b>Internal</b>. Do not use this method.
+     */
+    public static String createKey(final String kind, final ByteBuffer content) {
+        if (kind == null) {
+            throw new NullPointerException("kind");
+        }
+
+        if (content == null) {
+            throw new NullPointerException("content");
+        }
+
+        final MessageDigest digest = createDigest();
+        digest.update((byte) FORMAT_VERSION);
+        digest.update(content.duplicate());
+        return kind + "-" + toHex(digest.digest());
+    }
+
+    /**
+     * <b>Internal</b>. Do not use this method.
+     */
+    public static String createKey(final String kind, final String content) {
+        if (content == null) {
+            throw new NullPointerException("content");
+        }
+
+        return createKey(kind, ByteBuffer.wrap(content.getBytes(UTF8)));
+    }
+
+    /**
+     * <b>Internal</b>. Do not use this method.
+     */
+    public static boolean isEnabled() {
+        synchronized (LOCK) {
+            return directory != null;
+        }
+    }
+
+    /**
+     * <b>Internal</b>. Do not use this method.
+     * <p>
+     * Returns the cache entry with the specified key as a read-only buffer. Returns <tt>null</tt> if the cache is
+     * disabled or does not contain the entry.
+     */
+    public static ByteBuffer read(final String key) {
+        final File file = entryFile(key);
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+
+        RandomAccessFile in = null;
+        try {
+            in = new RandomAccessFile(file, "r");
+            final FileChannel channel = in.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        catch (final IOException ex) {
+            Log.d(ex, "Error while reading asset cache entry '", key, "'.");
+            return null;
+        }
+        finally {
+            close(in);
+        }
+    }
+
+    /**
+     * <b>Internal</b>. Do not use this method.
+     * <p>
+     * Returns the cache entry with the specified key as an array of integers. Returns <tt>null</tt> if the cache is
+     * disabled or does not contain a valid entry.
+     */
+    public static int[] readInts(final String key) {
+        final ByteBuffer buffer = read(key);
+        if (buffer == null || buffer.remaining() < 8 || buffer.getInt() != INTS_MAGIC) {
+            return null;
+        }
+
+        final int count = buffer.getInt();
+        if (count < 0 || buffer.remaining() != count * 4) {
+            return null;
+        }
+
+        final int[] result = new int[count];
+        buffer.asIntBuffer().get(result);
+        return result;
+    }
+
+    /**
+     * <b>Internal</b>. Do not use this method.
+     * <p>
+     * Stores a cache entry. Has no effect if the cache is disabled. The entry is first written to a temporary file
+     * which is then renamed, so that an incomplete entry is never read.
+     */
+    public static void write(final String key, final ByteBuffer data) {
+        final File file = entryFile(key);
+        if (file == null || file.exists()) {
+            return;
+        }
+
+        FileOutputStream out = null;
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile(key, null, file.getParentFile());
+            out = new FileOutputStream(tempFile);
+            final FileChannel channel = out.getChannel();
+            final ByteBuffer source = data.duplicate();
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+
+            out.close();
+            out = null;
+            if (!tempFile.renameTo(file)) {
+                tempFile.delete();
+            }
+        }
+        catch (final IOException ex) {
+            Log.d(ex, "Error while writing asset cache entry '", key, "'.");
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+        finally {
+            close(out);
+        }
+    }
+
+    /**
+     * <b>Internal</b>. Do not use this method.
+     */
+    public static void writeInts(final String key, final int[] values) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(8 + values.length * 4);
+        buffer.putInt(INTS_MAGIC);
+        buffer.putInt(values.length);
+        final IntBuffer ints = buffer.asIntBuffer();
+        ints.put(values);
+        buffer.rewind();
+        write(key, buffer);
+    }
+
+    static void configure(final Properties properties) {
+        synchronized (LOCK) {
+            directory = null;
+            if (!properties.getBoolean(ENABLED_PROPERTY, false)) {
+                return;
+            }
+
+            final File dir = new File(properties.getString(DIRECTORY_PROPERTY, defaultDirectory()));
+            if (dir.isDirectory() || dir.mkdirs()) {
+                directory = dir;
+            }
+            else {
+                Log.w("Cannot create asset cache directory '", dir, "'. Asset cache is disabled.");
+            }
+        }
+    }
+
+    private static void close(final Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            }
+            catch (final IOException ex) {
+                // ignore
+            }
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        }
+        catch (final NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static String defaultDirectory() {
+        final String localAppData = System.getenv("LOCALAPPDATA");
+        if (localAppData != null) {
+            return localAppData + File.separator + "Jeda" + File.separator + "cache";
+        }
+
+        final String xdgCacheHome = System.getenv("XDG_CACHE_HOME");
+        if (xdgCacheHome != null) {
+            return xdgCacheHome + File.separator + "jeda";
+        }
+
+        return System.getProperty("user.home") + File.separator + ".cache" + File.separator + "jeda";
+    }
+
+    private static File entryFile(final String key) {
+        if (key == null) {
+            throw new NullPointerException("key");
+        }
+
+        synchronized (LOCK) {
+            if (directory == null) {
+                return null;
+            }
+            else {
+                return new File(directory, key + FILE_EXTENSION);
+            }
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            result[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            result[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+
+        return new String(result);
+    }
+
+    private AssetCache() {
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.platform.LogImp;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log implementation that hands log messages to a background thread, so that logging never blocks on console I/O. The
+ * queue is bounded. If it is full, messages are dropped and counted. The number of dropped messages is reported as soon
+ * as the queue has room again.
+ */
+class AsyncLogImp implements LogImp, Runnable {
+
+    private static final int CAPACITY = 1024;
+    private final LogImp target;
+    private final ConcurrentLinkedQueue<Entry> queue;
+    private final AtomicInteger size;
+    private final AtomicLong droppedCount;
+    private final Thread thread;
+    private long reportedDroppedCount;
+
+    AsyncLogImp(final LogImp target) {
+        this.target = target;
+        queue = new ConcurrentLinkedQueue<Entry>();
+        size = new AtomicInteger();
+        droppedCount = new AtomicLong();
+        thread = new Thread(this);
+        thread.setName("Jeda Log Writer");
+        thread.setDaemon(true);
+        thread.start();
+        // Do not lose the last messages when the application exits.
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                flush();
+            }
+        }));
+    }
+
+    @Override
+    public void d(final String message, final Throwable throwable) {
+        enqueue(LogLevel.DEBUG, message, throwable);
+    }
+
+    @Override
+    public void e(final String message, final Throwable throwable) {
+        enqueue(LogLevel.ERROR, message, throwable);
+    }
+
+    @Override
+    public void i(final String message, final Throwable throwable) {
+        enqueue(LogLevel.INFO, message, throwable);
+    }
+
+    @Override
+    public void w(final String message, final Throwable throwable) {
+        enqueue(LogLevel.WARNING, message, throwable);
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            flush();
+            LockSupport.park(this);
+        }
+    }
+
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private void enqueue(final LogLevel level, final String message, final Throwable throwable) {
+        if (size.incrementAndGet() > CAPACITY) {
+            size.decrementAndGet();
+            droppedCount.incrementAndGet();
+            return;
+        }
+
+        queue.offer(new Entry(level, message, throwable));
+        LockSupport.unpark(thread);
+    }
+
+    private synchronized void flush() {
+        Entry entry = queue.poll();
+        while (entry != null) {
+            size.decrementAndGet();
+            write(entry.level, entry.message, entry.throwable);
+            entry = queue.poll();
+        }
+
+        final long dropped = droppedCount.get();
+        if (dropped != reportedDroppedCount) {
+            write(LogLevel.WARNING, Convert.toString(dropped - reportedDroppedCount,
+                                                     " log messages have been dropped."), null);
+            reportedDroppedCount = dropped;
+        }
+    }
+
+    private void write(final LogLevel level, final String message, final Throwable throwable) {
+        switch (level) {
+            case DEBUG:
+                target.d(message, throwable);
+                break;
+            case INFO:
+                target.i(message, throwable);
+                break;
+            case WARNING:
+                target.w(message, throwable);
+                break;
+            default:
+                target.e(message, throwable);
+                break;
+        }
+    }
+
+    private static final class Entry {
+
+        final LogLevel level;
+        final String message;
+        final Throwable throwable;
+
+        Entry(final LogLevel level, final String message, final Throwable throwable) {
+            this.level = level;
+            this.message = message;
+            this.throwable = throwable;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.event.Key;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Decodes frames written by {@link BinaryDataWriter}. The reader keeps the dictionary of names it has received, so it
+ * must be used for exactly one stream.
+ */
+final class BinaryDataReader {
+
+    private final ArrayList<String> strings;
+    private byte[] buffer;
+    private int end;
+    private int pos;
+
+    BinaryDataReader() {
+        strings = new ArrayList<String>();
+    }
+
+    /**
+     * Decodes the payload of one frame.
+     *
+     * @throws IOException if the payload is malformed
+     */
+    DataNode read(final byte[] buffer, final int length) throws IOException {
+        this.buffer = buffer;
+        end = length;
+        pos = 0;
+        final DataNode result = new DataNode(Data.ROOT_NAME);
+        readChildren(result, 0);
+        if (pos != end) {
+            throw malformed();
+        }
+
+        this.buffer = null;
+        return result;
+    }
+
+    private IOException malformed() {
+        return new IOException("Malformed data frame.");
+    }
+
+    private int readByte() throws IOException {
+        if (pos >= end) {
+            throw malformed();
+        }
+
+        final int result = buffer[pos] & 0xff;
+        ++pos;
+        return result;
+    }
+
+    private void readChildren(final DataNode node, final int depth) throws IOException {
+        if (depth > BinaryDataWriter.MAX_DEPTH) {
+            throw malformed();
+        }
+
+        final int groupCount = readVarint();
+        for (int i = 0; i < groupCount; ++i) {
+            readGroup(node, depth);
+        }
+    }
+
+    private void readGroup(final DataNode node, final int depth) throws IOException {
+        final String name = readString();
+        final int tag = readByte();
+        final int count = readVarint();
+        // Every element takes at least one byte, except packed booleans.
+        if (name == null || count < 0 || count / 8 > end - pos ||
+            (tag != BinaryDataWriter.TAG_BOOLEAN && count > end - pos)) {
+            throw malformed();
+        }
+
+        if (tag == BinaryDataWriter.TAG_BOOLEAN) {
+            int bits = 0;
+            for (int i = 0; i < count; ++i) {
+                if ((i & 7) == 0) {
+                    bits = readByte();
+                }
+
+                node.add(new DataNode(name, Boolean.valueOf((bits & (1 << (i & 7))) != 0)));
+            }
+        }
+        else {
+            for (int i = 0; i < count; ++i) {
+                if (tag == BinaryDataWriter.TAG_MIXED) {
+                    node.add(readValue(name, readByte(), depth));
+                }
+                else {
+                    node.add(readValue(name, tag, depth));
+                }
+            }
+        }
+    }
+
+    private int readInt32() throws IOException {
+        if (end - pos < 4) {
+            throw malformed();
+        }
+
+        final int result = ((buffer[pos] & 0xff) << 24) | ((buffer[pos + 1] & 0xff) << 16) |
+                           ((buffer[pos + 2] & 0xff) << 8) | (buffer[pos + 3] & 0xff);
+        pos += 4;
+        return result;
+    }
+
+    private String readString() throws IOException {
+        final int ref = readVarint();
+        if (ref == BinaryDataWriter.STRING_NULL) {
+            return null;
+        }
+        else if (ref == BinaryDataWriter.STRING_LITERAL) {
+            final String result = readUtf8();
+            if (strings.size() < BinaryDataWriter.MAX_STRINGS) {
+                strings.add(result);
+            }
+
+            return result;
+        }
+
+        final int index = ref - BinaryDataWriter.STRING_INDEX_OFFSET;
+        if (index < 0 || index >= strings.size()) {
+            throw malformed();
+        }
+
+        return strings.get(index);
+    }
+
+    private String readUtf8() throws IOException {
+        final int length = readVarint();
+        if (length < 0 || length > end - pos) {
+            throw malformed();
+        }
+
+        final String result = new String(buffer, pos, length, BinaryDataWriter.UTF8);
+        pos += length;
+        return result;
+    }
+
+    private DataNode readValue(final String name, final int tag, final int depth) throws IOException {
+        switch (tag) {
+            case BinaryDataWriter.TAG_STRING:
+                return new DataNode(name, readUtf8());
+            case BinaryDataWriter.TAG_INT:
+                final int value = readVarint();
+                return new DataNode(name, Integer.valueOf((value >>> 1) ^ -(value & 1)));
+            case BinaryDataWriter.TAG_FLOAT:
+                return new DataNode(name, Float.valueOf(Float.intBitsToFloat(readInt32())));
+            case BinaryDataWriter.TAG_DOUBLE:
+                final long high = readInt32();
+                final long low = readInt32() & 0xffffffffL;
+                return new DataNode(name, Double.valueOf(Double.longBitsToDouble((high << 32) | low)));
+            case BinaryDataWriter.TAG_BOOLEAN:
+                return new DataNode(name, Boolean.valueOf(readByte() != 0));
+            case BinaryDataWriter.TAG_KEY:
+                final String keyName = readString();
+                if (keyName == null) {
+                    return new DataNode(name);
+                }
+
+                try {
+                    return new DataNode(name, Key.valueOf(keyName));
+                }
+                catch (final IllegalArgumentException ex) {
+                    // Unknown key, keep the name so that readKey() falls back to the default value.
+                    return new DataNode(name, keyName);
+                }
+            case BinaryDataWriter.TAG_OBJECT:
+                final DataNode result = new DataNode(name);
+                result.setClassName(readString());
+                readChildren(result, depth + 1);
+                return result;
+            default:
+                throw malformed();
+        }
+    }
+
+    private int readVarint() throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = readByte();
+            result |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+
+        throw malformed();
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.event.Key;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes trees of {@link DataNode} objects in the compact binary format read by {@link BinaryDataReader}. The writer
+ * keeps a dictionary of the names it has sent, so it must be used for exactly one stream.
+ * <p>
+ * A frame consists of the byte {@link #FRAME_MARKER}, the payload length as varint and the payload. The payload
+ * encodes the child groups of the root node. Each group is encoded as name, type tag, element count and values.
+ * Groups of ints, floats, doubles and booleans are packed. Names, class names and keys are strings that are interned
+ * in a dictionary: The first occurrence is sent literally, later occurrences as index.
+ */
+final class BinaryDataWriter {
+
+    static final int FRAME_MARKER = 0;
+    static final int MAX_DEPTH = 64;
+    static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+    static final int MAX_STRINGS = 4096;
+    static final int STRING_NULL = 0;
+    static final int STRING_LITERAL = 1;
+    static final int STRING_INDEX_OFFSET = 2;
+    static final int TAG_MIXED = 0;
+    static final int TAG_STRING = 1;
+    static final int TAG_INT = 2;
+    static final int TAG_FLOAT = 3;
+    static final int TAG_DOUBLE = 4;
+    static final int TAG_BOOLEAN = 5;
+    static final int TAG_KEY = 6;
+    static final int TAG_OBJECT = 7;
+    static final Charset UTF8 = Charset.forName("UTF-8");
+    private final Map<String, Integer> strings;
+    private byte[] buffer;
+    private int size;
+
+    BinaryDataWriter() {
+        strings = new HashMap<String, Integer>();
+        buffer = new byte[256];
+    }
+
+    /**
+     * Encodes the specified tree and returns the payload without frame marker and length.
+     */
+    byte[] toByteArray(final DataNode root) {
+        size = 0;
+        writeChildren(root);
+        final byte[] result = new byte[size];
+        System.arraycopy(buffer, 0, result, 0, size);
+        return result;
+    }
+
+    /**
+     * Returns the number of bytes the specified node takes when it is the only child of a root node and the dictionary
+     * is empty. This is an upper bound of the number of bytes the node adds to a payload encoded by a new writer.
+     * Clears the dictionary.
+     */
+    int sizeOf(final DataNode node) {
+        strings.clear();
+        size = 0;
+        writeVarint(1);
+        writeGroup(Collections.singletonList(node));
+        strings.clear();
+        return size;
+    }
+
+    /**
+     * Encodes the specified tree and writes it as one frame to the output stream.
+     */
+    void writeFrame(final DataNode root, final OutputStream out) throws IOException {
+        size = 0;
+        writeChildren(root);
+        if (size > MAX_FRAME_SIZE) {
+            throw new IOException("Data object is too large to be sent.");
+        }
+
+        // The length is appended to the buffer behind the payload, but sent in front of it.
+        out.write(FRAME_MARKER);
+        final int payloadSize = size;
+        writeVarint(payloadSize);
+        out.write(buffer, payloadSize, size - payloadSize);
+        out.write(buffer, 0, payloadSize);
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (size + additional > buffer.length) {
+            final byte[] newBuffer = new byte[Math.max(buffer.length * 2, size + additional)];
+            System.arraycopy(buffer, 0, newBuffer, 0, size);
+            buffer = newBuffer;
+        }
+    }
+
+    private void writeByte(final int value) {
+        ensureCapacity(1);
+        buffer[size] = (byte) value;
+        ++size;
+    }
+
+    private void writeChildren(final DataNode node) {
+        writeVarint(node.getNames().size());
+        for (final List<DataNode> group : node.getGroups()) {
+            writeGroup(group);
+        }
+    }
+
+    private void writeGroup(final List<DataNode> group) {
+        final int count = group.size();
+        int tag = tagOf(group.get(0));
+        for (int i = 1; i < count && tag != TAG_MIXED; ++i) {
+            if (tagOf(group.get(i)) != tag) {
+                tag = TAG_MIXED;
+            }
+        }
+
+        writeString(group.get(0).getName());
+        writeByte(tag);
+        writeVarint(count);
+        if (tag == TAG_BOOLEAN) {
+            int bits = 0;
+            for (int i = 0; i < count; ++i) {
+                if ((Boolean) group.get(i).getValue()) {
+                    bits |= 1 << (i & 7);
+                }
+
+                if ((i & 7) == 7 || i == count - 1) {
+                    writeByte(bits);
+                    bits = 0;
+                }
+            }
+        }
+        else {
+            for (int i = 0; i < count; ++i) {
+                final DataNode node = group.get(i);
+                if (tag == TAG_MIXED) {
+                    final int nodeTag = tagOf(node);
+                    writeByte(nodeTag);
+                    writeValue(node, nodeTag);
+                }
+                else {
+                    writeValue(node, tag);
+                }
+            }
+        }
+    }
+
+    private void writeInt32(final int value) {
+        ensureCapacity(4);
+        buffer[size] = (byte) (value >>> 24);
+        buffer[size + 1] = (byte) (value >>> 16);
+        buffer[size + 2] = (byte) (value >>> 8);
+        buffer[size + 3] = (byte) value;
+        size += 4;
+    }
+
+    private void writeString(final String value) {
+        if (value == null) {
+            writeVarint(STRING_NULL);
+            return;
+        }
+
+        final Integer index = strings.get(value);
+        if (index != null) {
+            writeVarint(index + STRING_INDEX_OFFSET);
+            return;
+        }
+
+        writeVarint(STRING_LITERAL);
+        writeUtf8(value);
+        if (strings.size() < MAX_STRINGS) {
+            strings.put(value, strings.size());
+        }
+    }
+
+    private void writeUtf8(final String value) {
+        final byte[] bytes = value.getBytes(UTF8);
+        writeVarint(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void writeValue(final DataNode node, final int tag) {
+        switch (tag) {
+            case TAG_INT:
+                final int value = (Integer) node.getValue();
+                writeVarint((value << 1) ^ (value >> 31));
+                break;
+            case TAG_FLOAT:
+                writeInt32(Float.floatToIntBits((Float) node.getValue()));
+                break;
+            case TAG_DOUBLE:
+                final long bits = Double.doubleToLongBits((Double) node.getValue());
+                writeInt32((int) (bits >>> 32));
+                writeInt32((int) bits);
+                break;
+            case TAG_BOOLEAN:
+                writeByte((Boolean) node.getValue() ? 1 : 0);
+                break;
+            case TAG_KEY:
+                writeString(((Key) node.getValue()).name());
+                break;
+            case TAG_OBJECT:
+                writeString(node.getClassName());
+                writeChildren(node);
+                break;
+            default:
+                writeUtf8(node.getText());
+                break;
+        }
+    }
+
+    private void writeVarint(final int value) {
+        ensureCapacity(5);
+        int rest = value;
+        while ((rest & ~0x7f) != 0) {
+            buffer[size] = (byte) ((rest & 0x7f) | 0x80);
+            ++size;
+            rest >>>= 7;
+        }
+
+        buffer[size] = (byte) rest;
+        ++size;
+    }
+
+    private static int tagOf(final DataNode node) {
+        final Object value = node.getValue();
+        if (node.hasChildren() || node.getClassName() != null) {
+            return TAG_OBJECT;
+        }
+        else if (value instanceof Integer) {
+            return TAG_INT;
+        }
+        else if (value instanceof Float) {
+            return TAG_FLOAT;
+        }
+        else if (value instanceof Double) {
+            return TAG_DOUBLE;
+        }
+        else if (value instanceof Boolean) {
+            return TAG_BOOLEAN;
+        }
+        else if (value instanceof Key) {
+            return TAG_KEY;
+        }
+        else {
+            return TAG_STRING;
+        }
+    }
+}
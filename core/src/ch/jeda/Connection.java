@@ -20,15 +20,22 @@ package ch.jeda;
  * Represents a generic remote connection.
  *
  * @since 1.4
+ * @version 2
  */
 public abstract class Connection {
 
+    private static final int DEFAULT_HIGH_WATER_MARK = 1024 * 1024;
+    private volatile int highWaterMark;
+    private volatile OverflowPolicy overflowPolicy;
+
     /**
      * Constructs a new connection.
      *
      * @since 1.4
      */
     protected Connection() {
+        highWaterMark = DEFAULT_HIGH_WATER_MARK;
+        overflowPolicy = OverflowPolicy.DROP_OLDEST;
     }
 
     /**
@@ -38,6 +45,85 @@ public abstract class Connection {
      */
     public abstract void close();
 
+    /**
+     * Returns the number of messages that have been dropped because of the overflow policy
+     * {@link OverflowPolicy#DROP_OLDEST}.
+     *
+     * @return the number of dropped messages
+     *
+     * @since 2.2
+     */
+    public final long getDroppedMessageCount() {
+        final OutboundQueue queue = getOutboundQueue();
+        if (queue == null) {
+            return 0;
+        }
+        else {
+            return queue.getDroppedCount();
+        }
+    }
+
+    /**
+     * Returns the maximum number of bytes that may wait to be sent before the overflow policy is applied. The default
+     * is one megabyte.
+     *
+     * @return the high-water mark in bytes
+     *
+     * @see #setHighWaterMark(int)
+     * @since 2.2
+     */
+    public final int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Returns the number of bytes that have been sent with {@link #sendLine(java.lang.String)} or
+     * {@link #sendData(ch.jeda.Data)}, but have not been written to the network yet.
+     *
+     * @return the number of bytes not yet written to the network
+     *
+     * @since 2.2
+     */
+    public final long getOutboundByteCount() {
+        final OutboundQueue queue = getOutboundQueue();
+        if (queue == null) {
+            return 0;
+        }
+        else {
+            return queue.getByteCount();
+        }
+    }
+
+    /**
+     * Returns the number of messages that wait to be sent.
+     *
+     * @return the number of messages that wait to be sent
+     *
+     * @since 2.2
+     */
+    public final int getOutboundQueueSize() {
+        final OutboundQueue queue = getOutboundQueue();
+        if (queue == null) {
+            return 0;
+        }
+        else {
+            return queue.size();
+        }
+    }
+
+    /**
+     * Returns what happens if more bytes wait to be sent than the high-water mark allows. The default is
+     * {@link OverflowPolicy#DROP_OLDEST}.
+     *
+     * @return the overflow policy
+     *
+     * @see #setOverflowPolicy(ch.jeda.OverflowPolicy)
+     * @since 2.2
+     */
+    public final OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
     /**
      * Returns a unique address of the remote endpoint of the connection. The form of the address depends of the type of
      * connection. Returns <code>null</code> if no connection has yet been established.
@@ -58,13 +144,14 @@ public abstract class Connection {
     public abstract boolean isOpen();
 
     /**
-     * Sends a data object to the remote endpoint. Has no effect if the connection is not open.
+     * Sends a data object to the remote endpoint. Has no effect if the connection is not open. By default, the data
+     * object is sent as a line of text. Connections that support a more compact encoding override this method.
      *
      * @param data the data object to send
      *
      * @since 1.4
      */
-    public final void sendData(final Data data) {
+    public void sendData(final Data data) {
         sendLine(data.toLine());
     }
 
@@ -76,4 +163,51 @@ public abstract class Connection {
      * @since 1.4
      */
     public abstract void sendLine(final String line);
+
+    /**
+     * Sets the maximum number of bytes that may wait to be sent before the overflow policy is applied.
+     *
+     * @param highWaterMark the high-water mark in bytes
+     * @throws IllegalArgumentException if <tt>highWaterMark</tt> is not positive
+     *
+     * @since 2.2
+     */
+    public final void setHighWaterMark(final int highWaterMark) {
+        if (highWaterMark <= 0) {
+            throw new IllegalArgumentException("highWaterMark");
+        }
+
+        this.highWaterMark = highWaterMark;
+    }
+
+    /**
+     * Sets what happens if more bytes wait to be sent than the high-water mark allows. The default is
+     * {@link OverflowPolicy#DROP_OLDEST}.
+     *
+     * @param overflowPolicy the overflow policy
+     * @throws NullPointerException if <tt>overflowPolicy</tt> is <tt>null</tt>
+     *
+     * @since 2.2
+     */
+    public final void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+        if (overflowPolicy == null) {
+            throw new NullPointerException("overflowPolicy");
+        }
+
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Returns the queue of messages waiting to be sent. Returns <tt>null</tt> if the connection does not queue
+     * messages.
+     */
+    OutboundQueue getOutboundQueue() {
+        return null;
+    }
+
+    /**
+     * Called by the decoder when the remote endpoint has announced that it understands compressed streams.
+     */
+    void peerCompressionAnnounced() {
+    }
 }
@@ -17,32 +17,13 @@
 package ch.jeda;
 
 import ch.jeda.event.Key;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.StringReader;
-import java.io.StringWriter;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.SortedSet;
+import java.text.ParseException;
+import java.util.List;
 import java.util.TreeSet;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 /**
  * Stores named values of different types. Each value is identified by a unique {@link java.lang.String} called
@@ -50,10 +31,11 @@ import org.xml.sax.SAXException;
  * a network.
  *
  * @since 1.2
- * @version 3
+ * @version 4
  */
 public class Data {
 
+    static final String ROOT_NAME = "data";
     private static final boolean DEFAULT_BOOLEAN = false;
     private static final double DEFAULT_DOUBLE = 0.0;
     private static final float DEFAULT_FLOAT = 0f;
@@ -61,11 +43,11 @@ public class Data {
     private static final Key DEFAULT_KEY = Key.UNDEFINED;
     private static final String DEFAULT_STRING = null;
     private static final char NEW_LINE = 0x0085;
+    private static final String ANY_NAME = "*";
     private static final char LINE_SEPARATOR = 0x2028;
     private static final char PARAGRAPH_SEPARATOR = 0x2029;
 
-    private Document document;
-    private Element element;
+    private final DataNode node;
 
     /**
      * Constructs an empty data object.
@@ -73,17 +55,23 @@ public class Data {
      * @since 1.2
      */
     public Data() {
-        final DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder;
-        try {
-            builder = dbf.newDocumentBuilder();
-            document = builder.newDocument();
-            element = document.createElement("data");
-            document.appendChild(element);
-        }
-        catch (final ParserConfigurationException ex) {
-            throw new RuntimeException(ex);
+        node = new DataNode(ROOT_NAME);
+    }
+
+    /**
+     * Constructs a copy of a data object. Changes to the copy do not affect the original and vice versa.
+     *
+     * @param data the data object to copy
+     * @throws NullPointerException if <code>data</code> is <code>null</code>
+     *
+     * @since 2.2
+     */
+    public Data(final Data data) {
+        if (data == null) {
+            throw new NullPointerException("data");
         }
+
+        node = data.node.copy();
     }
 
     /**
@@ -94,26 +82,11 @@ public class Data {
      * @since 1.3
      */
     public Data(final String string) {
-        final DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder;
-        try {
-            builder = dbf.newDocumentBuilder();
-            document = builder.parse(new InputSource(new StringReader(string)));
-            element = document.getDocumentElement();
-        }
-
-        catch (SAXException ex) {
-        }
-        catch (IOException ex) {
-        }
-        catch (final ParserConfigurationException ex) {
-            throw new RuntimeException(ex);
-        }
+        node = parse(string);
     }
 
-    private Data(final Document document, final Element element) {
-        this.document = document;
-        this.element = element;
+    Data(final DataNode node) {
+        this.node = node;
     }
 
     /**
@@ -122,7 +95,7 @@ public class Data {
      * @since 1.2
      */
     public void clear() {
-        remove("*");
+        node.clear();
     }
 
     /**
@@ -133,14 +106,7 @@ public class Data {
      * @since 1.2
      */
     public String[] getNames() {
-        final SortedSet<String> names = new TreeSet<String>();
-        final Node child = this.element.getFirstChild();
-        while (child != null) {
-            if (child.getNodeType() == Node.ELEMENT_NODE) {
-                names.add(child.getLocalName());
-            }
-        }
-
+        final TreeSet<String> names = new TreeSet<String>(node.getNames());
         return names.toArray(new String[names.size()]);
     }
 
@@ -153,7 +119,7 @@ public class Data {
      * @since 1.2
      */
     public boolean hasValue(final String name) {
-        return element.getElementsByTagName(name).getLength() > 0;
+        return node.getFirst(name) != null;
     }
 
     /**
@@ -164,14 +130,7 @@ public class Data {
      * @since 1.2
      */
     public boolean isEmpty() {
-        final Node child = this.element.getFirstChild();
-        while (child != null) {
-            if (child.getNodeType() == Node.ELEMENT_NODE) {
-                return false;
-            }
-        }
-
-        return true;
+        return !node.hasChildren();
     }
 
     /**
@@ -198,12 +157,12 @@ public class Data {
      * @since 1.2
      */
     public final boolean readBoolean(final String name, final boolean defaultValue) {
-        final Node child = getFirstElementByTagName(name);
+        final DataNode child = node.getFirst(name);
         if (child == null) {
             return defaultValue;
         }
         else {
-            return Convert.toBoolean(child.getTextContent(), defaultValue);
+            return child.getBoolean(defaultValue);
         }
     }
 
@@ -231,10 +190,10 @@ public class Data {
      * @since 1.2
      */
     public boolean[] readBooleans(final String name, final boolean defaultValue) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        final boolean[] result = new boolean[nodes.getLength()];
+        final List<DataNode> nodes = node.get(name);
+        final boolean[] result = new boolean[nodes.size()];
         for (int i = 0; i < result.length; ++i) {
-            result[i] = Convert.toBoolean(nodes.item(i).getTextContent(), defaultValue);
+            result[i] = nodes.get(i).getBoolean(defaultValue);
         }
 
         return result;
@@ -264,12 +223,12 @@ public class Data {
      * @since 1.2
      */
     public final double readDouble(final String name, final double defaultValue) {
-        final Node child = getFirstElementByTagName(name);
+        final DataNode child = node.getFirst(name);
         if (child == null) {
             return defaultValue;
         }
         else {
-            return Convert.toDouble(child.getTextContent(), defaultValue);
+            return child.getDouble(defaultValue);
         }
     }
 
@@ -297,10 +256,10 @@ public class Data {
      * @since 1.2
      */
     public double[] readDoubles(final String name, final double defaultValue) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        final double[] result = new double[nodes.getLength()];
+        final List<DataNode> nodes = node.get(name);
+        final double[] result = new double[nodes.size()];
         for (int i = 0; i < result.length; ++i) {
-            result[i] = Convert.toDouble(nodes.item(i).getTextContent(), defaultValue);
+            result[i] = nodes.get(i).getDouble(defaultValue);
         }
 
         return result;
@@ -330,12 +289,12 @@ public class Data {
      * @since 2.0
      */
     public final float readFloat(final String name, final float defaultValue) {
-        final Node child = getFirstElementByTagName(name);
+        final DataNode child = node.getFirst(name);
         if (child == null) {
             return defaultValue;
         }
         else {
-            return Convert.toFloat(child.getTextContent(), defaultValue);
+            return child.getFloat(defaultValue);
         }
     }
 
@@ -363,10 +322,10 @@ public class Data {
      * @since 2.0
      */
     public float[] readFloats(final String name, final float defaultValue) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        final float[] result = new float[nodes.getLength()];
+        final List<DataNode> nodes = node.get(name);
+        final float[] result = new float[nodes.size()];
         for (int i = 0; i < result.length; ++i) {
-            result[i] = Convert.toFloat(nodes.item(i).getTextContent(), defaultValue);
+            result[i] = nodes.get(i).getFloat(defaultValue);
         }
 
         return result;
@@ -396,12 +355,12 @@ public class Data {
      * @since 1.2
      */
     public final int readInt(final String name, final int defaultValue) {
-        final Node child = getFirstElementByTagName(name);
+        final DataNode child = node.getFirst(name);
         if (child == null) {
             return defaultValue;
         }
         else {
-            return Convert.toInt(child.getTextContent(), defaultValue);
+            return child.getInt(defaultValue);
         }
     }
 
@@ -429,10 +388,10 @@ public class Data {
      * @since 1.2
      */
     public int[] readInts(final String name, final int defaultValue) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        final int[] result = new int[nodes.getLength()];
+        final List<DataNode> nodes = node.get(name);
+        final int[] result = new int[nodes.size()];
         for (int i = 0; i < result.length; ++i) {
-            result[i] = Convert.toInt(nodes.item(i).getTextContent(), defaultValue);
+            result[i] = nodes.get(i).getInt(defaultValue);
         }
 
         return result;
@@ -463,17 +422,12 @@ public class Data {
      * @since 1.2
      */
     public Key readKey(final String name, final Key defaultValue) {
-        final Node child = getFirstElementByTagName(name);
+        final DataNode child = node.getFirst(name);
         if (child == null) {
             return defaultValue;
         }
 
-        try {
-            return Key.valueOf(child.getTextContent());
-        }
-        catch (final IllegalArgumentException ex) {
-            return defaultValue;
-        }
+        return child.getKey(defaultValue);
     }
 
     /**
@@ -500,15 +454,10 @@ public class Data {
      * @since 1.2
      */
     public Key[] readKeys(final String name, final Key defaultValue) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        final Key[] result = new Key[nodes.getLength()];
+        final List<DataNode> nodes = node.get(name);
+        final Key[] result = new Key[nodes.size()];
         for (int i = 0; i < result.length; ++i) {
-            try {
-                result[i] = Key.valueOf(nodes.item(i).getTextContent());
-            }
-            catch (final IllegalArgumentException ex) {
-                result[i] = defaultValue;
-            }
+            result[i] = nodes.get(i).getKey(defaultValue);
         }
 
         return result;
@@ -531,44 +480,31 @@ public class Data {
     /**
      * Reads an {@link ch.jeda.Storable} object with the specified name. Creates a new object from the information
      * stored in this data. Returns <code>defaultValue</code>, there is no valid object associated with the name.
+     * <p>
+     * The object is created by the {@link ch.jeda.Factory} registered for its class. Without a registered factory, the
+     * class must have a public constructor with a single {@link ch.jeda.Data} parameter.
      *
      * @param <T> the class of the object to return
      * @param name the name of the object to retrieve
      * @param defaultValue the default value
      * @return the {@link ch.jeda.Storable} object associated with the name or <code>defaultValue</code>
      *
+     * @see FactoryRegistry
      * @since 1.2
      */
     @SuppressWarnings("unchecked")
     public <T extends Storable> T readObject(final String name, final T defaultValue) {
-        final Element child = (Element) getFirstElementByTagName(name);
-        final String className = child.getAttribute("class");
-        try {
-            final Class clazz = Class.forName(className);
-            final Constructor ctor = clazz.getConstructor(Data.class);
-            ctor.setAccessible(true);
-            return (T) ctor.newInstance(new Data(document, child));
-        }
-        catch (final NoSuchMethodException ex) {
-            Log.e(ex, "Error while reading serialized data: Class '", className, "' does not have a matching constructor.");
-        }
-        catch (final ClassNotFoundException ex) {
-            Log.e(ex, "Error while reading serialized data: Class '", className, "' not found.");
-        }
-        catch (final InstantiationException ex) {
-            Log.e(ex, "Error while reading serialized data: Cannot create object of class '", className, "'.");
-        }
-        catch (final IllegalAccessException ex) {
-            Log.e(ex, "Error while reading serialized data: Constructor of class '", className, "' is not public.");
-        }
-        catch (final ExceptionInInitializerError ex) {
-            Log.e(ex.getCause(), "Error while reading serialized data: Error while initializing class '", className, "'.");
+        final DataNode child = node.getFirst(name);
+        if (child == null || child.getClassName() == null) {
+            return defaultValue;
         }
-        catch (final InvocationTargetException ex) {
-            Log.w(ex.getCause(), "Error while reading serialized data: Error while creating object of class '", className, "'.");
+
+        final Storable result = FactoryRegistry.create(child.getClassName(), Storable.class, new Data(child), true);
+        if (result == null) {
+            return defaultValue;
         }
 
-        return defaultValue;
+        return (T) result;
     }
 
     /**
@@ -595,12 +531,12 @@ public class Data {
      * @since 1.2
      */
     public String readString(final String name, final String defaultValue) {
-        final Node child = getFirstElementByTagName(name);
+        final DataNode child = node.getFirst(name);
         if (child == null) {
             return defaultValue;
         }
 
-        return unescape(child.getTextContent());
+        return unescape(child.getText());
     }
 
     /**
@@ -627,10 +563,10 @@ public class Data {
      * @since 1.2
      */
     public String[] readStrings(final String name, final String defaultValue) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        final String[] result = new String[nodes.getLength()];
+        final List<DataNode> nodes = node.get(name);
+        final String[] result = new String[nodes.size()];
         for (int i = 0; i < result.length; ++i) {
-            result[i] = unescape(nodes.item(i).getTextContent());
+            result[i] = unescape(nodes.get(i).getText());
         }
 
         return result;
@@ -644,9 +580,11 @@ public class Data {
      * @since 1.2
      */
     public void remove(final String name) {
-        final NodeList nodes = element.getElementsByTagName(name);
-        for (int i = 0; i < nodes.getLength(); ++i) {
-            element.removeChild(nodes.item(i));
+        if (ANY_NAME.equals(name)) {
+            node.clear();
+        }
+        else {
+            node.remove(name);
         }
     }
 
@@ -658,10 +596,10 @@ public class Data {
      * @since 2.0
      */
     public void save(final String path) {
-        FileWriter writer = null;
+        Writer writer = null;
         try {
-            writer = new FileWriter(path);
-            serialize(writer, true);
+            writer = new OutputStreamWriter(new FileOutputStream(path), "UTF-8");
+            writer.write(new DataWriter(true).write(node));
         }
         catch (final IOException ex) {
             throw new RuntimeException(ex);
@@ -686,9 +624,7 @@ public class Data {
      * @since 1.3
      */
     public String toLine() {
-        final StringWriter writer = new StringWriter();
-        serialize(writer, false);
-        return writer.toString();
+        return new DataWriter(false).write(node);
     }
 
     @Override
@@ -712,7 +648,7 @@ public class Data {
         }
 
         remove(name);
-        addElement(name, Convert.toString(value));
+        addElement(name, value);
     }
 
     /**
@@ -736,7 +672,7 @@ public class Data {
 
         remove(name);
         for (int i = 0; i < values.length; ++i) {
-            addElement(name, Convert.toString(values[i]));
+            addElement(name, values[i]);
         }
     }
 
@@ -756,7 +692,7 @@ public class Data {
         }
 
         remove(name);
-        addElement(name, Convert.toString(value));
+        addElement(name, value);
     }
 
     /**
@@ -780,7 +716,7 @@ public class Data {
 
         remove(name);
         for (int i = 0; i < values.length; ++i) {
-            addElement(name, Convert.toString(values[i]));
+            addElement(name, values[i]);
         }
     }
 
@@ -800,7 +736,7 @@ public class Data {
         }
 
         remove(name);
-        addElement(name, Convert.toString(value));
+        addElement(name, value);
     }
 
     /**
@@ -824,7 +760,7 @@ public class Data {
 
         remove(name);
         for (int i = 0; i < values.length; ++i) {
-            addElement(name, Convert.toString(values[i]));
+            addElement(name, values[i]);
         }
     }
 
@@ -844,7 +780,7 @@ public class Data {
         }
 
         remove(name);
-        addElement(name, Convert.toString(value));
+        addElement(name, value);
     }
 
     /**
@@ -868,7 +804,7 @@ public class Data {
 
         remove(name);
         for (int i = 0; i < values.length; ++i) {
-            addElement(name, Convert.toString(values[i]));
+            addElement(name, values[i]);
         }
     }
 
@@ -889,7 +825,7 @@ public class Data {
         }
 
         remove(name);
-        addElement(name, value.toString());
+        addElement(name, value);
     }
 
     /**
@@ -913,7 +849,7 @@ public class Data {
 
         remove(name);
         for (int i = 0; i < values.length; ++i) {
-            addElement(name, values[i].toString());
+            addElement(name, values[i]);
         }
     }
 
@@ -1003,50 +939,50 @@ public class Data {
         }
     }
 
-    private Node getFirstElementByTagName(final String name) {
-        NodeList nodes = element.getElementsByTagName(name);
-        if (nodes.getLength() > 0) {
-            return nodes.item(0);
-        }
-        else {
-            return null;
-        }
+    DataNode getNode() {
+        return node;
     }
 
-    private void addElement(final String name, final String content) {
-        final Element newElement = document.createElement(name);
-        newElement.setTextContent(content);
-        element.appendChild(newElement);
+    private void addElement(final String name, final Object value) {
+        node.add(new DataNode(checkName(name), value));
     }
 
     private void doWriteObject(final String name, final Storable value) {
         if (value != null) {
-            final Element newElement = document.createElement(name);
-            newElement.setAttribute("class", value.getClass().getName());
-            element.appendChild(newElement);
-            value.writeTo(new Data(document, newElement));
+            final DataNode child = new DataNode(checkName(name));
+            child.setClassName(value.getClass().getName());
+            node.add(child);
+            value.writeTo(new Data(child));
         }
     }
 
-    private void serialize(final Writer writer, final boolean multiline) {
-        try {
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-            if (multiline) {
-                transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
-                transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            }
-            else {
-                transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-                transformer.setOutputProperty(OutputKeys.INDENT, "no");
+    private static String checkName(final String name) {
+        if (name.length() == 0) {
+            throw new IllegalArgumentException("name");
+        }
+
+        final char first = name.charAt(0);
+        if (!Character.isLetter(first) && first != '_' && first != ':') {
+            throw new IllegalArgumentException("name");
+        }
+
+        for (int i = 1; i < name.length(); ++i) {
+            final char ch = name.charAt(i);
+            if (!Character.isLetterOrDigit(ch) && ch != '_' && ch != ':' && ch != '-' && ch != '.') {
+                throw new IllegalArgumentException("name");
             }
+        }
+
+        return name;
+    }
 
-            Result output = new StreamResult(writer);
-            Source input = new DOMSource(document);
-            transformer.transform(input, output);
+    private static DataNode parse(final String string) {
+        try {
+            return new DataReader(string).read();
         }
-        catch (TransformerException ex) {
-            throw new RuntimeException(ex);
+        catch (final ParseException ex) {
+            Log.w("Error while parsing data: ", ex.getMessage());
+            return new DataNode(ROOT_NAME);
         }
     }
 
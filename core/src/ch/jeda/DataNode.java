@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.event.Key;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A node of the tree behind a {@link Data} object. A node has either a value or child nodes. Child nodes are grouped by
+ * name in the order in which their names have first been added, so that all values of a name can be found in constant
+ * time. Values keep their native type (<tt>String</tt>, <tt>Integer</tt>, <tt>Float</tt>, <tt>Double</tt>,
+ * <tt>Boolean</tt> or {@link Key}) so that they can be encoded without a detour over text.
+ */
+final class DataNode {
+
+    private final String name;
+    private String className;
+    private Map<String, List<DataNode>> children;
+    private Object value;
+
+    DataNode(final String name) {
+        this.name = name;
+    }
+
+    DataNode(final String name, final Object value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    void add(final DataNode child) {
+        if (children == null) {
+            children = new LinkedHashMap<String, List<DataNode>>();
+        }
+
+        List<DataNode> group = children.get(child.name);
+        if (group == null) {
+            group = new ArrayList<DataNode>(1);
+            children.put(child.name, group);
+        }
+
+        group.add(child);
+    }
+
+    /**
+     * Checks if this node and the specified node have the same class name, value and child nodes. The names of the
+     * nodes themselves are not compared.
+     */
+    boolean contentEquals(final DataNode other) {
+        if (this == other) {
+            return true;
+        }
+
+        if (!equal(className, other.className) || !equal(value, other.value) ||
+            hasChildren() != other.hasChildren()) {
+            return false;
+        }
+
+        if (!hasChildren()) {
+            return true;
+        }
+
+        if (!children.keySet().equals(other.children.keySet())) {
+            return false;
+        }
+
+        for (final Map.Entry<String, List<DataNode>> entry : children.entrySet()) {
+            if (!contentEquals(entry.getValue(), other.children.get(entry.getKey()))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    void clear() {
+        if (children != null) {
+            children.clear();
+        }
+    }
+
+    /**
+     * Returns a deep copy of this node. Values are immutable and shared by the copy.
+     */
+    DataNode copy() {
+        final DataNode result = new DataNode(name, value);
+        result.className = className;
+        if (children != null) {
+            result.children = new LinkedHashMap<String, List<DataNode>>();
+            for (final Map.Entry<String, List<DataNode>> entry : children.entrySet()) {
+                final List<DataNode> group = new ArrayList<DataNode>(entry.getValue().size());
+                for (final DataNode child : entry.getValue()) {
+                    group.add(child.copy());
+                }
+
+                result.children.put(entry.getKey(), group);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns all child nodes with the specified name or an empty list.
+     */
+    List<DataNode> get(final String name) {
+        if (children == null) {
+            return Collections.emptyList();
+        }
+
+        final List<DataNode> result = children.get(name);
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        else {
+            return result;
+        }
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    DataNode getFirst(final String name) {
+        if (children == null) {
+            return null;
+        }
+
+        final List<DataNode> group = children.get(name);
+        if (group == null) {
+            return null;
+        }
+        else {
+            return group.get(0);
+        }
+    }
+
+    /**
+     * Returns the groups of child nodes, each group containing all child nodes with the same name.
+     */
+    Collection<List<DataNode>> getGroups() {
+        if (children == null) {
+            return Collections.emptyList();
+        }
+        else {
+            return children.values();
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Set<String> getNames() {
+        if (children == null) {
+            return Collections.emptySet();
+        }
+        else {
+            return children.keySet();
+        }
+    }
+
+    boolean getBoolean(final boolean defaultValue) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        else {
+            return Convert.toBoolean(getText(), defaultValue);
+        }
+    }
+
+    double getDouble(final double defaultValue) {
+        if (value instanceof Double || value instanceof Float || value instanceof Integer) {
+            return ((Number) value).doubleValue();
+        }
+        else {
+            return Convert.toDouble(getText(), defaultValue);
+        }
+    }
+
+    float getFloat(final float defaultValue) {
+        if (value instanceof Double || value instanceof Float || value instanceof Integer) {
+            return ((Number) value).floatValue();
+        }
+        else {
+            return Convert.toFloat(getText(), defaultValue);
+        }
+    }
+
+    int getInt(final int defaultValue) {
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        else {
+            return Convert.toInt(getText(), defaultValue);
+        }
+    }
+
+    Key getKey(final Key defaultValue) {
+        if (value instanceof Key) {
+            return (Key) value;
+        }
+
+        try {
+            return Key.valueOf(getText());
+        }
+        catch (final IllegalArgumentException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Returns the value of this node as text. Returns an empty string if the node has no value.
+     */
+    String getText() {
+        if (value == null) {
+            return "";
+        }
+        else if (value instanceof String) {
+            return (String) value;
+        }
+        else if (value instanceof Integer) {
+            return value.toString();
+        }
+        else if (value instanceof Number) {
+            // Floats are formatted as doubles, as they always have been.
+            return String.valueOf(((Number) value).doubleValue());
+        }
+        else if (value instanceof Boolean) {
+            return Convert.toString((Boolean) value);
+        }
+        else {
+            return value.toString();
+        }
+    }
+
+    Object getValue() {
+        return value;
+    }
+
+    boolean hasChildren() {
+        return children != null && !children.isEmpty();
+    }
+
+    boolean hasText() {
+        return value != null && !(value instanceof String && ((String) value).isEmpty());
+    }
+
+    void remove(final String name) {
+        if (children != null) {
+            children.remove(name);
+        }
+    }
+
+    void setClassName(final String className) {
+        this.className = className;
+    }
+
+    void setValue(final Object value) {
+        this.value = value;
+    }
+
+    /**
+     * Checks if the two lists contain nodes with equal content in the same order.
+     */
+    static boolean contentEquals(final List<DataNode> nodes1, final List<DataNode> nodes2) {
+        if (nodes1.size() != nodes2.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < nodes1.size(); ++i) {
+            if (!nodes1.get(i).contentEquals(nodes2.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean equal(final Object a, final Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
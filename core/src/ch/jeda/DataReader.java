@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+
+/**
+ * Parses the XML format written by {@link DataWriter} into a tree of {@link DataNode} objects. The parser works in a
+ * single pass over the input and does not build a DOM. It supports the subset of XML that is needed for data objects:
+ * elements, attributes, character and entity references, CDATA sections, comments and processing instructions.
+ * Document type declarations are skipped.
+ */
+final class DataReader {
+
+    private static final char BYTE_ORDER_MARK = 0xfeff;
+    private static final String CLASS_ATTRIBUTE = "class";
+    private final String input;
+    private final int length;
+    private final StringBuilder text;
+    private int pos;
+
+    DataReader(final String input) {
+        this.input = input;
+        length = input.length();
+        text = new StringBuilder();
+    }
+
+    /**
+     * Parses the input and returns the root node.
+     *
+     * @throws ParseException if the input is not well-formed
+     */
+    DataNode read() throws ParseException {
+        pos = 0;
+        if (length > 0 && input.charAt(0) == BYTE_ORDER_MARK) {
+            ++pos;
+        }
+
+        skipMisc();
+        if (pos >= length || input.charAt(pos) != '<') {
+            throw error("Root element expected");
+        }
+
+        final ArrayList<DataNode> stack = new ArrayList<DataNode>();
+        DataNode root = readStartTag(stack);
+        while (!stack.isEmpty()) {
+            if (pos >= length) {
+                throw error("Unexpected end of input");
+            }
+
+            final char ch = input.charAt(pos);
+            if (ch != '<') {
+                readCharacters();
+            }
+            else if (input.startsWith("</", pos)) {
+                readEndTag(stack);
+            }
+            else if (input.startsWith("<!--", pos)) {
+                skipPast("-->");
+            }
+            else if (input.startsWith("<![CDATA[", pos)) {
+                pos += 9;
+                final int end = input.indexOf("]]>", pos);
+                if (end < 0) {
+                    throw error("Unterminated CDATA section");
+                }
+
+                text.append(input, pos, end);
+                pos = end + 3;
+            }
+            else if (input.startsWith("<?", pos)) {
+                skipPast("?>");
+            }
+            else {
+                readStartTag(stack);
+            }
+        }
+
+        skipMisc();
+        if (pos < length) {
+            throw error("Unexpected content after root element");
+        }
+
+        return root;
+    }
+
+    private ParseException error(final String message) {
+        return new ParseException(message + " at position " + pos + ".", pos);
+    }
+
+    private boolean isNameChar(final char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == ':' || ch == '-' || ch == '.';
+    }
+
+    private void readCharacters() throws ParseException {
+        while (pos < length) {
+            final char ch = input.charAt(pos);
+            if (ch == '<') {
+                return;
+            }
+            else if (ch == '&') {
+                readReference();
+            }
+            else {
+                text.append(ch);
+                ++pos;
+            }
+        }
+    }
+
+    private void readEndTag(final ArrayList<DataNode> stack) throws ParseException {
+        pos += 2;
+        final String name = readName();
+        skipWhitespace();
+        expect('>');
+        final DataNode node = stack.remove(stack.size() - 1);
+        if (!node.getName().equals(name)) {
+            throw error("End tag '" + name + "' does not match start tag '" + node.getName() + "'");
+        }
+
+        if (!node.hasChildren()) {
+            node.setValue(text.toString());
+        }
+
+        text.setLength(0);
+    }
+
+    private String readName() throws ParseException {
+        final int start = pos;
+        while (pos < length && isNameChar(input.charAt(pos))) {
+            ++pos;
+        }
+
+        if (pos == start) {
+            throw error("Name expected");
+        }
+
+        return input.substring(start, pos);
+    }
+
+    private void readReference() throws ParseException {
+        final int end = input.indexOf(';', pos);
+        if (end < 0) {
+            throw error("Unterminated reference");
+        }
+
+        final String name = input.substring(pos + 1, end);
+        if (name.equals("lt")) {
+            text.append('<');
+        }
+        else if (name.equals("gt")) {
+            text.append('>');
+        }
+        else if (name.equals("amp")) {
+            text.append('&');
+        }
+        else if (name.equals("quot")) {
+            text.append('"');
+        }
+        else if (name.equals("apos")) {
+            text.append('\'');
+        }
+        else if (name.startsWith("#")) {
+            try {
+                final int codePoint;
+                if (name.startsWith("#x")) {
+                    codePoint = Integer.parseInt(name.substring(2), 16);
+                }
+                else {
+                    codePoint = Integer.parseInt(name.substring(1));
+                }
+
+                text.appendCodePoint(codePoint);
+            }
+            catch (final IllegalArgumentException ex) {
+                throw error("Invalid character reference");
+            }
+        }
+        else {
+            throw error("Unknown entity '" + name + "'");
+        }
+
+        pos = end + 1;
+    }
+
+    private DataNode readStartTag(final ArrayList<DataNode> stack) throws ParseException {
+        ++pos;
+        final DataNode node = new DataNode(readName());
+        if (!stack.isEmpty()) {
+            stack.get(stack.size() - 1).add(node);
+        }
+
+        text.setLength(0);
+        while (true) {
+            skipWhitespace();
+            if (pos >= length) {
+                throw error("Unexpected end of input");
+            }
+
+            final char ch = input.charAt(pos);
+            if (ch == '>') {
+                ++pos;
+                stack.add(node);
+                return node;
+            }
+            else if (ch == '/') {
+                ++pos;
+                expect('>');
+                return node;
+            }
+
+            final String attributeName = readName();
+            skipWhitespace();
+            expect('=');
+            skipWhitespace();
+            if (pos >= length) {
+                throw error("Unexpected end of input");
+            }
+
+            final char quote = input.charAt(pos);
+            if (quote != '"' && quote != '\'') {
+                throw error("Quoted attribute value expected");
+            }
+
+            ++pos;
+            while (pos < length && input.charAt(pos) != quote) {
+                if (input.charAt(pos) == '&') {
+                    readReference();
+                }
+                else {
+                    text.append(input.charAt(pos));
+                    ++pos;
+                }
+            }
+
+            expect(quote);
+            if (CLASS_ATTRIBUTE.equals(attributeName)) {
+                node.setClassName(text.toString());
+            }
+
+            text.setLength(0);
+        }
+    }
+
+    private void expect(final char ch) throws ParseException {
+        if (pos >= length || input.charAt(pos) != ch) {
+            throw error("'" + ch + "' expected");
+        }
+
+        ++pos;
+    }
+
+    /**
+     * Skips whitespace, comments, processing instructions and document type declarations outside of the root element.
+     */
+    private void skipMisc() throws ParseException {
+        while (true) {
+            skipWhitespace();
+            if (input.startsWith("<?", pos)) {
+                skipPast("?>");
+            }
+            else if (input.startsWith("<!--", pos)) {
+                skipPast("-->");
+            }
+            else if (input.startsWith("<!DOCTYPE", pos)) {
+                skipPast(">");
+            }
+            else {
+                return;
+            }
+        }
+    }
+
+    private void skipPast(final String terminator) throws ParseException {
+        final int end = input.indexOf(terminator, pos);
+        if (end < 0) {
+            throw error("'" + terminator + "' expected");
+        }
+
+        pos = end + terminator.length();
+    }
+
+    private void skipWhitespace() {
+        while (pos < length && Character.isWhitespace(input.charAt(pos))) {
+            ++pos;
+        }
+    }
+}
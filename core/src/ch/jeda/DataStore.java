@@ -0,0 +1,710 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * Represents a persistent store of {@link ch.jeda.Data} objects, each stored under a key. In contrast to
+ * {@link ch.jeda.Data#save(java.lang.String)}, the store does not rewrite the complete file when something changes.
+ * Every change is appended to the file as a checksummed record, so that the cost of saving depends only on what has
+ * changed. Storing a data object that is equal to the stored one does not write anything. Store each part of a game
+ * world under its own key and autosave by storing all parts regularly.
+ * <p>
+ * Records that have not been written completely, e.g. because the program has crashed while writing, are detected and
+ * discarded when the store is opened again. The file is compacted in the background when most of it consists of
+ * outdated records. Changes reach the disk eventually, call {@link #sync()} to make sure that they have been written.
+ * This class is thread-safe.
+ *
+ * @since 2.2
+ */
+public final class DataStore {
+
+    private static final int COMPACT_MIN_SIZE = 1024 * 1024;
+    private static final byte[] MAGIC = {'J', 'E', 'D', 'A', 'S', 'T', 'O', 'R', 'E', 1};
+    private static final int MAX_KEY_LENGTH = 0xffff;
+    private static final int RECORD_HEADER_SIZE = 11;
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_REMOVE = 2;
+    private final File file;
+    private final Map<String, Record> index;
+    private final Object lock;
+    private FileChannel channel;
+    private boolean compacting;
+    private long end;
+    private long liveSize;
+    private MappedByteBuffer mapping;
+    private RandomAccessFile randomAccessFile;
+
+    /**
+     * Opens the store in the specified file. Creates the file if it does not exist. Records that have not been
+     * written completely are discarded.
+     *
+     * @param path the path of the file
+     * @throws NullPointerException if <tt>path</tt> is <tt>null</tt>
+     * @throws RuntimeException if the file cannot be read or written or is not a data store
+     *
+     * @since 2.2
+     */
+    public DataStore(final String path) {
+        if (path == null) {
+            throw new NullPointerException("path");
+        }
+
+        file = new File(path);
+        index = new HashMap<String, Record>();
+        lock = new Object();
+        recoverCompaction(file);
+        try {
+            open();
+        }
+        catch (final IOException ex) {
+            closeFile();
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Closes the store. Writes all changes to the disk. Has no effect if the store has already been closed.
+     *
+     * @since 2.2
+     */
+    public void close() {
+        synchronized (lock) {
+            while (compacting) {
+                try {
+                    lock.wait();
+                }
+                catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            if (channel != null) {
+                try {
+                    channel.force(false);
+                }
+                catch (final IOException ex) {
+                    Log.w(ex, "Error while writing data store '", file, "'.");
+                }
+
+                closeFile();
+            }
+        }
+    }
+
+    /**
+     * Compacts the file of the store. Removes all records that have been replaced or removed. The store remains
+     * usable while it is compacted.
+     *
+     * @since 2.2
+     */
+    public void compact() {
+        synchronized (lock) {
+            if (channel == null || compacting) {
+                return;
+            }
+
+            compacting = true;
+        }
+
+        try {
+            doCompact();
+        }
+        finally {
+            synchronized (lock) {
+                compacting = false;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Checks if a data object is stored under the specified key.
+     *
+     * @param key the key
+     * @return <tt>true</tt> if a data object is stored under the key, otherwise <tt>false</tt>
+     *
+     * @since 2.2
+     */
+    public boolean contains(final String key) {
+        synchronized (lock) {
+            return index.containsKey(key);
+        }
+    }
+
+    /**
+     * Returns a copy of the data object stored under the specified key. Returns <tt>null</tt> if there is no data
+     * object stored under the key.
+     *
+     * @param key the key
+     * @return the data object stored under the key or <tt>null</tt>
+     *
+     * @since 2.2
+     */
+    public Data get(final String key) {
+        final byte[] bytes;
+        synchronized (lock) {
+            checkOpen();
+            final Record record = index.get(key);
+            if (record == null) {
+                return null;
+            }
+
+            bytes = readValue(record);
+        }
+
+        try {
+            return new Data(new BinaryDataReader().read(bytes, bytes.length));
+        }
+        catch (final IOException ex) {
+            Log.e(ex, "Error while reading '", key, "' from data store '", file, "'.");
+            return null;
+        }
+    }
+
+    /**
+     * Returns all keys under which data objects are stored.
+     *
+     * @return all keys
+     *
+     * @since 2.2
+     */
+    public String[] getKeys() {
+        synchronized (lock) {
+            final TreeSet<String> result = new TreeSet<String>(index.keySet());
+            return result.toArray(new String[result.size()]);
+        }
+    }
+
+    /**
+     * Returns the size of the file of the store in bytes.
+     *
+     * @return the size of the file in bytes
+     *
+     * @since 2.2
+     */
+    public long getFileSize() {
+        synchronized (lock) {
+            return end;
+        }
+    }
+
+    /**
+     * Stores a copy of the data object under the specified key. Replaces the data object that has been stored under
+     * the key before. Nothing is written if the data object is equal to the stored one. Removes the data object stored
+     * under the key if <tt>data</tt> is <tt>null</tt>.
+     *
+     * @param key the key
+     * @param data the data object to store
+     * @throws NullPointerException if <tt>key</tt> is <tt>null</tt>
+     * @throws IllegalArgumentException if the key is longer than 65535 bytes in UTF-8
+     *
+     * @since 2.2
+     */
+    public void put(final String key, final Data data) {
+        if (data == null) {
+            remove(key);
+            return;
+        }
+
+        final byte[] keyBytes = encodeKey(key);
+        final byte[] value = new BinaryDataWriter().toByteArray(data.getNode());
+        boolean compact = false;
+        synchronized (lock) {
+            checkOpen();
+            final Record old = index.get(key);
+            if (old != null && old.valueLength == value.length && equalsValue(old, value)) {
+                return;
+            }
+
+            final Record record = append(TYPE_PUT, keyBytes, value);
+            index.put(key, record);
+            liveSize += record.size;
+            if (old != null) {
+                liveSize -= old.size;
+                compact = needsCompaction();
+            }
+        }
+
+        if (compact) {
+            startCompaction();
+        }
+    }
+
+    /**
+     * Removes the data object stored under the specified key. Has no effect if there is no data object stored under
+     * the key.
+     *
+     * @param key the key
+     * @throws NullPointerException if <tt>key</tt> is <tt>null</tt>
+     *
+     * @since 2.2
+     */
+    public void remove(final String key) {
+        final byte[] keyBytes = encodeKey(key);
+        boolean compact = false;
+        synchronized (lock) {
+            checkOpen();
+            final Record old = index.remove(key);
+            if (old == null) {
+                return;
+            }
+
+            append(TYPE_REMOVE, keyBytes, new byte[0]);
+            liveSize -= old.size;
+            compact = needsCompaction();
+        }
+
+        if (compact) {
+            startCompaction();
+        }
+    }
+
+    /**
+     * Returns the number of data objects in the store.
+     *
+     * @return the number of data objects
+     *
+     * @since 2.2
+     */
+    public int size() {
+        synchronized (lock) {
+            return index.size();
+        }
+    }
+
+    /**
+     * Makes sure that all changes have been written to the disk.
+     *
+     * @since 2.2
+     */
+    public void sync() {
+        synchronized (lock) {
+            checkOpen();
+            try {
+                channel.force(false);
+            }
+            catch (final IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    private Record append(final byte type, final byte[] key, final byte[] value) {
+        final ByteBuffer buffer = encodeRecord(type, key, value);
+        final Record result = new Record(end, key.length, value.length);
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, end + buffer.position());
+            }
+        }
+        catch (final IOException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        end += result.size;
+        return result;
+    }
+
+    private void checkOpen() {
+        if (channel == null) {
+            throw new IllegalStateException("Data store has been closed.");
+        }
+    }
+
+    private void closeFile() {
+        unmap(mapping);
+        mapping = null;
+        if (randomAccessFile != null) {
+            try {
+                randomAccessFile.close();
+            }
+            catch (final IOException ex) {
+                // ignore
+            }
+        }
+
+        channel = null;
+        randomAccessFile = null;
+    }
+
+    private void doCompact() {
+        final File compactFile = compactFile(file);
+        final Map<String, Record> liveRecords;
+        final long compactEnd;
+        synchronized (lock) {
+            liveRecords = new HashMap<String, Record>(index);
+            compactEnd = end;
+        }
+
+        RandomAccessFile target = null;
+        try {
+            // Copy the live records without holding the lock. Records are never modified once written.
+            target = new RandomAccessFile(compactFile, "rw");
+            target.setLength(0);
+            final FileChannel targetChannel = target.getChannel();
+            targetChannel.write(ByteBuffer.wrap(MAGIC));
+            final Map<Record, Long> moved = new HashMap<Record, Long>();
+            for (final Record record : liveRecords.values()) {
+                final ByteBuffer buffer = ByteBuffer.allocate(record.size);
+                synchronized (lock) {
+                    if (channel == null) {
+                        return;
+                    }
+
+                    final ByteBuffer source = map(record.offset + record.size).duplicate();
+                    source.position((int) record.offset);
+                    source.limit((int) (record.offset + record.size));
+                    buffer.put(source);
+                }
+
+                buffer.flip();
+                moved.put(record, targetChannel.position());
+                targetChannel.write(buffer);
+            }
+
+            synchronized (lock) {
+                if (channel == null) {
+                    return;
+                }
+
+                // Copy the records appended in the meantime as they are.
+                final long tailStart = targetChannel.position();
+                final long tailSize = end - compactEnd;
+                long copied = 0;
+                while (copied < tailSize) {
+                    copied += channel.transferTo(compactEnd + copied, tailSize - copied, targetChannel);
+                }
+
+                final Map<String, Record> newIndex = new HashMap<String, Record>();
+                long newLiveSize = 0;
+                for (final Map.Entry<String, Record> entry : index.entrySet()) {
+                    final Record record = entry.getValue();
+                    final long offset;
+                    if (record.offset < compactEnd) {
+                        offset = moved.get(record);
+                    }
+                    else {
+                        offset = tailStart + record.offset - compactEnd;
+                    }
+
+                    newIndex.put(entry.getKey(), new Record(offset, record.keyLength, record.valueLength));
+                    newLiveSize += record.size;
+                }
+
+                targetChannel.force(true);
+                target.close();
+                target = null;
+                closeFile();
+                if (!compactFile.renameTo(file) && !(file.delete() && compactFile.renameTo(file))) {
+                    if (file.exists()) {
+                        Log.w("Cannot replace data store '", file, "' by compacted file.");
+                        compactFile.delete();
+                        openFile();
+                    }
+                    else {
+                        // The compacted file is the only copy left, it is recovered when the store is opened again.
+                        Log.e("Cannot replace data store '", file, "' by compacted file '", compactFile,
+                              "', the store has been closed.");
+                    }
+
+                    return;
+                }
+
+                openFile();
+                index.clear();
+                index.putAll(newIndex);
+                liveSize = newLiveSize;
+            }
+        }
+        catch (final IOException ex) {
+            Log.w(ex, "Error while compacting data store '", file, "'.");
+            synchronized (lock) {
+                if (channel == null) {
+                    try {
+                        openFile();
+                    }
+                    catch (final IOException ex2) {
+                        Log.e(ex2, "Cannot reopen data store '", file, "'.");
+                    }
+                }
+            }
+        }
+        finally {
+            if (target != null) {
+                try {
+                    target.close();
+                }
+                catch (final IOException ex) {
+                    // ignore
+                }
+
+                compactFile.delete();
+            }
+        }
+    }
+
+    private boolean equalsValue(final Record record, final byte[] value) {
+        final ByteBuffer buffer = map(record.offset + record.size).duplicate();
+        buffer.position((int) (record.offset + record.size - record.valueLength));
+        for (int i = 0; i < value.length; ++i) {
+            if (buffer.get() != value[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns a mapping of the file that covers at least the specified number of bytes.
+     */
+    private MappedByteBuffer map(final long size) {
+        if (mapping == null || mapping.capacity() < size) {
+            // All buffers are used while holding the lock only, so the old mapping can be released right away.
+            unmap(mapping);
+            mapping = null;
+            try {
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+            }
+            catch (final IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        return mapping;
+    }
+
+    private boolean needsCompaction() {
+        return !compacting && end > COMPACT_MIN_SIZE && liveSize < end / 2;
+    }
+
+    private void open() throws IOException {
+        openFile();
+        if (end == 0) {
+            channel.write(ByteBuffer.wrap(MAGIC), 0);
+            end = MAGIC.length;
+            channel.force(true);
+            return;
+        }
+
+        final ByteBuffer buffer = map(end).duplicate();
+        for (int i = 0; i < MAGIC.length; ++i) {
+            if (buffer.remaining() == 0 || buffer.get() != MAGIC[i]) {
+                throw new IOException(Convert.toString("File '", file, "' is not a data store."));
+            }
+        }
+
+        final CRC32 crc = new CRC32();
+        byte[] bytes = new byte[256];
+        long valid = buffer.position();
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            final int offset = buffer.position();
+            final int length = buffer.getInt();
+            final int checksum = buffer.getInt();
+            if (length < RECORD_HEADER_SIZE - 8 || length > buffer.remaining()) {
+                break;
+            }
+
+            final byte type = buffer.get();
+            final int keyLength = buffer.getShort() & 0xffff;
+            final int valueLength = length - 3 - keyLength;
+            if ((type != TYPE_PUT && type != TYPE_REMOVE) || valueLength < 0) {
+                break;
+            }
+
+            if (bytes.length < length) {
+                bytes = new byte[length];
+            }
+
+            buffer.position(offset + 8);
+            buffer.get(bytes, 0, length);
+            crc.reset();
+            crc.update(bytes, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            final String key = new String(bytes, 3, keyLength, BinaryDataWriter.UTF8);
+            final Record old = type == TYPE_PUT ? index.put(key, new Record(offset, keyLength, valueLength)) :
+                               index.remove(key);
+            if (old != null) {
+                liveSize -= old.size;
+            }
+
+            if (type == TYPE_PUT) {
+                liveSize += RECORD_HEADER_SIZE + keyLength + valueLength;
+            }
+
+            valid = buffer.position();
+        }
+
+        if (valid < end) {
+            Log.w("Discarding ", end - valid, " bytes of incomplete records at the end of data store '", file, "'.");
+            unmap(mapping);
+            mapping = null;
+            channel.truncate(valid);
+            end = valid;
+        }
+    }
+
+    private void openFile() throws IOException {
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        channel = randomAccessFile.getChannel();
+        end = channel.size();
+        mapping = null;
+    }
+
+    private byte[] readValue(final Record record) {
+        final ByteBuffer buffer = map(record.offset + record.size).duplicate();
+        buffer.position((int) (record.offset + record.size - record.valueLength));
+        final byte[] result = new byte[record.valueLength];
+        buffer.get(result);
+        return result;
+    }
+
+    private void startCompaction() {
+        final Thread thread = new Thread() {
+
+            @Override
+            public void run() {
+                compact();
+            }
+        };
+        thread.setDaemon(true);
+        thread.setName(Convert.toString("Jeda Data Store Compaction (", file.getName(), ")"));
+        thread.start();
+    }
+
+    private static File compactFile(final File file) {
+        return new File(file.getPath() + ".compact");
+    }
+
+    private static byte[] encodeKey(final String key) {
+        if (key == null) {
+            throw new NullPointerException("key");
+        }
+
+        final byte[] result = key.getBytes(BinaryDataWriter.UTF8);
+        if (result.length > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("key");
+        }
+
+        return result;
+    }
+
+    private static ByteBuffer encodeRecord(final byte type, final byte[] key, final byte[] value) {
+        final int length = 3 + key.length + value.length;
+        final ByteBuffer result = ByteBuffer.allocate(8 + length);
+        result.putInt(length);
+        result.putInt(0);
+        result.put(type);
+        result.putShort((short) key.length);
+        result.put(key);
+        result.put(value);
+        final CRC32 crc = new CRC32();
+        crc.update(result.array(), 8, length);
+        result.putInt(4, (int) crc.getValue());
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Completes or discards a compaction that has been interrupted. The store is replaced by deleting it and renaming
+     * the complete compacted file, so the compacted file is the only copy if the store does not exist.
+     */
+    private static void recoverCompaction(final File file) {
+        final File compactFile = compactFile(file);
+        if (!compactFile.exists()) {
+            return;
+        }
+
+        if (file.exists()) {
+            compactFile.delete();
+        }
+        else if (!compactFile.renameTo(file)) {
+            throw new RuntimeException(Convert.toString("Cannot recover data store '", file, "' from '", compactFile,
+                                                        "'."));
+        }
+    }
+
+    /**
+     * Releases a mapping immediately instead of waiting for the garbage collector. A file that is still mapped cannot
+     * be renamed or deleted on some platforms. Does nothing if the platform offers no way to do this.
+     */
+    private static void unmap(final MappedByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        }
+        catch (final Exception ex) {
+            // not available before Java 9, try the cleaner of the buffer
+        }
+
+        try {
+            final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            final Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        }
+        catch (final Exception ex) {
+            // the mapping is released by the garbage collector
+        }
+    }
+
+    /**
+     * A record in the file. The record consists of the length and checksum of the remaining record, the type, the
+     * length of the key, the key and the value.
+     */
+    private static final class Record {
+
+        final int keyLength;
+        final long offset;
+        final int size;
+        final int valueLength;
+
+        Record(final long offset, final int keyLength, final int valueLength) {
+            this.keyLength = keyLength;
+            this.offset = offset;
+            size = RECORD_HEADER_SIZE + keyLength + valueLength;
+            this.valueLength = valueLength;
+        }
+    }
+}
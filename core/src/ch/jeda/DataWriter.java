@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.util.List;
+
+/**
+ * Writes a tree of {@link DataNode} objects as XML.
+ */
+final class DataWriter {
+
+    private static final String DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
+    private static final String INDENT = "    ";
+    private final boolean multiline;
+    private final StringBuilder result;
+
+    DataWriter(final boolean multiline) {
+        this.multiline = multiline;
+        result = new StringBuilder();
+    }
+
+    /**
+     * Returns the XML representation of the specified tree.
+     */
+    String write(final DataNode root) {
+        result.setLength(0);
+        if (multiline) {
+            result.append(DECLARATION);
+            newLine();
+        }
+
+        writeNode(root, 0);
+        return result.toString();
+    }
+
+    private void escape(final String text, final boolean attribute) {
+        final int length = text.length();
+        for (int i = 0; i < length; ++i) {
+            final char ch = text.charAt(i);
+            switch (ch) {
+                case '<':
+                    result.append("&lt;");
+                    break;
+                case '>':
+                    result.append("&gt;");
+                    break;
+                case '&':
+                    result.append("&amp;");
+                    break;
+                case '"':
+                    if (attribute) {
+                        result.append("&quot;");
+                    }
+                    else {
+                        result.append(ch);
+                    }
+
+                    break;
+                default:
+                    result.append(ch);
+                    break;
+            }
+        }
+    }
+
+    private void indent(final int depth) {
+        if (multiline) {
+            for (int i = 0; i < depth; ++i) {
+                result.append(INDENT);
+            }
+        }
+    }
+
+    private void newLine() {
+        if (multiline) {
+            result.append('\n');
+        }
+    }
+
+    private void writeNode(final DataNode node, final int depth) {
+        indent(depth);
+        result.append('<');
+        result.append(node.getName());
+        if (node.getClassName() != null) {
+            result.append(" class=\"");
+            escape(node.getClassName(), true);
+            result.append('"');
+        }
+
+        if (node.hasChildren()) {
+            result.append('>');
+            newLine();
+            for (final List<DataNode> group : node.getGroups()) {
+                for (int i = 0; i < group.size(); ++i) {
+                    writeNode(group.get(i), depth + 1);
+                }
+            }
+
+            indent(depth);
+            writeEndTag(node);
+        }
+        else if (node.hasText()) {
+            result.append('>');
+            escape(node.getText(), false);
+            writeEndTag(node);
+        }
+        else {
+            result.append("/>");
+        }
+
+        newLine();
+    }
+
+    private void writeEndTag(final DataNode node) {
+        result.append("</");
+        result.append(node.getName());
+        result.append('>');
+    }
+}
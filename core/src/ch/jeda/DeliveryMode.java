@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+/**
+ * Defines how a message is delivered over a {@link UdpConnection}.
+ *
+ * @since 2.2
+ */
+public enum DeliveryMode {
+
+    /**
+     * The message may be lost, duplicated messages are discarded. Messages may arrive in a different order than they
+     * have been sent.
+     *
+     * @since 2.2
+     */
+    UNRELIABLE,
+    /**
+     * The message may be lost. A message that arrives after a newer message sent in the same mode is discarded. Use
+     * this mode for state that is sent repeatedly, e.g. positions.
+     *
+     * @since 2.2
+     */
+    SEQUENCED,
+    /**
+     * The message is resent until it has been received. Messages arrive in the order in which they have been sent.
+     *
+     * @since 2.2
+     */
+    RELIABLE
+}
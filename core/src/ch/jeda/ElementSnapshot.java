@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.ui.Element;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The replicated state of a single {@link Element} at the time of a snapshot. Also knows how to encode the difference
+ * to an older state and how to apply such a difference. Snapshots are never modified once they are part of a history,
+ * so that field nodes can be shared between snapshots.
+ */
+final class ElementSnapshot {
+
+    static final String ACK = "jeda.replication.ack";
+    static final String BASELINE = "base";
+    static final String ELEMENT = "e";
+    static final int MAX_PARTS = 1000;
+    static final String PART = "part";
+    static final String PARTS = "parts";
+    static final String REMOVED = "r";
+    static final String SNAPSHOT = "jeda.replication.snapshot";
+    static final String TIME = "time";
+    private static final String ANGLE = "a";
+    private static final String DRAW_ORDER = "o";
+    private static final String FIELDS = "f";
+    private static final String ID = "id";
+    private static final String REMOVED_FIELDS = "rf";
+    private static final String TYPE = "type";
+    private static final String X = "x";
+    private static final String Y = "y";
+    final int id;
+    float angle;
+    int drawOrder;
+    final Map<String, List<DataNode>> fields;
+    String type;
+    float x;
+    float y;
+
+    ElementSnapshot(final int id) {
+        this.id = id;
+        fields = new LinkedHashMap<String, List<DataNode>>();
+    }
+
+    ElementSnapshot(final ElementSnapshot other) {
+        id = other.id;
+        angle = other.angle;
+        drawOrder = other.drawOrder;
+        fields = new LinkedHashMap<String, List<DataNode>>(other.fields);
+        type = other.type;
+        x = other.x;
+        y = other.y;
+    }
+
+    /**
+     * Takes a snapshot of the specified element.
+     */
+    static ElementSnapshot capture(final int id, final Element element) {
+        final ElementSnapshot result = new ElementSnapshot(id);
+        result.angle = element.getAngleRad();
+        result.drawOrder = element.getDrawOrder();
+        result.type = element.getClass().getName();
+        result.x = element.getX();
+        result.y = element.getY();
+        if (element instanceof Storable) {
+            final DataNode node = new DataNode(Data.ROOT_NAME);
+            ((Storable) element).writeTo(new Data(node));
+            for (final List<DataNode> group : node.getGroups()) {
+                result.fields.put(group.get(0).getName(), group);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Applies an encoded difference. Returns <tt>true</tt> if the custom fields have been changed.
+     */
+    boolean apply(final DataNode node) {
+        final DataNode typeNode = node.getFirst(TYPE);
+        if (typeNode != null) {
+            type = typeNode.getText();
+        }
+
+        x = getFloat(node, X, x);
+        y = getFloat(node, Y, y);
+        angle = getFloat(node, ANGLE, angle);
+        final DataNode drawOrderNode = node.getFirst(DRAW_ORDER);
+        if (drawOrderNode != null) {
+            drawOrder = drawOrderNode.getInt(drawOrder);
+        }
+
+        boolean result = false;
+        for (final DataNode removed : node.get(REMOVED_FIELDS)) {
+            result |= fields.remove(removed.getText()) != null;
+        }
+
+        final DataNode fieldsNode = node.getFirst(FIELDS);
+        if (fieldsNode != null) {
+            for (final List<DataNode> group : fieldsNode.getGroups()) {
+                fields.put(group.get(0).getName(), group);
+                result = true;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Encodes the difference to the specified baseline. Encodes the complete state if the baseline is <tt>null</tt>.
+     * Returns <tt>null</tt> if nothing has changed.
+     */
+    DataNode encode(final ElementSnapshot baseline) {
+        final DataNode result = new DataNode(ELEMENT);
+        result.add(new DataNode(ID, id));
+        boolean changed = false;
+        if (baseline == null) {
+            result.add(new DataNode(TYPE, type));
+            changed = true;
+        }
+
+        if (baseline == null || x != baseline.x) {
+            result.add(new DataNode(X, x));
+            changed = true;
+        }
+
+        if (baseline == null || y != baseline.y) {
+            result.add(new DataNode(Y, y));
+            changed = true;
+        }
+
+        if (baseline == null || angle != baseline.angle) {
+            result.add(new DataNode(ANGLE, angle));
+            changed = true;
+        }
+
+        if (baseline == null || drawOrder != baseline.drawOrder) {
+            result.add(new DataNode(DRAW_ORDER, drawOrder));
+            changed = true;
+        }
+
+        DataNode fieldsNode = null;
+        for (final Map.Entry<String, List<DataNode>> entry : fields.entrySet()) {
+            final List<DataNode> old = baseline == null ? null : baseline.fields.get(entry.getKey());
+            if (old == null || !DataNode.contentEquals(entry.getValue(), old)) {
+                if (fieldsNode == null) {
+                    fieldsNode = new DataNode(FIELDS);
+                    result.add(fieldsNode);
+                }
+
+                for (final DataNode field : entry.getValue()) {
+                    fieldsNode.add(field);
+                }
+
+                changed = true;
+            }
+        }
+
+        if (baseline != null) {
+            for (final String name : baseline.fields.keySet()) {
+                if (!fields.containsKey(name)) {
+                    result.add(new DataNode(REMOVED_FIELDS, name));
+                    changed = true;
+                }
+            }
+        }
+
+        return changed ? result : null;
+    }
+
+    /**
+     * Checks if this snapshot has the same custom fields as the specified snapshot.
+     */
+    boolean fieldsEqual(final ElementSnapshot other) {
+        if (!fields.keySet().equals(other.fields.keySet())) {
+            return false;
+        }
+
+        for (final Map.Entry<String, List<DataNode>> entry : fields.entrySet()) {
+            if (!DataNode.contentEquals(entry.getValue(), other.fields.get(entry.getKey()))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the custom fields as a data object.
+     */
+    Data getFields() {
+        final DataNode result = new DataNode(Data.ROOT_NAME);
+        for (final List<DataNode> group : fields.values()) {
+            for (final DataNode field : group) {
+                result.add(field);
+            }
+        }
+
+        return new Data(result);
+    }
+
+    static int getId(final DataNode node) {
+        final DataNode idNode = node.getFirst(ID);
+        return idNode == null ? -1 : idNode.getInt(-1);
+    }
+
+    private static float getFloat(final DataNode node, final String name, final float defaultValue) {
+        final DataNode child = node.getFirst(name);
+        return child == null ? defaultValue : child.getFloat(defaultValue);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+/**
+ * Defines an interface for objects that create objects of a class without reflection. Register a factory with
+ * {@link FactoryRegistry#register(java.lang.Class, ch.jeda.Factory)} to have it used by
+ * {@link Data#readObject(java.lang.String)}, {@link ch.jeda.physics.Body#create(java.lang.String)} and
+ * {@link ViewReplica}.
+ *
+ * @param <T> the class of the created objects
+ *
+ * @since 2.2
+ */
+public interface Factory<T> {
+
+    /**
+     * Creates a new object. Objects that are read from a data object receive the stored values, objects that are
+     * created without stored values receive an empty data object.
+     *
+     * @param data the stored values of the object
+     * @return the created object
+     *
+     * @since 2.2
+     */
+    T create(Data data);
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates objects from class names, as needed when reading {@link ch.jeda.Storable} objects from a {@link Data} object
+ * or creating the bodies of a Tiled map. Each class name is resolved to a constructor only once, later requests for
+ * the same class reuse the constructor. Programs can register a {@link Factory} for a class, which is then used
+ * instead of reflection. This class is thread-safe.
+ *
+ * @since 2.2
+ */
+public final class FactoryRegistry {
+
+    private static final Map<String, Factory<?>> DATA_FACTORIES = new ConcurrentHashMap<String, Factory<?>>();
+    private static final Map<String, Factory<?>> DEFAULT_FACTORIES = new ConcurrentHashMap<String, Factory<?>>();
+    private static final Map<String, Factory<?>> REGISTERED_FACTORIES = new ConcurrentHashMap<String, Factory<?>>();
+
+    /**
+     * Registers a factory for the specified class. From now on, the factory is used to create all objects of the
+     * class. Replaces a factory that has been registered before for the same class.
+     *
+     * @param <T> the class of the objects
+     * @param clazz the class of the objects
+     * @param factory the factory creating the objects
+     * @throws NullPointerException if <tt>clazz</tt> or <tt>factory</tt> is <tt>null</tt>
+     *
+     * @since 2.2
+     */
+    public static <T> void register(final Class<T> clazz, final Factory<? extends T> factory) {
+        if (clazz == null) {
+            throw new NullPointerException("clazz");
+        }
+
+        if (factory == null) {
+            throw new NullPointerException("factory");
+        }
+
+        REGISTERED_FACTORIES.put(clazz.getName(), factory);
+    }
+
+    /**
+     * Removes the factory registered for the specified class. From now on, objects of the class are created by
+     * reflection again. Has no effect if no factory has been registered for the class.
+     *
+     * @param clazz the class of the objects
+     *
+     * @since 2.2
+     */
+    public static void unregister(final Class<?> clazz) {
+        if (clazz != null) {
+            REGISTERED_FACTORIES.remove(clazz.getName());
+        }
+    }
+
+    /**
+     * Creates an object of the class with the specified name. Uses the registered factory or a constructor with a
+     * single {@link Data} parameter if <tt>data</tt> is not <tt>null</tt>, otherwise a constructor without parameters.
+     * Returns <tt>null</tt> if the class does not exist, is not a subclass of <tt>type</tt> or does not have a
+     * matching constructor. Problems are only reported if <tt>reportErrors</tt> is <tt>true</tt>, problems resolving
+     * a class are reported only once.
+     */
+    static <T> T create(final String className, final Class<T> type, final Data data, final boolean reportErrors) {
+        Factory<?> factory = REGISTERED_FACTORIES.get(className);
+        if (factory != null) {
+            final Object result = factory.create(data == null ? new Data() : data);
+            return type.isInstance(result) ? type.cast(result) : null;
+        }
+
+        final Map<String, Factory<?>> cache = data == null ? DEFAULT_FACTORIES : DATA_FACTORIES;
+        factory = cache.get(className);
+        if (factory == null) {
+            factory = resolve(className, data != null);
+            cache.put(className, factory);
+        }
+
+        if (factory instanceof Failure) {
+            if (reportErrors) {
+                ((Failure) factory).report();
+            }
+
+            return null;
+        }
+
+        final ReflectiveFactory reflective = (ReflectiveFactory) factory;
+        if (!type.isAssignableFrom(reflective.clazz)) {
+            if (reportErrors) {
+                Log.e("Error while creating object: Class '", className, "' is not a subclass of '", type.getName(),
+                      "'.");
+            }
+
+            return null;
+        }
+
+        return type.cast(reflective.create(data, reportErrors));
+    }
+
+    private FactoryRegistry() {
+    }
+
+    private static Factory<?> resolve(final String className, final boolean dataConstructor) {
+        try {
+            final Class<?> clazz = Class.forName(className);
+            final Constructor<?> ctor = dataConstructor ? clazz.getConstructor(Data.class) : clazz.getConstructor();
+            ctor.setAccessible(true);
+            return new ReflectiveFactory(clazz, ctor);
+        }
+        catch (final NoSuchMethodException ex) {
+            return new Failure(ex, "Class '", className, "' does not have a matching constructor.");
+        }
+        catch (final ClassNotFoundException ex) {
+            return new Failure(ex, "Class '", className, "' not found.");
+        }
+        catch (final SecurityException ex) {
+            return new Failure(ex, "Constructor of class '", className, "' is not accessible.");
+        }
+        catch (final ExceptionInInitializerError ex) {
+            return new Failure(ex.getCause(), "Error while initializing class '", className, "'.");
+        }
+        catch (final LinkageError ex) {
+            return new Failure(ex, "Cannot load class '", className, "'.");
+        }
+    }
+
+    /**
+     * Remembers why a class name could not be resolved, so that resolving is not retried and the problem is reported
+     * only once.
+     */
+    private static final class Failure implements Factory<Object> {
+
+        private final Throwable cause;
+        private final String message;
+        private volatile boolean reported;
+
+        Failure(final Throwable cause, final Object... message) {
+            this.cause = cause;
+            this.message = Convert.toString(message);
+        }
+
+        @Override
+        public Object create(final Data data) {
+            report();
+            return null;
+        }
+
+        void report() {
+            if (!reported) {
+                reported = true;
+                Log.e(cause, "Error while creating object: ", message);
+            }
+        }
+    }
+
+    private static final class ReflectiveFactory implements Factory<Object> {
+
+        final Class<?> clazz;
+        private final Constructor<?> ctor;
+        private final boolean dataConstructor;
+
+        ReflectiveFactory(final Class<?> clazz, final Constructor<?> ctor) {
+            this.clazz = clazz;
+            this.ctor = ctor;
+            dataConstructor = ctor.getParameterTypes().length == 1;
+        }
+
+        @Override
+        public Object create(final Data data) {
+            return create(data, true);
+        }
+
+        Object create(final Data data, final boolean reportErrors) {
+            final String className = clazz.getName();
+            try {
+                if (dataConstructor) {
+                    return ctor.newInstance(data);
+                }
+                else {
+                    return ctor.newInstance();
+                }
+            }
+            catch (final InstantiationException ex) {
+                if (reportErrors) {
+                    Log.e(ex, "Error while creating object: Cannot create object of class '", className, "'.");
+                }
+            }
+            catch (final IllegalAccessException ex) {
+                if (reportErrors) {
+                    Log.e(ex, "Error while creating object: Constructor of class '", className, "' is not public.");
+                }
+            }
+            catch (final InvocationTargetException ex) {
+                if (reportErrors) {
+                    Log.w(ex.getCause(), "Error while creating object: Error while creating object of class '",
+                          className, "'.");
+                }
+            }
+
+            return null;
+        }
+    }
+}
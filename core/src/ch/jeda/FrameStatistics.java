@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+/**
+ * Provides statistics about the frame pacing of the Jeda engine. The frame time is the time the engine spends
+ * processing a tick, including event handling and drawing. A deadline is missed when the frame time exceeds the tick
+ * period given by the target tick frequency.
+ * <p>
+ * Frame statistics are immutable. The values refer to the most recent measurement window.
+ *
+ * @see Jeda#getFrameStatistics()
+ * @since 2.2
+ */
+public final class FrameStatistics {
+
+    private final double averageFrameTime;
+    private final double maxFrameTime;
+    private final double medianFrameTime;
+    private final int missedDeadlines;
+    private final double percentile95FrameTime;
+    private final double percentile99FrameTime;
+    private final double renderFrequency;
+    private final double tickFrequency;
+    private final long totalMissedDeadlines;
+
+    FrameStatistics(final double averageFrameTime, final double medianFrameTime, final double percentile95FrameTime,
+                    final double percentile99FrameTime, final double maxFrameTime, final int missedDeadlines,
+                    final long totalMissedDeadlines, final double tickFrequency, final double renderFrequency) {
+        this.averageFrameTime = averageFrameTime;
+        this.maxFrameTime = maxFrameTime;
+        this.medianFrameTime = medianFrameTime;
+        this.missedDeadlines = missedDeadlines;
+        this.percentile95FrameTime = percentile95FrameTime;
+        this.percentile99FrameTime = percentile99FrameTime;
+        this.renderFrequency = renderFrequency;
+        this.tickFrequency = tickFrequency;
+        this.totalMissedDeadlines = totalMissedDeadlines;
+    }
+
+    /**
+     * Returns the average frame time in seconds.
+     *
+     * @return the average frame time in seconds
+     *
+     * @since 2.2
+     */
+    public double getAverageFrameTime() {
+        return averageFrameTime;
+    }
+
+    /**
+     * Returns the longest frame time in seconds.
+     *
+     * @return the longest frame time in seconds
+     *
+     * @since 2.2
+     */
+    public double getMaxFrameTime() {
+        return maxFrameTime;
+    }
+
+    /**
+     * Returns the median frame time in seconds.
+     *
+     * @return the median frame time in seconds
+     *
+     * @since 2.2
+     */
+    public double getMedianFrameTime() {
+        return medianFrameTime;
+    }
+
+    /**
+     * Returns the number of missed deadlines in the measurement window.
+     *
+     * @return the number of missed deadlines in the measurement window
+     *
+     * @since 2.2
+     */
+    public int getMissedDeadlines() {
+        return missedDeadlines;
+    }
+
+    /**
+     * Returns the 95th percentile of the frame time in seconds. 95 percent of the frames took at most this long.
+     *
+     * @return the 95th percentile of the frame time in seconds
+     *
+     * @since 2.2
+     */
+    public double getPercentile95FrameTime() {
+        return percentile95FrameTime;
+    }
+
+    /**
+     * Returns the 99th percentile of the frame time in seconds. 99 percent of the frames took at most this long.
+     *
+     * @return the 99th percentile of the frame time in seconds
+     *
+     * @since 2.2
+     */
+    public double getPercentile99FrameTime() {
+        return percentile99FrameTime;
+    }
+
+    /**
+     * Returns the frequency in Hertz [Hz] in which views are drawn. This is lower than the tick frequency if the
+     * adaptive render rate is enabled and the engine cannot keep up.
+     *
+     * @return the render frequency in Hertz [Hz]
+     *
+     * @see Jeda#setAdaptiveRenderRate(boolean)
+     * @since 2.2
+     */
+    public double getRenderFrequency() {
+        return renderFrequency;
+    }
+
+    /**
+     * Returns the target tick frequency in Hertz [Hz].
+     *
+     * @return the target tick frequency in Hertz [Hz]
+     *
+     * @since 2.2
+     */
+    public double getTickFrequency() {
+        return tickFrequency;
+    }
+
+    /**
+     * Returns the total number of missed deadlines since the engine has been started.
+     *
+     * @return the total number of missed deadlines
+     *
+     * @since 2.2
+     */
+    public long getTotalMissedDeadlines() {
+        return totalMissedDeadlines;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder();
+        result.append("FrameStatistics(average=");
+        result.append(averageFrameTime * 1000.0);
+        result.append("ms, median=");
+        result.append(medianFrameTime * 1000.0);
+        result.append("ms, p95=");
+        result.append(percentile95FrameTime * 1000.0);
+        result.append("ms, p99=");
+        result.append(percentile99FrameTime * 1000.0);
+        result.append("ms, max=");
+        result.append(maxFrameTime * 1000.0);
+        result.append("ms, missed=");
+        result.append(missedDeadlines);
+        result.append(", renderFrequency=");
+        result.append(renderFrequency);
+        result.append(")");
+        return result.toString();
+    }
+}
@@ -112,6 +112,19 @@ public final class Jeda {
         return ENGINE.getDisplayMetrics();
     }
 
+    /**
+     * Returns statistics about the frame pacing of the Jeda engine. The statistics can be used to check if the engine
+     * is able to keep up with the target tick frequency.
+     *
+     * @return statistics about the frame pacing
+     *
+     * @see #setAdaptiveRenderRate(boolean)
+     * @since 2.2
+     */
+    public static FrameStatistics getFrameStatistics() {
+        return ENGINE.getFrameStatistics();
+    }
+
     /**
      * Returns the name of the currently running Jeda program.
      *
@@ -146,6 +159,18 @@ public final class Jeda {
         return ENGINE.getTickFrequency();
     }
 
+    /**
+     * Checks if the adaptive render rate is enabled.
+     *
+     * @return <tt>true</tt> if the adaptive render rate is enabled, otherwise <tt>false</tt>
+     *
+     * @see #setAdaptiveRenderRate(boolean)
+     * @since 2.2
+     */
+    public static boolean isAdaptiveRenderRate() {
+        return ENGINE.isAdaptiveRenderRate();
+    }
+
     /**
      * Checks if a sensor of the specified type is available on the device.
      * <p>
@@ -254,6 +279,23 @@ public final class Jeda {
         ENGINE.removeEventListener(listener);
     }
 
+    /**
+     * Enables or disables the adaptive render rate. If the adaptive render rate is enabled and the engine cannot keep
+     * up with the target tick frequency, views are only drawn on every second, third or fourth tick. The tick
+     * frequency, and thus the frequency of {@link ch.jeda.event.EventType#TICK} events, is not changed. When there is
+     * enough headroom again, the render rate is raised. Each change of the render rate is reported with an event of
+     * type {@link ch.jeda.event.EventType#RENDER_RATE_CHANGED}. The adaptive render rate is disabled by default.
+     *
+     * @param adaptive <tt>true</tt> to enable the adaptive render rate, <tt>false</tt> to disable it
+     *
+     * @see #getFrameStatistics()
+     * @see #isAdaptiveRenderRate()
+     * @since 2.2
+     */
+    public static void setAdaptiveRenderRate(final boolean adaptive) {
+        ENGINE.setAdaptiveRenderRate(adaptive);
+    }
+
     /**
      * Sets the target tick frequency in Hertz. This is the frequency in which windows will be refreshed and
      * {@link ch.jeda.event.EventType#TICK} events will be emitted.
@@ -18,6 +18,7 @@ package ch.jeda;
 
 import ch.jeda.event.Event;
 import ch.jeda.event.EventQueue;
+import ch.jeda.event.RenderRateEvent;
 import ch.jeda.event.SensorType;
 import ch.jeda.event.TickEvent;
 import ch.jeda.platform.CanvasImp;
@@ -59,6 +60,7 @@ class JedaEngine implements Platform.Callback, Runnable {
     private final Platform platform;
     private final ProgramClassWrapper[] programClasses;
     private final Properties properties;
+    private final TickGovernor tickGovernor;
     private final Timer timer;
     private JedaProgramExecutor currentProgram;
     private boolean paused;
@@ -77,9 +79,13 @@ class JedaEngine implements Platform.Callback, Runnable {
         eventQueue = new EventQueue();
         frequencyMeter = new FrequencyMeter();
         pauseLock = new Object();
+        tickGovernor = new TickGovernor();
         timer = new Timer(DEFAULT_TICK_FREQUENCY);
         // Load properties
         properties = initProperties();
+        Log.configure(properties);
+        AssetCache.configure(properties);
+        UdpEndpoint.configure(properties);
         // Init platform
         platform = initPlatform(properties.getString("jeda.platform.class"), this);
         // Init audio manager
@@ -146,10 +152,16 @@ class JedaEngine implements Platform.Callback, Runnable {
             // Application is running
             else {
                 frequencyMeter.count();
-                final TickEvent event = new TickEvent(this, timer.getLastStepDuration(), frequencyMeter.getFrequency());
+                final TickEvent event = new TickEvent(this, timer.getLastStepDuration(), frequencyMeter.getFrequency(),
+                                                      tickGovernor.shouldRender());
                 eventQueue.addEvent(event);
                 eventQueue.processEvents();
                 timer.tick();
+                if (tickGovernor.record(timer.getLastWorkDuration(), timer.getPeriod(), timer.isDeadlineMissed())) {
+                    final double tickFrequency = timer.getTargetFrequency();
+                    eventQueue.addEvent(new RenderRateEvent(this, tickFrequency,
+                                                            tickGovernor.getRenderFrequency(tickFrequency)));
+                }
             }
         }
     }
@@ -249,6 +261,10 @@ class JedaEngine implements Platform.Callback, Runnable {
         return programClasses;
     }
 
+    FrameStatistics getFrameStatistics() {
+        return tickGovernor.getStatistics();
+    }
+
     Properties getProperties() {
         return properties;
     }
@@ -267,6 +283,10 @@ class JedaEngine implements Platform.Callback, Runnable {
         return timer.getTargetFrequency();
     }
 
+    boolean isAdaptiveRenderRate() {
+        return tickGovernor.isAdaptive();
+    }
+
     boolean isSensorAvailable(final SensorType sensorType) {
         return platform.isSensorAvailable(sensorType);
     }
@@ -302,6 +322,10 @@ class JedaEngine implements Platform.Callback, Runnable {
         platform.showSelectionRequest(request);
     }
 
+    void setAdaptiveRenderRate(final boolean adaptive) {
+        tickGovernor.setAdaptive(adaptive);
+    }
+
     void setSensorEnabled(final SensorType sensorType, final boolean enabled) {
         platform.setSensorEnabled(sensorType, enabled);
     }
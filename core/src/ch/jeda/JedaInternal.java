@@ -39,6 +39,13 @@ public class JedaInternal {
         return Jeda.createCanvasImp(width, height);
     }
 
+    /**
+     * <b>Internal</b>. Do not use this method.
+     */
+    public static <T> T createObject(final String className, final Class<T> type) {
+        return FactoryRegistry.create(className, type, null, false);
+    }
+
     /**
      * <b>Internal</b>. Do not use this method.
      */
@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2013 - 2014 by Stefan Rothe
+ * Copyright (C) 2013 - 2015 by Stefan Rothe
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU Lesser General Public License as published by
@@ -17,44 +17,231 @@
 package ch.jeda;
 
 import ch.jeda.platform.LogImp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <b>Internal</b>. Do not use this class.
+ * <p>
+ * Log messages are filtered by level before they are formatted, so disabled messages cost no more than a level check.
+ * The level can be set globally with the property <tt>jeda.log.level</tt> and for single categories with
+ * <tt>jeda.log.level.&lt;category&gt;</tt>. Repeated messages are rate limited. Unless <tt>jeda.log.async</tt> is set to
+ * false, messages are written by a background thread.
  */
 public final class Log {
 
-    private static LogImp imp = new SystemLogImp();
+    private static final String ASYNC_PROPERTY = "jeda.log.async";
+    private static final String LEVEL_PROPERTY = "jeda.log.level";
+    private static final String LEVEL_PROPERTY_PREFIX = LEVEL_PROPERTY + ".";
+    private static final Map<String, LogLevel> CATEGORY_LEVELS = new ConcurrentHashMap<String, LogLevel>();
+    private static final RateLimiter RATE_LIMITER = new RateLimiter();
+    private static final LogImp SYSTEM_IMP = new SystemLogImp();
+    private static volatile LogImp imp = SYSTEM_IMP;
+    private static volatile LogLevel level = LogLevel.DEBUG;
 
     public static final void d(final Object... message) {
-        imp.d(Convert.toString(message), null);
+        log(LogLevel.DEBUG, null, null, message);
     }
 
     public static final void d(final Throwable throwable, final Object... message) {
-        imp.d(Convert.toString(message), throwable);
+        log(LogLevel.DEBUG, null, throwable, message);
     }
 
     public static final void e(final Object... message) {
-        imp.e(Convert.toString(message), null);
+        log(LogLevel.ERROR, null, null, message);
     }
 
     public static final void e(final Throwable throwable, final Object... message) {
-        imp.e(Convert.toString(message), throwable);
+        log(LogLevel.ERROR, null, throwable, message);
     }
 
     public static final void i(final Object... message) {
-        imp.i(Convert.toString(message), null);
+        log(LogLevel.INFO, null, null, message);
     }
 
     public static final void i(final Throwable throwable, final Object... message) {
-        imp.i(Convert.toString(message), throwable);
+        log(LogLevel.INFO, null, throwable, message);
     }
 
     public static final void w(final Object... message) {
-        imp.w(Convert.toString(message), null);
+        log(LogLevel.WARNING, null, null, message);
     }
 
     public static final void w(final Throwable throwable, final Object... message) {
-        imp.w(Convert.toString(message), throwable);
+        log(LogLevel.WARNING, null, throwable, message);
+    }
+
+    /**
+     * Logs a message of the specified category. The message is only formatted if the level is enabled for the
+     * category.
+     */
+    public static final void log(final LogLevel level, final String category, final Throwable throwable,
+                                 final Object... message) {
+        if (!isEnabled(level, category)) {
+            return;
+        }
+
+        String text = Convert.toString(message);
+        final int suppressed = RATE_LIMITER.check(level, text, throwable);
+        if (suppressed < 0) {
+            return;
+        }
+        else if (suppressed > 0) {
+            text = Convert.toString(text, " (", suppressed, " similar messages suppressed)");
+        }
+
+        switch (level) {
+            case DEBUG:
+                imp.d(text, throwable);
+                break;
+            case INFO:
+                imp.i(text, throwable);
+                break;
+            case WARNING:
+                imp.w(text, throwable);
+                break;
+            default:
+                imp.e(text, throwable);
+                break;
+        }
+    }
+
+    public static boolean isEnabled(final LogLevel level) {
+        return isEnabled(level, null);
+    }
+
+    public static boolean isEnabled(final LogLevel level, final String category) {
+        if (level == null || level == LogLevel.OFF) {
+            return false;
+        }
+
+        LogLevel threshold = null;
+        if (category != null && !CATEGORY_LEVELS.isEmpty()) {
+            threshold = CATEGORY_LEVELS.get(category);
+        }
+
+        if (threshold == null) {
+            threshold = Log.level;
+        }
+
+        return level.compareTo(threshold) >= 0;
+    }
+
+    /**
+     * Returns the number of messages that have been dropped because the log writer could not keep up.
+     */
+    public static long getDroppedCount() {
+        final LogImp current = imp;
+        if (current instanceof AsyncLogImp) {
+            return ((AsyncLogImp) current).getDroppedCount();
+        }
+        else {
+            return 0;
+        }
+    }
+
+    public static LogLevel getLevel() {
+        return level;
+    }
+
+    public static void setLevel(final LogLevel level) {
+        if (level != null) {
+            Log.level = level;
+        }
+    }
+
+    public static void setLevel(final String category, final LogLevel level) {
+        if (category == null) {
+            setLevel(level);
+        }
+        else if (level == null) {
+            CATEGORY_LEVELS.remove(category);
+        }
+        else {
+            CATEGORY_LEVELS.put(category, level);
+        }
+    }
+
+    static synchronized void configure(final Properties properties) {
+        setLevel(LogLevel.parse(properties.getString(LEVEL_PROPERTY), LogLevel.DEBUG));
+        for (final String key : properties.keys()) {
+            if (key.startsWith(LEVEL_PROPERTY_PREFIX) && key.length() > LEVEL_PROPERTY_PREFIX.length()) {
+                final LogLevel categoryLevel = LogLevel.parse(properties.getString(key), null);
+                if (categoryLevel == null) {
+                    w("Invalid log level '", properties.getString(key), "' for property '", key, "'.");
+                }
+                else {
+                    setLevel(key.substring(LEVEL_PROPERTY_PREFIX.length()), categoryLevel);
+                }
+            }
+        }
+
+        final boolean async = properties.getBoolean(ASYNC_PROPERTY, true);
+        if (async && !(imp instanceof AsyncLogImp)) {
+            imp = new AsyncLogImp(SYSTEM_IMP);
+        }
+    }
+
+    /**
+     * Suppresses identical messages that are logged more often than a few times per second, e.g. an exception that is
+     * thrown on every frame. The number of suppressed messages is reported with the next message that passes.
+     */
+    private static final class RateLimiter {
+
+        private static final int MAX_KEYS = 64;
+        private static final int MAX_PER_INTERVAL = 5;
+        private static final long INTERVAL = 1000000000L;
+        private final Map<String, Counter> counters;
+
+        RateLimiter() {
+            counters = new LinkedHashMap<String, Counter>(16, 0.75f, true) {
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Counter> eldest) {
+                    return size() > MAX_KEYS;
+                }
+            };
+        }
+
+        /**
+         * Returns -1 if the message must be suppressed, otherwise the number of messages suppressed since the last
+         * time it passed.
+         */
+        synchronized int check(final LogLevel level, final String message, final Throwable throwable) {
+            final String key = throwable == null ? level + message : level + message + throwable;
+            final long now = System.nanoTime();
+            Counter counter = counters.get(key);
+            if (counter == null) {
+                counter = new Counter(now);
+                counters.put(key, counter);
+            }
+            else if (now - counter.intervalStart >= INTERVAL) {
+                counter.intervalStart = now;
+                counter.count = 0;
+            }
+
+            ++counter.count;
+            if (counter.count > MAX_PER_INTERVAL) {
+                ++counter.suppressed;
+                return -1;
+            }
+
+            final int result = counter.suppressed;
+            counter.suppressed = 0;
+            return result;
+        }
+    }
+
+    private static final class Counter {
+
+        int count;
+        long intervalStart;
+        int suppressed;
+
+        Counter(final long intervalStart) {
+            this.intervalStart = intervalStart;
+        }
     }
 
 //    /**
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+/**
+ * <b>Internal</b>. Do not use this enum.
+ * <p>
+ * The levels of log messages, ordered by increasing severity.
+ */
+public enum LogLevel {
+
+    DEBUG, INFO, WARNING, ERROR, OFF;
+
+    static LogLevel parse(final String name, final LogLevel defaultValue) {
+        if (name == null) {
+            return defaultValue;
+        }
+
+        try {
+            return valueOf(name.trim().toUpperCase());
+        }
+        catch (final IllegalArgumentException ex) {
+            return defaultValue;
+        }
+    }
+}
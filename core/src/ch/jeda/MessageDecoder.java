@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.event.MessageEvent;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Splits the byte stream received by a connection into messages and posts a {@link MessageEvent} for each of them. A
+ * message is either a line of UTF-8 text terminated by a line feed or a binary data frame starting with
+ * {@link BinaryDataWriter#FRAME_MARKER}. The decoder is incremental: it accepts chunks of any size and keeps partial
+ * messages until the rest arrives. It must only be used by one thread at a time.
+ * <p>
+ * After the {@link StreamCompression#START} line, the rest of the stream is inflated before it is split into
+ * messages.
+ */
+final class MessageDecoder {
+
+    static final String BINARY_HELLO = "\u0001jeda-binary 1";
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final int INFLATE_BUFFER_SIZE = 8192;
+    private static final byte NEW_LINE = '\n';
+    private static final int STATE_START = 0;
+    private static final int STATE_LINE = 1;
+    private static final int STATE_LENGTH = 2;
+    private static final int STATE_PAYLOAD = 3;
+    private final BinaryDataReader binaryReader;
+    private final Charset charset;
+    private final Connection connection;
+    private byte[] buffer;
+    private volatile boolean compressed;
+    private byte[] inflated;
+    private ByteBuffer inflatedWrapper;
+    private Inflater inflater;
+    private int length;
+    private volatile boolean peerBinary;
+    private int payloadLength;
+    private int shift;
+    private int state;
+
+    MessageDecoder(final Connection connection, final Charset charset) {
+        this.connection = connection;
+        this.charset = charset;
+        binaryReader = new BinaryDataReader();
+        buffer = new byte[64];
+    }
+
+    /**
+     * Releases the resources of the decoder.
+     */
+    void close() {
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Checks if the remote endpoint compresses the stream.
+     */
+    boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Checks if the remote endpoint has announced that it understands binary data frames.
+     */
+    boolean isPeerBinary() {
+        return peerBinary;
+    }
+
+    /**
+     * Decodes all remaining bytes of the specified buffer.
+     *
+     * @throws IOException if the stream is malformed or a message exceeds the maximum size
+     */
+    void decode(final ByteBuffer input) throws IOException {
+        if (inflater == null) {
+            decodeMessages(input, false);
+        }
+
+        if (inflater != null && input.hasRemaining()) {
+            inflate(input);
+        }
+    }
+
+    private void append(final byte b) throws IOException {
+        if (length == buffer.length) {
+            if (length >= BinaryDataWriter.MAX_FRAME_SIZE) {
+                throw new IOException("Line too long.");
+            }
+
+            ensureCapacity(length * 2);
+        }
+
+        buffer[length] = b;
+        ++length;
+    }
+
+    /**
+     * Splits the bytes into messages. Stops after the start of compression if the bytes are not inflated yet.
+     */
+    private void decodeMessages(final ByteBuffer input, final boolean isInflated) throws IOException {
+        while (input.hasRemaining() && (isInflated || inflater == null)) {
+            switch (state) {
+                case STATE_START:
+                    final byte first = input.get();
+                    length = 0;
+                    if (first == BinaryDataWriter.FRAME_MARKER) {
+                        payloadLength = 0;
+                        shift = 0;
+                        state = STATE_LENGTH;
+                    }
+                    else if (first == NEW_LINE) {
+                        onLine();
+                    }
+                    else {
+                        append(first);
+                        state = STATE_LINE;
+                    }
+
+                    break;
+                case STATE_LINE:
+                    decodeLine(input);
+                    break;
+                case STATE_LENGTH:
+                    final int b = input.get() & 0xff;
+                    payloadLength |= (b & 0x7f) << shift;
+                    shift += 7;
+                    if ((b & 0x80) == 0) {
+                        if (payloadLength < 0 || payloadLength > BinaryDataWriter.MAX_FRAME_SIZE) {
+                            throw new IOException("Data frame too large.");
+                        }
+
+                        ensureCapacity(payloadLength);
+                        state = STATE_PAYLOAD;
+                        if (payloadLength == 0) {
+                            onFrame();
+                        }
+                    }
+                    else if (shift > 28) {
+                        throw new IOException("Malformed data frame.");
+                    }
+
+                    break;
+                case STATE_PAYLOAD:
+                    final int count = Math.min(input.remaining(), payloadLength - length);
+                    input.get(buffer, length, count);
+                    length += count;
+                    if (length == payloadLength) {
+                        onFrame();
+                    }
+
+                    break;
+            }
+        }
+    }
+
+    private void decodeLine(final ByteBuffer input) throws IOException {
+        while (input.hasRemaining()) {
+            final byte b = input.get();
+            if (b == NEW_LINE) {
+                onLine();
+                return;
+            }
+
+            append(b);
+        }
+    }
+
+    private void inflate(final ByteBuffer input) throws IOException {
+        if (inflated == null) {
+            inflated = new byte[INFLATE_BUFFER_SIZE];
+            inflatedWrapper = ByteBuffer.wrap(inflated);
+        }
+
+        if (input.hasArray()) {
+            inflater.setInput(input.array(), input.arrayOffset() + input.position(), input.remaining());
+        }
+        else {
+            final byte[] copy = new byte[input.remaining()];
+            input.duplicate().get(copy);
+            inflater.setInput(copy);
+        }
+
+        input.position(input.limit());
+        try {
+            while (true) {
+                final int count = inflater.inflate(inflated);
+                if (count > 0) {
+                    inflatedWrapper.clear();
+                    inflatedWrapper.limit(count);
+                    decodeMessages(inflatedWrapper, true);
+                }
+                else if (inflater.needsDictionary()) {
+                    inflater.setDictionary(StreamCompression.DICTIONARY);
+                }
+                else if (inflater.needsInput() || inflater.finished()) {
+                    return;
+                }
+            }
+        }
+        catch (final DataFormatException ex) {
+            throw new IOException("Malformed compressed stream.");
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (buffer.length < capacity) {
+            final byte[] newBuffer = new byte[capacity];
+            System.arraycopy(buffer, 0, newBuffer, 0, length);
+            buffer = newBuffer;
+        }
+    }
+
+    private void onFrame() throws IOException {
+        final Data data = new Data(binaryReader.read(buffer, length));
+        state = STATE_START;
+        Jeda.postEvent(new MessageEvent(connection, data));
+    }
+
+    private void onLine() {
+        int end = length;
+        if (end > 0 && buffer[end - 1] == CARRIAGE_RETURN) {
+            --end;
+        }
+
+        final String line = new String(buffer, 0, end, charset);
+        state = STATE_START;
+        if (BINARY_HELLO.equals(line)) {
+            peerBinary = true;
+        }
+        else if (StreamCompression.HELLO.equals(line)) {
+            connection.peerCompressionAnnounced();
+        }
+        else if (StreamCompression.START.equals(line) && inflater == null) {
+            inflater = new Inflater();
+            compressed = true;
+        }
+        else {
+            Jeda.postEvent(new MessageEvent(connection, line));
+        }
+    }
+}
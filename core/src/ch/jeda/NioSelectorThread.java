@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A thread that serves many non-blocking channels with one selector. Each thread owns a direct buffer for reading and
+ * one for writing which are shared by all its connections, so the memory needed per connection stays small. All
+ * operations on selection keys must happen on this thread; other threads use {@link #execute(java.lang.Runnable)}.
+ */
+final class NioSelectorThread extends Thread {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final ByteBuffer readBuffer;
+    private final Selector selector;
+    private final ConcurrentLinkedQueue<Runnable> tasks;
+    private final ByteBuffer writeBuffer;
+    private volatile boolean running;
+
+    NioSelectorThread(final String name) throws IOException {
+        readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        selector = Selector.open();
+        tasks = new ConcurrentLinkedQueue<Runnable>();
+        writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        running = true;
+        setDaemon(true);
+        setName(name);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                runTasks();
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        handle(key);
+                    }
+                    catch (final CancelledKeyException ex) {
+                        // The channel has been closed by another thread.
+                    }
+                }
+            }
+        }
+        catch (final IOException ex) {
+            Log.e(ex, "Error in network selector thread.");
+        }
+        finally {
+            for (final SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof NioTcpConnection) {
+                    ((NioTcpConnection) key.attachment()).close();
+                }
+            }
+
+            try {
+                selector.close();
+            }
+            catch (final IOException ex) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Runs the specified task on this thread.
+     */
+    void execute(final Runnable task) {
+        tasks.offer(task);
+        selector.wakeup();
+    }
+
+    Selector getSelector() {
+        return selector;
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void handle(final SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+
+        final Object attachment = key.attachment();
+        if (attachment instanceof NioTcpServer) {
+            if (key.isAcceptable()) {
+                ((NioTcpServer) attachment).onAcceptable();
+            }
+        }
+        else if (attachment instanceof NioTcpConnection) {
+            final NioTcpConnection connection = (NioTcpConnection) attachment;
+            if (key.isReadable()) {
+                connection.onReadable(readBuffer);
+            }
+
+            if (key.isValid() && key.isWritable()) {
+                connection.onWritable(writeBuffer);
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task = tasks.poll();
+        while (task != null) {
+            try {
+                task.run();
+            }
+            catch (final RuntimeException ex) {
+                Log.e(ex, "Error in network selector thread.");
+            }
+
+            task = tasks.poll();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.event.ConnectionEvent;
+import ch.jeda.event.EventType;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Represents a connection accepted by a {@link NioTcpServer}. The connection does not have a thread of its own. Reading
+ * and writing is done by the selector thread of the server. Sending a message only puts it into the outbound queue of
+ * the connection. When the channel becomes writable, all queued messages are copied into one buffer and written at
+ * once. This class is thread-safe.
+ */
+final class NioTcpConnection extends Connection {
+
+    private static final byte NEW_LINE = '\n';
+    private final boolean binaryEnabled;
+    private final BinaryDataWriter binaryWriter;
+    private final SocketChannel channel;
+    private final Charset charset;
+    private final MessageDecoder decoder;
+    private final Object lock;
+    private final AtomicBoolean open;
+    private final OutboundQueue outbound;
+    private final String remoteAddress;
+    private final NioTcpServer server;
+    private final NioSelectorThread selectorThread;
+    private final AtomicBoolean writeRequested;
+    private final Runnable writeTask;
+    // The following fields are only accessed by the selector thread.
+    private SelectionKey key;
+    private ByteBuffer pending;
+    private ByteBuffer unwritten;
+
+    NioTcpConnection(final NioTcpServer server, final SocketChannel channel, final NioSelectorThread selectorThread,
+                     final boolean binaryEnabled) {
+        this.binaryEnabled = binaryEnabled;
+        binaryWriter = new BinaryDataWriter();
+        this.channel = channel;
+        charset = Charset.forName("UTF-8");
+        decoder = new MessageDecoder(this, charset);
+        lock = new Object();
+        open = new AtomicBoolean(true);
+        outbound = new OutboundQueue(this);
+        final Socket socket = channel.socket();
+        remoteAddress = Convert.toString(socket.getInetAddress().getHostAddress(), ':', socket.getPort());
+        this.selectorThread = selectorThread;
+        this.server = server;
+        writeRequested = new AtomicBoolean();
+        writeTask = new Runnable() {
+
+            @Override
+            public void run() {
+                enableWrite();
+            }
+        };
+
+        if (binaryEnabled) {
+            sendLine(MessageDecoder.BINARY_HELLO);
+        }
+    }
+
+    /**
+     * Closes the connection. Messages that wait to be sent are sent before, waiting at most one second for a slow
+     * remote endpoint. The selector thread does not wait, since it writes the messages itself.
+     */
+    @Override
+    public void close() {
+        if (open.get() && Thread.currentThread() != selectorThread && !outbound.drain()) {
+            Log.w("Closing connection to ", remoteAddress, " with messages not yet sent.");
+        }
+
+        closeNow();
+    }
+
+    /**
+     * Closes the connection without sending the messages that wait to be sent.
+     */
+    void closeNow() {
+        if (open.compareAndSet(true, false)) {
+            try {
+                channel.close();
+            }
+            catch (final IOException ex) {
+                // ignore
+            }
+
+            outbound.close();
+            server.onClosed(this);
+            Jeda.postEvent(new ConnectionEvent(this, EventType.CONNECTION_CLOSED));
+        }
+    }
+
+    @Override
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    /**
+     * Checks if data objects are currently sent in binary format.
+     */
+    boolean isBinary() {
+        return binaryEnabled && decoder.isPeerBinary();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open.get();
+    }
+
+    @Override
+    public void sendData(final Data data) {
+        synchronized (lock) {
+            if (isBinary()) {
+                final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+                try {
+                    binaryWriter.writeFrame(data.getNode(), frame);
+                }
+                catch (final IOException ex) {
+                    Log.e(ex, "Error while encoding data object.");
+                    return;
+                }
+
+                enqueue(ByteBuffer.wrap(frame.toByteArray()), false);
+            }
+            else {
+                sendLine(data.toLine());
+            }
+        }
+    }
+
+    @Override
+    public void sendLine(final String line) {
+        final byte[] bytes = line.getBytes(charset);
+        final ByteBuffer message = ByteBuffer.allocate(bytes.length + 1);
+        message.put(bytes);
+        message.put(NEW_LINE);
+        message.flip();
+        synchronized (lock) {
+            enqueue(message, !MessageDecoder.BINARY_HELLO.equals(line));
+        }
+    }
+
+    /**
+     * Registers the channel with the selector. Must be called on the selector thread.
+     */
+    void register() throws IOException {
+        key = channel.register(selectorThread.getSelector(), SelectionKey.OP_READ, this);
+        if (outbound.size() > 0) {
+            enableWrite();
+        }
+    }
+
+    /**
+     * Called by the selector thread when data can be read from the channel.
+     */
+    void onReadable(final ByteBuffer buffer) {
+        try {
+            buffer.clear();
+            final int count = channel.read(buffer);
+            if (count < 0) {
+                closeNow();
+            }
+            else {
+                buffer.flip();
+                decoder.decode(buffer);
+            }
+        }
+        catch (final IOException ex) {
+            closeNow();
+        }
+    }
+
+    /**
+     * Called by the selector thread when data can be written to the channel. Copies as many queued messages as fit
+     * into the buffer and writes them at once. Bytes that the channel does not accept are kept for the next call.
+     */
+    void onWritable(final ByteBuffer buffer) {
+        // Reset before draining, so that messages enqueued from now on request another write.
+        writeRequested.set(false);
+        try {
+            while (true) {
+                buffer.clear();
+                if (unwritten != null) {
+                    copy(unwritten, buffer);
+                    if (!unwritten.hasRemaining()) {
+                        unwritten = null;
+                    }
+                }
+
+                if (pending == null) {
+                    pending = outbound.poll();
+                }
+
+                while (pending != null && buffer.hasRemaining()) {
+                    copy(pending, buffer);
+                    if (!pending.hasRemaining()) {
+                        pending = outbound.poll();
+                    }
+                }
+
+                buffer.flip();
+                if (!buffer.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                    return;
+                }
+
+                outbound.written(channel.write(buffer));
+                if (buffer.hasRemaining()) {
+                    // The socket buffer is full, keep the rest and wait until the channel is writable again.
+                    final ByteBuffer rest = ByteBuffer.allocate(buffer.remaining() +
+                                                                (unwritten == null ? 0 : unwritten.remaining()));
+                    rest.put(buffer);
+                    if (unwritten != null) {
+                        rest.put(unwritten);
+                    }
+
+                    rest.flip();
+                    unwritten = rest;
+                    return;
+                }
+            }
+        }
+        catch (final IOException ex) {
+            closeNow();
+        }
+    }
+
+    private void enableWrite() {
+        try {
+            if (key != null && key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+        catch (final CancelledKeyException ex) {
+            // connection has been closed
+        }
+    }
+
+    @Override
+    OutboundQueue getOutboundQueue() {
+        return outbound;
+    }
+
+    private void enqueue(final ByteBuffer message, final boolean droppable) {
+        if (!open.get()) {
+            return;
+        }
+
+        if (!outbound.offer(message, droppable)) {
+            Log.w("Closing connection to ", remoteAddress, ": Too much data waiting to be sent.");
+            closeNow();
+        }
+        else if (writeRequested.compareAndSet(false, true)) {
+            selectorThread.execute(writeTask);
+        }
+    }
+
+    private static void copy(final ByteBuffer from, final ByteBuffer to) {
+        if (from.remaining() <= to.remaining()) {
+            to.put(from);
+        }
+        else {
+            final int limit = from.limit();
+            from.limit(from.position() + to.remaining());
+            to.put(from);
+            from.limit(limit);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.event.ConnectionEvent;
+import ch.jeda.event.EventType;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents a TCP network server that listens for connections on a port. In contrast to {@link TcpServer}, this
+ * server does not use a thread per connection. All connections are served by a small, fixed number of threads using
+ * non-blocking I/O. Use this server if many clients connect at the same time, e.g. in a classroom or a tournament. The
+ * accepted connections behave like any other {@link Connection}. This class is thread-safe.
+ *
+ * @since 2.2
+ */
+public final class NioTcpServer {
+
+    private static final int MAX_SELECTOR_THREADS = 4;
+    private final Set<NioTcpConnection> connections;
+    private final Object lock;
+    private boolean binaryEnabled;
+    private int nextSelectorThread;
+    private NioSelectorThread[] selectorThreads;
+    private ServerSocketChannel serverChannel;
+
+    /**
+     * Constructs a new network server. Initially, the server is not running.
+     *
+     * @since 2.2
+     */
+    public NioTcpServer() {
+        connections = Collections.newSetFromMap(new ConcurrentHashMap<NioTcpConnection, Boolean>());
+        lock = new Object();
+    }
+
+    /**
+     * Returns the number of currently open connections.
+     *
+     * @return the number of currently open connections
+     *
+     * @since 2.2
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Checks if binary encoding of data objects is enabled for accepted connections.
+     *
+     * @return <tt>true</tt> if binary encoding is enabled for accepted connections, otherwise <tt>false</tt>
+     *
+     * @see TcpConnection#setBinaryEnabled(boolean)
+     * @since 2.2
+     */
+    public boolean isBinaryEnabled() {
+        synchronized (lock) {
+            return binaryEnabled;
+        }
+    }
+
+    /**
+     * Checks if the network server is running.
+     *
+     * @return <tt>true</tt> if the network server is running, otherwise <tt>false</tt>
+     *
+     * @since 2.2
+     */
+    public boolean isRunning() {
+        synchronized (lock) {
+            return serverChannel != null;
+        }
+    }
+
+    /**
+     * Enables or disables binary encoding of data objects for connections accepted from now on.
+     *
+     * @param binaryEnabled <tt>true</tt> to enable binary encoding, <tt>false</tt> to disable it
+     *
+     * @see TcpConnection#setBinaryEnabled(boolean)
+     * @since 2.2
+     */
+    public void setBinaryEnabled(final boolean binaryEnabled) {
+        synchronized (lock) {
+            this.binaryEnabled = binaryEnabled;
+        }
+    }
+
+    /**
+     * Starts the server. The server tries to listen for connections at the specified port. Returns <tt>true</tt>, if
+     * the server started listening successfully. Returns <tt>false</tt> if there was an error.
+     *
+     * @param port the TCP port on which the server will listen for connections
+     * @return <tt>true</tt> if the server started listening successfully, otherwise <tt>false</tt>
+     * @throws IllegalArgumentException if the port number is not between 0 and 65535.
+     * @throws IllegalStateException if the server is already running
+     *
+     * @since 2.2
+     */
+    public boolean start(final int port) {
+        synchronized (lock) {
+            if (serverChannel != null) {
+                throw new IllegalStateException("Server is already running.");
+            }
+
+            final int threadCount = Math.min(MAX_SELECTOR_THREADS, Runtime.getRuntime().availableProcessors());
+            try {
+                serverChannel = ServerSocketChannel.open();
+                serverChannel.configureBlocking(false);
+                serverChannel.socket().setReuseAddress(true);
+                serverChannel.socket().bind(new InetSocketAddress(port));
+                selectorThreads = new NioSelectorThread[threadCount];
+                for (int i = 0; i < threadCount; ++i) {
+                    selectorThreads[i] = new NioSelectorThread(Convert.toString(
+                        "Jeda Nio Tcp Server (Port ", port, ", Thread ", i + 1, ")"));
+                    selectorThreads[i].start();
+                }
+
+                final ServerSocketChannel channel = serverChannel;
+                final NioSelectorThread acceptThread = selectorThreads[0];
+                acceptThread.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            channel.register(acceptThread.getSelector(), SelectionKey.OP_ACCEPT,
+                                             NioTcpServer.this);
+                        }
+                        catch (final IOException ex) {
+                            Log.e(ex, "Error while starting network server.");
+                            stop();
+                        }
+                    }
+                });
+
+                return true;
+            }
+            catch (final SecurityException ex) {
+                stop();
+                return false;
+            }
+            catch (final IOException ex) {
+                stop();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Stops the server. The server stops listening and closes all connections. Has no effect if the server is not
+     * running.
+     *
+     * @since 2.2
+     */
+    public void stop() {
+        synchronized (lock) {
+            if (serverChannel != null) {
+                try {
+                    serverChannel.close();
+                }
+                catch (final IOException ex) {
+                    // ignore
+                }
+
+                serverChannel = null;
+            }
+        }
+
+        // The selector threads are still needed to send the messages that wait to be sent.
+        for (final NioTcpConnection connection : connections) {
+            connection.close();
+        }
+
+        synchronized (lock) {
+            if (selectorThreads != null) {
+                for (int i = 0; i < selectorThreads.length; ++i) {
+                    if (selectorThreads[i] != null) {
+                        selectorThreads[i].shutdown();
+                    }
+                }
+
+                selectorThreads = null;
+            }
+        }
+    }
+
+    /**
+     * Called by the first selector thread when connections are waiting to be accepted.
+     */
+    void onAcceptable() {
+        final ServerSocketChannel channel;
+        final NioSelectorThread[] threads;
+        final boolean binary;
+        synchronized (lock) {
+            channel = serverChannel;
+            threads = selectorThreads;
+            binary = binaryEnabled;
+        }
+
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            SocketChannel socketChannel = channel.accept();
+            while (socketChannel != null) {
+                socketChannel.configureBlocking(false);
+                socketChannel.socket().setTcpNoDelay(true);
+                final NioSelectorThread thread = threads[nextSelectorThread];
+                nextSelectorThread = (nextSelectorThread + 1) % threads.length;
+                final NioTcpConnection connection = new NioTcpConnection(this, socketChannel, thread, binary);
+                connections.add(connection);
+                thread.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            connection.register();
+                            Jeda.postEvent(new ConnectionEvent(connection, EventType.CONNECTION_ACCEPTED));
+                        }
+                        catch (final IOException ex) {
+                            connection.close();
+                        }
+                    }
+                });
+
+                socketChannel = channel.accept();
+            }
+        }
+        catch (final IOException ex) {
+            Log.w(ex, "Error while accepting network connection.");
+        }
+    }
+
+    void onClosed(final NioTcpConnection connection) {
+        connections.remove(connection);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Holds the messages a connection has not sent yet. Senders only append to the queue, so they do not block on a slow
+ * remote endpoint unless the overflow policy says so. A writer takes the messages from the queue and reports how many
+ * bytes it actually has written. The queue counts the bytes that have been queued, but not yet written, and applies the
+ * overflow policy of the connection when this count exceeds the high-water mark. This class is thread-safe.
+ */
+final class OutboundQueue {
+
+    private static final long BLOCK_TIMEOUT = 1000;
+    private static final long DRAIN_TIMEOUT = 1000;
+    private final Connection connection;
+    private final ArrayDeque<Message> messages;
+    private long byteCount;
+    private boolean closed;
+    private boolean dropping;
+    private long droppedCount;
+
+    OutboundQueue(final Connection connection) {
+        this.connection = connection;
+        messages = new ArrayDeque<Message>();
+    }
+
+    /**
+     * Closes the queue and discards all messages. Wakes up a writer waiting in {@link #take()} and senders waiting in
+     * {@link #offer(java.nio.ByteBuffer, boolean)}. Call {@link #drain()} beforehand to send the queued messages.
+     */
+    synchronized void close() {
+        closed = true;
+        messages.clear();
+        byteCount = 0;
+        notifyAll();
+    }
+
+    /**
+     * Waits until all queued messages have been written, the queue has been closed or one second has passed. Returns
+     * <tt>false</tt> if there are still bytes waiting to be written. Must not be called by the writer of the queue.
+     */
+    synchronized boolean drain() {
+        final long end = System.currentTimeMillis() + DRAIN_TIMEOUT;
+        long remaining = DRAIN_TIMEOUT;
+        while (!closed && byteCount > 0 && remaining > 0) {
+            try {
+                wait(remaining);
+            }
+            catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            remaining = end - System.currentTimeMillis();
+        }
+
+        return closed || byteCount == 0;
+    }
+
+    /**
+     * Returns the number of bytes that have been queued, but not yet written.
+     */
+    synchronized long getByteCount() {
+        return byteCount;
+    }
+
+    synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Appends a message to the queue. Returns <tt>false</tt> if the overflow policy requires the connection to be
+     * closed. Waits up to one second until enough bytes have been written if the overflow policy is
+     * {@link OverflowPolicy#BLOCK}, and returns <tt>false</tt> if not enough bytes have been written by then. Must not
+     * be called by the writer of the queue in this case.
+     *
+     * @param message the bytes to send
+     * @param droppable <tt>true</tt> if the message may be dropped to reduce the size of the queue
+     */
+    synchronized boolean offer(final ByteBuffer message, final boolean droppable) {
+        final int highWaterMark = connection.getHighWaterMark();
+        final OverflowPolicy overflowPolicy = connection.getOverflowPolicy();
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            // A message larger than the high-water mark is accepted once the queue is empty.
+            final long end = System.currentTimeMillis() + BLOCK_TIMEOUT;
+            long remaining = BLOCK_TIMEOUT;
+            while (!closed && byteCount > 0 && byteCount + message.remaining() > highWaterMark) {
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                try {
+                    wait(remaining);
+                }
+                catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+
+                remaining = end - System.currentTimeMillis();
+            }
+        }
+
+        if (closed) {
+            return true;
+        }
+
+        final Message newMessage = new Message(message, droppable);
+        messages.add(newMessage);
+        byteCount += message.remaining();
+        if (byteCount > highWaterMark && overflowPolicy != OverflowPolicy.BLOCK) {
+            if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                return false;
+            }
+
+            final Iterator<Message> i = messages.iterator();
+            while (byteCount > highWaterMark && i.hasNext()) {
+                final Message oldMessage = i.next();
+                if (oldMessage != newMessage && oldMessage.droppable) {
+                    i.remove();
+                    byteCount -= oldMessage.data.remaining();
+                    ++droppedCount;
+                    if (!dropping) {
+                        dropping = true;
+                        Log.w("Dropping lines to ", connection.getRemoteAddress(),
+                              ": Too much data waiting to be sent.");
+                    }
+                }
+            }
+
+            // Messages that may not be dropped still exceed the high-water mark.
+            if (byteCount > highWaterMark && messages.size() > 1) {
+                return false;
+            }
+        }
+
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Removes and returns the oldest message. Returns <tt>null</tt> if the queue is empty.
+     */
+    synchronized ByteBuffer poll() {
+        final Message result = messages.poll();
+        if (result == null) {
+            return null;
+        }
+        else {
+            return result.data;
+        }
+    }
+
+    synchronized int size() {
+        return messages.size();
+    }
+
+    /**
+     * Removes and returns the oldest message, waiting until one is available. Returns <tt>null</tt> if the queue has
+     * been closed.
+     */
+    synchronized ByteBuffer take() throws InterruptedException {
+        while (!closed && messages.isEmpty()) {
+            wait();
+        }
+
+        return poll();
+    }
+
+    /**
+     * Reports that the specified number of bytes taken from the queue has been written.
+     */
+    synchronized void written(final int count) {
+        if (!closed) {
+            byteCount -= count;
+            if (byteCount <= connection.getHighWaterMark()) {
+                dropping = false;
+            }
+
+            // Wake up senders waiting for space and threads waiting for the queue to be drained.
+            notifyAll();
+        }
+    }
+
+    private static final class Message {
+
+        final ByteBuffer data;
+        final boolean droppable;
+
+        Message(final ByteBuffer data, final boolean droppable) {
+            this.data = data;
+            this.droppable = droppable;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+/**
+ * Defines what a {@link Connection} does when more data is waiting to be sent than its high-water mark allows. This
+ * happens when the remote endpoint does not read fast enough.
+ *
+ * @see Connection#setOverflowPolicy(ch.jeda.OverflowPolicy)
+ * @since 2.2
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Sending a message waits until enough bytes have been written to the network, like writing directly to the
+     * network would. If the remote endpoint has not read enough data after one second, the connection is closed. Use
+     * this policy only if the sending thread may wait, never when sending from the tick of the game loop.
+     *
+     * @since 2.2
+     */
+    BLOCK,
+    /**
+     * The oldest lines of text that have not been sent yet are dropped. Binary data objects are never dropped. If they
+     * alone exceed the high-water mark, the connection is closed. A warning is logged when lines start being dropped,
+     * the number of dropped lines is returned by {@link Connection#getDroppedMessageCount()}. This is the default
+     * policy.
+     *
+     * @since 2.2
+     */
+    DROP_OLDEST,
+    /**
+     * The connection is closed.
+     *
+     * @since 2.2
+     */
+    DISCONNECT
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.event.LoadEvent;
+import ch.jeda.tiled.TiledMap;
+import ch.jeda.ui.Image;
+import ch.jeda.ui.Typeface;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads images, sounds, typefaces and Tiled maps in parallel in the background. Add the assets to load, either one by
+ * one or by reading a manifest file, then call {@link #start()}. The assets are decoded by a pool of worker threads, one
+ * per available processor. Each time an asset has been loaded, an event of type
+ * {@link ch.jeda.event.EventType#LOAD_PROGRESS} is posted, so that a loading screen can keep animating and show the
+ * progress.
+ * <p>
+ * Images and sounds are cached by Jeda, so constructing an {@link ch.jeda.ui.Image} or {@link ch.jeda.Sound} with the
+ * path of a preloaded asset returns immediately. Typefaces and Tiled maps are not cached and can be obtained from the
+ * {@link java.util.concurrent.Future} returned when adding them. If such a future is cancelled, the asset counts as
+ * an asset that could not be loaded.
+ * <p>
+ * A manifest file is a text file containing one asset path per line. Empty lines and lines starting with '#' are
+ * ignored. The type of asset is determined by the file extension:
+ * <ul>
+ * <li><tt>.jpg</tt>, <tt>.jpeg</tt>, <tt>.png</tt>: image
+ * <li><tt>.mp3</tt>, <tt>.ogg</tt>, <tt>.wav</tt>: sound
+ * <li><tt>.ttf</tt>: typeface
+ * <li><tt>.tmx</tt>: Tiled map
+ * </ul>
+ *
+ * @since 2.2
+ */
+public final class Preloader {
+
+    private static final String COMMENT_PREFIX = "#";
+    private final List<AssetTask<?>> tasks;
+    private final AtomicInteger failedCount;
+    private final AtomicInteger loadedCount;
+    private final Object lock;
+    private boolean started;
+
+    /**
+     * Constructs a new preloader without any assets.
+     *
+     * @since 2.2
+     */
+    public Preloader() {
+        tasks = new ArrayList<AssetTask<?>>();
+        failedCount = new AtomicInteger();
+        loadedCount = new AtomicInteger();
+        lock = new Object();
+        started = false;
+    }
+
+    /**
+     * Constructs a new preloader and adds all assets listed in the specified manifest file.
+     *
+     * @param manifestPath the path to the manifest file
+     *
+     * @see #addManifest(java.lang.String)
+     * @since 2.2
+     */
+    public Preloader(final String manifestPath) {
+        this();
+        addManifest(manifestPath);
+    }
+
+    /**
+     * Adds an image to load.
+     *
+     * @param path the path to the image file
+     * @return a future providing the loaded image
+     * @throws NullPointerException if <tt>path</tt> is <tt>null</tt>
+     * @throws IllegalStateException if the preloader has already been started
+     *
+     * @since 2.2
+     */
+    public Future<Image> addImage(final String path) {
+        return add(path, new Callable<Image>() {
+
+            @Override
+            public Image call() {
+                return new Image(path);
+            }
+        });
+    }
+
+    /**
+     * Adds all assets listed in the specified manifest file. The type of each asset is determined by the file
+     * extension. Lines with an unknown file extension are ignored.
+     *
+     * @param manifestPath the path to the manifest file
+     * @throws NullPointerException if <tt>manifestPath</tt> is <tt>null</tt>
+     * @throws IllegalStateException if the preloader has already been started
+     *
+     * @since 2.2
+     */
+    public void addManifest(final String manifestPath) {
+        if (manifestPath == null) {
+            throw new NullPointerException("manifestPath");
+        }
+
+        final String[] lines = Jeda.loadTextFile(manifestPath);
+        if (lines == null) {
+            return;
+        }
+
+        for (int i = 0; i < lines.length; ++i) {
+            final String line = lines[i] == null ? "" : lines[i].trim();
+            if (!line.isEmpty() && !line.startsWith(COMMENT_PREFIX)) {
+                addByExtension(line);
+            }
+        }
+    }
+
+    /**
+     * Adds a sound to load.
+     *
+     * @param path the path to the sound file
+     * @return a future providing the loaded sound
+     * @throws NullPointerException if <tt>path</tt> is <tt>null</tt>
+     * @throws IllegalStateException if the preloader has already been started
+     *
+     * @since 2.2
+     */
+    public Future<Sound> addSound(final String path) {
+        return add(path, new Callable<Sound>() {
+
+            @Override
+            public Sound call() {
+                return new Sound(path);
+            }
+        });
+    }
+
+    /**
+     * Adds a Tiled map to load. All images used by the map are loaded as well.
+     *
+     * @param path the path to the Tiled map file
+     * @return a future providing the loaded Tiled map
+     * @throws NullPointerException if <tt>path</tt> is <tt>null</tt>
+     * @throws IllegalStateException if the preloader has already been started
+     *
+     * @since 2.2
+     */
+    public Future<TiledMap> addTiledMap(final String path) {
+        return add(path, new Callable<TiledMap>() {
+
+            @Override
+            public TiledMap call() {
+                return new TiledMap(path);
+            }
+        });
+    }
+
+    /**
+     * Adds a typeface to load.
+     *
+     * @param path the path to the font file
+     * @return a future providing the loaded typeface
+     * @throws NullPointerException if <tt>path</tt> is <tt>null</tt>
+     * @throws IllegalStateException if the preloader has already been started
+     *
+     * @since 2.2
+     */
+    public Future<Typeface> addTypeface(final String path) {
+        return add(path, new Callable<Typeface>() {
+
+            @Override
+            public Typeface call() {
+                return new Typeface(path);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of assets that could not be loaded so far.
+     *
+     * @return the number of assets that could not be loaded so far
+     *
+     * @since 2.2
+     */
+    public int getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Returns the number of assets that have been processed so far. This includes assets that could not be loaded.
+     *
+     * @return the number of assets that have been processed so far
+     *
+     * @since 2.2
+     */
+    public int getLoadedCount() {
+        return loadedCount.get();
+    }
+
+    /**
+     * Returns the loading progress as a value between 0 and 1.
+     *
+     * @return the loading progress as a value between 0 and 1
+     *
+     * @since 2.2
+     */
+    public float getProgress() {
+        final int total = getTotalCount();
+        if (total == 0) {
+            return 1f;
+        }
+        else {
+            return (float) getLoadedCount() / (float) total;
+        }
+    }
+
+    /**
+     * Returns the total number of assets to load.
+     *
+     * @return the total number of assets to load
+     *
+     * @since 2.2
+     */
+    public int getTotalCount() {
+        synchronized (lock) {
+            return tasks.size();
+        }
+    }
+
+    /**
+     * Checks if all assets have been processed.
+     *
+     * @return <tt>true</tt> if all assets have been processed, otherwise <tt>false</tt>
+     *
+     * @since 2.2
+     */
+    public boolean isDone() {
+        synchronized (lock) {
+            return started && loadedCount.get() >= tasks.size();
+        }
+    }
+
+    /**
+     * Starts loading the assets in the background. Returns immediately. Has no effect if the preloader has already been
+     * started.
+     *
+     * @since 2.2
+     */
+    public void start() {
+        synchronized (lock) {
+            if (started) {
+                return;
+            }
+
+            started = true;
+            if (tasks.isEmpty()) {
+                return;
+            }
+
+            final int threadCount = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+            final ExecutorService executor = Executors.newFixedThreadPool(threadCount, new WorkerThreadFactory());
+            for (int i = 0; i < tasks.size(); ++i) {
+                executor.execute(tasks.get(i));
+            }
+
+            // Let the worker threads terminate once all assets have been loaded.
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Waits until all assets have been processed. Starts the preloader if it has not been started yet.
+     *
+     * @since 2.2
+     */
+    public void waitUntilDone() {
+        start();
+        final AssetTask<?>[] currentTasks;
+        synchronized (lock) {
+            currentTasks = tasks.toArray(new AssetTask<?>[tasks.size()]);
+        }
+
+        for (int i = 0; i < currentTasks.length; ++i) {
+            try {
+                currentTasks[i].get();
+            }
+            catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (final CancellationException ex) {
+                // already counted by the task
+            }
+            catch (final ExecutionException ex) {
+                // already reported by the task
+            }
+        }
+    }
+
+    private <T> Future<T> add(final String path, final Callable<T> callable) {
+        if (path == null) {
+            throw new NullPointerException("path");
+        }
+
+        synchronized (lock) {
+            if (started) {
+                throw new IllegalStateException("Preloader has already been started.");
+            }
+
+            final AssetTask<T> result = new AssetTask<T>(this, path, callable);
+            tasks.add(result);
+            return result;
+        }
+    }
+
+    private void addByExtension(final String path) {
+        final String extension = path.substring(path.lastIndexOf('.') + 1).toLowerCase();
+        if ("jpg".equals(extension) || "jpeg".equals(extension) || "png".equals(extension)) {
+            addImage(path);
+        }
+        else if ("mp3".equals(extension) || "ogg".equals(extension) || "wav".equals(extension)) {
+            addSound(path);
+        }
+        else if ("ttf".equals(extension)) {
+            addTypeface(path);
+        }
+        else if ("tmx".equals(extension)) {
+            addTiledMap(path);
+        }
+        else {
+            Log.w("Ignoring asset '", path, "' with unknown file extension in manifest.");
+        }
+    }
+
+    private void assetLoaded(final String path, final boolean success) {
+        final int failed = success ? failedCount.get() : failedCount.incrementAndGet();
+        final int loaded = loadedCount.incrementAndGet();
+        Jeda.postEvent(new LoadEvent(this, path, success, loaded, failed, getTotalCount()));
+    }
+
+    private static boolean isAvailable(final Object asset) {
+        if (asset instanceof Image) {
+            return ((Image) asset).isAvailable();
+        }
+        else if (asset instanceof Sound) {
+            return ((Sound) asset).isAvailable();
+        }
+        else if (asset instanceof Typeface) {
+            return ((Typeface) asset).isAvailable();
+        }
+        else {
+            return asset != null;
+        }
+    }
+
+    private static class AssetTask<T> extends FutureTask<T> {
+
+        private final String path;
+        private final Preloader preloader;
+
+        AssetTask(final Preloader preloader, final String path, final Callable<T> callable) {
+            super(callable);
+            this.path = path;
+            this.preloader = preloader;
+        }
+
+        @Override
+        protected void done() {
+            boolean success;
+            try {
+                success = isAvailable(get());
+            }
+            catch (final CancellationException ex) {
+                // The caller has cancelled the future, the asset counts as not loaded.
+                success = false;
+            }
+            catch (final InterruptedException ex) {
+                success = false;
+            }
+            catch (final ExecutionException ex) {
+                Log.e(ex.getCause(), "Error while preloading asset '", path, "'.");
+                success = false;
+            }
+
+            preloader.assetLoaded(path, success);
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber;
+
+        WorkerThreadFactory() {
+            threadNumber = new AtomicInteger();
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread result = new Thread(runnable);
+            result.setName("Jeda Preloader " + threadNumber.incrementAndGet());
+            result.setDaemon(true);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+/**
+ * Defines an interface for {@link ch.jeda.ui.Element}s that replicate custom state with a {@link ViewReplicator}. The
+ * replicator calls {@link #writeTo(ch.jeda.Data)} on the sending side every time it takes a snapshot. On the receiving
+ * side, {@link #readFrom(ch.jeda.Data)} is called with the complete custom state whenever some of it has changed.
+ * <p>
+ * A replicable element class must have a public constructor without parameters, a public constructor with a single
+ * {@link ch.jeda.Data} parameter, which receives the initial custom state, or a registered {@link Factory}.
+ *
+ * @see ViewReplica
+ * @see ViewReplicator
+ * @since 2.2
+ */
+public interface Replicable extends Storable {
+
+    /**
+     * Updates the object with state that has been written by {@link #writeTo(ch.jeda.Data)} on the sending side.
+     *
+     * @param data the data object to read from
+     *
+     * @since 2.2
+     */
+    void readFrom(Data data);
+}
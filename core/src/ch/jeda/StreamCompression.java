@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.zip.Deflater;
+
+/**
+ * Helpers for the optional compression of TCP connections. The endpoints announce their support with the
+ * {@link #HELLO} line. An endpoint that has received the hello of its peer sends the {@link #START} line, everything
+ * it sends after that line is a zlib stream using the preset {@link #DICTIONARY}. The stream is flushed with
+ * <tt>SYNC_FLUSH</tt> whenever the writer has sent all queued messages, so every message can be decoded as soon as it
+ * arrives.
+ * <p>
+ * <tt>SYNC_FLUSH</tt> is available as of Java 7 and Android 4.4. It is looked up by reflection, so that Jeda still
+ * runs on older platforms. There, compression is not announced and connections stay uncompressed.
+ */
+final class StreamCompression {
+
+    static final String HELLO = "\u0001jeda-deflate 1";
+    static final String START = "\u0001jeda-deflate-start";
+    static final byte[] DICTIONARY = createDictionary(
+        // Less common strings first, zlib finds strings at the end of the dictionary with shorter distances.
+        "jeda.replication.snapshot", "jeda.replication.ack", "<base>", "<time>", "<type>", "<rf>", "<f>",
+        "<message>", "<score>", "<player>", "<text>", "<value>", "<key>", "<width>", "<height>", "<speed>",
+        "<velocity>", "<position>", "<angle>", "<radius>", "<color>", "<state>", "<name>", "<id>",
+        "true</", "false</", "class=\"ch.jeda.ui.Color\"><r>", "</r><g>", "</g><b>", "</b><a>255</a></",
+        " class=\"ch.jeda.", "<e><id>", "</id>", "<x>", "</x><y>", "</y>", ".0</", "</data>", "<data>"
+    );
+    private static final int SYNC_FLUSH = 2;
+    private static final Method DEFLATE_WITH_FLUSH = findDeflateWithFlush();
+
+    /**
+     * Checks if the platform supports compressed connections.
+     */
+    static boolean isSupported() {
+        return DEFLATE_WITH_FLUSH != null;
+    }
+
+    static Deflater createDeflater() {
+        final Deflater result = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        result.setDictionary(DICTIONARY);
+        return result;
+    }
+
+    /**
+     * Flushes the deflater with <tt>SYNC_FLUSH</tt> into the specified buffer. Returns the number of bytes written to
+     * the buffer. If the buffer has been filled completely, the method has to be called again.
+     */
+    static int syncFlush(final Deflater deflater, final byte[] buffer) {
+        try {
+            return (Integer) DEFLATE_WITH_FLUSH.invoke(deflater, buffer, 0, buffer.length, SYNC_FLUSH);
+        }
+        catch (final IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+        catch (final InvocationTargetException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private StreamCompression() {
+    }
+
+    private static byte[] createDictionary(final String... entries) {
+        final StringBuilder result = new StringBuilder();
+        for (int i = 0; i < entries.length; ++i) {
+            result.append(entries[i]);
+        }
+
+        return result.toString().getBytes(BinaryDataWriter.UTF8);
+    }
+
+    private static Method findDeflateWithFlush() {
+        try {
+            return Deflater.class.getMethod("deflate", byte[].class, int.class, int.class, int.class);
+        }
+        catch (final NoSuchMethodException ex) {
+            return null;
+        }
+        catch (final SecurityException ex) {
+            return null;
+        }
+    }
+}
@@ -19,26 +19,46 @@ package ch.jeda;
 import ch.jeda.event.EventType;
 import ch.jeda.event.ConnectionEvent;
 import ch.jeda.event.MessageEvent;
-import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.zip.Deflater;
 
 /**
  * Represents TCP network connection. This class is thread-safe.
+ * <p>
+ * Messages are exchanged as lines of UTF-8 text. If binary encoding is enabled on both endpoints, data objects are sent
+ * in a compact binary format instead. The endpoints negotiate the binary encoding by sending a special line, so a
+ * connection to an endpoint that only understands lines of text keeps working, as long as binary encoding is not
+ * enabled.
+ * <p>
+ * Likewise, if compression is enabled on both endpoints, the stream is compressed with a preset dictionary of common
+ * names. This reduces the bandwidth for repetitive messages like data objects considerably.
  *
  * @since 1.4
+ * @version 3
  */
 public final class TcpConnection extends Connection {
 
+    private static final byte NEW_LINE = '\n';
+    private static final byte[] COMPRESSION_START = (StreamCompression.START + "\n").getBytes(BinaryDataWriter.UTF8);
     private final Charset charset;
     private final Object lock;
-    private BufferedReader in;
-    private PrintWriter out;
+    private boolean binaryEnabled;
+    private boolean binaryHelloSent;
+    private BinaryDataWriter binaryWriter;
+    private boolean compressionEnabled;
+    private boolean compressionHelloSent;
+    private boolean compressionStarted;
+    private MessageDecoder decoder;
+    private volatile OutboundQueue outbound;
+    private boolean peerCompression;
     private String remoteAddress;
     private Socket socket;
 
@@ -52,33 +72,32 @@ public final class TcpConnection extends Connection {
         lock = new Object();
     }
 
-    TcpConnection(final Socket socket) {
+    TcpConnection(final Socket socket, final boolean binaryEnabled, final boolean compressionEnabled) {
         this();
+        this.binaryEnabled = binaryEnabled;
+        this.compressionEnabled = compressionEnabled;
         init(socket);
     }
 
     /**
-     * Closes an open connection. Has no effect if the connection is not open.
+     * Closes an open connection. Has no effect if the connection is not open. Messages that wait to be sent are sent
+     * before the connection is closed, waiting at most one second for a slow remote endpoint.
      *
      * @since 1.4
      */
     @Override
     public void close() {
-        synchronized (lock) {
-            if (socket != null) {
-                try {
-                    socket.close();
-                }
-                catch (final IOException ex) {
-                    // ignore
-                }
-
-                socket = null;
-                in = null;
-                out = null;
-                Jeda.postEvent(new ConnectionEvent(this, EventType.CONNECTION_CLOSED));
+        // Read without the lock, a sender waiting for space in the queue holds it
+        final OutboundQueue queue = outbound;
+        if (queue != null) {
+            final boolean drained = queue.drain();
+            queue.close();
+            if (!drained) {
+                Log.w("Closing connection to ", getRemoteAddress(), " with messages not yet sent.");
             }
         }
+
+        closeNow();
     }
 
     /**
@@ -120,6 +139,60 @@ public final class TcpConnection extends Connection {
         }
     }
 
+    /**
+     * Checks if data objects are currently sent in binary format. This is the case if binary encoding has been enabled
+     * on both endpoints of the connection.
+     *
+     * @return <tt>true</tt> if data objects are sent in binary format, otherwise <tt>false</tt>
+     *
+     * @since 2.2
+     */
+    public boolean isBinary() {
+        synchronized (lock) {
+            return binaryEnabled && decoder != null && decoder.isPeerBinary();
+        }
+    }
+
+    /**
+     * Checks if binary encoding of data objects is enabled for this endpoint.
+     *
+     * @return <tt>true</tt> if binary encoding is enabled, otherwise <tt>false</tt>
+     *
+     * @since 2.2
+     */
+    public boolean isBinaryEnabled() {
+        synchronized (lock) {
+            return binaryEnabled;
+        }
+    }
+
+    /**
+     * Checks if the messages sent over this connection are currently compressed. This is the case if compression has
+     * been enabled on both endpoints of the connection.
+     *
+     * @return <tt>true</tt> if sent messages are compressed, otherwise <tt>false</tt>
+     *
+     * @since 2.2
+     */
+    public boolean isCompressed() {
+        synchronized (lock) {
+            return compressionStarted && outbound != null;
+        }
+    }
+
+    /**
+     * Checks if compression is enabled for this endpoint.
+     *
+     * @return <tt>true</tt> if compression is enabled, otherwise <tt>false</tt>
+     *
+     * @since 2.2
+     */
+    public boolean isCompressionEnabled() {
+        synchronized (lock) {
+            return compressionEnabled;
+        }
+    }
+
     @Override
     public boolean isOpen() {
         synchronized (lock) {
@@ -127,57 +200,299 @@ public final class TcpConnection extends Connection {
         }
     }
 
+    @Override
+    public void sendData(final Data data) {
+        synchronized (lock) {
+            if (isBinary()) {
+                if (outbound != null) {
+                    final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+                    try {
+                        binaryWriter.writeFrame(data.getNode(), frame);
+                    }
+                    catch (final IOException ex) {
+                        Log.e(ex, "Error while encoding data object.");
+                        return;
+                    }
+
+                    enqueue(ByteBuffer.wrap(frame.toByteArray()), false);
+                }
+            }
+            else {
+                sendLine(data.toLine());
+            }
+        }
+    }
+
+    /**
+     * Sends a line of text to the remote endpoint. Has no effect if the connection is not open. The line is queued and
+     * written by a background thread, so this method only blocks if the remote endpoint is slow and the overflow policy
+     * is {@link OverflowPolicy#BLOCK}. In this case, it blocks for at most one second.
+     *
+     * @param line the line of text to send
+     *
+     * @since 1.4
+     */
     @Override
     public void sendLine(final String line) {
+        final byte[] bytes = line.getBytes(charset);
+        final ByteBuffer message = ByteBuffer.allocate(bytes.length + 1);
+        message.put(bytes);
+        message.put(NEW_LINE);
+        message.flip();
         synchronized (lock) {
-            if (out != null) {
-                out.println(line);
-                out.flush();
+            if (outbound != null) {
+                enqueue(message, !MessageDecoder.BINARY_HELLO.equals(line) && !StreamCompression.HELLO.equals(line));
             }
         }
     }
 
-    private void init(final Socket socket) {
-        try {
-            synchronized (lock) {
-                this.socket = socket;
-                in = new BufferedReader(new InputStreamReader(socket.getInputStream(), charset));
-                out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), charset));
-                remoteAddress = Convert.toString(socket.getInetAddress().getHostAddress(), ':',
-                                                 socket.getPort());
-                new TcpConnectionThread(this).start();
+    /**
+     * Enables or disables binary encoding of data objects. Binary encoding is only used if it has been enabled on both
+     * endpoints of the connection. Enabling binary encoding sends a negotiation line to the remote endpoint. Therefore,
+     * do not enable binary encoding when communicating with applications that do not use Jeda 2.2 or later.
+     *
+     * @param binaryEnabled <tt>true</tt> to enable binary encoding, <tt>false</tt> to disable it
+     *
+     * @since 2.2
+     */
+    public void setBinaryEnabled(final boolean binaryEnabled) {
+        synchronized (lock) {
+            this.binaryEnabled = binaryEnabled;
+            sendBinaryHello();
+        }
+    }
+
+    /**
+     * Enables or disables compression of the stream. Compression is only used if it has been enabled on both endpoints
+     * of the connection. Once the stream is compressed, it stays compressed until the connection is closed, disabling
+     * compression only prevents compression from starting. Enabling compression sends a negotiation line to the remote
+     * endpoint. Therefore, do not enable compression when communicating with applications that do not use Jeda 2.2 or
+     * later. Compression requires Java 7 or Android 4.4, on older platforms enabling it has no effect.
+     *
+     * @param compressionEnabled <tt>true</tt> to enable compression, <tt>false</tt> to disable it
+     *
+     * @since 2.2
+     */
+    public void setCompressionEnabled(final boolean compressionEnabled) {
+        synchronized (lock) {
+            this.compressionEnabled = compressionEnabled;
+            sendCompressionHello();
+            startCompression();
+        }
+    }
+
+    @Override
+    void peerCompressionAnnounced() {
+        synchronized (lock) {
+            peerCompression = true;
+            startCompression();
+        }
+    }
+
+    /**
+     * Closes the connection if it still uses the specified socket.
+     */
+    private void close(final Socket oldSocket) {
+        synchronized (lock) {
+            if (socket == oldSocket) {
+                closeNow();
             }
         }
-        catch (final IOException ex) {
-            close();
+    }
+
+    /**
+     * Closes the connection without sending the messages that wait to be sent.
+     */
+    private void closeNow() {
+        synchronized (lock) {
+            if (socket != null) {
+                try {
+                    socket.close();
+                }
+                catch (final IOException ex) {
+                    // ignore
+                }
+
+                socket = null;
+                outbound.close();
+                outbound = null;
+                Jeda.postEvent(new ConnectionEvent(this, EventType.CONNECTION_CLOSED));
+            }
+        }
+    }
+
+    @Override
+    OutboundQueue getOutboundQueue() {
+        synchronized (lock) {
+            return outbound;
+        }
+    }
+
+    private void enqueue(final ByteBuffer message, final boolean droppable) {
+        if (!outbound.offer(message, droppable)) {
+            Log.w("Closing connection to ", remoteAddress, ": Too much data waiting to be sent.");
+            closeNow();
+        }
+    }
+
+    private void init(final Socket socket) {
+        synchronized (lock) {
+            this.socket = socket;
+            outbound = new OutboundQueue(this);
+            remoteAddress = Convert.toString(socket.getInetAddress().getHostAddress(), ':', socket.getPort());
+            binaryHelloSent = false;
+            binaryWriter = new BinaryDataWriter();
+            compressionHelloSent = false;
+            compressionStarted = false;
+            decoder = new MessageDecoder(this, charset);
+            peerCompression = false;
+            sendBinaryHello();
+            sendCompressionHello();
+            new TcpConnectionThread(this, socket, decoder).start();
+            new TcpConnectionWriter(this, socket, outbound).start();
+        }
+    }
+
+    private void sendBinaryHello() {
+        if (binaryEnabled && !binaryHelloSent && outbound != null) {
+            binaryHelloSent = true;
+            sendLine(MessageDecoder.BINARY_HELLO);
+        }
+    }
+
+    private void sendCompressionHello() {
+        if (compressionEnabled && !compressionHelloSent && outbound != null && StreamCompression.isSupported()) {
+            compressionHelloSent = true;
+            sendLine(StreamCompression.HELLO);
+        }
+    }
+
+    private void startCompression() {
+        if (compressionEnabled && peerCompression && !compressionStarted && outbound != null &&
+            StreamCompression.isSupported()) {
+            compressionStarted = true;
+            // The writer starts compressing after writing this line.
+            enqueue(ByteBuffer.wrap(COMPRESSION_START), false);
         }
     }
 
     private static class TcpConnectionThread extends Thread {
 
+        private static final int BUFFER_SIZE = 8192;
         private final TcpConnection connection;
+        private final MessageDecoder decoder;
+        private final Socket socket;
 
-        public TcpConnectionThread(final TcpConnection connection) {
+        public TcpConnectionThread(final TcpConnection connection, final Socket socket, final MessageDecoder decoder) {
             this.connection = connection;
+            this.decoder = decoder;
+            this.socket = socket;
             setName("Jeda Tcp Connection Listener (" + connection.remoteAddress + ")");
         }
 
         @Override
         public void run() {
-            while (connection.isOpen()) {
-                try {
-                    final String line = connection.in.readLine();
-                    if (line == null) {
-                        connection.close();
-                    }
-                    else {
-                        Jeda.postEvent(new MessageEvent(connection, line));
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            final ByteBuffer wrapper = ByteBuffer.wrap(buffer);
+            try {
+                final InputStream in = socket.getInputStream();
+                while (!socket.isClosed()) {
+                    final int count = in.read(buffer);
+                    if (count < 0) {
+                        break;
                     }
+
+                    wrapper.clear();
+                    wrapper.limit(count);
+                    decoder.decode(wrapper);
                 }
-                catch (final IOException ex) {
-                    connection.close();
+            }
+            catch (final IOException ex) {
+                // connection is closed below
+            }
+
+            decoder.close();
+            connection.close(socket);
+        }
+    }
+
+    /**
+     * Writes the queued messages of a connection. The writer wakes up as soon as a message is queued, so messages are
+     * not collected per tick. Only the messages queued while the writer is busy are written together with a single
+     * flush. After the start of compression, the messages are deflated and the deflater is flushed
+     * together with the stream.
+     */
+    private static class TcpConnectionWriter extends Thread {
+
+        private static final int BUFFER_SIZE = 8192;
+        private final TcpConnection connection;
+        private final OutboundQueue queue;
+        private final Socket socket;
+
+        public TcpConnectionWriter(final TcpConnection connection, final Socket socket, final OutboundQueue queue) {
+            this.connection = connection;
+            this.queue = queue;
+            this.socket = socket;
+            setDaemon(true);
+            setName("Jeda Tcp Connection Writer (" + connection.remoteAddress + ")");
+        }
+
+        @Override
+        public void run() {
+            Deflater deflater = null;
+            try {
+                final OutputStream out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                ByteBuffer message = queue.take();
+                while (message != null) {
+                    int count = 0;
+                    while (message != null) {
+                        if (deflater == null) {
+                            out.write(message.array(), message.arrayOffset() + message.position(), message.remaining());
+                            if (message.array() == COMPRESSION_START) {
+                                deflater = StreamCompression.createDeflater();
+                            }
+                        }
+                        else {
+                            deflater.setInput(message.array(), message.arrayOffset() + message.position(),
+                                              message.remaining());
+                            while (!deflater.needsInput()) {
+                                out.write(buffer, 0, deflater.deflate(buffer));
+                            }
+                        }
+
+                        count += message.remaining();
+                        message = queue.poll();
+                    }
+
+                    if (deflater != null) {
+                        int size;
+                        do {
+                            size = StreamCompression.syncFlush(deflater, buffer);
+                            out.write(buffer, 0, size);
+                        }
+                        while (size == buffer.length);
+                    }
+
+                    out.flush();
+                    queue.written(count);
+                    message = queue.take();
                 }
             }
+            catch (final InterruptedException ex) {
+                // connection is closed below
+            }
+            catch (final IOException ex) {
+                // connection is closed below
+            }
+
+            if (deflater != null) {
+                deflater.end();
+            }
+
+            // Wake up senders waiting for space in the queue, they hold the lock needed to close the connection
+            queue.close();
+            connection.close(socket);
         }
     }
 }
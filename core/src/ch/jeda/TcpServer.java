@@ -26,10 +26,13 @@ import java.net.Socket;
  * Represents a TCP network server that listens for connections on a port. This class is thread-safe.
  *
  * @since 1.4
+ * @version 3
  */
 public final class TcpServer {
 
     private final Object lock;
+    private boolean binaryEnabled;
+    private boolean compressionEnabled;
     private ServerSocket serverSocket;
 
     /**
@@ -41,6 +44,34 @@ public final class TcpServer {
         lock = new Object();
     }
 
+    /**
+     * Checks if binary encoding of data objects is enabled for accepted connections.
+     *
+     * @return <tt>true</tt> if binary encoding is enabled for accepted connections, otherwise <tt>false</tt>
+     *
+     * @see TcpConnection#setBinaryEnabled(boolean)
+     * @since 2.2
+     */
+    public boolean isBinaryEnabled() {
+        synchronized (lock) {
+            return binaryEnabled;
+        }
+    }
+
+    /**
+     * Checks if compression is enabled for accepted connections.
+     *
+     * @return <tt>true</tt> if compression is enabled for accepted connections, otherwise <tt>false</tt>
+     *
+     * @see TcpConnection#setCompressionEnabled(boolean)
+     * @since 2.2
+     */
+    public boolean isCompressionEnabled() {
+        synchronized (lock) {
+            return compressionEnabled;
+        }
+    }
+
     /**
      * Checks if the network server is running.
      *
@@ -54,6 +85,34 @@ public final class TcpServer {
         }
     }
 
+    /**
+     * Enables or disables binary encoding of data objects for connections accepted from now on.
+     *
+     * @param binaryEnabled <tt>true</tt> to enable binary encoding, <tt>false</tt> to disable it
+     *
+     * @see TcpConnection#setBinaryEnabled(boolean)
+     * @since 2.2
+     */
+    public void setBinaryEnabled(final boolean binaryEnabled) {
+        synchronized (lock) {
+            this.binaryEnabled = binaryEnabled;
+        }
+    }
+
+    /**
+     * Enables or disables compression for connections accepted from now on.
+     *
+     * @param compressionEnabled <tt>true</tt> to enable compression, <tt>false</tt> to disable it
+     *
+     * @see TcpConnection#setCompressionEnabled(boolean)
+     * @since 2.2
+     */
+    public void setCompressionEnabled(final boolean compressionEnabled) {
+        synchronized (lock) {
+            this.compressionEnabled = compressionEnabled;
+        }
+    }
+
     /**
      * Starts the server. The server tries to listen for connections at the specified port. Returns
      * <tt>true</tt>, if the server started listening successfully. Returns <tt>false</tt> if there was an error. This
@@ -111,17 +170,21 @@ public final class TcpServer {
     }
 
     private Socket accept() {
+        // Do not hold the lock while waiting for a connection, otherwise stop() and isRunning() block.
+        final ServerSocket currentSocket;
         synchronized (lock) {
-            if (serverSocket == null) {
-                return null;
-            }
+            currentSocket = serverSocket;
+        }
 
-            try {
-                return serverSocket.accept();
-            }
-            catch (final IOException ex) {
-                return null;
-            }
+        if (currentSocket == null) {
+            return null;
+        }
+
+        try {
+            return currentSocket.accept();
+        }
+        catch (final IOException ex) {
+            return null;
         }
     }
 
@@ -139,7 +202,9 @@ public final class TcpServer {
             while (server.isRunning()) {
                 final Socket socket = server.accept();
                 if (socket != null) {
-                    Jeda.postEvent(new ConnectionEvent(new TcpConnection(socket), EventType.CONNECTION_ACCEPTED));
+                    final TcpConnection connection = new TcpConnection(socket, server.isBinaryEnabled(),
+                                                                        server.isCompressionEnabled());
+                    Jeda.postEvent(new ConnectionEvent(connection, EventType.CONNECTION_ACCEPTED));
                 }
             }
         }
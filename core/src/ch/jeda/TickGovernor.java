@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.util.Arrays;
+
+/**
+ * Collects frame pacing statistics and adapts the render rate to the available processing time. The tick frequency,
+ * and thus the simulation rate, is never changed. Instead, only every n-th tick is drawn when the engine cannot keep
+ * up. Decisions are made once per measurement window, so that the render rate does not oscillate.
+ */
+class TickGovernor {
+
+    // Lower the render rate if the 95th percentile of the frame time exceeds this fraction of the tick period.
+    private static final double LOWER_THRESHOLD = 0.95;
+    private static final int MAX_RENDER_DIVISOR = 4;
+    private static final double NANOS_PER_SECOND = 1e9;
+    // Raise the render rate if the 95th percentile of the frame time, extrapolated to the higher render rate, stays
+    // below this fraction of the tick period.
+    private static final double RAISE_THRESHOLD = 0.7;
+    private static final int WINDOW_SIZE = 60;
+    private final long[] frameTimes;
+    private boolean adaptive;
+    private int index;
+    private int missedDeadlines;
+    private int renderDivisor;
+    private long renderTicks;
+    private volatile FrameStatistics statistics;
+    private long totalMissedDeadlines;
+
+    TickGovernor() {
+        frameTimes = new long[WINDOW_SIZE];
+        adaptive = false;
+        renderDivisor = 1;
+        statistics = new FrameStatistics(0.0, 0.0, 0.0, 0.0, 0.0, 0, 0, 0.0, 0.0);
+    }
+
+    FrameStatistics getStatistics() {
+        return statistics;
+    }
+
+    synchronized boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Records the frame time of the last tick. Returns <tt>true</tt> if the render rate has been changed.
+     */
+    synchronized boolean record(final long frameTime, final long period, final boolean deadlineMissed) {
+        frameTimes[index] = frameTime;
+        ++index;
+        if (deadlineMissed) {
+            ++missedDeadlines;
+            ++totalMissedDeadlines;
+        }
+
+        if (index < WINDOW_SIZE) {
+            return false;
+        }
+
+        final long[] sorted = Arrays.copyOf(frameTimes, WINDOW_SIZE);
+        Arrays.sort(sorted);
+        final long p95 = percentile(sorted, 0.95);
+        final int oldRenderDivisor = renderDivisor;
+        if (adaptive) {
+            if (renderDivisor < MAX_RENDER_DIVISOR && p95 > period * LOWER_THRESHOLD) {
+                ++renderDivisor;
+            }
+            else if (renderDivisor > 1 && p95 * renderDivisor / (renderDivisor - 1) < period * RAISE_THRESHOLD) {
+                --renderDivisor;
+            }
+        }
+
+        long sum = 0;
+        for (int i = 0; i < WINDOW_SIZE; ++i) {
+            sum = sum + sorted[i];
+        }
+
+        final double tickFrequency = NANOS_PER_SECOND / period;
+        statistics = new FrameStatistics(sum / NANOS_PER_SECOND / WINDOW_SIZE, percentile(sorted, 0.5) / NANOS_PER_SECOND,
+                                         p95 / NANOS_PER_SECOND, percentile(sorted, 0.99) / NANOS_PER_SECOND,
+                                         sorted[WINDOW_SIZE - 1] / NANOS_PER_SECOND, missedDeadlines,
+                                         totalMissedDeadlines, tickFrequency, tickFrequency / renderDivisor);
+        index = 0;
+        missedDeadlines = 0;
+        return renderDivisor != oldRenderDivisor;
+    }
+
+    synchronized double getRenderFrequency(final double tickFrequency) {
+        return tickFrequency / renderDivisor;
+    }
+
+    synchronized void setAdaptive(final boolean adaptive) {
+        this.adaptive = adaptive;
+        if (!adaptive) {
+            renderDivisor = 1;
+        }
+    }
+
+    /**
+     * Checks if the next tick should be drawn.
+     */
+    synchronized boolean shouldRender() {
+        ++renderTicks;
+        return renderTicks % renderDivisor == 0;
+    }
+
+    private static long percentile(final long[] sorted, final double p) {
+        final int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(i, sorted.length - 1))];
+    }
+}
@@ -18,9 +18,13 @@ package ch.jeda;
 
 class Timer {
 
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final double NANOS_PER_SECOND = 1e9;
     private long adjustment;
+    private boolean deadlineMissed;
     private double targetFrequency;
     private long lastStepDuration;
+    private long lastWorkDuration;
     private long start;
     private long period;
 
@@ -33,7 +37,23 @@ class Timer {
     }
 
     double getLastStepDuration() {
-        return lastStepDuration / 1000.0;
+        return lastStepDuration / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Returns the time in nanoseconds spent between the start of the last step and the call to {@link #tick()}, i.e.
+     * the time the engine was busy during the last step.
+     */
+    long getLastWorkDuration() {
+        return lastWorkDuration;
+    }
+
+    long getPeriod() {
+        return period;
+    }
+
+    boolean isDeadlineMissed() {
+        return deadlineMissed;
     }
 
     void setTargetFrequency(final double hertz) {
@@ -48,31 +68,34 @@ class Timer {
     }
 
     void tick() {
-        final long end = System.currentTimeMillis();
-        final long sleepTime = period - end + start - adjustment;
+        final long end = System.nanoTime();
+        lastWorkDuration = end - start;
+        final long sleepTime = period - lastWorkDuration - adjustment;
         if (sleepTime > 0) {
+            deadlineMissed = false;
             sleep(sleepTime);
-            adjustment = (System.currentTimeMillis() - end) - sleepTime;
+            adjustment = (System.nanoTime() - end) - sleepTime;
         }
         else {
-            sleep(1);
+            deadlineMissed = true;
+            sleep(NANOS_PER_MILLI);
             adjustment = 0;
         }
 
-        final long now = System.currentTimeMillis();
+        final long now = System.nanoTime();
         lastStepDuration = now - start;
         start = now;
     }
 
     void refresh() {
-        start = System.currentTimeMillis();
-        period = (long) (1000f / targetFrequency);
+        start = System.nanoTime();
+        period = (long) (NANOS_PER_SECOND / targetFrequency);
         adjustment = 0;
     }
 
-    private void sleep(final long milliseconds) {
+    private void sleep(final long nanoseconds) {
         try {
-            Thread.sleep(milliseconds);
+            Thread.sleep(nanoseconds / NANOS_PER_MILLI, (int) (nanoseconds % NANOS_PER_MILLI));
         }
         catch (final InterruptedException e) {
         }
@@ -0,0 +1,879 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.event.ConnectionEvent;
+import ch.jeda.event.EventType;
+import ch.jeda.event.MessageEvent;
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Represents a UDP network connection. In contrast to a {@link TcpConnection}, a lost datagram does not delay the
+ * messages sent after it. Each message is sent with a {@link DeliveryMode}: Unreliable and sequenced messages are
+ * well suited for state that is sent repeatedly, like positions. Reliable messages are resent until they arrive and
+ * are delivered in order. Messages sent with {@link #sendLine(java.lang.String)} and
+ * {@link #sendData(ch.jeda.Data)} are reliable.
+ * <p>
+ * Messages are collected and packed into datagrams of at most {@link #MAX_PACKET_SIZE} bytes, so that datagrams are
+ * not fragmented by the network. A single message must not be larger than {@link #MAX_MESSAGE_SIZE} bytes. This class
+ * is thread-safe.
+ *
+ * @since 2.2
+ */
+public final class UdpConnection extends Connection {
+
+    /**
+     * The maximum size of a datagram in bytes.
+     *
+     * @since 2.2
+     */
+    public static final int MAX_PACKET_SIZE = 1200;
+    private static final int HEADER_SIZE = 14;
+    private static final int MESSAGE_HEADER_SIZE = 6;
+    /**
+     * The maximum size of a single encoded message in bytes.
+     *
+     * @since 2.2
+     */
+    public static final int MAX_MESSAGE_SIZE = MAX_PACKET_SIZE - HEADER_SIZE - MESSAGE_HEADER_SIZE;
+    private static final int CLOSE_TIMEOUT = 1000;
+    private static final int CONNECT_RETRY_INTERVAL = 250;
+    private static final int CONNECT_TIMEOUT = 5000;
+    private static final int FLAG_DATA = 4;
+    private static final int KEEP_ALIVE_INTERVAL = 100;
+    private static final int MIN_LOSS_TIMEOUT = 1000;
+    private static final int MIN_RESEND_INTERVAL = 50;
+    private static final int MODE_MASK = 3;
+    private static final int RELIABLE_WINDOW = 1024;
+    private static final int SENT_PACKET_BUFFER_SIZE = 256;
+    private static final int TIMEOUT = 10000;
+    private final Charset charset;
+    private final Object lock;
+    private final byte[] packet;
+    private final ArrayList<OutgoingMessage> pending;
+    private final ArrayDeque<OutgoingMessage> reliable;
+    private final Map<Integer, IncomingMessage> reliableBuffer;
+    private final SentPacket[] sentPackets;
+    private boolean accepted;
+    private boolean ackPending;
+    private boolean client;
+    private UdpEndpoint endpoint;
+    private boolean hasRemoteSequence;
+    private long lastReceiveTime;
+    private long lastSendTime;
+    private int localSequence;
+    private long lostPacketCount;
+    private int nextExpectedReliableId;
+    private int nextReliableId;
+    private int nextSequencedId;
+    private int nonce;
+    private double packetLoss;
+    private int lastSequencedId;
+    private boolean hasLastSequencedId;
+    private SocketAddress remote;
+    private String remoteAddress;
+    private int remoteAckBits;
+    private int remoteSequence;
+    private double roundTripTime;
+    private long sentPacketCount;
+
+    /**
+     * Constructs a new UDP connection. Initially, the connection is not open.
+     *
+     * @since 2.2
+     */
+    public UdpConnection() {
+        charset = Charset.forName("UTF-8");
+        lock = new Object();
+        packet = new byte[MAX_PACKET_SIZE];
+        pending = new ArrayList<OutgoingMessage>();
+        reliable = new ArrayDeque<OutgoingMessage>();
+        reliableBuffer = new HashMap<Integer, IncomingMessage>();
+        sentPackets = new SentPacket[SENT_PACKET_BUFFER_SIZE];
+        for (int i = 0; i < sentPackets.length; ++i) {
+            sentPackets[i] = new SentPacket();
+        }
+    }
+
+    UdpConnection(final UdpEndpoint endpoint, final SocketAddress remote, final int nonce) {
+        this();
+        init(endpoint, remote, nonce, false);
+        accepted = true;
+    }
+
+    /**
+     * Closes an open connection. Has no effect if the connection is not open. Messages that have not been sent yet are
+     * sent before the connection is closed. This method waits up to one second for the remote endpoint to acknowledge
+     * the reliable messages. Reliable messages that have not been acknowledged by then may be lost, this is logged as a
+     * warning.
+     *
+     * @since 2.2
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (endpoint == null) {
+                return;
+            }
+
+            // The acknowledgements are processed by the endpoint thread, so it must not wait for them.
+            if (accepted && !endpoint.isCurrentThread()) {
+                final long start = System.currentTimeMillis();
+                update(start);
+                long rest = CLOSE_TIMEOUT;
+                while (accepted && !reliable.isEmpty() && rest > 0) {
+                    try {
+                        lock.wait(rest);
+                    }
+                    catch (final InterruptedException ex) {
+                        break;
+                    }
+
+                    rest = CLOSE_TIMEOUT - (System.currentTimeMillis() - start);
+                }
+            }
+
+            closeNow();
+        }
+    }
+
+    /**
+     * Returns the fraction of sent datagrams that have been lost recently. The value is between 0 and 1.
+     *
+     * @return the recent packet loss
+     *
+     * @since 2.2
+     */
+    public double getPacketLoss() {
+        synchronized (lock) {
+            return packetLoss;
+        }
+    }
+
+    /**
+     * Returns the number of sent datagrams that have not been acknowledged by the remote endpoint.
+     *
+     * @return the number of lost datagrams
+     *
+     * @since 2.2
+     */
+    public long getLostPacketCount() {
+        synchronized (lock) {
+            return lostPacketCount;
+        }
+    }
+
+    /**
+     * Returns a unique address of the remote endpoint of the connection. The address consists of the remote endpoint's
+     * IP address and port number separated by a colon. Returns <tt>null</tt> if no connection has yet been established.
+     *
+     * @return a unique address of the remote endpoint of the connection
+     *
+     * @since 2.2
+     */
+    @Override
+    public String getRemoteAddress() {
+        synchronized (lock) {
+            return remoteAddress;
+        }
+    }
+
+    /**
+     * Returns the smoothed round trip time in milliseconds. Returns 0 if no datagram has been acknowledged yet.
+     *
+     * @return the round trip time in milliseconds
+     *
+     * @since 2.2
+     */
+    public double getRoundTripTime() {
+        synchronized (lock) {
+            return roundTripTime;
+        }
+    }
+
+    /**
+     * Returns the number of datagrams sent over this connection.
+     *
+     * @return the number of sent datagrams
+     *
+     * @since 2.2
+     */
+    public long getSentPacketCount() {
+        synchronized (lock) {
+            return sentPacketCount;
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        synchronized (lock) {
+            return endpoint != null && accepted;
+        }
+    }
+
+    /**
+     * Tries to open a connection to the specified server. If a connection is already open, the connection will be
+     * closed beforehand. This method blocks until the server has answered, or up to five seconds.
+     *
+     * @param hostName the host name or IP address of the server
+     * @param port the UDP port of the server
+     * @return <tt>true</tt> if the connection has been successfully established, otherwise <tt>false</tt>
+     *
+     * @since 2.2
+     */
+    public boolean open(final String hostName, final int port) {
+        close();
+        final InetSocketAddress address = new InetSocketAddress(hostName, port);
+        if (address.isUnresolved()) {
+            return false;
+        }
+
+        synchronized (lock) {
+            try {
+                final UdpEndpoint newEndpoint = new UdpEndpoint(new DatagramSocket(), null,
+                                                                "Jeda Udp Connection (" + hostName + ":" + port + ")");
+                int newNonce = new Random().nextInt();
+                if (newNonce == 0) {
+                    newNonce = 1;
+                }
+
+                init(newEndpoint, address, newNonce, true);
+                newEndpoint.add(this);
+                newEndpoint.start();
+            }
+            catch (final IOException ex) {
+                return false;
+            }
+
+            final long start = System.currentTimeMillis();
+            while (!accepted && endpoint != null && System.currentTimeMillis() - start < CONNECT_TIMEOUT) {
+                endpoint.sendControl(UdpEndpoint.TYPE_CONNECT, nonce, remote);
+                try {
+                    lock.wait(CONNECT_RETRY_INTERVAL);
+                }
+                catch (final InterruptedException ex) {
+                    break;
+                }
+            }
+
+            if (!accepted && endpoint != null) {
+                endpoint.stop();
+                endpoint = null;
+            }
+
+            return accepted;
+        }
+    }
+
+    /**
+     * Sends a data object reliably to the remote endpoint. Has no effect if the connection is not open.
+     *
+     * @param data the data object to send
+     *
+     * @since 2.2
+     */
+    @Override
+    public void sendData(final Data data) {
+        sendData(data, DeliveryMode.RELIABLE);
+    }
+
+    /**
+     * Sends a data object to the remote endpoint. Has no effect if the connection is not open.
+     *
+     * @param data the data object to send
+     * @param mode the delivery mode
+     * @throws IllegalArgumentException if the encoded data object is larger than {@link #MAX_MESSAGE_SIZE}
+     *
+     * @since 2.2
+     */
+    public void sendData(final Data data, final DeliveryMode mode) {
+        send(new BinaryDataWriter().toByteArray(data.getNode()), true, mode);
+    }
+
+    /**
+     * Sends a line of text reliably to the remote endpoint. Has no effect if the connection is not open.
+     *
+     * @param line the line of text to send
+     *
+     * @since 2.2
+     */
+    @Override
+    public void sendLine(final String line) {
+        sendLine(line, DeliveryMode.RELIABLE);
+    }
+
+    /**
+     * Sends a line of text to the remote endpoint. Has no effect if the connection is not open.
+     *
+     * @param line the line of text to send
+     * @param mode the delivery mode
+     * @throws IllegalArgumentException if the encoded line is larger than {@link #MAX_MESSAGE_SIZE}
+     *
+     * @since 2.2
+     */
+    public void sendLine(final String line, final DeliveryMode mode) {
+        send(line.getBytes(charset), false, mode);
+    }
+
+    /**
+     * Closes the connection without waiting for the remote endpoint to acknowledge the pending reliable messages.
+     */
+    void closeNow() {
+        synchronized (lock) {
+            if (endpoint == null) {
+                return;
+            }
+
+            int lostCount = 0;
+            for (final OutgoingMessage message : reliable) {
+                if (!message.acked) {
+                    ++lostCount;
+                }
+            }
+
+            if (lostCount > 0) {
+                Log.w("Closing UDP connection to ", remoteAddress, ", ", lostCount,
+                      " reliable messages have not been acknowledged.");
+            }
+
+            if (accepted) {
+                endpoint.sendControl(UdpEndpoint.TYPE_DISCONNECT, nonce, remote);
+            }
+
+            shutdown();
+        }
+    }
+
+    int getNonce() {
+        synchronized (lock) {
+            return nonce;
+        }
+    }
+
+    SocketAddress getRemoteSocketAddress() {
+        synchronized (lock) {
+            return remote;
+        }
+    }
+
+    void onAccepted(final int acceptedNonce) {
+        synchronized (lock) {
+            if (client && acceptedNonce == nonce && !accepted) {
+                accepted = true;
+                lastReceiveTime = System.currentTimeMillis();
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Processes a received data packet. Called by the endpoint thread.
+     */
+    void onData(final byte[] data, final int length) {
+        synchronized (lock) {
+            if (!accepted || length < HEADER_SIZE) {
+                return;
+            }
+
+            final int sequence = readShort(data, 6);
+            if (!updateRemoteSequence(sequence)) {
+                // duplicate or very old packet
+                return;
+            }
+
+            lastReceiveTime = System.currentTimeMillis();
+            ackPending = true;
+            processAcks(readShort(data, 8), UdpEndpoint.readInt(data, 10));
+            int pos = HEADER_SIZE;
+            while (pos < length) {
+                final int flags = data[pos] & 0xff;
+                ++pos;
+                final int mode = flags & MODE_MASK;
+                int id = 0;
+                if (mode != DeliveryMode.UNRELIABLE.ordinal()) {
+                    if (pos + 2 > length) {
+                        return;
+                    }
+
+                    id = readShort(data, pos);
+                    pos += 2;
+                }
+
+                int size = 0;
+                int shift = 0;
+                int b;
+                do {
+                    if (pos >= length || shift > 14) {
+                        return;
+                    }
+
+                    b = data[pos] & 0xff;
+                    ++pos;
+                    size |= (b & 0x7f) << shift;
+                    shift += 7;
+                }
+                while ((b & 0x80) != 0);
+
+                if (pos + size > length) {
+                    return;
+                }
+
+                final IncomingMessage message = new IncomingMessage((flags & FLAG_DATA) != 0, data, pos, size);
+                pos += size;
+                receive(mode, id, message);
+            }
+        }
+    }
+
+    void onDisconnected() {
+        synchronized (lock) {
+            shutdown();
+        }
+    }
+
+    /**
+     * Sends pending messages, resends unacknowledged reliable messages and detects timeouts. Called regularly by the
+     * endpoint thread.
+     */
+    void update(final long now) {
+        synchronized (lock) {
+            if (!accepted || endpoint == null) {
+                return;
+            }
+
+            if (now - lastReceiveTime > TIMEOUT) {
+                Log.w("UDP connection to ", remoteAddress, " timed out.");
+                shutdown();
+                return;
+            }
+
+            final long lossTimeout = Math.max(MIN_LOSS_TIMEOUT, (long) (4 * roundTripTime));
+            for (int j = 0; j < sentPackets.length; ++j) {
+                final SentPacket sent = sentPackets[j];
+                if (sent.time != 0 && !sent.resolved && now - sent.time > lossTimeout) {
+                    sent.resolved = true;
+                    onPacketResolved(false);
+                }
+            }
+
+            final long resendInterval = Math.max(MIN_RESEND_INTERVAL, (long) (2 * roundTripTime));
+            int size = 0;
+            SentPacket sent = null;
+            int reliableCount = 0;
+            final Iterator<OutgoingMessage> i = reliable.iterator();
+            while (i.hasNext() && reliableCount < RELIABLE_WINDOW) {
+                final OutgoingMessage message = i.next();
+                ++reliableCount;
+                if (message.acked) {
+                    continue;
+                }
+
+                if (message.lastSendTime == 0 || now - message.lastSendTime >= resendInterval) {
+                    if (size == 0 || size + message.encodedSize() > MAX_PACKET_SIZE) {
+                        if (size > 0) {
+                            sendPacket(packet, size, now);
+                        }
+
+                        sent = beginPacket(packet, now);
+                        size = HEADER_SIZE;
+                    }
+
+                    size = message.writeTo(packet, size);
+                    message.lastSendTime = now;
+                    sent.addReliableId(message.id);
+                }
+            }
+
+            for (int j = 0; j < pending.size(); ++j) {
+                final OutgoingMessage message = pending.get(j);
+                if (size == 0 || size + message.encodedSize() > MAX_PACKET_SIZE) {
+                    if (size > 0) {
+                        sendPacket(packet, size, now);
+                    }
+
+                    beginPacket(packet, now);
+                    size = HEADER_SIZE;
+                }
+
+                size = message.writeTo(packet, size);
+            }
+
+            pending.clear();
+            if (size == 0 && (ackPending || now - lastSendTime >= KEEP_ALIVE_INTERVAL)) {
+                // Acknowledge received packets and keep the connection alive.
+                beginPacket(packet, now);
+                size = HEADER_SIZE;
+            }
+
+            if (size > 0) {
+                sendPacket(packet, size, now);
+            }
+        }
+    }
+
+    private SentPacket beginPacket(final byte[] packet, final long now) {
+        packet[0] = UdpEndpoint.PROTOCOL_ID;
+        packet[1] = UdpEndpoint.TYPE_DATA;
+        UdpEndpoint.writeInt(packet, 2, nonce);
+        writeShort(packet, 6, localSequence);
+        writeShort(packet, 8, remoteSequence);
+        UdpEndpoint.writeInt(packet, 10, remoteAckBits);
+        final SentPacket result = sentPackets[localSequence % SENT_PACKET_BUFFER_SIZE];
+        if (result.time != 0 && !result.resolved) {
+            // The packet that used this slot before has never been acknowledged.
+            onPacketResolved(false);
+        }
+
+        result.reset(localSequence, now);
+        localSequence = (localSequence + 1) & 0xffff;
+        return result;
+    }
+
+    private void deliver(final IncomingMessage message) {
+        if (message.data) {
+            try {
+                final Data data = new Data(new BinaryDataReader().read(message.payload, message.payload.length));
+                Jeda.postEvent(new MessageEvent(this, data));
+            }
+            catch (final IOException ex) {
+                Log.w(ex, "Discarding malformed data object received from ", remoteAddress, ".");
+            }
+        }
+        else {
+            Jeda.postEvent(new MessageEvent(this, new String(message.payload, charset)));
+        }
+    }
+
+    private void init(final UdpEndpoint endpoint, final SocketAddress remote, final int nonce, final boolean client) {
+        this.endpoint = endpoint;
+        this.remote = remote;
+        this.nonce = nonce;
+        this.client = client;
+        final InetSocketAddress address = (InetSocketAddress) remote;
+        remoteAddress = Convert.toString(address.getAddress().getHostAddress(), ':', address.getPort());
+        accepted = false;
+        ackPending = false;
+        hasLastSequencedId = false;
+        hasRemoteSequence = false;
+        lastReceiveTime = System.currentTimeMillis();
+        lastSendTime = 0;
+        localSequence = 0;
+        lostPacketCount = 0;
+        nextExpectedReliableId = 0;
+        nextReliableId = 0;
+        nextSequencedId = 0;
+        packetLoss = 0.0;
+        remoteAckBits = 0;
+        remoteSequence = 0;
+        roundTripTime = 0.0;
+        sentPacketCount = 0;
+        pending.clear();
+        reliable.clear();
+        reliableBuffer.clear();
+        for (int i = 0; i < sentPackets.length; ++i) {
+            sentPackets[i].reset(0, 0);
+        }
+    }
+
+    private void onPacketResolved(final boolean acked) {
+        if (acked) {
+            packetLoss += (0.0 - packetLoss) * 0.05;
+        }
+        else {
+            ++lostPacketCount;
+            packetLoss += (1.0 - packetLoss) * 0.05;
+        }
+    }
+
+    private void processAcks(final int ack, final int ackBits) {
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i <= 32; ++i) {
+            if (i > 0 && (ackBits & (1 << (i - 1))) == 0) {
+                continue;
+            }
+
+            final int sequence = (ack - i) & 0xffff;
+            final SentPacket sent = sentPackets[sequence % SENT_PACKET_BUFFER_SIZE];
+            if (sent.time == 0 || sent.sequence != sequence || sent.resolved) {
+                continue;
+            }
+
+            sent.resolved = true;
+            onPacketResolved(true);
+            final double sample = now - sent.time;
+            if (roundTripTime == 0.0) {
+                roundTripTime = sample;
+            }
+            else {
+                roundTripTime += (sample - roundTripTime) * 0.1;
+            }
+
+            for (int j = 0; j < sent.reliableCount; ++j) {
+                final int id = sent.reliableIds[j];
+                for (final OutgoingMessage message : reliable) {
+                    if (message.id == id) {
+                        message.acked = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        while (!reliable.isEmpty() && reliable.peek().acked) {
+            reliable.poll();
+        }
+
+        if (reliable.isEmpty()) {
+            // Wake up a thread that waits in close() for the reliable messages to be acknowledged.
+            lock.notifyAll();
+        }
+    }
+
+    private void receive(final int mode, final int id, final IncomingMessage message) {
+        if (mode == DeliveryMode.RELIABLE.ordinal()) {
+            if (id == nextExpectedReliableId) {
+                deliver(message);
+                nextExpectedReliableId = (nextExpectedReliableId + 1) & 0xffff;
+                IncomingMessage next = reliableBuffer.remove(nextExpectedReliableId);
+                while (next != null) {
+                    deliver(next);
+                    nextExpectedReliableId = (nextExpectedReliableId + 1) & 0xffff;
+                    next = reliableBuffer.remove(nextExpectedReliableId);
+                }
+            }
+            else if (isNewer(id, nextExpectedReliableId)) {
+                reliableBuffer.put(id, message);
+            }
+        }
+        else if (mode == DeliveryMode.SEQUENCED.ordinal()) {
+            if (!hasLastSequencedId || isNewer(id, lastSequencedId)) {
+                hasLastSequencedId = true;
+                lastSequencedId = id;
+                deliver(message);
+            }
+        }
+        else {
+            deliver(message);
+        }
+    }
+
+    private void send(final byte[] payload, final boolean data, final DeliveryMode mode) {
+        if (payload.length > MAX_MESSAGE_SIZE) {
+            throw new IllegalArgumentException(Convert.toString(
+                "Message of ", payload.length, " bytes is too large for a UDP connection."));
+        }
+
+        synchronized (lock) {
+            if (!accepted || endpoint == null) {
+                return;
+            }
+
+            final OutgoingMessage message = new OutgoingMessage(mode.ordinal(), data, payload);
+            switch (mode) {
+                case RELIABLE:
+                    message.id = nextReliableId;
+                    nextReliableId = (nextReliableId + 1) & 0xffff;
+                    reliable.add(message);
+                    break;
+                case SEQUENCED:
+                    message.id = nextSequencedId;
+                    nextSequencedId = (nextSequencedId + 1) & 0xffff;
+                    pending.add(message);
+                    break;
+                default:
+                    pending.add(message);
+                    break;
+            }
+        }
+    }
+
+    private void sendPacket(final byte[] packet, final int size, final long now) {
+        endpoint.send(packet, size, remote);
+        ++sentPacketCount;
+        lastSendTime = now;
+        ackPending = false;
+    }
+
+    private void shutdown() {
+        if (endpoint == null) {
+            return;
+        }
+
+        final boolean wasOpen = accepted;
+        endpoint.remove(this);
+        if (client) {
+            endpoint.stop();
+        }
+
+        endpoint = null;
+        accepted = false;
+        pending.clear();
+        reliable.clear();
+        reliableBuffer.clear();
+        lock.notifyAll();
+        if (wasOpen) {
+            Jeda.postEvent(new ConnectionEvent(this, EventType.CONNECTION_CLOSED));
+        }
+    }
+
+    /**
+     * Records a received packet sequence number. Returns <tt>false</tt> if the packet has already been received or is
+     * too old to be acknowledged.
+     */
+    private boolean updateRemoteSequence(final int sequence) {
+        if (!hasRemoteSequence) {
+            hasRemoteSequence = true;
+            remoteSequence = sequence;
+            remoteAckBits = 0;
+            return true;
+        }
+
+        if (isNewer(sequence, remoteSequence)) {
+            final int distance = (sequence - remoteSequence) & 0xffff;
+            if (distance > 32) {
+                remoteAckBits = 0;
+            }
+            else {
+                remoteAckBits = (distance == 32 ? 0 : remoteAckBits << distance) | (1 << (distance - 1));
+            }
+
+            remoteSequence = sequence;
+            return true;
+        }
+
+        final int distance = (remoteSequence - sequence) & 0xffff;
+        if (distance == 0 || distance > 32 || (remoteAckBits & (1 << (distance - 1))) != 0) {
+            return false;
+        }
+
+        remoteAckBits |= 1 << (distance - 1);
+        return true;
+    }
+
+    /**
+     * Checks if the 16 bit sequence number <tt>a</tt> is newer than <tt>b</tt>, taking wrap around into account.
+     */
+    private static boolean isNewer(final int a, final int b) {
+        final int distance = (a - b) & 0xffff;
+        return distance != 0 && distance < 0x8000;
+    }
+
+    private static int readShort(final byte[] data, final int offset) {
+        return ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
+    }
+
+    private static void writeShort(final byte[] data, final int offset, final int value) {
+        data[offset] = (byte) (value >>> 8);
+        data[offset + 1] = (byte) value;
+    }
+
+    private static final class IncomingMessage {
+
+        final boolean data;
+        final byte[] payload;
+
+        IncomingMessage(final boolean data, final byte[] buffer, final int offset, final int length) {
+            this.data = data;
+            payload = new byte[length];
+            System.arraycopy(buffer, offset, payload, 0, length);
+        }
+    }
+
+    private static final class OutgoingMessage {
+
+        final boolean data;
+        final int mode;
+        final byte[] payload;
+        boolean acked;
+        int id;
+        long lastSendTime;
+
+        OutgoingMessage(final int mode, final boolean data, final byte[] payload) {
+            this.data = data;
+            this.mode = mode;
+            this.payload = payload;
+        }
+
+        int encodedSize() {
+            return MESSAGE_HEADER_SIZE + payload.length;
+        }
+
+        int writeTo(final byte[] packet, final int offset) {
+            int pos = offset;
+            packet[pos] = (byte) (data ? mode | FLAG_DATA : mode);
+            ++pos;
+            if (mode != DeliveryMode.UNRELIABLE.ordinal()) {
+                writeShort(packet, pos, id);
+                pos += 2;
+            }
+
+            int rest = payload.length;
+            while ((rest & ~0x7f) != 0) {
+                packet[pos] = (byte) ((rest & 0x7f) | 0x80);
+                ++pos;
+                rest >>>= 7;
+            }
+
+            packet[pos] = (byte) rest;
+            ++pos;
+            System.arraycopy(payload, 0, packet, pos, payload.length);
+            return pos + payload.length;
+        }
+    }
+
+    private static final class SentPacket {
+
+        int reliableCount;
+        int[] reliableIds;
+        boolean resolved;
+        int sequence;
+        long time;
+
+        SentPacket() {
+            reliableIds = new int[8];
+        }
+
+        void addReliableId(final int id) {
+            if (reliableCount == reliableIds.length) {
+                final int[] newIds = new int[reliableIds.length * 2];
+                System.arraycopy(reliableIds, 0, newIds, 0, reliableCount);
+                reliableIds = newIds;
+            }
+
+            reliableIds[reliableCount] = id;
+            ++reliableCount;
+        }
+
+        void reset(final int sequence, final long time) {
+            reliableCount = 0;
+            resolved = false;
+            this.sequence = sequence;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.event.ConnectionEvent;
+import ch.jeda.event.EventType;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns a datagram socket and the thread that receives from it. The thread dispatches received datagrams to the
+ * {@link UdpConnection} of the sender and regularly lets every connection send pending messages, resend unacknowledged
+ * messages and detect timeouts. A client connection has an endpoint of its own, all connections of a
+ * {@link UdpServer} share one endpoint.
+ */
+final class UdpEndpoint implements Runnable {
+
+    static final byte PROTOCOL_ID = 0x4a;
+    static final byte TYPE_CONNECT = 1;
+    static final byte TYPE_ACCEPT = 2;
+    static final byte TYPE_DATA = 3;
+    static final byte TYPE_DISCONNECT = 4;
+    static final int CONTROL_PACKET_SIZE = 6;
+    static final int MAX_DATAGRAM_SIZE = 1500;
+    static final int UPDATE_INTERVAL = 10;
+    private static final String SIMULATED_LOSS_PROPERTY = "jeda.udp.simulated.loss";
+    private static volatile double simulatedLoss;
+    private final Map<SocketAddress, UdpConnection> connections;
+    private final Random random;
+    private final UdpServer server;
+    private final DatagramSocket socket;
+    private final Thread thread;
+    private volatile boolean running;
+
+    UdpEndpoint(final DatagramSocket socket, final UdpServer server, final String threadName) {
+        connections = new ConcurrentHashMap<SocketAddress, UdpConnection>();
+        random = new Random();
+        this.server = server;
+        this.socket = socket;
+        thread = new Thread(this);
+        thread.setDaemon(true);
+        thread.setName(threadName);
+    }
+
+    @Override
+    public void run() {
+        final byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+        final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        long lastUpdate = System.currentTimeMillis();
+        while (running) {
+            try {
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+                handle(packet);
+            }
+            catch (final SocketTimeoutException ex) {
+                // time to update the connections
+            }
+            catch (final IOException ex) {
+                if (running) {
+                    Log.w(ex, "Error while receiving datagram.");
+                }
+            }
+
+            final long now = System.currentTimeMillis();
+            if (now - lastUpdate >= UPDATE_INTERVAL) {
+                lastUpdate = now;
+                for (final UdpConnection connection : connections.values()) {
+                    connection.update(now);
+                }
+            }
+        }
+    }
+
+    void add(final UdpConnection connection) {
+        connections.put(connection.getRemoteSocketAddress(), connection);
+    }
+
+    int getConnectionCount() {
+        return connections.size();
+    }
+
+    int getLocalPort() {
+        return socket.getLocalPort();
+    }
+
+    boolean isCurrentThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    void remove(final UdpConnection connection) {
+        connections.remove(connection.getRemoteSocketAddress());
+    }
+
+    void send(final byte[] data, final int length, final SocketAddress address) {
+        if (simulatedLoss > 0.0 && random.nextDouble() < simulatedLoss) {
+            return;
+        }
+
+        try {
+            socket.send(new DatagramPacket(data, length, address));
+        }
+        catch (final IOException ex) {
+            // Datagrams may get lost anyway.
+        }
+    }
+
+    void sendControl(final byte type, final int nonce, final SocketAddress address) {
+        final byte[] data = new byte[CONTROL_PACKET_SIZE];
+        data[0] = PROTOCOL_ID;
+        data[1] = type;
+        writeInt(data, 2, nonce);
+        send(data, data.length, address);
+    }
+
+    void start() throws IOException {
+        socket.setSoTimeout(UPDATE_INTERVAL);
+        running = true;
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        // Close the connections while the socket is still open so that the remote endpoints are notified.
+        for (final UdpConnection connection : connections.values()) {
+            connection.closeNow();
+        }
+
+        socket.close();
+    }
+
+    static void configure(final Properties properties) {
+        simulatedLoss = properties.getDouble(SIMULATED_LOSS_PROPERTY, 0.0);
+    }
+
+    static int readInt(final byte[] data, final int offset) {
+        return ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16) |
+               ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+    }
+
+    static void writeInt(final byte[] data, final int offset, final int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+
+    private void handle(final DatagramPacket packet) {
+        final byte[] data = packet.getData();
+        final int length = packet.getLength();
+        if (length < CONTROL_PACKET_SIZE || data[0] != PROTOCOL_ID) {
+            return;
+        }
+
+        final SocketAddress address = packet.getSocketAddress();
+        final int nonce = readInt(data, 2);
+        UdpConnection connection = connections.get(address);
+        switch (data[1]) {
+            case TYPE_CONNECT:
+                if (server == null || !server.isRunning()) {
+                    return;
+                }
+
+                if (connection != null && connection.getNonce() != nonce) {
+                    // The client has reconnected from the same port.
+                    connection.closeNow();
+                    connection = null;
+                }
+
+                if (connection == null) {
+                    connection = new UdpConnection(this, address, nonce);
+                    add(connection);
+                    Jeda.postEvent(new ConnectionEvent(connection, EventType.CONNECTION_ACCEPTED));
+                }
+
+                // Also answer repeated requests, the first answer may have been lost.
+                sendControl(TYPE_ACCEPT, nonce, address);
+                break;
+            case TYPE_ACCEPT:
+                if (connection != null) {
+                    connection.onAccepted(nonce);
+                }
+
+                break;
+            case TYPE_DATA:
+                if (connection != null && connection.getNonce() == nonce) {
+                    connection.onData(data, length);
+                }
+
+                break;
+            case TYPE_DISCONNECT:
+                if (connection != null && connection.getNonce() == nonce) {
+                    connection.onDisconnected();
+                }
+
+                break;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+
+/**
+ * Represents a UDP network server that accepts connections on a port. Accepted connections are reported by a
+ * {@link ch.jeda.event.ConnectionEvent} of type {@link ch.jeda.event.EventType#CONNECTION_ACCEPTED}, just like the
+ * connections of a {@link TcpServer}. All connections accepted by the server share its port. This class is
+ * thread-safe.
+ *
+ * @see UdpConnection
+ * @since 2.2
+ */
+public final class UdpServer {
+
+    private final Object lock;
+    private UdpEndpoint endpoint;
+
+    /**
+     * Constructs a new UDP server. Initially, the server is not running.
+     *
+     * @since 2.2
+     */
+    public UdpServer() {
+        lock = new Object();
+    }
+
+    /**
+     * Returns the number of open connections accepted by the server.
+     *
+     * @return the number of open connections
+     *
+     * @since 2.2
+     */
+    public int getConnectionCount() {
+        synchronized (lock) {
+            return endpoint == null ? 0 : endpoint.getConnectionCount();
+        }
+    }
+
+    /**
+     * Checks if the server is running.
+     *
+     * @return <tt>true</tt> if the server is running, otherwise <tt>false</tt>
+     *
+     * @since 2.2
+     */
+    public boolean isRunning() {
+        synchronized (lock) {
+            return endpoint != null;
+        }
+    }
+
+    /**
+     * Starts the server. The server tries to accept connections at the specified port. Returns <tt>true</tt>, if the
+     * server started successfully. Returns <tt>false</tt> if there was an error. This could mean that
+     * <ul>
+     * <li>the application is not allowed to access the network.
+     * <li>another application (or another instance of this application) is already using the specified port.
+     * </ul>
+     *
+     * @param port the UDP port on which the server will accept connections
+     * @return <tt>true</tt> if the server started successfully, otherwise <tt>false</tt>
+     * @throws IllegalArgumentException if the port number is not between 0 and 65535.
+     * @throws IllegalStateException if the server is already running
+     *
+     * @since 2.2
+     */
+    public boolean start(final int port) {
+        synchronized (lock) {
+            if (endpoint != null) {
+                throw new IllegalStateException("Server is already running.");
+            }
+
+            try {
+                final DatagramSocket socket = new DatagramSocket(port);
+                endpoint = new UdpEndpoint(socket, this, "Jeda Udp Server (Port " + socket.getLocalPort() + ")");
+                endpoint.start();
+                return true;
+            }
+            catch (final SecurityException ex) {
+                endpoint = null;
+                return false;
+            }
+            catch (final IOException ex) {
+                endpoint = null;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Stops the server. All connections accepted by the server are closed. Has no effect if the server is not running.
+     *
+     * @since 2.2
+     */
+    public void stop() {
+        synchronized (lock) {
+            if (endpoint != null) {
+                endpoint.stop();
+                endpoint = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,481 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.event.MessageEvent;
+import ch.jeda.event.MessageReceivedListener;
+import ch.jeda.event.TickEvent;
+import ch.jeda.event.TickListener;
+import ch.jeda.ui.Element;
+import ch.jeda.ui.View;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mirrors the elements replicated by a remote {@link ViewReplicator} in a local {@link ch.jeda.ui.View}. Elements are
+ * created, updated and removed as snapshots arrive over the connection. Elements that implement {@link Replicable}
+ * receive the custom state of the remote elements.
+ * <p>
+ * Snapshots only arrive at the rate the remote program sends them and may get lost. Therefore, the replica shows the
+ * remote state with a small delay (see {@link #setInterpolationDelay(int)}) and interpolates the position and angle of
+ * the elements between the snapshots on every tick. Snapshots that arrive in several parts are applied once all parts
+ * have arrived. This class is thread-safe.
+ *
+ * @see ViewReplicator
+ * @since 2.2
+ */
+public final class ViewReplica {
+
+    private static final int DEFAULT_INTERPOLATION_DELAY = 100;
+    private static final int HISTORY_SIZE = 64;
+    private static final int PARTIAL_SNAPSHOT_COUNT = 8;
+    private final Connection connection;
+    private final Set<String> failedTypes;
+    private final EventHandler eventHandler;
+    private final Map<Integer, Map<Integer, ElementSnapshot>> history;
+    private final Object lock;
+    private final Map<Integer, DataNode[]> partialSnapshots;
+    private final Map<Integer, Replica> replicas;
+    private final View view;
+    private double clockOffset;
+    private boolean hasClockOffset;
+    private int interpolationDelay;
+    private int latestSequence;
+
+    /**
+     * Constructs a new replica that shows the elements replicated over the specified connection in the specified view.
+     *
+     * @param view the view to add the elements to
+     * @param connection the connection to receive snapshots from
+     * @throws NullPointerException if <tt>view</tt> or <tt>connection</tt> is <tt>null</tt>
+     *
+     * @since 2.2
+     */
+    public ViewReplica(final View view, final Connection connection) {
+        if (view == null) {
+            throw new NullPointerException("view");
+        }
+
+        if (connection == null) {
+            throw new NullPointerException("connection");
+        }
+
+        this.connection = connection;
+        failedTypes = new HashSet<String>();
+        eventHandler = new EventHandler(this);
+        history = new LinkedHashMap<Integer, Map<Integer, ElementSnapshot>>() {
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, Map<Integer, ElementSnapshot>> eldest) {
+                return size() > HISTORY_SIZE;
+            }
+        };
+        lock = new Object();
+        // Access order, so that the parts of a complete snapshot that arrive slowly are not discarded.
+        partialSnapshots = new LinkedHashMap<Integer, DataNode[]>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, DataNode[]> eldest) {
+                return size() > PARTIAL_SNAPSHOT_COUNT;
+            }
+        };
+        replicas = new HashMap<Integer, Replica>();
+        this.view = view;
+        interpolationDelay = DEFAULT_INTERPOLATION_DELAY;
+        latestSequence = -1;
+        Jeda.addEventListener(eventHandler);
+    }
+
+    /**
+     * Stops receiving snapshots and removes all replicated elements from the view.
+     *
+     * @since 2.2
+     */
+    public void close() {
+        Jeda.removeEventListener(eventHandler);
+        synchronized (lock) {
+            for (final Replica replica : replicas.values()) {
+                if (replica.element != null) {
+                    view.remove(replica.element);
+                }
+            }
+
+            replicas.clear();
+            history.clear();
+            partialSnapshots.clear();
+        }
+    }
+
+    /**
+     * Returns the number of replicated elements.
+     *
+     * @return the number of replicated elements
+     *
+     * @since 2.2
+     */
+    public int getElementCount() {
+        synchronized (lock) {
+            return replicas.size();
+        }
+    }
+
+    /**
+     * Returns the delay in milliseconds with which the remote state is shown.
+     *
+     * @return the interpolation delay in milliseconds
+     *
+     * @see #setInterpolationDelay(int)
+     * @since 2.2
+     */
+    public int getInterpolationDelay() {
+        synchronized (lock) {
+            return interpolationDelay;
+        }
+    }
+
+    /**
+     * Sets the delay in milliseconds with which the remote state is shown. The delay should be at least as long as
+     * the interval between two snapshots, otherwise the elements stop between the snapshots. The delay should be
+     * longer if snapshots get lost. The default is 100 milliseconds.
+     *
+     * @param interpolationDelay the interpolation delay in milliseconds
+     * @throws IllegalArgumentException if <tt>interpolationDelay</tt> is negative
+     *
+     * @see #getInterpolationDelay()
+     * @since 2.2
+     */
+    public void setInterpolationDelay(final int interpolationDelay) {
+        if (interpolationDelay < 0) {
+            throw new IllegalArgumentException("interpolationDelay");
+        }
+
+        synchronized (lock) {
+            this.interpolationDelay = interpolationDelay;
+        }
+    }
+
+    /**
+     * Stores a part of a snapshot. Returns all parts of the snapshot once they have arrived, otherwise <tt>null</tt>.
+     */
+    private DataNode[] collectParts(final int sequence, final DataNode part) {
+        final DataNode partNode = part.getFirst(ElementSnapshot.PART);
+        final DataNode partsNode = part.getFirst(ElementSnapshot.PARTS);
+        final int index = partNode == null ? 0 : partNode.getInt(0);
+        final int count = partsNode == null ? 1 : partsNode.getInt(1);
+        if (count == 1) {
+            return new DataNode[]{part};
+        }
+
+        if (count < 1 || count > ElementSnapshot.MAX_PARTS || index < 0 || index >= count) {
+            return null;
+        }
+
+        DataNode[] result = partialSnapshots.get(sequence);
+        if (result == null || result.length != count) {
+            result = new DataNode[count];
+            partialSnapshots.put(sequence, result);
+        }
+
+        result[index] = part;
+        for (int i = 0; i < count; ++i) {
+            if (result[i] == null) {
+                return null;
+            }
+        }
+
+        partialSnapshots.remove(sequence);
+        return result;
+    }
+
+    private Element createElement(final ElementSnapshot snapshot) {
+        final String className = snapshot.type;
+        if (failedTypes.contains(className)) {
+            return null;
+        }
+
+        Element result = FactoryRegistry.create(className, Element.class, snapshot.getFields(), false);
+        if (result == null) {
+            result = FactoryRegistry.create(className, Element.class, null, true);
+            if (result instanceof Replicable) {
+                ((Replicable) result).readFrom(snapshot.getFields());
+            }
+        }
+
+        if (result == null) {
+            failedTypes.add(className);
+        }
+
+        return result;
+    }
+
+    private boolean onSnapshot(final MessageEvent event) {
+        if (event.getConnection() != connection || !event.isData()) {
+            return false;
+        }
+
+        final DataNode root = event.getData().getNode();
+        final DataNode sequenceNode = root.getFirst(ElementSnapshot.SNAPSHOT);
+        if (sequenceNode == null) {
+            return false;
+        }
+
+        final int sequence = sequenceNode.getInt(-1);
+        final DataNode baselineNode = root.getFirst(ElementSnapshot.BASELINE);
+        final DataNode timeNode = root.getFirst(ElementSnapshot.TIME);
+        final int baselineSequence = baselineNode == null ? -1 : baselineNode.getInt(-1);
+        final int time = timeNode == null ? 0 : timeNode.getInt(0);
+        synchronized (lock) {
+            if (sequence <= latestSequence) {
+                // outdated snapshot
+                return true;
+            }
+
+            final Map<Integer, ElementSnapshot> baseline = history.get(baselineSequence);
+            if (baselineSequence >= 0 && baseline == null) {
+                // The baseline is unknown, wait for a snapshot that can be decoded.
+                return true;
+            }
+
+            final DataNode[] parts = collectParts(sequence, root);
+            if (parts == null) {
+                // Not all parts have arrived yet.
+                return true;
+            }
+
+            final Map<Integer, ElementSnapshot> snapshot = new HashMap<Integer, ElementSnapshot>();
+            if (baseline != null) {
+                snapshot.putAll(baseline);
+            }
+
+            for (final DataNode part : parts) {
+                for (final DataNode node : part.get(ElementSnapshot.ELEMENT)) {
+                    final int id = ElementSnapshot.getId(node);
+                    final ElementSnapshot old = snapshot.get(id);
+                    final ElementSnapshot element = old == null ? new ElementSnapshot(id) : new ElementSnapshot(old);
+                    element.apply(node);
+                    snapshot.put(id, element);
+                }
+
+                for (final DataNode node : part.get(ElementSnapshot.REMOVED)) {
+                    snapshot.remove(node.getInt(-1));
+                }
+            }
+
+            history.put(sequence, snapshot);
+            final Iterator<Integer> i = partialSnapshots.keySet().iterator();
+            while (i.hasNext()) {
+                if (i.next() <= sequence) {
+                    i.remove();
+                }
+            }
+
+            latestSequence = sequence;
+            final DataNode ack = new DataNode(Data.ROOT_NAME);
+            ack.add(new DataNode(ElementSnapshot.ACK, sequence));
+            if (connection instanceof UdpConnection) {
+                ((UdpConnection) connection).sendData(new Data(ack), DeliveryMode.SEQUENCED);
+            }
+            else {
+                connection.sendData(new Data(ack));
+            }
+
+            final double offset = time - System.currentTimeMillis();
+            if (hasClockOffset) {
+                clockOffset += (offset - clockOffset) * 0.1;
+            }
+            else {
+                clockOffset = offset;
+                hasClockOffset = true;
+            }
+
+            update(snapshot, time);
+            return true;
+        }
+    }
+
+    private void onTick() {
+        synchronized (lock) {
+            if (!hasClockOffset) {
+                return;
+            }
+
+            final double renderTime = System.currentTimeMillis() + clockOffset - interpolationDelay;
+            for (final Replica replica : replicas.values()) {
+                replica.interpolate(renderTime);
+            }
+        }
+    }
+
+    /**
+     * Brings the elements of the view in line with the specified snapshot.
+     */
+    private void update(final Map<Integer, ElementSnapshot> snapshot, final int time) {
+        final Iterator<Map.Entry<Integer, Replica>> i = replicas.entrySet().iterator();
+        while (i.hasNext()) {
+            final Map.Entry<Integer, Replica> entry = i.next();
+            if (!snapshot.containsKey(entry.getKey())) {
+                if (entry.getValue().element != null) {
+                    view.remove(entry.getValue().element);
+                }
+
+                i.remove();
+            }
+        }
+
+        final List<Element> added = new ArrayList<Element>();
+        for (final ElementSnapshot state : snapshot.values()) {
+            Replica replica = replicas.get(state.id);
+            if (replica == null) {
+                final Element element = createElement(state);
+                replica = new Replica(element, state);
+                replicas.put(state.id, replica);
+                if (element != null) {
+                    element.setDrawOrder(state.drawOrder);
+                    element.setPosition(state.x, state.y);
+                    element.setAngleRad(state.angle);
+                    added.add(element);
+                }
+            }
+            else if (replica.state != state) {
+                if (replica.element != null) {
+                    if (replica.state.drawOrder != state.drawOrder) {
+                        replica.element.setDrawOrder(state.drawOrder);
+                    }
+
+                    if (replica.element instanceof Replicable && !replica.state.fieldsEqual(state)) {
+                        ((Replicable) replica.element).readFrom(state.getFields());
+                    }
+                }
+
+                replica.state = state;
+            }
+
+            replica.addSample(time, state);
+        }
+
+        for (final Element element : added) {
+            view.add(element);
+        }
+    }
+
+    private static final class EventHandler implements MessageReceivedListener, TickListener {
+
+        private final ViewReplica replica;
+
+        EventHandler(final ViewReplica replica) {
+            this.replica = replica;
+        }
+
+        @Override
+        public void onMessageReceived(final MessageEvent event) {
+            if (replica.onSnapshot(event)) {
+                event.consume();
+            }
+        }
+
+        @Override
+        public void onTick(final TickEvent event) {
+            replica.onTick();
+        }
+    }
+
+    /**
+     * A replicated element together with the recent states used for interpolation.
+     */
+    private static final class Replica {
+
+        private static final int SAMPLE_COUNT = 8;
+        final Element element;
+        ElementSnapshot state;
+        private final float[] angles;
+        private int count;
+        private int first;
+        private final int[] times;
+        private final float[] xs;
+        private final float[] ys;
+
+        Replica(final Element element, final ElementSnapshot state) {
+            this.element = element;
+            this.state = state;
+            angles = new float[SAMPLE_COUNT];
+            times = new int[SAMPLE_COUNT];
+            xs = new float[SAMPLE_COUNT];
+            ys = new float[SAMPLE_COUNT];
+        }
+
+        void addSample(final int time, final ElementSnapshot snapshot) {
+            if (count == SAMPLE_COUNT) {
+                first = (first + 1) % SAMPLE_COUNT;
+                --count;
+            }
+
+            final int index = (first + count) % SAMPLE_COUNT;
+            angles[index] = snapshot.angle;
+            times[index] = time;
+            xs[index] = snapshot.x;
+            ys[index] = snapshot.y;
+            ++count;
+        }
+
+        void interpolate(final double renderTime) {
+            if (element == null || count == 0) {
+                return;
+            }
+
+            int index = first;
+            for (int i = 1; i < count; ++i) {
+                final int next = (first + i) % SAMPLE_COUNT;
+                if (times[next] > renderTime) {
+                    final double t = (renderTime - times[index]) / (times[next] - times[index]);
+                    if (t <= 0.0) {
+                        break;
+                    }
+
+                    element.setPosition(xs[index] + (xs[next] - xs[index]) * t, ys[index] + (ys[next] - ys[index]) * t);
+                    element.setAngleRad(angles[index] + angleDifference(angles[index], angles[next]) * t);
+                    return;
+                }
+
+                index = next;
+            }
+
+            element.setPosition(xs[index], ys[index]);
+            element.setAngleRad(angles[index]);
+        }
+
+        /**
+         * Returns the shortest signed rotation from angle <tt>a</tt> to angle <tt>b</tt>.
+         */
+        private static double angleDifference(final float a, final float b) {
+            double result = (b - a) % (2.0 * Math.PI);
+            if (result > Math.PI) {
+                result -= 2.0 * Math.PI;
+            }
+            else if (result < -Math.PI) {
+                result += 2.0 * Math.PI;
+            }
+
+            return result;
+        }
+    }
+}
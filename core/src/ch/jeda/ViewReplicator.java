@@ -0,0 +1,422 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda;
+
+import ch.jeda.event.ConnectionClosedListener;
+import ch.jeda.event.ConnectionEvent;
+import ch.jeda.event.MessageEvent;
+import ch.jeda.event.MessageReceivedListener;
+import ch.jeda.ui.Element;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replicates the state of {@link ch.jeda.ui.Element}s to remote {@link ViewReplica}s. Every call to {@link #update()}
+ * takes a snapshot of the position, angle and draw order of the added elements. For elements that implement
+ * {@link ch.jeda.Storable}, the values written by {@link ch.jeda.Storable#writeTo(ch.jeda.Data)} are included, too.
+ * <p>
+ * For each connection, the replicator sends only the difference to the last snapshot that the remote replica has
+ * acknowledged, so that the amount of data sent depends on what has changed, not on the number of elements. As long as
+ * no snapshot has been acknowledged, complete snapshots are sent. Replication messages and their acknowledgements are
+ * consumed and not passed on to other event listeners.
+ * <p>
+ * Over a {@link UdpConnection}, each snapshot is split into parts that fit into
+ * {@link UdpConnection#MAX_MESSAGE_SIZE}. The remote replica applies a snapshot once all of its parts have arrived. As
+ * long as no snapshot has been acknowledged, a complete snapshot is sent once with {@link DeliveryMode#RELIABLE}
+ * delivery. All other snapshots are sent with {@link DeliveryMode#SEQUENCED} delivery as difference to the acknowledged
+ * snapshot or to the complete snapshot on its way. The state of a single element must fit into one message, elements
+ * with more state are not replicated over UDP. This class is thread-safe.
+ *
+ * @see ViewReplica
+ * @since 2.2
+ */
+public final class ViewReplicator {
+
+    private static final int HISTORY_SIZE = 32;
+    private final Map<Connection, Client> clients;
+    private final Map<Element, Integer> elements;
+    private final EventHandler eventHandler;
+    private final Map<Integer, Map<Integer, ElementSnapshot>> history;
+    private final Object lock;
+    private final int maxHeaderSize;
+    private final BinaryDataWriter sizeWriter;
+    private final long startTime;
+    private int nextId;
+    private int sequence;
+    private boolean tooLargeLogged;
+
+    /**
+     * Constructs a new replicator. Initially, the replicator has no elements and no connections.
+     *
+     * @since 2.2
+     */
+    public ViewReplicator() {
+        clients = new LinkedHashMap<Connection, Client>();
+        elements = new IdentityHashMap<Element, Integer>();
+        eventHandler = new EventHandler(this);
+        history = new LinkedHashMap<Integer, Map<Integer, ElementSnapshot>>() {
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, Map<Integer, ElementSnapshot>> eldest) {
+                return size() > HISTORY_SIZE;
+            }
+        };
+        lock = new Object();
+        sizeWriter = new BinaryDataWriter();
+        maxHeaderSize = measureMaxHeader(sizeWriter);
+        startTime = System.nanoTime();
+        Jeda.addEventListener(eventHandler);
+    }
+
+    /**
+     * Adds a connection to the replicator. From the next snapshot on, the state of the elements is sent over the
+     * connection. The connection is removed automatically when it is closed. Has no effect if <tt>connection</tt> is
+     * <tt>null</tt> or has already been added.
+     *
+     * @param connection the connection to add
+     *
+     * @since 2.2
+     */
+    public void addConnection(final Connection connection) {
+        if (connection != null) {
+            synchronized (lock) {
+                if (!clients.containsKey(connection)) {
+                    clients.put(connection, new Client());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds an element to the replicator. The element will be part of the next snapshot. Has no effect if
+     * <tt>element</tt> is <tt>null</tt> or has already been added.
+     *
+     * @param element the element to add
+     *
+     * @since 2.2
+     */
+    public void addElement(final Element element) {
+        if (element != null) {
+            synchronized (lock) {
+                if (!elements.containsKey(element)) {
+                    elements.put(element, nextId);
+                    ++nextId;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops replicating. Removes all connections and elements.
+     *
+     * @since 2.2
+     */
+    public void close() {
+        Jeda.removeEventListener(eventHandler);
+        synchronized (lock) {
+            clients.clear();
+            elements.clear();
+            history.clear();
+        }
+    }
+
+    /**
+     * Returns the number of connections of this replicator.
+     *
+     * @return the number of connections
+     *
+     * @since 2.2
+     */
+    public int getConnectionCount() {
+        synchronized (lock) {
+            return clients.size();
+        }
+    }
+
+    /**
+     * Returns the number of elements replicated by this replicator.
+     *
+     * @return the number of elements
+     *
+     * @since 2.2
+     */
+    public int getElementCount() {
+        synchronized (lock) {
+            return elements.size();
+        }
+    }
+
+    /**
+     * Removes a connection from the replicator. Has no effect if the connection has not been added.
+     *
+     * @param connection the connection to remove
+     *
+     * @since 2.2
+     */
+    public void removeConnection(final Connection connection) {
+        synchronized (lock) {
+            clients.remove(connection);
+        }
+    }
+
+    /**
+     * Removes an element from the replicator. The element is removed from the remote replicas with the next snapshot.
+     * Has no effect if the element has not been added.
+     *
+     * @param element the element to remove
+     *
+     * @since 2.2
+     */
+    public void removeElement(final Element element) {
+        synchronized (lock) {
+            elements.remove(element);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the elements and sends it to all connections. Call this method once per tick or at a lower
+     * fixed rate.
+     *
+     * @since 2.2
+     */
+    public void update() {
+        synchronized (lock) {
+            final Map<Integer, ElementSnapshot> snapshot = new HashMap<Integer, ElementSnapshot>();
+            for (final Map.Entry<Element, Integer> entry : elements.entrySet()) {
+                final int id = entry.getValue();
+                snapshot.put(id, ElementSnapshot.capture(id, entry.getKey()));
+            }
+
+            history.put(sequence, snapshot);
+            final int time = (int) ((System.nanoTime() - startTime) / 1000000L);
+            final List<Connection> closed = new ArrayList<Connection>();
+            for (final Map.Entry<Connection, Client> entry : clients.entrySet()) {
+                final Connection connection = entry.getKey();
+                if (!connection.isOpen()) {
+                    closed.add(connection);
+                    continue;
+                }
+
+                final Client client = entry.getValue();
+                if (connection instanceof UdpConnection) {
+                    updateUdp((UdpConnection) connection, client, snapshot, time);
+                }
+                else {
+                    // Without an acknowledged snapshot in the history, the complete snapshot has to be sent.
+                    final Map<Integer, ElementSnapshot> baseline = history.get(client.ack);
+                    final DataNode message = encodeHeader(baseline == null ? -1 : client.ack, time);
+                    for (final DataNode node : encodeElements(snapshot, baseline)) {
+                        message.add(node);
+                    }
+
+                    connection.sendData(new Data(message));
+                }
+            }
+
+            for (final Connection connection : closed) {
+                clients.remove(connection);
+            }
+
+            ++sequence;
+        }
+    }
+
+    /**
+     * Encodes the elements that have changed since the baseline and the elements that have been removed.
+     */
+    private List<DataNode> encodeElements(final Map<Integer, ElementSnapshot> snapshot,
+                                          final Map<Integer, ElementSnapshot> baseline) {
+        final List<DataNode> result = new ArrayList<DataNode>();
+        for (final ElementSnapshot element : snapshot.values()) {
+            final DataNode node = element.encode(baseline == null ? null : baseline.get(element.id));
+            if (node != null) {
+                result.add(node);
+            }
+        }
+
+        if (baseline != null) {
+            for (final Integer id : baseline.keySet()) {
+                if (!snapshot.containsKey(id)) {
+                    result.add(new DataNode(ElementSnapshot.REMOVED, id));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private DataNode encodeHeader(final int baselineSequence, final int time) {
+        final DataNode result = new DataNode(Data.ROOT_NAME);
+        result.add(new DataNode(ElementSnapshot.SNAPSHOT, sequence));
+        result.add(new DataNode(ElementSnapshot.BASELINE, baselineSequence));
+        result.add(new DataNode(ElementSnapshot.TIME, time));
+        return result;
+    }
+
+    private boolean hasConnection(final Connection connection) {
+        synchronized (lock) {
+            return clients.containsKey(connection);
+        }
+    }
+
+    private boolean onAck(final Connection connection, final int ack) {
+        synchronized (lock) {
+            final Client client = clients.get(connection);
+            if (client == null) {
+                return false;
+            }
+
+            if (ack > client.ack) {
+                client.ack = ack;
+            }
+
+            return true;
+        }
+    }
+
+    private void onConnectionClosed(final Connection connection) {
+        removeConnection(connection);
+    }
+
+    /**
+     * Splits the difference between the snapshot and the baseline into parts that fit into a UDP message and sends
+     * them.
+     */
+    private void sendParts(final UdpConnection connection, final Map<Integer, ElementSnapshot> snapshot,
+                           final Map<Integer, ElementSnapshot> baseline, final int baselineSequence, final int time,
+                           final DeliveryMode mode) {
+        final List<List<DataNode>> parts = new ArrayList<List<DataNode>>();
+        List<DataNode> part = new ArrayList<DataNode>();
+        parts.add(part);
+        int size = maxHeaderSize;
+        for (final DataNode node : encodeElements(snapshot, baseline)) {
+            final int nodeSize = sizeWriter.sizeOf(node);
+            if (maxHeaderSize + nodeSize > UdpConnection.MAX_MESSAGE_SIZE) {
+                if (!tooLargeLogged) {
+                    tooLargeLogged = true;
+                    Log.w("The state of an element is too large to be replicated to ", connection.getRemoteAddress(),
+                          ".");
+                }
+
+                continue;
+            }
+
+            if (size + nodeSize > UdpConnection.MAX_MESSAGE_SIZE) {
+                part = new ArrayList<DataNode>();
+                parts.add(part);
+                size = maxHeaderSize;
+            }
+
+            part.add(node);
+            size += nodeSize;
+        }
+
+        if (parts.size() > ElementSnapshot.MAX_PARTS) {
+            if (!tooLargeLogged) {
+                tooLargeLogged = true;
+                Log.w("Snapshot is too large to be replicated to ", connection.getRemoteAddress(), ".");
+            }
+
+            return;
+        }
+
+        for (int i = 0; i < parts.size(); ++i) {
+            final DataNode message = encodeHeader(baselineSequence, time);
+            message.add(new DataNode(ElementSnapshot.PART, i));
+            message.add(new DataNode(ElementSnapshot.PARTS, parts.size()));
+            for (final DataNode node : parts.get(i)) {
+                message.add(node);
+            }
+
+            connection.sendData(new Data(message), mode);
+        }
+    }
+
+    private void updateUdp(final UdpConnection connection, final Client client,
+                           final Map<Integer, ElementSnapshot> snapshot, final int time) {
+        if (history.containsKey(client.ack)) {
+            sendParts(connection, snapshot, history.get(client.ack), client.ack, time, DeliveryMode.SEQUENCED);
+        }
+        else if (history.containsKey(client.baseline)) {
+            // The complete snapshot is on its way, the replica can decode the difference to it once it has arrived.
+            sendParts(connection, snapshot, history.get(client.baseline), client.baseline, time,
+                      DeliveryMode.SEQUENCED);
+        }
+        else {
+            // Sequenced parts of a complete snapshot would hardly ever all arrive, so it is sent reliably.
+            sendParts(connection, snapshot, null, -1, time, DeliveryMode.RELIABLE);
+            client.baseline = sequence;
+        }
+    }
+
+    private static int measureMaxHeader(final BinaryDataWriter writer) {
+        final DataNode header = new DataNode(Data.ROOT_NAME);
+        header.add(new DataNode(ElementSnapshot.SNAPSHOT, Integer.MAX_VALUE));
+        header.add(new DataNode(ElementSnapshot.BASELINE, Integer.MAX_VALUE));
+        header.add(new DataNode(ElementSnapshot.TIME, Integer.MAX_VALUE));
+        header.add(new DataNode(ElementSnapshot.PART, Integer.MAX_VALUE));
+        header.add(new DataNode(ElementSnapshot.PARTS, Integer.MAX_VALUE));
+        int result = 0;
+        for (final List<DataNode> group : header.getGroups()) {
+            result += writer.sizeOf(group.get(0));
+        }
+
+        return result;
+    }
+
+    private static final class Client {
+
+        int ack;
+        int baseline;
+
+        Client() {
+            ack = -1;
+            baseline = -1;
+        }
+    }
+
+    private static final class EventHandler implements ConnectionClosedListener, MessageReceivedListener {
+
+        private final ViewReplicator replicator;
+
+        EventHandler(final ViewReplicator replicator) {
+            this.replicator = replicator;
+        }
+
+        @Override
+        public void onConnectionClosed(final ConnectionEvent event) {
+            replicator.onConnectionClosed(event.getConnection());
+        }
+
+        @Override
+        public void onMessageReceived(final MessageEvent event) {
+            // Only parse data messages from own connections, other messages are left to other listeners
+            if (!replicator.hasConnection(event.getConnection()) || !event.isData()) {
+                return;
+            }
+
+            final DataNode ack = event.getData().getNode().getFirst(ElementSnapshot.ACK);
+            if (ack != null && replicator.onAck(event.getConnection(), ack.getInt(-1))) {
+                event.consume();
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package ch.jeda.event;
 
 import ch.jeda.Log;
+import ch.jeda.LogLevel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -41,12 +42,14 @@ public final class EventQueue {
     private final List<KeyUpListener> keyUpListeners;
     private final Object listenerLock;
     private final Set<Object> listeners;
+    private final List<LoadProgressListener> loadProgressListeners;
     private final List<MessageReceivedListener> messageReceivedListeners;
     private final Set<Object> pendingInsertions;
     private final Set<Object> pendingRemovals;
     private final List<PointerDownListener> pointerDownListeners;
     private final List<PointerMovedListener> pointerMovedListeners;
     private final List<PointerUpListener> pointerUpListeners;
+    private final List<RenderRateListener> renderRateListeners;
     private final List<SensorListener> sensorListeners;
     private final List<TickListener> tickListeners;
     private final List<WheelListener> wheelListeners;
@@ -69,12 +72,14 @@ public final class EventQueue {
         keyUpListeners = new ArrayList<KeyUpListener>();
         listenerLock = new Object();
         listeners = new HashSet<Object>();
+        loadProgressListeners = new ArrayList<LoadProgressListener>();
         messageReceivedListeners = new ArrayList<MessageReceivedListener>();
         pendingInsertions = new HashSet<Object>();
         pendingRemovals = new HashSet<Object>();
         pointerDownListeners = new ArrayList<PointerDownListener>();
         pointerMovedListeners = new ArrayList<PointerMovedListener>();
         pointerUpListeners = new ArrayList<PointerUpListener>();
+        renderRateListeners = new ArrayList<RenderRateListener>();
         wheelListeners = new ArrayList<WheelListener>();
         sensorListeners = new ArrayList<SensorListener>();
         tickListeners = new ArrayList<TickListener>();
@@ -202,6 +207,9 @@ public final class EventQueue {
             case KEY_UP:
                 dispatchKeyUpEvent((KeyEvent) event);
                 break;
+            case LOAD_PROGRESS:
+                dispatchLoadProgressEvent((LoadEvent) event);
+                break;
             case MESSAGE_RECEIVED:
                 dispatchMessageReceivedEvent((MessageEvent) event);
                 break;
@@ -214,6 +222,9 @@ public final class EventQueue {
             case POINTER_UP:
                 dispatchPointerUpEvent((PointerEvent) event);
                 break;
+            case RENDER_RATE_CHANGED:
+                dispatchRenderRateEvent((RenderRateEvent) event);
+                break;
             case SENSOR:
                 dispatchSensorEvent((SensorEvent) event);
                 break;
@@ -310,6 +321,20 @@ public final class EventQueue {
         }
     }
 
+    private void dispatchLoadProgressEvent(final LoadEvent event) {
+        int i = 0;
+        while (i < loadProgressListeners.size() && !event.isConsumed()) {
+            try {
+                loadProgressListeners.get(i).onLoadProgress(event);
+            }
+            catch (final Throwable ex) {
+                reportError(ex);
+            }
+
+            ++i;
+        }
+    }
+
     private void dispatchMessageReceivedEvent(final MessageEvent event) {
         int i = 0;
         while (i < messageReceivedListeners.size() && !event.isConsumed()) {
@@ -367,6 +392,20 @@ public final class EventQueue {
         }
     }
 
+    private void dispatchRenderRateEvent(final RenderRateEvent event) {
+        int i = 0;
+        while (i < renderRateListeners.size() && !event.isConsumed()) {
+            try {
+                renderRateListeners.get(i).onRenderRateChanged(event);
+            }
+            catch (final Throwable ex) {
+                reportError(ex);
+            }
+
+            ++i;
+        }
+    }
+
     private void dispatchSensorEvent(final SensorEvent event) {
         int i = 0;
         while (i < sensorListeners.size() && !event.isConsumed()) {
@@ -439,6 +478,10 @@ public final class EventQueue {
             keyUpListeners.add((KeyUpListener) listener);
         }
 
+        if (listener instanceof LoadProgressListener) {
+            loadProgressListeners.add((LoadProgressListener) listener);
+        }
+
         if (listener instanceof MessageReceivedListener) {
             messageReceivedListeners.add((MessageReceivedListener) listener);
         }
@@ -455,6 +498,10 @@ public final class EventQueue {
             pointerUpListeners.add((PointerUpListener) listener);
         }
 
+        if (listener instanceof RenderRateListener) {
+            renderRateListeners.add((RenderRateListener) listener);
+        }
+
         if (listener instanceof SensorListener) {
             sensorListeners.add((SensorListener) listener);
         }
@@ -498,6 +545,10 @@ public final class EventQueue {
             keyUpListeners.remove((KeyUpListener) listener);
         }
 
+        if (listener instanceof LoadProgressListener) {
+            loadProgressListeners.remove((LoadProgressListener) listener);
+        }
+
         if (listener instanceof MessageReceivedListener) {
             messageReceivedListeners.remove((MessageReceivedListener) listener);
         }
@@ -514,6 +565,10 @@ public final class EventQueue {
             pointerUpListeners.remove((PointerUpListener) listener);
         }
 
+        if (listener instanceof RenderRateListener) {
+            renderRateListeners.remove((RenderRateListener) listener);
+        }
+
         if (listener instanceof SensorListener) {
             sensorListeners.remove((SensorListener) listener);
         }
@@ -543,6 +598,6 @@ public final class EventQueue {
     }
 
     private void reportError(final Throwable ex) {
-        Log.e(ex, "Error while dispatching event.");
+        Log.log(LogLevel.ERROR, "event", ex, "Error while dispatching event.");
     }
 }
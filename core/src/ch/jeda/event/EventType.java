@@ -20,7 +20,7 @@ package ch.jeda.event;
  * The types of events supported by Jeda.
  *
  * @since 1.0
- * @version 3
+ * @version 4
  */
 public enum EventType {
 
@@ -65,6 +65,12 @@ public enum EventType {
      * @since 1.0
      */
     KEY_UP,
+    /**
+     * A load progress event. This type of event occurs when a {@link ch.jeda.Preloader} has finished loading an asset.
+     *
+     * @since 2.2
+     */
+    LOAD_PROGRESS,
     /**
      * A message received event. This type of event occurs when a message is received via a connection.
      *
@@ -85,6 +91,13 @@ public enum EventType {
      * @since 1.0
      */
     POINTER_UP,
+    /**
+     * A render rate event. This type of event occurs when the adaptive render rate has been lowered or raised.
+     *
+     * @see ch.jeda.Jeda#setAdaptiveRenderRate(boolean)
+     * @since 2.2
+     */
+    RENDER_RATE_CHANGED,
     /**
      * @since 1.0
      */
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.event;
+
+/**
+ * Represents an event of type {@link ch.jeda.event.EventType#LOAD_PROGRESS}.
+ *
+ * @since 2.2
+ */
+public final class LoadEvent extends Event {
+
+    private final int failedCount;
+    private final int loadedCount;
+    private final String path;
+    private final boolean success;
+    private final int totalCount;
+
+    /**
+     * Constructs a new load event.
+     *
+     * @param source the event source that generates the event
+     * @param path the path of the asset that has been loaded
+     * @param success indicates if the asset has been loaded successfully
+     * @param loadedCount the number of assets that have been processed so far
+     * @param failedCount the number of assets that could not be loaded so far
+     * @param totalCount the total number of assets to load
+     *
+     * @since 2.2
+     */
+    public LoadEvent(final Object source, final String path, final boolean success, final int loadedCount,
+                     final int failedCount, final int totalCount) {
+        super(source, EventType.LOAD_PROGRESS);
+        this.failedCount = failedCount;
+        this.loadedCount = loadedCount;
+        this.path = path;
+        this.success = success;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Returns the number of assets that could not be loaded so far.
+     *
+     * @return the number of assets that could not be loaded so far
+     *
+     * @since 2.2
+     */
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns the number of assets that have been processed so far. This includes assets that could not be loaded.
+     *
+     * @return the number of assets that have been processed so far
+     *
+     * @since 2.2
+     */
+    public int getLoadedCount() {
+        return loadedCount;
+    }
+
+    /**
+     * Returns the path of the asset that has been loaded.
+     *
+     * @return the path of the asset that has been loaded
+     *
+     * @since 2.2
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the loading progress as a value between 0 and 1.
+     *
+     * @return the loading progress as a value between 0 and 1
+     *
+     * @since 2.2
+     */
+    public float getProgress() {
+        if (totalCount == 0) {
+            return 1f;
+        }
+        else {
+            return (float) loadedCount / (float) totalCount;
+        }
+    }
+
+    /**
+     * Returns the total number of assets to load.
+     *
+     * @return the total number of assets to load
+     *
+     * @since 2.2
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Checks if all assets have been processed.
+     *
+     * @return <tt>true</tt> if all assets have been processed, otherwise <tt>false</tt>
+     *
+     * @since 2.2
+     */
+    public boolean isDone() {
+        return loadedCount >= totalCount;
+    }
+
+    /**
+     * Checks if the asset has been loaded successfully.
+     *
+     * @return <tt>true</tt> if the asset has been loaded successfully, otherwise <tt>false</tt>
+     *
+     * @since 2.2
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder();
+        result.append("LoadEvent(type=");
+        result.append(getType());
+        result.append(", path=");
+        result.append(path);
+        result.append(", loaded=");
+        result.append(loadedCount);
+        result.append(", total=");
+        result.append(totalCount);
+        result.append(")");
+        return result.toString();
+    }
+}
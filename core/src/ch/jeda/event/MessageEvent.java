@@ -23,10 +23,14 @@ import ch.jeda.Data;
  * Represents an event of type {@link ch.jeda.event.EventType#MESSAGE_RECEIVED}.
  *
  * @since 1.4
+ * @version 2
  */
 public final class MessageEvent extends ConnectionEvent {
 
-    private final String line;
+    private static final String DATA_PREFIX = "<data";
+    private static final String XML_PREFIX = "<?xml";
+    private Data data;
+    private String line;
 
     /**
      * Constructs a new message event. The basic form of a message is always a line of text.
@@ -42,24 +46,69 @@ public final class MessageEvent extends ConnectionEvent {
     }
 
     /**
-     * Returns the message as a {@link ch.jeda.Data} object.
+     * Constructs a new message event for a message that has been received as a data object.
+     *
+     * @param connection the connection that generates the event
+     * @param data the data object
+     *
+     * @since 2.2
+     */
+    public MessageEvent(final Connection connection, final Data data) {
+        super(connection, EventType.MESSAGE_RECEIVED);
+        this.data = data;
+    }
+
+    /**
+     * Returns the message as a {@link ch.jeda.Data} object. Each call returns a new copy, so that a listener can modify
+     * it without affecting other listeners. The line is parsed on the first call only.
      *
      * @return the message as a {@link ch.jeda.Data} object
      *
      * @since 1.4
      */
     public Data getData() {
-        return new Data(line);
+        if (data == null) {
+            data = new Data(line);
+        }
+
+        return new Data(data);
     }
 
     /**
-     * Returns the message as a line of text.
+     * Checks if the message is a data object. This is the case if the message has been received as a data object or if
+     * the line starts with the root element of a serialized data object. The line is not parsed, so this check is cheap
+     * enough to skip ordinary lines of text before calling {@link #getData()}.
+     *
+     * @return <code>true</code> if the message is a data object, otherwise <code>false</code>
+     *
+     * @since 2.2
+     */
+    public boolean isData() {
+        if (data != null) {
+            return true;
+        }
+
+        int start = 0;
+        while (start < line.length() && Character.isWhitespace(line.charAt(start))) {
+            ++start;
+        }
+
+        return line.startsWith(DATA_PREFIX, start) || line.startsWith(XML_PREFIX, start);
+    }
+
+    /**
+     * Returns the message as a line of text. If the message has been received as a data object, the data object is
+     * converted to a line of text.
      *
      * @return the message as a line of text
      *
      * @since 1.4
      */
     public String getLine() {
+        if (line == null) {
+            line = data.toLine();
+        }
+
         return line;
     }
 }
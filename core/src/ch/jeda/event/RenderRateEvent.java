@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.event;
+
+/**
+ * Represents an event of type {@link ch.jeda.event.EventType#RENDER_RATE_CHANGED}.
+ *
+ * @since 2.2
+ */
+public final class RenderRateEvent extends Event {
+
+    private final double renderFrequency;
+    private final double tickFrequency;
+
+    /**
+     * Constructs a render rate event.
+     *
+     * @param source the event source that generates the event
+     * @param tickFrequency the tick frequency in Hertz [Hz]
+     * @param renderFrequency the new render frequency in Hertz [Hz]
+     *
+     * @since 2.2
+     */
+    public RenderRateEvent(final Object source, final double tickFrequency, final double renderFrequency) {
+        super(source, EventType.RENDER_RATE_CHANGED);
+        this.renderFrequency = renderFrequency;
+        this.tickFrequency = tickFrequency;
+    }
+
+    /**
+     * Returns the new frequency in Hertz [Hz] in which views are drawn.
+     *
+     * @return the new render frequency in Hertz [Hz]
+     *
+     * @since 2.2
+     */
+    public double getRenderFrequency() {
+        return renderFrequency;
+    }
+
+    /**
+     * Returns the tick frequency in Hertz [Hz]. The tick frequency is not changed by the adaptive render rate.
+     *
+     * @return the tick frequency in Hertz [Hz]
+     *
+     * @since 2.2
+     */
+    public double getTickFrequency() {
+        return tickFrequency;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder();
+        result.append("RenderRateEvent(type=");
+        result.append(getType());
+        result.append(", tickFrequency=");
+        result.append(tickFrequency);
+        result.append(", renderFrequency=");
+        result.append(renderFrequency);
+        result.append(")");
+        return result.toString();
+    }
+}
@@ -25,6 +25,7 @@ public class TickEvent extends Event {
 
     private final double duration;
     private final double frameRate;
+    private final boolean renderFrame;
 
     /**
      * Constructs a tick event.
@@ -36,9 +37,24 @@ public class TickEvent extends Event {
      * @since 1.0
      */
     public TickEvent(final Object source, final double duration, final double frameRate) {
+        this(source, duration, frameRate, true);
+    }
+
+    /**
+     * Constructs a tick event.
+     *
+     * @param source the event source that generates the event
+     * @param duration the duration since the last frame in seconds
+     * @param frameRate the current frame rate
+     * @param renderFrame indicates if views should be drawn during this tick
+     *
+     * @since 2.2
+     */
+    public TickEvent(final Object source, final double duration, final double frameRate, final boolean renderFrame) {
         super(source, EventType.TICK);
         this.duration = duration;
         this.frameRate = frameRate;
+        this.renderFrame = renderFrame;
     }
 
     /**
@@ -63,6 +79,19 @@ public class TickEvent extends Event {
         return frameRate;
     }
 
+    /**
+     * Checks if views are drawn during this tick. Views are not drawn on every tick if the adaptive render rate is
+     * enabled and the engine cannot keep up with the tick frequency.
+     *
+     * @return <tt>true</tt> if views are drawn during this tick, otherwise <tt>false</tt>
+     *
+     * @see ch.jeda.Jeda#setAdaptiveRenderRate(boolean)
+     * @since 2.2
+     */
+    public final boolean isRenderFrame() {
+        return renderFrame;
+    }
+
     @Override
     public String toString() {
         final StringBuilder result = new StringBuilder();
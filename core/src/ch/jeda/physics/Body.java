@@ -16,6 +16,7 @@
  */
 package ch.jeda.physics;
 
+import ch.jeda.JedaInternal;
 import ch.jeda.Log;
 import ch.jeda.geometry.Shape;
 import ch.jeda.ui.Alignment;
@@ -37,6 +38,8 @@ public class Body extends Element {
     private BodyImp imp;
     private int opacity;
     private float width;
+    // Index of this body in the list of awake bodies of the physics simulation, or -1
+    int awakeIndex = -1;
 
     /**
      * Creates a new object of a subclass of {@link ch.jeda.physics.Body}. If <code>className</code> does not meet all
@@ -44,8 +47,9 @@ public class Body extends Element {
      * <ul>
      * <li><code>className</code> must be a valid class name
      * <li>The class must be a subclass of {@link ch.jeda.physics.Body}
-     * <li>The class must provide a public default constructor
+     * <li>The class must provide a public default constructor or have a {@link ch.jeda.Factory} registered
      * </ul>
+     * The class is looked up only once, later calls for the same class name reuse the constructor.
      *
      * @param className the name of the class
      * @return the created object
@@ -57,17 +61,9 @@ public class Body extends Element {
             return new Body();
         }
 
-        try {
-            final Class clazz = Class.forName(className);
-            if (Body.class.isAssignableFrom(clazz)) {
-                return (Body) clazz.newInstance();
-            }
-        }
-        catch (final ClassNotFoundException ex) {
-        }
-        catch (InstantiationException ex) {
-        }
-        catch (IllegalAccessException ex) {
+        final Body result = JedaInternal.createObject(className, Body.class);
+        if (result != null) {
+            return result;
         }
 
         return new Body();
@@ -674,7 +670,6 @@ public class Body extends Element {
         }
 
         drawDecoration(canvas);
-        imp.drawOverlay(canvas);
     }
 
     /**
@@ -17,7 +17,6 @@
 package ch.jeda.physics;
 
 import ch.jeda.geometry.Shape;
-import ch.jeda.ui.Canvas;
 
 interface BodyImp {
 
@@ -37,8 +36,6 @@ interface BodyImp {
 
     void destroy();
 
-    void drawOverlay(Canvas canvas);
-
     float getAngleRad();
 
     float getAngularDamping();
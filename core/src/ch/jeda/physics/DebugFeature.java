@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+/**
+ * Represents the information displayed by a {@link PhysicsView} in debugging mode.
+ *
+ * @see PhysicsView#setDebugFeature(ch.jeda.physics.DebugFeature, boolean)
+ * @since 2.2
+ */
+public enum DebugFeature {
+
+    /**
+     * Displays the bounding boxes of the shapes that are used to find colliding bodies.
+     *
+     * @since 2.2
+     */
+    AABBS,
+    /**
+     * Displays the center of mass and the orientation of each body. Enabled by default.
+     *
+     * @since 2.2
+     */
+    CENTERS_OF_MASS,
+    /**
+     * Displays the contact points and normals of touching bodies.
+     *
+     * @since 2.2
+     */
+    CONTACTS,
+    /**
+     * Displays the tree of bounding boxes that is used to find colliding bodies.
+     *
+     * @since 2.2
+     */
+    DYNAMIC_TREE,
+    /**
+     * Displays the moving bodies of each island in the same color. An island is a group of bodies that touch each
+     * other or are connected by joints.
+     *
+     * @since 2.2
+     */
+    ISLANDS,
+    /**
+     * Displays the joints. Enabled by default.
+     *
+     * @since 2.2
+     */
+    JOINTS,
+    /**
+     * Displays the name of each body. The names are only displayed if there are not more than 100 bodies. Enabled by
+     * default.
+     *
+     * @since 2.2
+     */
+    NAMES,
+    /**
+     * Displays the shapes of the bodies. Static, kinematic, sleeping and moving bodies are displayed in different
+     * colors. Enabled by default.
+     *
+     * @since 2.2
+     */
+    SHAPES
+}
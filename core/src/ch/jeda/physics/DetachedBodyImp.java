@@ -19,7 +19,6 @@ package ch.jeda.physics;
 import ch.jeda.Log;
 import ch.jeda.MathF;
 import ch.jeda.geometry.Shape;
-import ch.jeda.ui.Canvas;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -111,10 +110,6 @@ class DetachedBodyImp implements BodyImp {
     public void destroy() {
     }
 
-    @Override
-    public void drawOverlay(final Canvas canvas) {
-    }
-
     @Override
     public float getAngleRad() {
         return angle;
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+/**
+ * Represents a distance joint. A distance joint keeps the anchor points on two bodies at a constant distance, like a
+ * rigid rod. With a frequency greater than 0, the joint acts like a spring instead. Distance joints are created with
+ * {@link PhysicsView#createDistanceJoint(ch.jeda.physics.Body, double, double, ch.jeda.physics.Body, double, double)}.
+ *
+ * @since 2.2
+ */
+public final class DistanceJoint extends Joint {
+
+    private final org.jbox2d.dynamics.joints.DistanceJoint imp;
+
+    DistanceJoint(final Physics physics, final Body bodyA, final Body bodyB,
+                  final org.jbox2d.dynamics.joints.DistanceJoint imp) {
+        super(physics, bodyA, bodyB, imp);
+        this.imp = imp;
+    }
+
+    /**
+     * Returns the damping ratio of the spring.
+     *
+     * @return the damping ratio of the spring
+     *
+     * @see #setDampingRatio(double)
+     * @since 2.2
+     */
+    public float getDampingRatio() {
+        return imp.getDampingRatio();
+    }
+
+    /**
+     * Returns the frequency of the spring in Hertz. Returns 0 if the joint is rigid.
+     *
+     * @return the frequency of the spring in Hertz
+     *
+     * @see #setFrequency(double)
+     * @since 2.2
+     */
+    public float getFrequency() {
+        return imp.getFrequency();
+    }
+
+    /**
+     * Returns the distance kept between the anchor points in meters.
+     *
+     * @return the distance between the anchor points in meters
+     *
+     * @see #setLength(double)
+     * @since 2.2
+     */
+    public float getLength() {
+        return imp.getLength() * getPhysics().getScale();
+    }
+
+    /**
+     * Sets the damping ratio of the spring. A value of 0 means no damping, a value of 1 stops the oscillation as fast
+     * as possible. By default, there is no damping.
+     *
+     * @param dampingRatio the damping ratio of the spring
+     *
+     * @see #getDampingRatio()
+     * @since 2.2
+     */
+    public void setDampingRatio(final double dampingRatio) {
+        imp.setDampingRatio((float) dampingRatio);
+    }
+
+    /**
+     * Sets the frequency of the spring. A higher frequency makes the spring stiffer. With a frequency of 0, the joint
+     * is rigid. By default, the joint is rigid.
+     *
+     * @param frequency the frequency of the spring in Hertz
+     *
+     * @see #getFrequency()
+     * @since 2.2
+     */
+    public void setFrequency(final double frequency) {
+        imp.setFrequency((float) frequency);
+    }
+
+    /**
+     * Sets the distance kept between the anchor points. By default, this is the distance between the anchor points
+     * when the joint is created.
+     *
+     * @param length the distance between the anchor points in meters
+     *
+     * @see #getLength()
+     * @since 2.2
+     */
+    public void setLength(final double length) {
+        imp.setLength(getPhysics().scaleLength((float) length));
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+import ch.jeda.geometry.Polyline;
+import ch.jeda.geometry.Shape;
+import ch.jeda.ui.Alignment;
+import ch.jeda.ui.Canvas;
+import ch.jeda.ui.Color;
+import ch.jeda.ui.Element;
+import java.util.Arrays;
+import org.jbox2d.particle.ParticleGroup;
+import org.jbox2d.particle.ParticleGroupDef;
+import org.jbox2d.particle.ParticleType;
+
+/**
+ * Represents a fluid in a physics view. When the fluid is added to a {@link PhysicsView}, the shape of the fluid is
+ * filled with particles. The particles are moved by the physics simulation and interact with the bodies of the view.
+ * When the fluid is removed from the view, the particles are destroyed.
+ * <p>
+ * All particles of the fluid are drawn at once as a smooth surface with the color of the fluid. The size of the
+ * particles can be changed with {@link PhysicsView#setParticleRadius(double)}.
+ *
+ * @since 2.2
+ */
+public final class Fluid extends Element {
+
+    // Radius of the area influenced by one particle, relative to the particle radius
+    private static final float KERNEL_RADIUS = 2f;
+    // Number of pixels per particle radius
+    private static final float RESOLUTION = 2f;
+    private static final int MAX_PIXELS = 512 * 512;
+    private static final float EDGE_MIN = 0.4f;
+    private static final float EDGE_MAX = 0.6f;
+    private final Shape shape;
+    private final FluidType type;
+    private Color color;
+    private float[] density;
+    private ParticleGroup group;
+    private Physics physics;
+    private int[] pixels;
+
+    /**
+     * Constructs a new fluid like water.
+     *
+     * @param shape the shape that is filled with the fluid
+     * @throws NullPointerException if <code>shape</code> is <code>null</code>
+     * @throws IllegalArgumentException if <code>shape</code> is not a closed shape
+     *
+     * @since 2.2
+     */
+    public Fluid(final Shape shape) {
+        this(shape, FluidType.WATER);
+    }
+
+    /**
+     * Constructs a new fluid.
+     *
+     * @param shape the shape that is filled with the fluid
+     * @param type the type of the fluid
+     * @throws NullPointerException if <code>shape</code> or <code>type</code> is <code>null</code>
+     * @throws IllegalArgumentException if <code>shape</code> is not a closed shape
+     *
+     * @since 2.2
+     */
+    public Fluid(final Shape shape, final FluidType type) {
+        if (shape == null) {
+            throw new NullPointerException("shape");
+        }
+
+        if (type == null) {
+            throw new NullPointerException("type");
+        }
+
+        if (shape instanceof Polyline) {
+            throw new IllegalArgumentException("shape");
+        }
+
+        this.shape = shape;
+        this.type = type;
+        color = Color.BLUE_500;
+        density = new float[0];
+        pixels = new int[0];
+    }
+
+    @Override
+    public float getAngleRad() {
+        return 0f;
+    }
+
+    /**
+     * Returns the color of this fluid.
+     *
+     * @return the color of this fluid
+     *
+     * @see #setColor(ch.jeda.ui.Color)
+     * @since 2.2
+     */
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     * Returns the current number of particles of this fluid. Returns 0 if the fluid has not been added to a physics
+     * view.
+     *
+     * @return the number of particles of this fluid
+     *
+     * @since 2.2
+     */
+    public int getParticleCount() {
+        if (group == null) {
+            return 0;
+        }
+        else {
+            return group.getParticleCount();
+        }
+    }
+
+    /**
+     * Returns the shape that has been filled with this fluid.
+     *
+     * @return the shape of this fluid
+     *
+     * @since 2.2
+     */
+    public Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * Returns the type of this fluid.
+     *
+     * @return the type of this fluid
+     *
+     * @since 2.2
+     */
+    public FluidType getType() {
+        return type;
+    }
+
+    /**
+     * Sets the color of this fluid. The default color is {@link Color#BLUE_500}. Has no effect if <code>color</code> is
+     * <code>null</code>.
+     *
+     * @param color the color of this fluid
+     *
+     * @see #getColor()
+     * @since 2.2
+     */
+    public void setColor(final Color color) {
+        if (color != null) {
+            this.color = color;
+        }
+    }
+
+    @Override
+    protected void draw(final Canvas canvas) {
+        final int count = getParticleCount();
+        if (count == 0) {
+            return;
+        }
+
+        final int first = group.getBufferIndex();
+        final float[] positionX = physics.getParticlePositionXBuffer();
+        final float[] positionY = physics.getParticlePositionYBuffer();
+        final float scale = physics.getScale();
+        final float originX = getX();
+        final float originY = getY();
+        final float radius = physics.getParticleRadius();
+        final float reach = radius * KERNEL_RADIUS;
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int i = first; i < first + count; ++i) {
+            final float x = positionX[i] * scale - originX;
+            final float y = positionY[i] * scale - originY;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+
+        minX = minX - reach;
+        minY = minY - reach;
+        maxX = maxX + reach;
+        maxY = maxY + reach;
+        // Reduce the resolution if the fluid is spread over a large area
+        float cellSize = radius / RESOLUTION;
+        final float area = (maxX - minX) * (maxY - minY);
+        if (area > MAX_PIXELS * cellSize * cellSize) {
+            cellSize = (float) Math.sqrt(area / MAX_PIXELS);
+        }
+
+        final int columns = (int) Math.ceil((maxX - minX) / cellSize);
+        final int rows = (int) Math.ceil((maxY - minY) / cellSize);
+        final int size = columns * rows;
+        if (density.length < size) {
+            density = new float[size];
+            pixels = new int[size];
+        }
+        else {
+            Arrays.fill(density, 0, size, 0f);
+        }
+
+        // Add up the density of all particles. The rows of the raster are ordered from top to bottom.
+        final float reachSquared = reach * reach;
+        for (int i = first; i < first + count; ++i) {
+            final float x = positionX[i] * scale - originX;
+            final float y = positionY[i] * scale - originY;
+            final int minColumn = Math.max(0, (int) ((x - reach - minX) / cellSize));
+            final int maxColumn = Math.min(columns - 1, (int) ((x + reach - minX) / cellSize));
+            final int minRow = Math.max(0, (int) ((maxY - y - reach) / cellSize));
+            final int maxRow = Math.min(rows - 1, (int) ((maxY - y + reach) / cellSize));
+            for (int row = minRow; row <= maxRow; ++row) {
+                final float dy = maxY - (row + 0.5f) * cellSize - y;
+                final int offset = row * columns;
+                for (int column = minColumn; column <= maxColumn; ++column) {
+                    final float dx = minX + (column + 0.5f) * cellSize - x;
+                    final float distanceSquared = dx * dx + dy * dy;
+                    if (distanceSquared < reachSquared) {
+                        final float t = 1f - distanceSquared / reachSquared;
+                        density[offset + column] += t * t;
+                    }
+                }
+            }
+        }
+
+        // Convert the density to pixels with a smooth edge at the surface of the fluid
+        final int rgb = color.getValue() & 0xffffff;
+        final int alpha = color.getAlpha();
+        final int opaque = (alpha << 24) | rgb;
+        for (int i = 0; i < size; ++i) {
+            final float value = density[i];
+            if (value <= EDGE_MIN) {
+                pixels[i] = 0;
+            }
+            else if (value >= EDGE_MAX) {
+                pixels[i] = opaque;
+            }
+            else {
+                pixels[i] = ((int) (alpha * (value - EDGE_MIN) / (EDGE_MAX - EDGE_MIN)) << 24) | rgb;
+            }
+        }
+
+        canvas.setAlignment(Alignment.BOTTOM_LEFT);
+        canvas.setOpacity(255);
+        canvas.drawPixels(minX, maxY - rows * cellSize, columns * cellSize, rows * cellSize, columns, rows, pixels);
+    }
+
+    Physics getPhysics() {
+        return physics;
+    }
+
+    void setPhysics(final Physics physics) {
+        if (this.physics == physics) {
+            return;
+        }
+
+        if (group != null) {
+            this.physics.destroyParticleGroupImp(group);
+            group = null;
+        }
+
+        this.physics = physics;
+        if (physics != null) {
+            final ParticleGroupDef particleGroupDef = new ParticleGroupDef();
+            particleGroupDef.shape = PhysicsBodyImp.convert(shape, physics.getScale());
+            particleGroupDef.flags = convert(type);
+            particleGroupDef.userData = this;
+            group = physics.createParticleGroupImp(particleGroupDef);
+        }
+    }
+
+    private static int convert(final FluidType type) {
+        switch (type) {
+            case ELASTIC:
+                return ParticleType.b2_elasticParticle;
+            case POWDER:
+                return ParticleType.b2_powderParticle;
+            case TENSILE:
+                return ParticleType.b2_tensileParticle;
+            case VISCOUS:
+                return ParticleType.b2_viscousParticle;
+            case WATER:
+            default:
+                return ParticleType.b2_waterParticle;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+/**
+ * Represents the behaviour of the particles of a {@link Fluid}.
+ *
+ * @since 2.2
+ */
+public enum FluidType {
+
+    /**
+     * An elastic fluid. The particles keep their relative positions like a soft body.
+     *
+     * @since 2.2
+     */
+    ELASTIC,
+    /**
+     * A powder. The particles repel each other and do not stick together.
+     *
+     * @since 2.2
+     */
+    POWDER,
+    /**
+     * A fluid with surface tension. The particles form drops.
+     *
+     * @since 2.2
+     */
+    TENSILE,
+    /**
+     * A viscous fluid like honey.
+     *
+     * @since 2.2
+     */
+    VISCOUS,
+    /**
+     * A fluid like water.
+     *
+     * @since 2.2
+     */
+    WATER;
+
+    /**
+     * Parses a fluid type from a string. Returns the corresponding fluid type, if <code>value</code> matches a fluid
+     * type constant in any combination of lower and upper case letters. Returns <code>null</code> if the string does
+     * not matches any fluid type constant.
+     *
+     * @param value the value to parse
+     * @return the parsed fluid type
+     *
+     * @since 2.2
+     */
+    public static FluidType parse(final String value) {
+        return parse(value, null);
+    }
+
+    /**
+     * Parses a fluid type from a string. Returns the corresponding fluid type, if <code>value</code> matches a fluid
+     * type constant in any combination of lower and upper case letters. Returns <code>defaultValue</code> if the string
+     * does not matches any fluid type constant.
+     *
+     * @param value the value to parse
+     * @param defaultValue the default value
+     * @return the parsed fluid type
+     *
+     * @since 2.2
+     */
+    public static FluidType parse(final String value, final FluidType defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return valueOf(value.toUpperCase());
+        }
+        catch (IllegalArgumentException ex) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+import org.jbox2d.common.Vec2;
+
+/**
+ * Represents a joint that connects two bodies in a physics view. A joint constrains the movement of the bodies relative
+ * to each other. Joints are created by the <code>create...Joint</code> methods of {@link PhysicsView}. A joint is
+ * destroyed with {@link PhysicsView#destroyJoint(ch.jeda.physics.Joint)} or when one of its bodies is removed from the
+ * view.
+ *
+ * @since 2.2
+ */
+public abstract class Joint {
+
+    private final Vec2 anchor;
+    private final Body bodyA;
+    private final Body bodyB;
+    private boolean destroyed;
+    private final org.jbox2d.dynamics.joints.Joint imp;
+    private final Physics physics;
+
+    Joint(final Physics physics, final Body bodyA, final Body bodyB, final org.jbox2d.dynamics.joints.Joint imp) {
+        anchor = new Vec2();
+        this.bodyA = bodyA;
+        this.bodyB = bodyB;
+        destroyed = false;
+        this.imp = imp;
+        this.physics = physics;
+        imp.m_userData = this;
+    }
+
+    /**
+     * Returns the horizontal coordinate of the anchor point on the first body.
+     *
+     * @return the horizontal coordinate of the anchor point on the first body
+     *
+     * @since 2.2
+     */
+    public final float getAnchorAX() {
+        imp.getAnchorA(anchor);
+        return anchor.x * physics.getScale();
+    }
+
+    /**
+     * Returns the vertical coordinate of the anchor point on the first body.
+     *
+     * @return the vertical coordinate of the anchor point on the first body
+     *
+     * @since 2.2
+     */
+    public final float getAnchorAY() {
+        imp.getAnchorA(anchor);
+        return anchor.y * physics.getScale();
+    }
+
+    /**
+     * Returns the horizontal coordinate of the anchor point on the second body.
+     *
+     * @return the horizontal coordinate of the anchor point on the second body
+     *
+     * @since 2.2
+     */
+    public final float getAnchorBX() {
+        imp.getAnchorB(anchor);
+        return anchor.x * physics.getScale();
+    }
+
+    /**
+     * Returns the vertical coordinate of the anchor point on the second body.
+     *
+     * @return the vertical coordinate of the anchor point on the second body
+     *
+     * @since 2.2
+     */
+    public final float getAnchorBY() {
+        imp.getAnchorB(anchor);
+        return anchor.y * physics.getScale();
+    }
+
+    /**
+     * Returns the first body connected by this joint.
+     *
+     * @return the first body
+     *
+     * @since 2.2
+     */
+    public final Body getBodyA() {
+        return bodyA;
+    }
+
+    /**
+     * Returns the second body connected by this joint.
+     *
+     * @return the second body
+     *
+     * @since 2.2
+     */
+    public final Body getBodyB() {
+        return bodyB;
+    }
+
+    /**
+     * Checks if this joint has been destroyed. A joint is destroyed by
+     * {@link PhysicsView#destroyJoint(ch.jeda.physics.Joint)} or when one of its bodies is removed from the view. A
+     * destroyed joint has no effect.
+     *
+     * @return <code>true</code> if this joint has been destroyed, otherwise <code>false</code>
+     *
+     * @since 2.2
+     */
+    public final boolean isDestroyed() {
+        return destroyed;
+    }
+
+    org.jbox2d.dynamics.joints.Joint getImp() {
+        return imp;
+    }
+
+    Physics getPhysics() {
+        return physics;
+    }
+
+    void setDestroyed() {
+        destroyed = true;
+    }
+}
@@ -16,33 +16,89 @@
  */
 package ch.jeda.physics;
 
+import ch.jeda.ui.Alignment;
+import ch.jeda.ui.Canvas;
+import ch.jeda.ui.Color;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import org.jbox2d.callbacks.DebugDraw;
 import org.jbox2d.common.Vec2;
 import org.jbox2d.dynamics.BodyDef;
 import org.jbox2d.dynamics.World;
+import org.jbox2d.dynamics.joints.DistanceJointDef;
+import org.jbox2d.dynamics.joints.MouseJoint;
+import org.jbox2d.dynamics.joints.MouseJointDef;
+import org.jbox2d.dynamics.joints.PrismaticJointDef;
+import org.jbox2d.dynamics.joints.RevoluteJointDef;
+import org.jbox2d.dynamics.joints.RopeJointDef;
+import org.jbox2d.dynamics.joints.WeldJointDef;
+import org.jbox2d.dynamics.joints.WheelJointDef;
+import org.jbox2d.particle.ParticleGroup;
+import org.jbox2d.particle.ParticleGroupDef;
 
 final class Physics {
 
+    // Limits the number of fixed steps per call of step(), so that a slow device does not fall further and further
+    // behind
+    private static final int MAX_FIXED_STEPS = 8;
+    // Text cannot be batched, so the names are only drawn for small worlds
+    private static final int MAX_NAMED_BODIES = 100;
+    private static final Map<Class<?>, Boolean> STEP_OVERRIDES = new HashMap<Class<?>, Boolean>();
+    // Insertion ordered, so that the bodies are always iterated in the same order
     private final Set<Body> bodySet;
+    private double accumulator;
+    // Dense list of the bodies that are stepped: awake bodies and bodies overriding step()
+    private Body[] awakeBodies;
+    private int awakeCount;
     private Body[] bodies;
+    private Body[] stepBodies;
+    private final PhysicsDebugDraw debugDraw;
+    private final Set<DebugFeature> debugFeatures;
     private boolean debugging;
+    private final PhysicsDragger dragger;
+    // Static body without shapes, used as anchor for the mouse joints
+    private final org.jbox2d.dynamics.Body groundImp;
     private final org.jbox2d.dynamics.World imp;
+    private final Set<Joint> joints;
+    private final PhysicsQuery query;
     private float scale;
     private boolean paused;
+    private long stepCount;
+    private double timeStep;
 
     public Physics() {
-        bodySet = new HashSet<Body>();
+        bodySet = new LinkedHashSet<Body>();
+        accumulator = 0.0;
+        awakeBodies = new Body[16];
+        awakeCount = 0;
         bodies = null;
+        stepBodies = new Body[16];
+        debugDraw = new PhysicsDebugDraw();
+        debugFeatures = EnumSet.of(DebugFeature.CENTERS_OF_MASS, DebugFeature.JOINTS, DebugFeature.NAMES,
+                                   DebugFeature.SHAPES);
         debugging = false;
+        dragger = new PhysicsDragger(this);
         imp = new World(new Vec2(0f, 0f));
+        imp.setDebugDraw(debugDraw);
         imp.setContactListener(new PhysicsContactListener());
         imp.setContactFilter(new PhysicsContactFilter());
+        imp.setDestructionListener(new PhysicsDestructionListener(this));
+        imp.setSleepListener(new PhysicsSleepListener(this));
         // Set default gravity. If default gravity is zero, it cannot be changed later on.
         imp.setGravity(new Vec2(0f, -9.81f));
+        imp.setParticleRadius(0.1f);
+        groundImp = imp.createBody(new BodyDef());
+        joints = new LinkedHashSet<Joint>();
+        query = new PhysicsQuery(this, imp);
         paused = false;
         scale = 100f;
+        stepCount = 0;
+        timeStep = 0.0;
+        updateDebugFlags();
     }
 
     public void add(final Body body) {
@@ -60,15 +116,108 @@ final class Physics {
         body.setPhysics(this);
     }
 
+    public void add(final Fluid fluid) {
+        if (fluid != null) {
+            fluid.setPhysics(this);
+        }
+    }
+
+    public DistanceJoint createDistanceJoint(final Body bodyA, final float ax, final float ay, final Body bodyB,
+                                             final float bx, final float by) {
+        final DistanceJointDef def = new DistanceJointDef();
+        def.initialize(getBodyImp(bodyA, "bodyA"), getBodyImp(bodyB, "bodyB"), toVec2(ax, ay), toVec2(bx, by));
+        return addJoint(new DistanceJoint(this, bodyA, bodyB,
+                                          (org.jbox2d.dynamics.joints.DistanceJoint) createJointImp(bodyA, bodyB, def)));
+    }
+
+    public PrismaticJoint createPrismaticJoint(final Body bodyA, final Body bodyB, final float x, final float y,
+                                               final float axisX, final float axisY) {
+        final PrismaticJointDef def = new PrismaticJointDef();
+        def.initialize(getBodyImp(bodyA, "bodyA"), getBodyImp(bodyB, "bodyB"), toVec2(x, y), toAxis(axisX, axisY));
+        return addJoint(new PrismaticJoint(this, bodyA, bodyB,
+                                           (org.jbox2d.dynamics.joints.PrismaticJoint) createJointImp(bodyA, bodyB, def)));
+    }
+
+    public RevoluteJoint createRevoluteJoint(final Body bodyA, final Body bodyB, final float x, final float y) {
+        final RevoluteJointDef def = new RevoluteJointDef();
+        def.initialize(getBodyImp(bodyA, "bodyA"), getBodyImp(bodyB, "bodyB"), toVec2(x, y));
+        return addJoint(new RevoluteJoint(this, bodyA, bodyB,
+                                          (org.jbox2d.dynamics.joints.RevoluteJoint) createJointImp(bodyA, bodyB, def)));
+    }
+
+    public RopeJoint createRopeJoint(final Body bodyA, final float ax, final float ay, final Body bodyB,
+                                     final float bx, final float by, final float maxLength) {
+        final RopeJointDef def = new RopeJointDef();
+        def.bodyA = getBodyImp(bodyA, "bodyA");
+        def.bodyB = getBodyImp(bodyB, "bodyB");
+        def.bodyA.getLocalPointToOut(toVec2(ax, ay), def.localAnchorA);
+        def.bodyB.getLocalPointToOut(toVec2(bx, by), def.localAnchorB);
+        def.maxLength = scaleLength(maxLength);
+        return addJoint(new RopeJoint(this, bodyA, bodyB,
+                                      (org.jbox2d.dynamics.joints.RopeJoint) createJointImp(bodyA, bodyB, def)));
+    }
+
+    public WeldJoint createWeldJoint(final Body bodyA, final Body bodyB, final float x, final float y) {
+        final WeldJointDef def = new WeldJointDef();
+        def.initialize(getBodyImp(bodyA, "bodyA"), getBodyImp(bodyB, "bodyB"), toVec2(x, y));
+        return addJoint(new WeldJoint(this, bodyA, bodyB,
+                                      (org.jbox2d.dynamics.joints.WeldJoint) createJointImp(bodyA, bodyB, def)));
+    }
+
+    public WheelJoint createWheelJoint(final Body bodyA, final Body bodyB, final float x, final float y,
+                                       final float axisX, final float axisY) {
+        final WheelJointDef def = new WheelJointDef();
+        def.initialize(getBodyImp(bodyA, "bodyA"), getBodyImp(bodyB, "bodyB"), toVec2(x, y), toAxis(axisX, axisY));
+        def.frequencyHz = 2f;
+        def.dampingRatio = 0.7f;
+        return addJoint(new WheelJoint(this, bodyA, bodyB,
+                                       (org.jbox2d.dynamics.joints.WheelJoint) createJointImp(bodyA, bodyB, def)));
+    }
+
+    public void destroyJoint(final Joint joint) {
+        if (joint != null && joints.remove(joint)) {
+            joint.setDestroyed();
+            imp.destroyJoint(joint.getImp());
+        }
+    }
+
+    public void dispose() {
+        imp.dispose();
+    }
+
     public Body[] getBodies() {
         checkBodies();
         return Arrays.copyOf(bodies, bodies.length);
     }
 
+    public Joint[] getJoints() {
+        return joints.toArray(new Joint[joints.size()]);
+    }
+
+    public float getParticleRadius() {
+        return imp.getParticleRadius() * scale;
+    }
+
     public float getScale() {
         return scale;
     }
 
+    public int getSolverThreadCount() {
+        return imp.getSolverThreadCount();
+    }
+
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    public boolean hasDebugFeature(final DebugFeature feature) {
+        return debugFeatures.contains(feature);
+    }
+
     public boolean isDebugging() {
         return debugging;
     }
@@ -77,6 +226,26 @@ final class Physics {
         return paused;
     }
 
+    public int queryArea(final float minX, final float minY, final float maxX, final float maxY, final Body[] result) {
+        return query.queryArea(minX, minY, maxX, maxY, result);
+    }
+
+    public Body queryPoint(final float x, final float y) {
+        return query.queryPoint(x, y);
+    }
+
+    public boolean raycast(final float x1, final float y1, final float x2, final float y2, final RaycastHit hit) {
+        return query.raycast(x1, y1, x2, y2, hit);
+    }
+
+    public int raycastAll(final float x1, final float y1, final float x2, final float y2, final RaycastHit[] hits) {
+        return query.raycastAll(x1, y1, x2, y2, hits);
+    }
+
+    public boolean raycastAny(final float x1, final float y1, final float x2, final float y2) {
+        return query.raycastAny(x1, y1, x2, y2);
+    }
+
     public void remove(final Body body) {
         if (body == null || !bodySet.contains(body)) {
             return;
@@ -87,10 +256,125 @@ final class Physics {
         body.setPhysics(null);
     }
 
+    public void remove(final Fluid fluid) {
+        if (fluid != null && fluid.getPhysics() == this) {
+            fluid.setPhysics(null);
+        }
+    }
+
+    public boolean restoreSnapshot(final PhysicsSnapshot snapshot) {
+        // The jbox2d snapshot only checks the structure of the world, make sure that the bodies and joints are still
+        // the same
+        if (snapshot.bodyCount != imp.getBodyCount() || snapshot.jointCount != imp.getJointCount()) {
+            return false;
+        }
+
+        int index = 0;
+        for (org.jbox2d.dynamics.Body bodyImp = imp.getBodyList(); bodyImp != null; bodyImp = bodyImp.m_next) {
+            if (snapshot.bodies[index] != bodyImp.m_userData) {
+                return false;
+            }
+
+            ++index;
+        }
+
+        index = 0;
+        for (org.jbox2d.dynamics.joints.Joint jointImp = imp.getJointList(); jointImp != null;
+             jointImp = jointImp.m_next) {
+            if (snapshot.joints[index] != jointImp) {
+                return false;
+            }
+
+            ++index;
+        }
+
+        if (!imp.restoreSnapshot(snapshot.imp)) {
+            return false;
+        }
+
+        // Restore the order of the awake bodies, since it determines the order in which the bodies are stepped
+        for (int i = 0; i < awakeCount; ++i) {
+            awakeBodies[i].awakeIndex = -1;
+        }
+
+        Arrays.fill(awakeBodies, 0, awakeCount, null);
+        awakeCount = snapshot.awakeCount;
+        if (awakeBodies.length < awakeCount) {
+            awakeBodies = new Body[snapshot.awakeBodies.length];
+        }
+
+        System.arraycopy(snapshot.awakeBodies, 0, awakeBodies, 0, awakeCount);
+        for (int i = 0; i < awakeCount; ++i) {
+            awakeBodies[i].awakeIndex = i;
+        }
+
+        stepCount = snapshot.stepCount;
+        return true;
+    }
+
+    public void saveSnapshot(final PhysicsSnapshot snapshot) {
+        imp.saveSnapshot(snapshot.imp);
+        final int bodyCount = imp.getBodyCount();
+        if (snapshot.bodies.length < bodyCount) {
+            snapshot.bodies = new Body[2 * bodyCount];
+        }
+
+        int index = 0;
+        for (org.jbox2d.dynamics.Body bodyImp = imp.getBodyList(); bodyImp != null; bodyImp = bodyImp.m_next) {
+            snapshot.bodies[index] = (Body) bodyImp.m_userData;
+            ++index;
+        }
+
+        if (bodyCount < snapshot.bodyCount) {
+            Arrays.fill(snapshot.bodies, bodyCount, snapshot.bodyCount, null);
+        }
+
+        snapshot.bodyCount = bodyCount;
+        final int jointCount = imp.getJointCount();
+        if (snapshot.joints.length < jointCount) {
+            snapshot.joints = new org.jbox2d.dynamics.joints.Joint[2 * jointCount];
+        }
+
+        index = 0;
+        for (org.jbox2d.dynamics.joints.Joint jointImp = imp.getJointList(); jointImp != null;
+             jointImp = jointImp.m_next) {
+            snapshot.joints[index] = jointImp;
+            ++index;
+        }
+
+        if (jointCount < snapshot.jointCount) {
+            Arrays.fill(snapshot.joints, jointCount, snapshot.jointCount, null);
+        }
+
+        snapshot.jointCount = jointCount;
+        if (snapshot.awakeBodies.length < awakeCount) {
+            snapshot.awakeBodies = new Body[awakeBodies.length];
+        }
+
+        System.arraycopy(awakeBodies, 0, snapshot.awakeBodies, 0, awakeCount);
+        if (awakeCount < snapshot.awakeCount) {
+            Arrays.fill(snapshot.awakeBodies, awakeCount, snapshot.awakeCount, null);
+        }
+
+        snapshot.awakeCount = awakeCount;
+        snapshot.stepCount = stepCount;
+    }
+
     public void setDebugging(final boolean debugging) {
         this.debugging = debugging;
     }
 
+    public void setDebugFeature(final DebugFeature feature, final boolean enabled) {
+        if (enabled) {
+            debugFeatures.add(feature);
+        }
+        else {
+            debugFeatures.remove(feature);
+        }
+
+        updateDebugFlags();
+    }
+
     public void setGravity(final double ax, final double ay) {
         imp.setGravity(new Vec2((float) ax, (float) ay));
         org.jbox2d.dynamics.Body body = imp.getBodyList();
@@ -100,6 +384,10 @@ final class Physics {
         }
     }
 
+    public void setParticleRadius(final float radius) {
+        imp.setParticleRadius(scaleLength(radius));
+    }
+
     public void setScale(final float scale) {
         this.scale = scale;
     }
@@ -108,31 +396,264 @@ final class Physics {
         this.paused = paused;
     }
 
+    public void setSolverThreadCount(final int count) {
+        imp.setSolverThreadCount(count);
+    }
+
+    public void setTimeStep(final double timeStep) {
+        this.timeStep = timeStep;
+        accumulator = 0.0;
+    }
+
     public void step(final double seconds) {
-        if (!paused) {
-            imp.step((float) seconds, 6, 2);
-            checkBodies();
-            for (final Body body : bodies) {
-                body.step(seconds);
+        if (paused) {
+            return;
+        }
+
+        if (timeStep > 0.0) {
+            accumulator += seconds;
+            int steps = 0;
+            while (accumulator >= timeStep && steps < MAX_FIXED_STEPS) {
+                doStep(timeStep);
+                accumulator -= timeStep;
+                ++steps;
+            }
+
+            if (accumulator >= timeStep) {
+                // Drop the steps that could not be performed
+                accumulator = 0.0;
             }
         }
+        else {
+            doStep(seconds);
+        }
+    }
+
+    MouseJoint createMouseJointImp(final Body body, final float x, final float y) {
+        final MouseJointDef def = new MouseJointDef();
+        def.bodyA = groundImp;
+        def.bodyB = getBodyImp(body, "body");
+        def.target.set(toVec2(x, y));
+        def.maxForce = 1000f * def.bodyB.getMass();
+        def.bodyB.setAwake(true);
+        return (MouseJoint) imp.createJoint(def);
+    }
+
+    void destroyJointImp(final org.jbox2d.dynamics.joints.Joint jointImp) {
+        imp.destroyJoint(jointImp);
+    }
+
+    void drawDebugData(final Canvas canvas, final float pixelSize) {
+        debugDraw.begin(canvas, scale, pixelSize);
+        if (debugFeatures.contains(DebugFeature.CENTERS_OF_MASS)) {
+            debugDraw.drawCentersOfMass(imp.getBodyList());
+        }
+
+        imp.drawDebugData();
+        checkBodies();
+        if (debugFeatures.contains(DebugFeature.NAMES) && bodies.length <= MAX_NAMED_BODIES) {
+            canvas.setColor(Color.RED);
+            canvas.setAlignment(Alignment.TOP_LEFT);
+            for (int i = 0; i < bodies.length; ++i) {
+                canvas.drawText(bodies[i].getX() + 0.2f, bodies[i].getY() - 0.1f, bodies[i].getName());
+            }
+        }
+    }
+
+    PhysicsDragger getDragger() {
+        return dragger;
+    }
+
+    void jointDestroyed(final org.jbox2d.dynamics.joints.Joint jointImp) {
+        if (jointImp.m_userData instanceof Joint) {
+            final Joint joint = (Joint) jointImp.m_userData;
+            joints.remove(joint);
+            joint.setDestroyed();
+        }
+        else {
+            dragger.jointDestroyed(jointImp);
+        }
+    }
+
+    void setAwake(final Body body, final boolean awake, final boolean isStatic) {
+        if (overridesStep(body.getClass()) || (awake && !isStatic)) {
+            if (body.awakeIndex < 0) {
+                if (awakeCount == awakeBodies.length) {
+                    awakeBodies = Arrays.copyOf(awakeBodies, 2 * awakeCount);
+                }
+
+                body.awakeIndex = awakeCount;
+                awakeBodies[awakeCount] = body;
+                ++awakeCount;
+            }
+        }
+        else {
+            removeAwake(body);
+        }
+    }
+
+    void removeAwake(final Body body) {
+        final int index = body.awakeIndex;
+        if (index < 0) {
+            return;
+        }
+
+        --awakeCount;
+        final Body last = awakeBodies[awakeCount];
+        awakeBodies[index] = last;
+        last.awakeIndex = index;
+        awakeBodies[awakeCount] = null;
+        body.awakeIndex = -1;
     }
 
     org.jbox2d.dynamics.Body createBodyImp(final BodyDef bodyDef) {
         return imp.createBody(bodyDef);
     }
 
+    ParticleGroup createParticleGroupImp(final ParticleGroupDef particleGroupDef) {
+        return imp.createParticleGroup(particleGroupDef);
+    }
+
     void destroyBodyImp(final org.jbox2d.dynamics.Body bodyImp) {
         imp.destroyBody(bodyImp);
     }
 
+    void destroyParticleGroupImp(final ParticleGroup particleGroup) {
+        imp.destroyParticlesInGroup(particleGroup);
+    }
+
+    float[] getParticlePositionXBuffer() {
+        return imp.getParticlePositionXBuffer();
+    }
+
+    float[] getParticlePositionYBuffer() {
+        return imp.getParticlePositionYBuffer();
+    }
+
     float scaleLength(final float length) {
         return (float) (length / scale);
     }
 
+    /**
+     * Checks if a body class overrides {@link Body#step(double)}. Such bodies are stepped even when they are asleep,
+     * since they may contain game logic that wakes them up.
+     */
+    private static boolean overridesStep(final Class<?> bodyClass) {
+        synchronized (STEP_OVERRIDES) {
+            Boolean result = STEP_OVERRIDES.get(bodyClass);
+            if (result == null) {
+                result = Boolean.FALSE;
+                for (Class<?> clazz = bodyClass; clazz != Body.class; clazz = clazz.getSuperclass()) {
+                    try {
+                        clazz.getDeclaredMethod("step", double.class);
+                        result = Boolean.TRUE;
+                        break;
+                    }
+                    catch (NoSuchMethodException ex) {
+                        // not declared in this class
+                    }
+                }
+
+                STEP_OVERRIDES.put(bodyClass, result);
+            }
+
+            return result;
+        }
+    }
+
+    private <T extends Joint> T addJoint(final T joint) {
+        joints.add(joint);
+        return joint;
+    }
+
     private void checkBodies() {
         if (bodies == null) {
             bodies = bodySet.toArray(new Body[bodySet.size()]);
         }
     }
+
+    private org.jbox2d.dynamics.joints.Joint createJointImp(final Body bodyA, final Body bodyB,
+                                                           final org.jbox2d.dynamics.joints.JointDef def) {
+        if (bodyA == bodyB) {
+            throw new IllegalArgumentException("bodyB");
+        }
+
+        final org.jbox2d.dynamics.joints.Joint result = imp.createJoint(def);
+        if (result == null) {
+            throw new IllegalStateException("Joints cannot be created while the simulation is stepped.");
+        }
+
+        return result;
+    }
+
+    private void doStep(final double seconds) {
+        imp.step((float) seconds, 6, 2);
+        ++stepCount;
+        // Sleeping bodies do not move, only step the awake bodies. Work on a copy, since step() may add or remove
+        // bodies.
+        final int count = awakeCount;
+        if (stepBodies.length < count) {
+            stepBodies = new Body[awakeBodies.length];
+        }
+
+        System.arraycopy(awakeBodies, 0, stepBodies, 0, count);
+        for (int i = 0; i < count; ++i) {
+            stepBodies[i].step(seconds);
+        }
+
+        Arrays.fill(stepBodies, 0, count, null);
+    }
+
+    private org.jbox2d.dynamics.Body getBodyImp(final Body body, final String name) {
+        if (body == null) {
+            throw new NullPointerException(name);
+        }
+
+        if (!body.getImp().belongsTo(this)) {
+            throw new IllegalArgumentException(name);
+        }
+
+        return ((PhysicsBodyImp) body.getImp()).getBodyImp();
+    }
+
+    private void updateDebugFlags() {
+        int flags = 0;
+        for (final DebugFeature feature : debugFeatures) {
+            switch (feature) {
+                case AABBS:
+                    flags |= DebugDraw.e_aabbBit;
+                    break;
+                case CONTACTS:
+                    flags |= DebugDraw.e_contactPointBit;
+                    break;
+                case DYNAMIC_TREE:
+                    flags |= DebugDraw.e_dynamicTreeBit;
+                    break;
+                case ISLANDS:
+                    flags |= DebugDraw.e_islandBit;
+                    break;
+                case JOINTS:
+                    flags |= DebugDraw.e_jointBit;
+                    break;
+                case SHAPES:
+                    flags |= DebugDraw.e_shapeBit;
+                    break;
+            }
+        }
+
+        debugDraw.setFlags(flags);
+    }
+
+    private Vec2 toAxis(final float x, final float y) {
+        final Vec2 result = new Vec2(x, y);
+        if (result.normalize() == 0f) {
+            throw new IllegalArgumentException("axis");
+        }
+
+        return result;
+    }
+
+    private Vec2 toVec2(final float x, final float y) {
+        return new Vec2(scaleLength(x), scaleLength(y));
+    }
 }
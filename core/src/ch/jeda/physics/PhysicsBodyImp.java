@@ -23,9 +23,6 @@ import ch.jeda.geometry.Polygon;
 import ch.jeda.geometry.Polyline;
 import ch.jeda.geometry.Rectangle;
 import ch.jeda.geometry.Shape;
-import ch.jeda.ui.Alignment;
-import ch.jeda.ui.Canvas;
-import ch.jeda.ui.Color;
 import java.util.ArrayList;
 import java.util.List;
 import org.jbox2d.common.Vec2;
@@ -36,14 +33,20 @@ import org.jbox2d.dynamics.FixtureDef;
 final class PhysicsBodyImp implements BodyImp {
 
     private final float density;
+    private final Vec2 force;
     private final float friction;
     private final org.jbox2d.dynamics.Body imp;
+    private final Vec2 point;
     private final Physics physics;
     private final List<Shape> shapes;
+    // Used by PhysicsQuery to report each body only once per query
+    int queryStamp;
 
     PhysicsBodyImp(final Physics physics, final Body body, final BodyImp oldImp) {
         density = oldImp.getDensity();
+        force = new Vec2();
         friction = oldImp.getFriction();
+        point = new Vec2();
         shapes = new ArrayList<Shape>();
         final BodyDef bodyDef = new BodyDef();
         bodyDef.angle = oldImp.getAngleRad();
@@ -62,6 +65,8 @@ final class PhysicsBodyImp implements BodyImp {
         for (final Shape shape : oldImp.getShapes()) {
             addShape(shape);
         }
+
+        physics.setAwake(body, true, bodyDef.type == org.jbox2d.dynamics.BodyType.STATIC);
     }
 
     @Override
@@ -78,24 +83,31 @@ final class PhysicsBodyImp implements BodyImp {
 
     @Override
     public void applyForce(final float fx, final float fy) {
-        imp.applyForce(new Vec2(fx, fy), imp.getWorldCenter());
+        force.set(fx, fy);
+        imp.applyForce(force, imp.getWorldCenter());
     }
 
     @Override
     public void applyForce(final float fx, final float fy, final float x, final float y) {
-        imp.applyForce(new Vec2(fx, fy), new Vec2(x, y));
+        force.set(fx, fy);
+        point.set(x, y);
+        imp.applyForce(force, point);
     }
 
     @Override
     public void applyLocalForceRad(final float force, float angle) {
         angle = angle + getAngleRad();
-        imp.applyForce(new Vec2(force * MathF.cos(angle), force * MathF.sin(angle)), imp.getWorldCenter());
+        this.force.set(force * MathF.cos(angle), force * MathF.sin(angle));
+        imp.applyForce(this.force, imp.getWorldCenter());
     }
 
     @Override
     public void applyLocalForceRad(final float force, float angle, final float x, final float y) {
         angle = angle + getAngleRad();
-        imp.applyForce(new Vec2(force * MathF.cos(angle), force * MathF.sin(angle)), imp.getWorldPoint(new Vec2(x, y)));
+        this.force.set(force * MathF.cos(angle), force * MathF.sin(angle));
+        point.set(x, y);
+        imp.getWorldPointToOut(point, point);
+        imp.applyForce(this.force, point);
     }
 
     @Override
@@ -105,38 +117,15 @@ final class PhysicsBodyImp implements BodyImp {
 
     @Override
     public boolean belongsTo(final Physics physics) {
-        return physics == physics;
+        return this.physics == physics;
     }
 
     @Override
     public void destroy() {
+        physics.removeAwake((Body) imp.m_userData);
         physics.destroyBodyImp(imp);
     }
 
-    @Override
-    public void drawOverlay(final Canvas canvas) {
-        if (!physics.isDebugging()) {
-            return;
-        }
-
-        canvas.setColor(Color.RED);
-        canvas.setLineWidth(1);
-        canvas.fillCircle(0, 0, 0.1);
-        canvas.drawPolyline(0, 0, 1, 0);
-
-        Fixture fixture = imp.m_fixtureList;
-        while (fixture != null) {
-            canvas.setLineWidth(1);
-            canvas.setColor(Color.RED);
-            drawShape(fixture.m_shape, canvas);
-            fixture = fixture.m_next;
-        }
-
-        final Body body = (Body) imp.m_userData;
-        canvas.setAlignment(Alignment.TOP_LEFT);
-        canvas.drawText(0.2, -0.1, body.getName());
-    }
-
     @Override
     public float getAngleRad() {
         return MathF.normalizeAngle(imp.getAngle());
@@ -279,11 +268,13 @@ final class PhysicsBodyImp implements BodyImp {
     @Override
     public void setType(final BodyType type) {
         imp.setType(convert(type));
+        physics.setAwake((Body) imp.m_userData, imp.isAwake(), type == BodyType.STATIC);
     }
 
     @Override
     public void setVelocity(final float vx, final float vy) {
-        imp.setLinearVelocity(new Vec2(vx, vy));
+        force.set(vx, vy);
+        imp.setLinearVelocity(force);
     }
 
     @Override
@@ -298,6 +289,10 @@ final class PhysicsBodyImp implements BodyImp {
         return result.toString();
     }
 
+    org.jbox2d.dynamics.Body getBodyImp() {
+        return imp;
+    }
+
     private static org.jbox2d.dynamics.BodyType convert(final BodyType bodyType) {
         switch (bodyType) {
             case DYNAMIC:
@@ -311,7 +306,7 @@ final class PhysicsBodyImp implements BodyImp {
         }
     }
 
-    private static org.jbox2d.collision.shapes.Shape convert(final Shape shape, final float scale) {
+    static org.jbox2d.collision.shapes.Shape convert(final Shape shape, final float scale) {
         if (shape instanceof Circle) {
             return convertCircle((Circle) shape, scale);
         }
@@ -359,50 +354,26 @@ final class PhysicsBodyImp implements BodyImp {
 
     private static org.jbox2d.collision.shapes.Shape convertPolygonalChain(final Polyline chain, final float scale) {
         final org.jbox2d.collision.shapes.ChainShape result = new org.jbox2d.collision.shapes.ChainShape();
-        final Vec2[] vertices = new Vec2[chain.getPointCount()];
-        for (int i = 0; i < chain.getPointCount(); ++i) {
-            vertices[i] = new Vec2(chain.getPointX(i) / scale, chain.getPointY(i) / scale);
+        int count = chain.getPointCount();
+        // A chain ending at its first point is a loop, its edges are connected at the first point, too
+        final boolean loop = count > 3 && chain.getPointX(0) == chain.getPointX(count - 1) &&
+                             chain.getPointY(0) == chain.getPointY(count - 1);
+        if (loop) {
+            --count;
         }
 
-        result.createChain(vertices, vertices.length);
-        return result;
-    }
-
-    private static void drawShape(final org.jbox2d.collision.shapes.Shape shape, final Canvas canvas) {
-        switch (shape.m_type) {
-            case CHAIN:
-                drawChainShape((org.jbox2d.collision.shapes.ChainShape) shape, canvas);
-                break;
-            case CIRCLE:
-                drawCircleShape((org.jbox2d.collision.shapes.CircleShape) shape, canvas);
-                break;
-            case POLYGON:
-                drawPolygonShape((org.jbox2d.collision.shapes.PolygonShape) shape, canvas);
-                break;
+        final Vec2[] vertices = new Vec2[count];
+        for (int i = 0; i < count; ++i) {
+            vertices[i] = new Vec2(chain.getPointX(i) / scale, chain.getPointY(i) / scale);
         }
-    }
 
-    private static void drawChainShape(final org.jbox2d.collision.shapes.ChainShape chain, final Canvas canvas) {
-        final double[] points = new double[chain.m_count * 2];
-        for (int i = 0; i < chain.m_count; ++i) {
-            points[2 * i] = chain.m_vertices[i].x;
-            points[2 * i + 1] = chain.m_vertices[i].y;
+        if (loop) {
+            result.createLoop(vertices, count);
         }
-
-        canvas.drawPolyline(points);
-    }
-
-    private static void drawCircleShape(final org.jbox2d.collision.shapes.CircleShape circle, final Canvas canvas) {
-        canvas.drawCircle(circle.m_p.x, circle.m_p.y, circle.m_radius);
-    }
-
-    private static void drawPolygonShape(final org.jbox2d.collision.shapes.PolygonShape polygon, final Canvas canvas) {
-        final double[] points = new double[polygon.m_count * 2];
-        for (int i = 0; i < polygon.m_count; ++i) {
-            points[2 * i] = polygon.m_vertices[i].x;
-            points[2 * i + 1] = polygon.m_vertices[i].y;
+        else {
+            result.createChain(vertices, count);
         }
 
-        canvas.drawPolygon(points);
+        return result;
     }
 }
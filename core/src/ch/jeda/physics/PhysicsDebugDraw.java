@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+import ch.jeda.ui.Canvas;
+import ch.jeda.ui.Color;
+import org.jbox2d.callbacks.DebugDraw;
+import org.jbox2d.common.Color3f;
+import org.jbox2d.common.Transform;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.particle.ParticleColor;
+
+/**
+ * Records the debug data of the jbox2d world in one batch of lines and one batch of triangles per color. The batches
+ * are drawn when the world calls {@link #flush()}, so the whole debug overlay takes a few canvas calls per frame
+ * instead of several calls per body. The buffers are kept between frames.
+ */
+class PhysicsDebugDraw extends DebugDraw {
+
+    private static final float AXIS_LENGTH = 0.4f;
+    private static final int CIRCLE_SEGMENTS = 16;
+    private static final float[] CIRCLE_COS = initCircle(true);
+    private static final float[] CIRCLE_SIN = initCircle(false);
+    private static final int FILL_ALPHA = 96;
+    private static final int PARTICLE_COLOR = 0x6666ff;
+    private static final int X_AXIS_COLOR = 0xff0000;
+    private static final int Y_AXIS_COLOR = 0x00ff00;
+    private Batch[] batches;
+    private int batchCount;
+    private Canvas canvas;
+    private Batch lastBatch;
+    private float pixelSize;
+    private float scale;
+    private final Transform transform;
+
+    PhysicsDebugDraw() {
+        batches = new Batch[16];
+        batchCount = 0;
+        transform = new Transform();
+    }
+
+    @Override
+    public void drawCircle(final Vec2 center, final float radius, final Color3f color) {
+        addCircle(batch(color), center.x * scale, center.y * scale, radius * scale);
+    }
+
+    @Override
+    public void drawParticles(final Vec2[] centers, final float radius, final ParticleColor[] colors,
+                              final int count) {
+        final float r = radius * scale;
+        for (int i = 0; i < count; ++i) {
+            final Batch batch = colors == null ? batch(PARTICLE_COLOR) : batch(colors[i]);
+            final float x = centers[i].x * scale;
+            final float y = centers[i].y * scale;
+            batch.addTriangle(x - r, y - r, x + r, y - r, x + r, y + r);
+            batch.addTriangle(x - r, y - r, x + r, y + r, x - r, y + r);
+        }
+    }
+
+    @Override
+    public void drawParticlesWireframe(final Vec2[] centers, final float radius, final ParticleColor[] colors,
+                                       final int count) {
+        final float r = radius * scale;
+        for (int i = 0; i < count; ++i) {
+            final Batch batch = colors == null ? batch(PARTICLE_COLOR) : batch(colors[i]);
+            addCircle(batch, centers[i].x * scale, centers[i].y * scale, r);
+        }
+    }
+
+    @Override
+    public void drawPoint(final Vec2 point, final float radiusOnScreen, final Color3f color) {
+        final Batch batch = batch(color);
+        final float x = point.x * scale;
+        final float y = point.y * scale;
+        final float r = radiusOnScreen * pixelSize;
+        batch.addTriangle(x - r, y - r, x + r, y - r, x + r, y + r);
+        batch.addTriangle(x - r, y - r, x + r, y + r, x - r, y + r);
+    }
+
+    @Override
+    public void drawSegment(final Vec2 p1, final Vec2 p2, final Color3f color) {
+        batch(color).addLine(p1.x * scale, p1.y * scale, p2.x * scale, p2.y * scale);
+    }
+
+    @Override
+    public void drawSolidCircle(final Vec2 center, final float radius, final Vec2 axis, final Color3f color) {
+        final Batch batch = batch(color);
+        final float x = center.x * scale;
+        final float y = center.y * scale;
+        final float r = radius * scale;
+        for (int i = 0; i < CIRCLE_SEGMENTS; ++i) {
+            batch.addTriangle(x, y, x + r * CIRCLE_COS[i], y + r * CIRCLE_SIN[i],
+                              x + r * CIRCLE_COS[i + 1], y + r * CIRCLE_SIN[i + 1]);
+        }
+
+        addCircle(batch, x, y, r);
+        batch.addLine(x, y, x + r * axis.x, y + r * axis.y);
+    }
+
+    @Override
+    public void drawSolidPolygon(final Vec2[] vertices, final int vertexCount, final Color3f color) {
+        final Batch batch = batch(color);
+        final float x0 = vertices[0].x * scale;
+        final float y0 = vertices[0].y * scale;
+        for (int i = 1; i < vertexCount - 1; ++i) {
+            batch.addTriangle(x0, y0, vertices[i].x * scale, vertices[i].y * scale,
+                              vertices[i + 1].x * scale, vertices[i + 1].y * scale);
+        }
+
+        for (int i = 0; i < vertexCount; ++i) {
+            final Vec2 p1 = vertices[i];
+            final Vec2 p2 = vertices[i + 1 < vertexCount ? i + 1 : 0];
+            batch.addLine(p1.x * scale, p1.y * scale, p2.x * scale, p2.y * scale);
+        }
+    }
+
+    @Override
+    public void drawString(final float x, final float y, final String s, final Color3f color) {
+        // Text cannot be batched. The names of the bodies are drawn by Physics.
+    }
+
+    @Override
+    public void drawTransform(final Transform xf) {
+        final float x = xf.p.x * scale;
+        final float y = xf.p.y * scale;
+        final float length = AXIS_LENGTH * scale;
+        batch(X_AXIS_COLOR).addLine(x, y, x + length * xf.q.c, y + length * xf.q.s);
+        batch(Y_AXIS_COLOR).addLine(x, y, x - length * xf.q.s, y + length * xf.q.c);
+    }
+
+    @Override
+    public void flush() {
+        // Fill everything first, so that no outline is hidden by the fill of another color
+        for (int i = 0; i < batchCount; ++i) {
+            final Batch batch = batches[i];
+            if (batch.triangleCount > 0) {
+                canvas.setColor(batch.fillColor);
+                canvas.fillTriangles(batch.triangles, batch.triangleCount);
+            }
+        }
+
+        canvas.setLineWidth(1);
+        for (int i = 0; i < batchCount; ++i) {
+            final Batch batch = batches[i];
+            if (batch.lineCount > 0) {
+                canvas.setColor(batch.lineColor);
+                canvas.drawLines(batch.lines, batch.lineCount);
+            }
+        }
+
+        canvas = null;
+    }
+
+    /**
+     * Prepares recording a frame. <code>pixelSize</code> is the size of a dp in world units.
+     */
+    void begin(final Canvas canvas, final float scale, final float pixelSize) {
+        this.canvas = canvas;
+        this.scale = scale;
+        this.pixelSize = pixelSize;
+        for (int i = 0; i < batchCount; ++i) {
+            batches[i].lineCount = 0;
+            batches[i].triangleCount = 0;
+        }
+    }
+
+    /**
+     * Records the centers of mass of all bodies that belong to a {@link Body}. The internal ground body has no center
+     * of mass worth showing, so the world's own center of mass pass is not used.
+     */
+    void drawCentersOfMass(final org.jbox2d.dynamics.Body bodyList) {
+        for (org.jbox2d.dynamics.Body bodyImp = bodyList; bodyImp != null; bodyImp = bodyImp.getNext()) {
+            if (bodyImp.m_userData instanceof Body) {
+                transform.set(bodyImp.getTransform());
+                transform.p.set(bodyImp.getWorldCenter());
+                drawTransform(transform);
+            }
+        }
+    }
+
+    private void addCircle(final Batch batch, final float x, final float y, final float r) {
+        for (int i = 0; i < CIRCLE_SEGMENTS; ++i) {
+            batch.addLine(x + r * CIRCLE_COS[i], y + r * CIRCLE_SIN[i],
+                          x + r * CIRCLE_COS[i + 1], y + r * CIRCLE_SIN[i + 1]);
+        }
+    }
+
+    private Batch batch(final Color3f color) {
+        return batch(toRgb(color.x) << 16 | toRgb(color.y) << 8 | toRgb(color.z));
+    }
+
+    private Batch batch(final ParticleColor color) {
+        return batch((color.r & 0xff) << 16 | (color.g & 0xff) << 8 | (color.b & 0xff));
+    }
+
+    private Batch batch(final int rgb) {
+        if (lastBatch != null && lastBatch.rgb == rgb) {
+            return lastBatch;
+        }
+
+        for (int i = 0; i < batchCount; ++i) {
+            if (batches[i].rgb == rgb) {
+                lastBatch = batches[i];
+                return lastBatch;
+            }
+        }
+
+        if (batchCount == batches.length) {
+            final Batch[] old = batches;
+            batches = new Batch[2 * old.length];
+            System.arraycopy(old, 0, batches, 0, old.length);
+        }
+
+        lastBatch = new Batch(rgb);
+        batches[batchCount] = lastBatch;
+        ++batchCount;
+        return lastBatch;
+    }
+
+    private static float[] initCircle(final boolean cos) {
+        final float[] result = new float[CIRCLE_SEGMENTS + 1];
+        for (int i = 0; i <= CIRCLE_SEGMENTS; ++i) {
+            final double angle = 2.0 * Math.PI * i / CIRCLE_SEGMENTS;
+            result[i] = (float) (cos ? Math.cos(angle) : Math.sin(angle));
+        }
+
+        return result;
+    }
+
+    private static int toRgb(final float value) {
+        // NaN and out of range values, e.g. from the tree of a world with one body, end up as 0 or 255
+        return Math.max(0, Math.min(255, (int) (value * 255f)));
+    }
+
+    private static class Batch {
+
+        final Color fillColor;
+        final Color lineColor;
+        final int rgb;
+        int lineCount;
+        float[] lines;
+        int triangleCount;
+        float[] triangles;
+
+        Batch(final int rgb) {
+            fillColor = new Color(rgb >> 16 & 0xff, rgb >> 8 & 0xff, rgb & 0xff, FILL_ALPHA);
+            lineColor = new Color(rgb >> 16 & 0xff, rgb >> 8 & 0xff, rgb & 0xff);
+            this.rgb = rgb;
+            lines = new float[256];
+            triangles = new float[256];
+        }
+
+        void addLine(final float x1, final float y1, final float x2, final float y2) {
+            final int i = 4 * lineCount;
+            if (i + 4 > lines.length) {
+                final float[] old = lines;
+                lines = new float[2 * old.length];
+                System.arraycopy(old, 0, lines, 0, i);
+            }
+
+            lines[i] = x1;
+            lines[i + 1] = y1;
+            lines[i + 2] = x2;
+            lines[i + 3] = y2;
+            ++lineCount;
+        }
+
+        void addTriangle(final float x1, final float y1, final float x2, final float y2, final float x3,
+                         final float y3) {
+            final int i = 6 * triangleCount;
+            if (i + 6 > triangles.length) {
+                final float[] old = triangles;
+                triangles = new float[2 * old.length];
+                System.arraycopy(old, 0, triangles, 0, i);
+            }
+
+            triangles[i] = x1;
+            triangles[i + 1] = y1;
+            triangles[i + 2] = x2;
+            triangles[i + 3] = y2;
+            triangles[i + 4] = x3;
+            triangles[i + 5] = y3;
+            ++triangleCount;
+        }
+    }
+}
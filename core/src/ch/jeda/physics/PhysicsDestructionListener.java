@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+import org.jbox2d.callbacks.DestructionListener;
+import org.jbox2d.dynamics.Fixture;
+
+class PhysicsDestructionListener implements DestructionListener {
+
+    private final Physics physics;
+
+    PhysicsDestructionListener(final Physics physics) {
+        this.physics = physics;
+    }
+
+    @Override
+    public void sayGoodbye(final org.jbox2d.dynamics.joints.Joint joint) {
+        physics.jointDestroyed(joint);
+    }
+
+    @Override
+    public void sayGoodbye(final Fixture fixture) {
+    }
+}
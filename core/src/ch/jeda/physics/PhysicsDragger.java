@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+import ch.jeda.event.PointerEvent;
+import ch.jeda.event.PointerListener;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.joints.MouseJoint;
+
+/**
+ * Lets the user drag dynamic bodies with the pointer. A mouse joint pulls the body towards the pointer, so the dragged
+ * body still collides with other bodies. Each pointer can drag one body.
+ */
+class PhysicsDragger implements PointerListener {
+
+    private boolean enabled;
+    private final Map<Integer, MouseJoint> joints;
+    private final Physics physics;
+    private final Vec2 target;
+
+    PhysicsDragger(final Physics physics) {
+        enabled = false;
+        joints = new HashMap<Integer, MouseJoint>();
+        this.physics = physics;
+        target = new Vec2();
+    }
+
+    @Override
+    public void onPointerDown(final PointerEvent event) {
+        stopDrag(event.getPointerId());
+        final Body body = physics.queryPoint(event.getWorldX(), event.getWorldY());
+        if (body != null && body.getType() == BodyType.DYNAMIC) {
+            final MouseJoint joint = physics.createMouseJointImp(body, event.getWorldX(), event.getWorldY());
+            if (joint != null) {
+                joints.put(event.getPointerId(), joint);
+            }
+        }
+    }
+
+    @Override
+    public void onPointerMoved(final PointerEvent event) {
+        final MouseJoint joint = joints.get(event.getPointerId());
+        if (joint != null) {
+            target.x = physics.scaleLength(event.getWorldX());
+            target.y = physics.scaleLength(event.getWorldY());
+            joint.setTarget(target);
+        }
+    }
+
+    @Override
+    public void onPointerUp(final PointerEvent event) {
+        stopDrag(event.getPointerId());
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void jointDestroyed(final org.jbox2d.dynamics.joints.Joint joint) {
+        final Iterator<MouseJoint> i = joints.values().iterator();
+        while (i.hasNext()) {
+            if (i.next() == joint) {
+                i.remove();
+            }
+        }
+    }
+
+    void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            for (final MouseJoint joint : joints.values()) {
+                physics.destroyJointImp(joint);
+            }
+
+            joints.clear();
+        }
+    }
+
+    private void stopDrag(final int pointerId) {
+        final MouseJoint joint = joints.remove(pointerId);
+        if (joint != null) {
+            physics.destroyJointImp(joint);
+        }
+    }
+}
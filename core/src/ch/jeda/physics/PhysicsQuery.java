@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+import org.jbox2d.callbacks.QueryCallback;
+import org.jbox2d.callbacks.RayCastCallback;
+import org.jbox2d.collision.AABB;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Fixture;
+import org.jbox2d.dynamics.World;
+
+/**
+ * Answers spatial queries with the broadphase of the physics world. The callbacks and vectors are reused, so a query
+ * does not allocate any objects.
+ */
+final class PhysicsQuery {
+
+    private final AABB aabb;
+    private final AreaCallback areaCallback;
+    private final Vec2 end;
+    private final Physics physics;
+    private final PointCallback pointCallback;
+    private final RaycastAllCallback raycastAllCallback;
+    private final RaycastAnyCallback raycastAnyCallback;
+    private final RaycastClosestCallback raycastClosestCallback;
+    private final Vec2 start;
+    private final World world;
+    private int stamp;
+
+    PhysicsQuery(final Physics physics, final World world) {
+        aabb = new AABB();
+        areaCallback = new AreaCallback();
+        end = new Vec2();
+        this.physics = physics;
+        pointCallback = new PointCallback();
+        raycastAllCallback = new RaycastAllCallback();
+        raycastAnyCallback = new RaycastAnyCallback();
+        raycastClosestCallback = new RaycastClosestCallback();
+        start = new Vec2();
+        this.world = world;
+    }
+
+    int queryArea(final float minX, final float minY, final float maxX, final float maxY, final Body[] result) {
+        if (result == null || result.length == 0) {
+            return 0;
+        }
+
+        aabb.lowerBound.set(physics.scaleLength(Math.min(minX, maxX)), physics.scaleLength(Math.min(minY, maxY)));
+        aabb.upperBound.set(physics.scaleLength(Math.max(minX, maxX)), physics.scaleLength(Math.max(minY, maxY)));
+        ++stamp;
+        areaCallback.result = result;
+        areaCallback.count = 0;
+        world.queryAABB(areaCallback, aabb);
+        areaCallback.result = null;
+        return areaCallback.count;
+    }
+
+    Body queryPoint(final float x, final float y) {
+        pointCallback.point.set(physics.scaleLength(x), physics.scaleLength(y));
+        aabb.lowerBound.set(pointCallback.point);
+        aabb.upperBound.set(pointCallback.point);
+        pointCallback.result = null;
+        world.queryAABB(pointCallback, aabb);
+        final Body result = pointCallback.result;
+        pointCallback.result = null;
+        return result;
+    }
+
+    boolean raycast(final float x1, final float y1, final float x2, final float y2, final RaycastHit hit) {
+        if (!setRay(x1, y1, x2, y2)) {
+            return false;
+        }
+
+        raycastClosestCallback.hit = hit;
+        raycastClosestCallback.found = false;
+        world.raycast(raycastClosestCallback, start, end);
+        raycastClosestCallback.hit = null;
+        return raycastClosestCallback.found;
+    }
+
+    int raycastAll(final float x1, final float y1, final float x2, final float y2, final RaycastHit[] hits) {
+        if (hits == null || hits.length == 0 || !setRay(x1, y1, x2, y2)) {
+            return 0;
+        }
+
+        for (int i = 0; i < hits.length; ++i) {
+            if (hits[i] == null) {
+                hits[i] = new RaycastHit();
+            }
+        }
+
+        raycastAllCallback.hits = hits;
+        raycastAllCallback.count = 0;
+        world.raycast(raycastAllCallback, start, end);
+        raycastAllCallback.hits = null;
+        return raycastAllCallback.count;
+    }
+
+    boolean raycastAny(final float x1, final float y1, final float x2, final float y2) {
+        if (!setRay(x1, y1, x2, y2)) {
+            return false;
+        }
+
+        raycastAnyCallback.found = false;
+        world.raycast(raycastAnyCallback, start, end);
+        return raycastAnyCallback.found;
+    }
+
+    private boolean setRay(final float x1, final float y1, final float x2, final float y2) {
+        if (x1 == x2 && y1 == y2) {
+            return false;
+        }
+
+        start.set(physics.scaleLength(x1), physics.scaleLength(y1));
+        end.set(physics.scaleLength(x2), physics.scaleLength(y2));
+        return true;
+    }
+
+    private void setHit(final RaycastHit hit, final Fixture fixture, final Vec2 point, final Vec2 normal,
+                        final float fraction) {
+        final float scale = physics.getScale();
+        hit.set(bodyOf(fixture), point.x * scale, point.y * scale, normal.x, normal.y, fraction);
+    }
+
+    private static Body bodyOf(final Fixture fixture) {
+        return (Body) fixture.getBody().getUserData();
+    }
+
+    private class AreaCallback implements QueryCallback {
+
+        Body[] result;
+        int count;
+
+        @Override
+        public boolean reportFixture(final Fixture fixture) {
+            final PhysicsBodyImp bodyImp = (PhysicsBodyImp) fixture.getUserData();
+            if (bodyImp.queryStamp == stamp) {
+                return true;
+            }
+
+            for (int i = 0; i < fixture.m_proxyCount; ++i) {
+                if (AABB.testOverlap(fixture.getAABB(i), aabb)) {
+                    bodyImp.queryStamp = stamp;
+                    result[count] = bodyOf(fixture);
+                    ++count;
+                    break;
+                }
+            }
+
+            return count < result.length;
+        }
+    }
+
+    private static class PointCallback implements QueryCallback {
+
+        final Vec2 point = new Vec2();
+        Body result;
+
+        @Override
+        public boolean reportFixture(final Fixture fixture) {
+            if (fixture.testPoint(point)) {
+                final Body body = bodyOf(fixture);
+                // Prefer the body that is drawn on top
+                if (result == null || body.getDrawOrder() > result.getDrawOrder()) {
+                    result = body;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private class RaycastAllCallback implements RayCastCallback {
+
+        RaycastHit[] hits;
+        int count;
+
+        @Override
+        public float reportFixture(final Fixture fixture, final Vec2 point, final Vec2 normal, final float fraction) {
+            // Keep only the closest hit of each body
+            final Body body = bodyOf(fixture);
+            for (int i = 0; i < count; ++i) {
+                if (hits[i].getBody() == body) {
+                    if (hits[i].getFraction() <= fraction) {
+                        return 1f;
+                    }
+
+                    final RaycastHit removed = hits[i];
+                    System.arraycopy(hits, i + 1, hits, i, count - i - 1);
+                    --count;
+                    hits[count] = removed;
+                    break;
+                }
+            }
+
+            if (count == hits.length && hits[count - 1].getFraction() <= fraction) {
+                return 1f;
+            }
+
+            // Insert the hit sorted by fraction, reusing the farthest hit object if the array is full
+            int i = Math.min(count, hits.length - 1);
+            final RaycastHit hit = hits[i];
+            while (i > 0 && hits[i - 1].getFraction() > fraction) {
+                hits[i] = hits[i - 1];
+                --i;
+            }
+
+            hits[i] = hit;
+            setHit(hit, fixture, point, normal, fraction);
+            if (count < hits.length) {
+                ++count;
+            }
+
+            return 1f;
+        }
+    }
+
+    private static class RaycastAnyCallback implements RayCastCallback {
+
+        boolean found;
+
+        @Override
+        public float reportFixture(final Fixture fixture, final Vec2 point, final Vec2 normal, final float fraction) {
+            found = true;
+            return 0f;
+        }
+    }
+
+    private class RaycastClosestCallback implements RayCastCallback {
+
+        RaycastHit hit;
+        boolean found;
+
+        @Override
+        public float reportFixture(final Fixture fixture, final Vec2 point, final Vec2 normal, final float fraction) {
+            found = true;
+            if (hit != null) {
+                setHit(hit, fixture, point, normal, fraction);
+            }
+
+            return fraction;
+        }
+    }
+}
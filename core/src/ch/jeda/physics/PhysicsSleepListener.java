@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+import org.jbox2d.callbacks.SleepListener;
+import org.jbox2d.dynamics.BodyType;
+
+class PhysicsSleepListener implements SleepListener {
+
+    private final Physics physics;
+
+    PhysicsSleepListener(final Physics physics) {
+        this.physics = physics;
+    }
+
+    @Override
+    public void bodyAwake(final org.jbox2d.dynamics.Body body) {
+        if (body.m_userData instanceof Body) {
+            physics.setAwake((Body) body.m_userData, true, body.getType() == BodyType.STATIC);
+        }
+    }
+
+    @Override
+    public void bodyAsleep(final org.jbox2d.dynamics.Body body) {
+        if (body.m_userData instanceof Body) {
+            physics.setAwake((Body) body.m_userData, false, body.getType() == BodyType.STATIC);
+        }
+    }
+}
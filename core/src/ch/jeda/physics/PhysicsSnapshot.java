@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+import org.jbox2d.dynamics.WorldSnapshot;
+import org.jbox2d.dynamics.joints.Joint;
+
+/**
+ * Represents a snapshot of the physics simulation of a physics view. A snapshot is filled in by
+ * {@link PhysicsView#saveSnapshot(ch.jeda.physics.PhysicsSnapshot)} and contains the position, velocity and sleep state
+ * of all bodies, the contacts between them and the state of all joints. Restoring the snapshot with
+ * {@link PhysicsView#restoreSnapshot(ch.jeda.physics.PhysicsSnapshot)} resets the simulation to exactly this state.
+ * This allows to roll back the simulation, e.g. to correct it when a delayed input arrives over the network, or to jump
+ * to any point of a replay. The same object can be reused for any number of snapshots.
+ *
+ * @since 2.2
+ */
+public final class PhysicsSnapshot {
+
+    final WorldSnapshot imp;
+    Body[] awakeBodies;
+    int awakeCount;
+    Body[] bodies;
+    int bodyCount;
+    Joint[] joints;
+    int jointCount;
+    long stepCount;
+
+    /**
+     * Constructs a new, empty physics snapshot.
+     *
+     * @since 2.2
+     */
+    public PhysicsSnapshot() {
+        imp = new WorldSnapshot();
+        awakeBodies = new Body[16];
+        bodies = new Body[16];
+        joints = new Joint[16];
+    }
+
+    /**
+     * Returns the size of the snapshot in bytes.
+     *
+     * @return the size of the snapshot in bytes
+     *
+     * @since 2.2
+     */
+    public int getByteCount() {
+        return imp.getByteCount();
+    }
+
+    /**
+     * Returns the number of simulation steps that had been performed when this snapshot has been saved.
+     *
+     * @return the number of simulation steps
+     *
+     * @see PhysicsView#getStepCount()
+     * @since 2.2
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+}
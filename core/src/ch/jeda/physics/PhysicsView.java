@@ -18,6 +18,7 @@ package ch.jeda.physics;
 
 import ch.jeda.event.TickEvent;
 import ch.jeda.event.TickListener;
+import ch.jeda.ui.Canvas;
 import ch.jeda.ui.Element;
 import ch.jeda.ui.View;
 import ch.jeda.ui.ViewFeature;
@@ -94,6 +95,222 @@ public final class PhysicsView extends View implements TickListener {
         addEventListener(this);
     }
 
+    /**
+     * Creates a distance joint between two bodies. The joint keeps the anchor points on the bodies at their current
+     * distance, like a rigid rod.
+     *
+     * @param bodyA the first body
+     * @param ax the horizontal coordinate of the anchor point on the first body
+     * @param ay the vertical coordinate of the anchor point on the first body
+     * @param bodyB the second body
+     * @param bx the horizontal coordinate of the anchor point on the second body
+     * @param by the vertical coordinate of the anchor point on the second body
+     * @return the new joint
+     * @throws NullPointerException if <code>bodyA</code> or <code>bodyB</code> is <code>null</code>
+     * @throws IllegalArgumentException if the bodies are the same or one of them does not belong to this view
+     *
+     * @see DistanceJoint
+     * @since 2.2
+     */
+    public final DistanceJoint createDistanceJoint(final Body bodyA, final double ax, final double ay,
+                                                   final Body bodyB, final double bx, final double by) {
+        return physics.createDistanceJoint(bodyA, (float) ax, (float) ay, bodyB, (float) bx, (float) by);
+    }
+
+    /**
+     * Creates a prismatic joint between two bodies. The second body can slide relative to the first body along the
+     * specified axis, which moves and rotates with the first body.
+     *
+     * @param bodyA the first body
+     * @param bodyB the second body
+     * @param x the horizontal coordinate of the anchor point
+     * @param y the vertical coordinate of the anchor point
+     * @param axisX the horizontal component of the axis
+     * @param axisY the vertical component of the axis
+     * @return the new joint
+     * @throws NullPointerException if <code>bodyA</code> or <code>bodyB</code> is <code>null</code>
+     * @throws IllegalArgumentException if the bodies are the same, one of them does not belong to this view, or the
+     * axis has a length of 0
+     *
+     * @see PrismaticJoint
+     * @since 2.2
+     */
+    public final PrismaticJoint createPrismaticJoint(final Body bodyA, final Body bodyB, final double x,
+                                                     final double y, final double axisX, final double axisY) {
+        return physics.createPrismaticJoint(bodyA, bodyB, (float) x, (float) y, (float) axisX, (float) axisY);
+    }
+
+    /**
+     * Creates a revolute joint between two bodies. The bodies are connected at the anchor point and can rotate around
+     * it. Revolute joints between a row of small bodies make a chain or a bridge.
+     *
+     * @param bodyA the first body
+     * @param bodyB the second body
+     * @param x the horizontal coordinate of the anchor point
+     * @param y the vertical coordinate of the anchor point
+     * @return the new joint
+     * @throws NullPointerException if <code>bodyA</code> or <code>bodyB</code> is <code>null</code>
+     * @throws IllegalArgumentException if the bodies are the same or one of them does not belong to this view
+     *
+     * @see RevoluteJoint
+     * @since 2.2
+     */
+    public final RevoluteJoint createRevoluteJoint(final Body bodyA, final Body bodyB, final double x,
+                                                   final double y) {
+        return physics.createRevoluteJoint(bodyA, bodyB, (float) x, (float) y);
+    }
+
+    /**
+     * Creates a rope joint between two bodies. The anchor points on the bodies cannot be further apart than
+     * <code>maxLength</code>.
+     *
+     * @param bodyA the first body
+     * @param ax the horizontal coordinate of the anchor point on the first body
+     * @param ay the vertical coordinate of the anchor point on the first body
+     * @param bodyB the second body
+     * @param bx the horizontal coordinate of the anchor point on the second body
+     * @param by the vertical coordinate of the anchor point on the second body
+     * @param maxLength the length of the rope in meters
+     * @return the new joint
+     * @throws NullPointerException if <code>bodyA</code> or <code>bodyB</code> is <code>null</code>
+     * @throws IllegalArgumentException if the bodies are the same or one of them does not belong to this view
+     *
+     * @see RopeJoint
+     * @since 2.2
+     */
+    public final RopeJoint createRopeJoint(final Body bodyA, final double ax, final double ay, final Body bodyB,
+                                           final double bx, final double by, final double maxLength) {
+        return physics.createRopeJoint(bodyA, (float) ax, (float) ay, bodyB, (float) bx, (float) by,
+                                       (float) maxLength);
+    }
+
+    /**
+     * Creates a weld joint between two bodies. The bodies are glued together at the anchor point.
+     *
+     * @param bodyA the first body
+     * @param bodyB the second body
+     * @param x the horizontal coordinate of the anchor point
+     * @param y the vertical coordinate of the anchor point
+     * @return the new joint
+     * @throws NullPointerException if <code>bodyA</code> or <code>bodyB</code> is <code>null</code>
+     * @throws IllegalArgumentException if the bodies are the same or one of them does not belong to this view
+     *
+     * @see WeldJoint
+     * @since 2.2
+     */
+    public final WeldJoint createWeldJoint(final Body bodyA, final Body bodyB, final double x, final double y) {
+        return physics.createWeldJoint(bodyA, bodyB, (float) x, (float) y);
+    }
+
+    /**
+     * Creates a wheel joint between a vehicle and a wheel. The wheel rotates around the anchor point, which is
+     * usually the center of the wheel, and is suspended along the specified axis, which is usually vertical.
+     *
+     * @param vehicle the vehicle
+     * @param wheel the wheel
+     * @param x the horizontal coordinate of the anchor point
+     * @param y the vertical coordinate of the anchor point
+     * @param axisX the horizontal component of the suspension axis
+     * @param axisY the vertical component of the suspension axis
+     * @return the new joint
+     * @throws NullPointerException if <code>vehicle</code> or <code>wheel</code> is <code>null</code>
+     * @throws IllegalArgumentException if the bodies are the same, one of them does not belong to this view, or the
+     * axis has a length of 0
+     *
+     * @see WheelJoint
+     * @since 2.2
+     */
+    public final WheelJoint createWheelJoint(final Body vehicle, final Body wheel, final double x, final double y,
+                                             final double axisX, final double axisY) {
+        return physics.createWheelJoint(vehicle, wheel, (float) x, (float) y, (float) axisX, (float) axisY);
+    }
+
+    /**
+     * Destroys a joint. The bodies connected by the joint can move independently afterwards. Has no effect if the joint
+     * has already been destroyed or does not belong to this view.
+     *
+     * @param joint the joint to destroy
+     *
+     * @see Joint#isDestroyed()
+     * @since 2.2
+     */
+    public final void destroyJoint(final Joint joint) {
+        physics.destroyJoint(joint);
+    }
+
+    /**
+     * Returns all joints of this view in the order they have been created.
+     *
+     * @return all joints of this view
+     *
+     * @since 2.2
+     */
+    public final Joint[] getJoints() {
+        return physics.getJoints();
+    }
+
+    /**
+     * Returns the radius of the particles of all fluids in this view.
+     *
+     * @return the particle radius in the coordinate units of this view
+     *
+     * @see #setParticleRadius(double)
+     * @since 2.2
+     */
+    public final float getParticleRadius() {
+        return physics.getParticleRadius();
+    }
+
+    /**
+     * Returns the number of threads that solve the physics simulation.
+     *
+     * @return the number of solver threads
+     *
+     * @see #setSolverThreadCount(int)
+     * @since 2.2
+     */
+    public final int getSolverThreadCount() {
+        return physics.getSolverThreadCount();
+    }
+
+    /**
+     * Returns the number of simulation steps that have been performed since the view has been created.
+     *
+     * @return the number of simulation steps
+     *
+     * @see #setTimeStep(double)
+     * @since 2.2
+     */
+    public final long getStepCount() {
+        return physics.getStepCount();
+    }
+
+    /**
+     * Returns the fixed time step of the physics simulation. Returns 0 if the simulation is advanced by the duration
+     * of each tick.
+     *
+     * @return the fixed time step in seconds
+     *
+     * @see #setTimeStep(double)
+     * @since 2.2
+     */
+    public final double getTimeStep() {
+        return physics.getTimeStep();
+    }
+
+    /**
+     * Checks if a debug feature is enabled. Enabled debug features are displayed in debugging mode.
+     *
+     * @param feature the debug feature
+     * @return <code>true</code> if the debug feature is enabled, otherwise <code>false</code>
+     *
+     * @see #setDebugFeature(ch.jeda.physics.DebugFeature, boolean)
+     * @since 2.2
+     */
+    public final boolean hasDebugFeature(final DebugFeature feature) {
+        return physics.hasDebugFeature(feature);
+    }
+
     /**
      * Checks if the debugging mode is enabled.
      *
@@ -107,8 +324,170 @@ public final class PhysicsView extends View implements TickListener {
     }
 
     /**
-     * Enables or disabled the debugging mode of the physics view. In debugging mode, the view displays an overlay for
-     * bodies showing shapes and similar information.
+     * Checks if the user can drag bodies with the pointer.
+     *
+     * @return <code>true</code> if the user can drag bodies, otherwise <code>false</code>
+     *
+     * @see #setDragEnabled(boolean)
+     * @since 2.2
+     */
+    public final boolean isDragEnabled() {
+        return physics.getDragger().isEnabled();
+    }
+
+    /**
+     * Returns the bodies in a rectangular area. Fills <code>result</code> with the bodies whose shapes have bounding
+     * boxes that overlap the area and returns the number of bodies found. Each body is reported once. If more bodies
+     * overlap the area than <code>result</code> can hold, the query stops when the array is full. The query uses the
+     * broadphase of the physics simulation and does not allocate any objects, so it can be called every frame.
+     *
+     * @param minX the minimal horizontal coordinate of the area
+     * @param minY the minimal vertical coordinate of the area
+     * @param maxX the maximal horizontal coordinate of the area
+     * @param maxY the maximal vertical coordinate of the area
+     * @param result the array to store the bodies in
+     * @return the number of bodies found
+     *
+     * @since 2.2
+     */
+    public final int queryArea(final double minX, final double minY, final double maxX, final double maxY,
+                               final Body[] result) {
+        return physics.queryArea((float) minX, (float) minY, (float) maxX, (float) maxY, result);
+    }
+
+    /**
+     * Returns the body at the specified position. If the shapes of more than one body contain the position, the body
+     * with the highest draw order is returned. Returns <code>null</code> if there is no body at the position.
+     *
+     * @param x the horizontal coordinate of the position
+     * @param y the vertical coordinate of the position
+     * @return the body at the position or <code>null</code>
+     *
+     * @since 2.2
+     */
+    public final Body queryPoint(final double x, final double y) {
+        return physics.queryPoint((float) x, (float) y);
+    }
+
+    /**
+     * Casts a ray from (<code>x1</code>, <code>y1</code>) to (<code>x2</code>, <code>y2</code>) and finds the closest
+     * body hit by the ray. Returns <code>true</code> if a body has been hit. In this case, <code>hit</code> is filled
+     * in with the body, the hit point and the surface normal. Shapes that contain the start point of the ray are
+     * ignored.
+     *
+     * @param x1 the horizontal coordinate of the start point
+     * @param y1 the vertical coordinate of the start point
+     * @param x2 the horizontal coordinate of the end point
+     * @param y2 the vertical coordinate of the end point
+     * @param hit the object to store the hit in, may be <code>null</code>
+     * @return <code>true</code> if a body has been hit, otherwise <code>false</code>
+     *
+     * @since 2.2
+     */
+    public final boolean raycast(final double x1, final double y1, final double x2, final double y2,
+                                 final RaycastHit hit) {
+        return physics.raycast((float) x1, (float) y1, (float) x2, (float) y2, hit);
+    }
+
+    /**
+     * Casts a ray from (<code>x1</code>, <code>y1</code>) to (<code>x2</code>, <code>y2</code>) and finds all bodies
+     * hit by the ray. Fills <code>hits</code> with the hits ordered by their distance from the start point and returns
+     * the number of hits. Each body is reported once with its closest hit. If more bodies are hit than
+     * <code>hits</code> can hold, only the closest ones are reported. <code>null</code> entries of <code>hits</code>
+     * are replaced by new objects, so the same array can be reused without allocating objects. Shapes that contain
+     * the start point of the ray are ignored.
+     *
+     * @param x1 the horizontal coordinate of the start point
+     * @param y1 the vertical coordinate of the start point
+     * @param x2 the horizontal coordinate of the end point
+     * @param y2 the vertical coordinate of the end point
+     * @param hits the array to store the hits in
+     * @return the number of hits
+     *
+     * @since 2.2
+     */
+    public final int raycastAll(final double x1, final double y1, final double x2, final double y2,
+                                final RaycastHit[] hits) {
+        return physics.raycastAll((float) x1, (float) y1, (float) x2, (float) y2, hits);
+    }
+
+    /**
+     * Checks if any body is hit by a ray from (<code>x1</code>, <code>y1</code>) to (<code>x2</code>,
+     * <code>y2</code>). The query stops at the first hit, which makes it the fastest way to check a line of sight.
+     * Shapes that contain the start point of the ray are ignored.
+     *
+     * @param x1 the horizontal coordinate of the start point
+     * @param y1 the vertical coordinate of the start point
+     * @param x2 the horizontal coordinate of the end point
+     * @param y2 the vertical coordinate of the end point
+     * @return <code>true</code> if a body is hit by the ray, otherwise <code>false</code>
+     *
+     * @since 2.2
+     */
+    public final boolean raycastAny(final double x1, final double y1, final double x2, final double y2) {
+        return physics.raycastAny((float) x1, (float) y1, (float) x2, (float) y2);
+    }
+
+    /**
+     * Restores a snapshot of the physics simulation that has been saved with
+     * {@link #saveSnapshot(ch.jeda.physics.PhysicsSnapshot)}. All bodies are reset to the position, velocity and sleep
+     * state they had when the snapshot has been saved, all joints to the impulses and limit state they had, and the step
+     * count is reset as well. Continuing the simulation from the snapshot gives exactly the same results as the first
+     * time, as long as the properties of the joints, e.g. the motor speed, have not been changed in the meantime. Fluids
+     * are not part of a snapshot.
+     *
+     * @param snapshot the snapshot to restore
+     * @throws IllegalArgumentException if bodies or joints have been added to or removed from the view since the
+     * snapshot has been saved, this includes the joints used for dragging bodies with the pointer
+     *
+     * @see #saveSnapshot(ch.jeda.physics.PhysicsSnapshot)
+     * @since 2.2
+     */
+    public final void restoreSnapshot(final PhysicsSnapshot snapshot) {
+        if (!physics.restoreSnapshot(snapshot)) {
+            throw new IllegalArgumentException("snapshot");
+        }
+    }
+
+    /**
+     * Saves a snapshot of the physics simulation. The snapshot can be restored with
+     * {@link #restoreSnapshot(ch.jeda.physics.PhysicsSnapshot)} as long as no bodies or joints are added to or removed
+     * from the view. The snapshot is stored in the specified object, which can be reused to save snapshots without allocating
+     * objects.
+     *
+     * @param snapshot the object to store the snapshot in
+     *
+     * @see #restoreSnapshot(ch.jeda.physics.PhysicsSnapshot)
+     * @since 2.2
+     */
+    public final void saveSnapshot(final PhysicsSnapshot snapshot) {
+        physics.saveSnapshot(snapshot);
+    }
+
+    /**
+     * Enables or disables a debug feature. The enabled debug features are displayed in debugging mode.
+     *
+     * @param feature the debug feature to be enabled or disabled
+     * @param enabled <code>true</code> to enable the debug feature, <code>false</code> to disable it
+     * @throws NullPointerException if <code>feature</code> is <code>null</code>
+     *
+     * @see #hasDebugFeature(ch.jeda.physics.DebugFeature)
+     * @see #setDebugging(boolean)
+     * @since 2.2
+     */
+    public final void setDebugFeature(final DebugFeature feature, final boolean enabled) {
+        if (feature == null) {
+            throw new NullPointerException("feature");
+        }
+
+        physics.setDebugFeature(feature, enabled);
+    }
+
+    /**
+     * Enables or disabled the debugging mode of the physics view. In debugging mode, the view displays an overlay
+     * showing the shapes of the bodies and similar information on top of all bodies. The displayed information can be
+     * selected with {@link #setDebugFeature(ch.jeda.physics.DebugFeature, boolean)}. The whole overlay is drawn in one
+     * pass with a few drawing operations, so that large worlds can be debugged at a reasonable frame rate.
      *
      * @param debugging enable or disable debugging mode
      *
@@ -119,6 +498,32 @@ public final class PhysicsView extends View implements TickListener {
         physics.setDebugging(debugging);
     }
 
+    /**
+     * Enables or disables dragging bodies with the pointer. If enabled, the user can grab a dynamic body with the
+     * mouse or a finger and pull it around. The body is pulled towards the pointer by a joint, so it still collides
+     * with other bodies and cannot be pulled through walls. On touch screens, several bodies can be dragged at the same
+     * time. By default, dragging is disabled.
+     *
+     * @param enabled <code>true</code> to enable dragging, <code>false</code> to disable it
+     *
+     * @see #isDragEnabled()
+     * @since 2.2
+     */
+    public final void setDragEnabled(final boolean enabled) {
+        final PhysicsDragger dragger = physics.getDragger();
+        if (enabled == dragger.isEnabled()) {
+            return;
+        }
+
+        dragger.setEnabled(enabled);
+        if (enabled) {
+            addEventListener(dragger);
+        }
+        else {
+            removeEventListener(dragger);
+        }
+    }
+
     /**
      * Sets the gravity for the physics simulation.
      *
@@ -135,15 +540,77 @@ public final class PhysicsView extends View implements TickListener {
         physics.setPaused(paused);
     }
 
+    /**
+     * Sets the radius of the particles of all fluids in this view. Smaller particles give a finer fluid, but more
+     * particles are needed to fill a shape. The radius is given in the coordinate units of this view like the positions
+     * of the bodies. The default radius is 10, which is 0.1 meters in the simulation.
+     *
+     * @param radius the particle radius in the coordinate units of this view
+     *
+     * @see #getParticleRadius()
+     * @since 2.2
+     */
+    public final void setParticleRadius(final double radius) {
+        physics.setParticleRadius((float) radius);
+    }
+
+    /**
+     * Sets the number of threads that solve the physics simulation. Bodies that do not touch each other or are only
+     * connected by static bodies form independent groups. With more than one thread, these groups are solved
+     * concurrently. This speeds up simulations with many separate piles of bodies on multi-core devices. The result of
+     * the simulation does not depend on the number of threads. By default, one thread is used. The threads are
+     * released when the view is closed.
+     *
+     * @param count the number of solver threads
+     *
+     * @since 2.2
+     */
+    public final void setSolverThreadCount(final int count) {
+        physics.setSolverThreadCount(count);
+    }
+
+    /**
+     * Sets a fixed time step for the physics simulation. By default, the simulation is advanced by the duration of
+     * each tick, which varies from tick to tick. With a fixed time step, the durations of the ticks are added up and
+     * the simulation is advanced in steps of exactly the specified duration. The bodies are always stepped in the same
+     * order, so the simulation is deterministic: starting from the same state, the same inputs in the same steps give
+     * exactly the same results. This is required to keep simulations in sync over the network (lockstep) and to
+     * replay them. Specify 0 to switch back to variable time steps.
+     *
+     * @param seconds the fixed time step in seconds, e.g. 1.0 / 60.0
+     *
+     * @see #getTimeStep()
+     * @see #getStepCount()
+     * @since 2.2
+     */
+    public final void setTimeStep(final double seconds) {
+        physics.setTimeStep(Math.max(0.0, seconds));
+    }
+
     public void step(final double seconds) {
         physics.step(seconds);
     }
 
+    @Override
+    protected void closed() {
+        physics.dispose();
+    }
+
+    @Override
+    protected void drawWorldOverlay(final Canvas canvas) {
+        if (physics.isDebugging()) {
+            physics.drawDebugData(canvas, getWidthM() / getWidthDp());
+        }
+    }
+
     @Override
     protected void elementAdded(final Element element) {
         if (element instanceof Body) {
             physics.add((Body) element);
         }
+        else if (element instanceof Fluid) {
+            physics.add((Fluid) element);
+        }
     }
 
     @Override
@@ -151,6 +618,9 @@ public final class PhysicsView extends View implements TickListener {
         if (element instanceof Body) {
             physics.remove((Body) element);
         }
+        else if (element instanceof Fluid) {
+            physics.remove((Fluid) element);
+        }
     }
 
     @Override
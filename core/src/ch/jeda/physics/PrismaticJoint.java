@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+/**
+ * Represents a prismatic joint. A prismatic joint allows the second body to slide along an axis relative to the first
+ * body, like a piston or an elevator. The bodies cannot rotate relative to each other. The translation can be limited
+ * and can be driven by a motor. Prismatic joints are created with
+ * {@link PhysicsView#createPrismaticJoint(ch.jeda.physics.Body, ch.jeda.physics.Body, double, double, double, double)}.
+ *
+ * @since 2.2
+ */
+public final class PrismaticJoint extends Joint {
+
+    private final org.jbox2d.dynamics.joints.PrismaticJoint imp;
+
+    PrismaticJoint(final Physics physics, final Body bodyA, final Body bodyB,
+                   final org.jbox2d.dynamics.joints.PrismaticJoint imp) {
+        super(physics, bodyA, bodyB, imp);
+        this.imp = imp;
+    }
+
+    /**
+     * Returns the lower limit of the translation in meters.
+     *
+     * @return the lower limit of the translation
+     *
+     * @see #setLimits(double, double)
+     * @since 2.2
+     */
+    public float getLowerLimit() {
+        return imp.getLowerLimit() * getPhysics().getScale();
+    }
+
+    /**
+     * Returns the maximal force of the motor.
+     *
+     * @return the maximal force of the motor
+     *
+     * @see #setMaxMotorForce(double)
+     * @since 2.2
+     */
+    public float getMaxMotorForce() {
+        return imp.getMaxMotorForce();
+    }
+
+    /**
+     * Returns the speed of the motor in meters per second.
+     *
+     * @return the speed of the motor in meters per second
+     *
+     * @see #setMotorSpeed(double)
+     * @since 2.2
+     */
+    public float getMotorSpeed() {
+        return imp.getMotorSpeed();
+    }
+
+    /**
+     * Returns the current translation of the second body along the axis in meters. The translation is 0 when the
+     * joint is created.
+     *
+     * @return the current translation of the joint in meters
+     *
+     * @since 2.2
+     */
+    public float getTranslation() {
+        return imp.getJointTranslation() * getPhysics().getScale();
+    }
+
+    /**
+     * Returns the upper limit of the translation in meters.
+     *
+     * @return the upper limit of the translation
+     *
+     * @see #setLimits(double, double)
+     * @since 2.2
+     */
+    public float getUpperLimit() {
+        return imp.getUpperLimit() * getPhysics().getScale();
+    }
+
+    /**
+     * Checks if the translation is limited.
+     *
+     * @return <code>true</code> if the translation is limited, otherwise <code>false</code>
+     *
+     * @see #setLimitEnabled(boolean)
+     * @since 2.2
+     */
+    public boolean isLimitEnabled() {
+        return imp.isLimitEnabled();
+    }
+
+    /**
+     * Checks if the motor is enabled.
+     *
+     * @return <code>true</code> if the motor is enabled, otherwise <code>false</code>
+     *
+     * @see #setMotorEnabled(boolean)
+     * @since 2.2
+     */
+    public boolean isMotorEnabled() {
+        return imp.isMotorEnabled();
+    }
+
+    /**
+     * Enables or disables the limit of the translation. By default, the limit is disabled.
+     *
+     * @param enabled <code>true</code> to enable the limit, <code>false</code> to disable it
+     *
+     * @see #setLimits(double, double)
+     * @since 2.2
+     */
+    public void setLimitEnabled(final boolean enabled) {
+        imp.enableLimit(enabled);
+    }
+
+    /**
+     * Sets the range of the translation. The limit has only an effect if it is enabled.
+     *
+     * @param lower the lower limit of the translation in meters
+     * @param upper the upper limit of the translation in meters
+     * @throws IllegalArgumentException if <code>lower</code> is greater than <code>upper</code>
+     *
+     * @see #setLimitEnabled(boolean)
+     * @since 2.2
+     */
+    public void setLimits(final double lower, final double upper) {
+        if (lower > upper) {
+            throw new IllegalArgumentException("lower");
+        }
+
+        imp.setLimits(getPhysics().scaleLength((float) lower), getPhysics().scaleLength((float) upper));
+    }
+
+    /**
+     * Sets the maximal force of the motor. The motor cannot reach its speed if a higher force is needed.
+     *
+     * @param force the maximal force of the motor
+     *
+     * @see #setMotorEnabled(boolean)
+     * @since 2.2
+     */
+    public void setMaxMotorForce(final double force) {
+        imp.setMaxMotorForce((float) force);
+    }
+
+    /**
+     * Enables or disables the motor. An enabled motor moves the second body along the axis with the motor speed, using
+     * at most the maximal motor force. By default, the motor is disabled.
+     *
+     * @param enabled <code>true</code> to enable the motor, <code>false</code> to disable it
+     *
+     * @see #setMaxMotorForce(double)
+     * @see #setMotorSpeed(double)
+     * @since 2.2
+     */
+    public void setMotorEnabled(final boolean enabled) {
+        imp.enableMotor(enabled);
+    }
+
+    /**
+     * Sets the speed of the motor.
+     *
+     * @param speed the speed of the motor in meters per second
+     *
+     * @see #setMotorEnabled(boolean)
+     * @since 2.2
+     */
+    public void setMotorSpeed(final double speed) {
+        imp.setMotorSpeed((float) speed);
+    }
+}
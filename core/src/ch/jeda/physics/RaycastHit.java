@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+/**
+ * Represents the point where a ray hits a body in a physics view. A raycast hit is filled in by
+ * {@link PhysicsView#raycast(double, double, double, double, ch.jeda.physics.RaycastHit)} and
+ * {@link PhysicsView#raycastAll(double, double, double, double, ch.jeda.physics.RaycastHit[])}. The same object can be
+ * reused for any number of raycasts.
+ *
+ * @since 2.2
+ */
+public final class RaycastHit {
+
+    private Body body;
+    private float fraction;
+    private float normalX;
+    private float normalY;
+    private float x;
+    private float y;
+
+    /**
+     * Constructs a new raycast hit.
+     *
+     * @since 2.2
+     */
+    public RaycastHit() {
+    }
+
+    /**
+     * Returns the body that has been hit.
+     *
+     * @return the body that has been hit
+     *
+     * @since 2.2
+     */
+    public Body getBody() {
+        return body;
+    }
+
+    /**
+     * Returns the position of the hit along the ray. The value is between 0 (start point of the ray) and 1 (end point
+     * of the ray).
+     *
+     * @return the position of the hit along the ray
+     *
+     * @since 2.2
+     */
+    public float getFraction() {
+        return fraction;
+    }
+
+    /**
+     * Returns the horizontal component of the surface normal at the hit point.
+     *
+     * @return the horizontal component of the surface normal
+     *
+     * @since 2.2
+     */
+    public float getNormalX() {
+        return normalX;
+    }
+
+    /**
+     * Returns the vertical component of the surface normal at the hit point.
+     *
+     * @return the vertical component of the surface normal
+     *
+     * @since 2.2
+     */
+    public float getNormalY() {
+        return normalY;
+    }
+
+    /**
+     * Returns the horizontal coordinate of the hit point.
+     *
+     * @return the horizontal coordinate of the hit point
+     *
+     * @since 2.2
+     */
+    public float getX() {
+        return x;
+    }
+
+    /**
+     * Returns the vertical coordinate of the hit point.
+     *
+     * @return the vertical coordinate of the hit point
+     *
+     * @since 2.2
+     */
+    public float getY() {
+        return y;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder();
+        result.append("RaycastHit(body=");
+        result.append(body);
+        result.append(", x=");
+        result.append(x);
+        result.append(", y=");
+        result.append(y);
+        result.append(", fraction=");
+        result.append(fraction);
+        result.append(")");
+        return result.toString();
+    }
+
+    void set(final Body body, final float x, final float y, final float normalX, final float normalY,
+             final float fraction) {
+        this.body = body;
+        this.fraction = fraction;
+        this.normalX = normalX;
+        this.normalY = normalY;
+        this.x = x;
+        this.y = y;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+/**
+ * Represents a revolute joint. A revolute joint connects two bodies at a common anchor point, around which the bodies
+ * can rotate freely, like a hinge or an axle. The rotation can be limited to a range of angles and can be driven by a
+ * motor. Revolute joints are created with
+ * {@link PhysicsView#createRevoluteJoint(ch.jeda.physics.Body, ch.jeda.physics.Body, double, double)}.
+ *
+ * @since 2.2
+ */
+public final class RevoluteJoint extends Joint {
+
+    private final org.jbox2d.dynamics.joints.RevoluteJoint imp;
+
+    RevoluteJoint(final Physics physics, final Body bodyA, final Body bodyB,
+                  final org.jbox2d.dynamics.joints.RevoluteJoint imp) {
+        super(physics, bodyA, bodyB, imp);
+        this.imp = imp;
+    }
+
+    /**
+     * Returns the current angle of the second body relative to the first body in radians. The angle is 0 when the
+     * joint is created.
+     *
+     * @return the current angle of the joint in radians
+     *
+     * @since 2.2
+     */
+    public float getAngleRad() {
+        return imp.getJointAngle();
+    }
+
+    /**
+     * Returns the lower limit of the joint angle in radians.
+     *
+     * @return the lower limit of the joint angle in radians
+     *
+     * @see #setLimitsRad(double, double)
+     * @since 2.2
+     */
+    public float getLowerLimitRad() {
+        return imp.getLowerLimit();
+    }
+
+    /**
+     * Returns the maximal torque of the motor.
+     *
+     * @return the maximal torque of the motor
+     *
+     * @see #setMaxMotorTorque(double)
+     * @since 2.2
+     */
+    public float getMaxMotorTorque() {
+        return imp.getMaxMotorTorque();
+    }
+
+    /**
+     * Returns the speed of the motor in radians per second.
+     *
+     * @return the speed of the motor in radians per second
+     *
+     * @see #setMotorSpeed(double)
+     * @since 2.2
+     */
+    public float getMotorSpeed() {
+        return imp.getMotorSpeed();
+    }
+
+    /**
+     * Returns the upper limit of the joint angle in radians.
+     *
+     * @return the upper limit of the joint angle in radians
+     *
+     * @see #setLimitsRad(double, double)
+     * @since 2.2
+     */
+    public float getUpperLimitRad() {
+        return imp.getUpperLimit();
+    }
+
+    /**
+     * Checks if the joint angle is limited.
+     *
+     * @return <code>true</code> if the joint angle is limited, otherwise <code>false</code>
+     *
+     * @see #setLimitEnabled(boolean)
+     * @since 2.2
+     */
+    public boolean isLimitEnabled() {
+        return imp.isLimitEnabled();
+    }
+
+    /**
+     * Checks if the motor is enabled.
+     *
+     * @return <code>true</code> if the motor is enabled, otherwise <code>false</code>
+     *
+     * @see #setMotorEnabled(boolean)
+     * @since 2.2
+     */
+    public boolean isMotorEnabled() {
+        return imp.isMotorEnabled();
+    }
+
+    /**
+     * Enables or disables the limit of the joint angle. By default, the limit is disabled.
+     *
+     * @param enabled <code>true</code> to enable the limit, <code>false</code> to disable it
+     *
+     * @see #setLimitsRad(double, double)
+     * @since 2.2
+     */
+    public void setLimitEnabled(final boolean enabled) {
+        imp.enableLimit(enabled);
+    }
+
+    /**
+     * Sets the range of the joint angle. The limit has only an effect if it is enabled.
+     *
+     * @param lower the lower limit of the joint angle in radians
+     * @param upper the upper limit of the joint angle in radians
+     * @throws IllegalArgumentException if <code>lower</code> is greater than <code>upper</code>
+     *
+     * @see #setLimitEnabled(boolean)
+     * @since 2.2
+     */
+    public void setLimitsRad(final double lower, final double upper) {
+        if (lower > upper) {
+            throw new IllegalArgumentException("lower");
+        }
+
+        imp.setLimits((float) lower, (float) upper);
+    }
+
+    /**
+     * Sets the maximal torque of the motor. The motor cannot reach its speed if a higher torque is needed.
+     *
+     * @param torque the maximal torque of the motor
+     *
+     * @see #setMotorEnabled(boolean)
+     * @since 2.2
+     */
+    public void setMaxMotorTorque(final double torque) {
+        imp.setMaxMotorTorque((float) torque);
+    }
+
+    /**
+     * Enables or disables the motor. An enabled motor rotates the bodies relative to each other with the motor speed,
+     * using at most the maximal motor torque. By default, the motor is disabled.
+     *
+     * @param enabled <code>true</code> to enable the motor, <code>false</code> to disable it
+     *
+     * @see #setMaxMotorTorque(double)
+     * @see #setMotorSpeed(double)
+     * @since 2.2
+     */
+    public void setMotorEnabled(final boolean enabled) {
+        imp.enableMotor(enabled);
+    }
+
+    /**
+     * Sets the speed of the motor.
+     *
+     * @param speed the speed of the motor in radians per second
+     *
+     * @see #setMotorEnabled(boolean)
+     * @since 2.2
+     */
+    public void setMotorSpeed(final double speed) {
+        imp.setMotorSpeed((float) speed);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+/**
+ * Represents a rope joint. A rope joint limits the distance between the anchor points on two bodies to a maximal
+ * length, but allows them to come closer, like a rope. Rope joints are created with
+ * {@link PhysicsView#createRopeJoint(ch.jeda.physics.Body, double, double, ch.jeda.physics.Body, double, double, double)}.
+ *
+ * @since 2.2
+ */
+public final class RopeJoint extends Joint {
+
+    private final org.jbox2d.dynamics.joints.RopeJoint imp;
+
+    RopeJoint(final Physics physics, final Body bodyA, final Body bodyB,
+              final org.jbox2d.dynamics.joints.RopeJoint imp) {
+        super(physics, bodyA, bodyB, imp);
+        this.imp = imp;
+    }
+
+    /**
+     * Returns the length of the rope in meters.
+     *
+     * @return the length of the rope in meters
+     *
+     * @see #setMaxLength(double)
+     * @since 2.2
+     */
+    public float getMaxLength() {
+        return imp.getMaxLength() * getPhysics().getScale();
+    }
+
+    /**
+     * Sets the length of the rope. The anchor points cannot be further apart than this length.
+     *
+     * @param maxLength the length of the rope in meters
+     *
+     * @see #getMaxLength()
+     * @since 2.2
+     */
+    public void setMaxLength(final double maxLength) {
+        imp.setMaxLength(getPhysics().scaleLength((float) maxLength));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+/**
+ * Represents a weld joint. A weld joint glues two bodies together at an anchor point, so that they move like a single
+ * body. With a frequency greater than 0, the connection is soft and the bodies can bend around the anchor point. Weld
+ * joints are created with
+ * {@link PhysicsView#createWeldJoint(ch.jeda.physics.Body, ch.jeda.physics.Body, double, double)}.
+ *
+ * @since 2.2
+ */
+public final class WeldJoint extends Joint {
+
+    private final org.jbox2d.dynamics.joints.WeldJoint imp;
+
+    WeldJoint(final Physics physics, final Body bodyA, final Body bodyB,
+              final org.jbox2d.dynamics.joints.WeldJoint imp) {
+        super(physics, bodyA, bodyB, imp);
+        this.imp = imp;
+    }
+
+    /**
+     * Returns the damping ratio of the connection.
+     *
+     * @return the damping ratio of the connection
+     *
+     * @see #setDampingRatio(double)
+     * @since 2.2
+     */
+    public float getDampingRatio() {
+        return imp.getDampingRatio();
+    }
+
+    /**
+     * Returns the frequency of the connection in Hertz. Returns 0 if the connection is rigid.
+     *
+     * @return the frequency of the connection in Hertz
+     *
+     * @see #setFrequency(double)
+     * @since 2.2
+     */
+    public float getFrequency() {
+        return imp.getFrequency();
+    }
+
+    /**
+     * Sets the damping ratio of a soft connection. A value of 0 means no damping, a value of 1 stops the oscillation
+     * as fast as possible. By default, there is no damping.
+     *
+     * @param dampingRatio the damping ratio of the connection
+     *
+     * @see #getDampingRatio()
+     * @since 2.2
+     */
+    public void setDampingRatio(final double dampingRatio) {
+        imp.setDampingRatio((float) dampingRatio);
+    }
+
+    /**
+     * Sets the frequency of the connection. With a frequency greater than 0, the connection is soft and a higher
+     * frequency makes it stiffer. With a frequency of 0, the connection is rigid. By default, the connection is rigid.
+     *
+     * @param frequency the frequency of the connection in Hertz
+     *
+     * @see #getFrequency()
+     * @since 2.2
+     */
+    public void setFrequency(final double frequency) {
+        imp.setFrequency((float) frequency);
+    }
+}
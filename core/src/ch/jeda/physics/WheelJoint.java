@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.physics;
+
+/**
+ * Represents a wheel joint. A wheel joint connects a wheel (the second body) to a vehicle (the first body). The wheel
+ * rotates freely around the anchor point and is held on a spring along an axis, which acts as suspension. The rotation
+ * can be driven by a motor. Wheel joints are created with
+ * {@link PhysicsView#createWheelJoint(ch.jeda.physics.Body, ch.jeda.physics.Body, double, double, double, double)}.
+ *
+ * @since 2.2
+ */
+public final class WheelJoint extends Joint {
+
+    private final org.jbox2d.dynamics.joints.WheelJoint imp;
+
+    WheelJoint(final Physics physics, final Body bodyA, final Body bodyB,
+               final org.jbox2d.dynamics.joints.WheelJoint imp) {
+        super(physics, bodyA, bodyB, imp);
+        this.imp = imp;
+    }
+
+    /**
+     * Returns the maximal torque of the motor.
+     *
+     * @return the maximal torque of the motor
+     *
+     * @see #setMaxMotorTorque(double)
+     * @since 2.2
+     */
+    public float getMaxMotorTorque() {
+        return imp.getMaxMotorTorque();
+    }
+
+    /**
+     * Returns the speed of the motor in radians per second.
+     *
+     * @return the speed of the motor in radians per second
+     *
+     * @see #setMotorSpeed(double)
+     * @since 2.2
+     */
+    public float getMotorSpeed() {
+        return imp.getMotorSpeed();
+    }
+
+    /**
+     * Returns the damping ratio of the suspension spring.
+     *
+     * @return the damping ratio of the suspension spring
+     *
+     * @see #setSpringDampingRatio(double)
+     * @since 2.2
+     */
+    public float getSpringDampingRatio() {
+        return imp.getSpringDampingRatio();
+    }
+
+    /**
+     * Returns the frequency of the suspension spring in Hertz.
+     *
+     * @return the frequency of the suspension spring in Hertz
+     *
+     * @see #setSpringFrequency(double)
+     * @since 2.2
+     */
+    public float getSpringFrequency() {
+        return imp.getSpringFrequencyHz();
+    }
+
+    /**
+     * Checks if the motor is enabled.
+     *
+     * @return <code>true</code> if the motor is enabled, otherwise <code>false</code>
+     *
+     * @see #setMotorEnabled(boolean)
+     * @since 2.2
+     */
+    public boolean isMotorEnabled() {
+        return imp.isMotorEnabled();
+    }
+
+    /**
+     * Sets the maximal torque of the motor. The motor cannot reach its speed if a higher torque is needed.
+     *
+     * @param torque the maximal torque of the motor
+     *
+     * @see #setMotorEnabled(boolean)
+     * @since 2.2
+     */
+    public void setMaxMotorTorque(final double torque) {
+        imp.setMaxMotorTorque((float) torque);
+    }
+
+    /**
+     * Enables or disables the motor. An enabled motor rotates the wheel with the motor speed, using at most the maximal
+     * motor torque. By default, the motor is disabled.
+     *
+     * @param enabled <code>true</code> to enable the motor, <code>false</code> to disable it
+     *
+     * @see #setMaxMotorTorque(double)
+     * @see #setMotorSpeed(double)
+     * @since 2.2
+     */
+    public void setMotorEnabled(final boolean enabled) {
+        imp.enableMotor(enabled);
+    }
+
+    /**
+     * Sets the speed of the motor.
+     *
+     * @param speed the speed of the motor in radians per second
+     *
+     * @see #setMotorEnabled(boolean)
+     * @since 2.2
+     */
+    public void setMotorSpeed(final double speed) {
+        imp.setMotorSpeed((float) speed);
+    }
+
+    /**
+     * Sets the damping ratio of the suspension spring. A value of 0 means no damping, a value of 1 stops the
+     * oscillation as fast as possible. The default damping ratio is 0.7.
+     *
+     * @param dampingRatio the damping ratio of the suspension spring
+     *
+     * @see #getSpringDampingRatio()
+     * @since 2.2
+     */
+    public void setSpringDampingRatio(final double dampingRatio) {
+        imp.setSpringDampingRatio((float) dampingRatio);
+    }
+
+    /**
+     * Sets the frequency of the suspension spring. A higher frequency makes the suspension stiffer. The default
+     * frequency is 2 Hertz.
+     *
+     * @param frequency the frequency of the suspension spring in Hertz
+     *
+     * @see #getSpringFrequency()
+     * @since 2.2
+     */
+    public void setSpringFrequency(final double frequency) {
+        imp.setSpringFrequencyHz((float) frequency);
+    }
+}
@@ -29,6 +29,10 @@ public interface CanvasImp {
 
     void drawImage(float x, float y, float width, float height, ImageImp image, int opacity);
 
+    void drawLines(float[] points, int count);
+
+    void drawPixels(float x, float y, float width, float height, int columns, int rows, int[] pixels, int opacity);
+
     void drawPolygon(float[] points);
 
     void drawPolyline(float[] points);
@@ -45,6 +49,8 @@ public interface CanvasImp {
 
     void fillRectangle(float x, float y, float width, float height);
 
+    void fillTriangles(float[] points, int count);
+
     int getHeight();
 
     int getTextHeight();
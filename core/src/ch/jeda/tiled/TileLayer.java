@@ -16,7 +16,9 @@
  */
 package ch.jeda.tiled;
 
+import ch.jeda.AssetCache;
 import ch.jeda.Convert;
+import ch.jeda.geometry.Polyline;
 import ch.jeda.geometry.Rectangle;
 import ch.jeda.geometry.Shape;
 import ch.jeda.physics.Backdrop;
@@ -34,11 +36,14 @@ import java.util.zip.InflaterInputStream;
  * Represents a Tiled tile layer.
  *
  * @since 2.0
- * @version 2
+ * @version 3
  */
 public final class TileLayer extends Layer {
 
     private static final String CLASS = "class";
+    private static final String MERGE = "merge";
+    private static final String MERGE_OUTLINE = "outline";
+    private static final String MERGE_RECTANGLES = "rectangles";
     private static final String TYPE = "type";
     private final Tile[] tiles;
 
@@ -62,6 +67,12 @@ public final class TileLayer extends Layer {
      * <code>ch.jeda.physics.Body</code>.
      * <li><b>type</b>: One of the following: <code>background</code>, <code>dynamic</code>, <code>static</code>, or
      * <code>kinematic</code>. The default is <code>background</code>.
+     * <li><b>merge</b>: Only used for layers of type <code>static</code>. One of the following: <code>outline</code>
+     * or <code>rectangles</code>. If set, the tiles are drawn as backdrop and the solid tiles are merged into a single
+     * body. With <code>outline</code>, the body consists of the outlines of the connected tile regions, so that
+     * objects do not snag on the edges between tiles. With <code>rectangles</code>, the tile regions are covered with
+     * as few rectangles as possible. Tiles with custom collision shapes or with a size different from the map's tile
+     * size are not merged. By default, each tile becomes a separate body.
      * </ul>
      *
      * @param view the physics view
@@ -76,9 +87,14 @@ public final class TileLayer extends Layer {
         }
 
         final BodyType type = BodyType.parse(getProperties().readString(TYPE));
+        final String merge = getProperties().readString(MERGE);
         if (type == null) {
             convertToBackdrop(view, drawOrder);
         }
+        else if (type == BodyType.STATIC && (MERGE_OUTLINE.equals(merge) || MERGE_RECTANGLES.equals(merge))) {
+            convertToBackdrop(view, drawOrder);
+            convertToMergedBody(view, MERGE_OUTLINE.equals(merge), drawOrder);
+        }
         else {
             convertToBodies(view, type, drawOrder);
         }
@@ -121,43 +137,112 @@ public final class TileLayer extends Layer {
             for (int y = 0; y < endY; ++y) {
                 final Tile tile = getTile(x, y);
                 if (tile != null) {
-                    final Body body = Body.create(getProperties().readString(CLASS));
-                    final Shape[] shapes = tile.getShapes();
-                    final Image image = tile.getImage();
-                    final float width = tile.getWidth();
-                    final float height = tile.getHeight();
-                    if (shapes.length > 0) {
-                        for (int i = 0; i < shapes.length; ++i) {
-                            body.addShape(shapes[i]);
-                        }
+                    view.add(createBody(tile, x, y, type, drawOrder, true));
+                }
+            }
+        }
+    }
+
+    private void convertToMergedBody(final PhysicsView view, final boolean outline, final int drawOrder) {
+        final int endX = getMap().getWidth();
+        final int endY = getMap().getHeight();
+        // The merger expects the rows from bottom to top
+        final boolean[] solid = new boolean[endX * endY];
+        for (int x = 0; x < endX; ++x) {
+            for (int y = 0; y < endY; ++y) {
+                final Tile tile = getTile(x, y);
+                if (tile != null) {
+                    if (tile.getShapes().length == 0 && tile.getWidth() == 1f && tile.getHeight() == 1f) {
+                        solid[x + (endY - y - 1) * endX] = true;
                     }
                     else {
-                        body.addShape(new Rectangle(-width / 2f, -height / 2f, width, height));
+                        view.add(createBody(tile, x, y, BodyType.STATIC, drawOrder, false));
                     }
-
-                    body.setName(getName());
-                    body.setDrawOrder(drawOrder);
-                    body.setType(type);
-                    body.setImage(image, width, height);
-                    body.setOpacity(getOpacity());
-                    body.setPosition(x + width / 2f, endY - y - 1f + height / 2f);
-                    body.setAngularDamping(getProperties().readFloat("angulardamping", 0f));
-                    body.setDamping(getProperties().readFloat("damping", 0f));
-                    body.setDensity(getProperties().readFloat("density", 1f));
-                    body.setFriction(getProperties().readFloat("friction", 0f));
-                    view.add(body);
                 }
             }
         }
+
+        final TileMerger merger = new TileMerger(solid, endX, endY);
+        final Body body = Body.create(getProperties().readString(CLASS));
+        if (outline) {
+            for (final Polyline shape : merger.traceOutlines()) {
+                body.addShape(shape);
+            }
+        }
+        else {
+            for (final Rectangle shape : merger.mergeRectangles()) {
+                body.addShape(shape);
+            }
+        }
+
+        if (body.getShapes().length > 0) {
+            initBody(body, BodyType.STATIC, drawOrder);
+            view.add(body);
+        }
+    }
+
+    private Body createBody(final Tile tile, final int x, final int y, final BodyType type, final int drawOrder,
+                            final boolean withImage) {
+        final Body body = Body.create(getProperties().readString(CLASS));
+        final Shape[] shapes = tile.getShapes();
+        final float width = tile.getWidth();
+        final float height = tile.getHeight();
+        if (shapes.length > 0) {
+            for (int i = 0; i < shapes.length; ++i) {
+                body.addShape(shapes[i]);
+            }
+        }
+        else {
+            body.addShape(new Rectangle(-width / 2f, -height / 2f, width, height));
+        }
+
+        initBody(body, type, drawOrder);
+        if (withImage) {
+            body.setImage(tile.getImage(), width, height);
+            body.setOpacity(getOpacity());
+        }
+
+        body.setPosition(x + width / 2f, getMap().getHeight() - y - 1f + height / 2f);
+        return body;
+    }
+
+    private void initBody(final Body body, final BodyType type, final int drawOrder) {
+        body.setName(getName());
+        body.setDrawOrder(drawOrder);
+        body.setType(type);
+        body.setAngularDamping(getProperties().readFloat("angulardamping", 0f));
+        body.setDamping(getProperties().readFloat("damping", 0f));
+        body.setDensity(getProperties().readFloat("density", 1f));
+        body.setFriction(getProperties().readFloat("friction", 0f));
     }
 
     private static int[] parseData(final ElementWrapper element, final int width, final int height) {
         final String encoding = element.getStringAttribute(Const.ENCODING);
-        if (Const.BASE64.equalsIgnoreCase(encoding)) {
-            return parseBase64(element, width, height);
-        }
-        else if (Const.CSV.equalsIgnoreCase(encoding)) {
-            return parseCsv(element.getContent(), width, height);
+        if (Const.BASE64.equalsIgnoreCase(encoding) || Const.CSV.equalsIgnoreCase(encoding)) {
+            String cacheKey = null;
+            if (AssetCache.isEnabled()) {
+                cacheKey = AssetCache.createKey("tiles", Convert.toString(
+                    width, 'x', height, ':', encoding, ':', element.getStringAttribute(Const.COMPRESSION), ':',
+                    element.getContent()));
+                final int[] result = AssetCache.readInts(cacheKey);
+                if (result != null && result.length == width * height) {
+                    return result;
+                }
+            }
+
+            final int[] result;
+            if (Const.BASE64.equalsIgnoreCase(encoding)) {
+                result = parseBase64(element, width, height);
+            }
+            else {
+                result = parseCsv(element.getContent(), width, height);
+            }
+
+            if (cacheKey != null) {
+                AssetCache.writeInts(cacheKey, result);
+            }
+
+            return result;
         }
         else {
             final int[] result = new int[width * height];
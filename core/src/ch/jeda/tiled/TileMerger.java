@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2015 by Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.jeda.tiled;
+
+import ch.jeda.geometry.Polyline;
+import ch.jeda.geometry.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Merges the solid cells of a tile grid into few large shapes. The grid is indexed from the bottom left, i.e. cell
+ * (x, y) covers the square from (x, y) to (x + 1, y + 1).
+ */
+final class TileMerger {
+
+    // Directions of outline edges in counterclockwise order, the solid cells are on the left side of an edge
+    private static final int EAST = 0;
+    private static final int NORTH = 1;
+    private static final int WEST = 2;
+    private static final int SOUTH = 3;
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+    // Prefer turning left, so that an outline does not cross over to a diagonal neighbour
+    private static final int[] TURNS = {1, 0, 3};
+    private final int height;
+    private final boolean[] solid;
+    private final int width;
+
+    TileMerger(final boolean[] solid, final int width, final int height) {
+        this.height = height;
+        this.solid = solid;
+        this.width = width;
+    }
+
+    /**
+     * Covers the solid cells with rectangles. Each rectangle is grown as far as possible to the right and then
+     * upwards.
+     */
+    List<Rectangle> mergeRectangles() {
+        final List<Rectangle> result = new ArrayList<Rectangle>();
+        final boolean[] covered = new boolean[solid.length];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                if (!isFree(covered, x, y)) {
+                    continue;
+                }
+
+                int endX = x + 1;
+                while (endX < width && isFree(covered, endX, y)) {
+                    ++endX;
+                }
+
+                int endY = y + 1;
+                while (endY < height && isRowFree(covered, x, endX, endY)) {
+                    ++endY;
+                }
+
+                for (int j = y; j < endY; ++j) {
+                    for (int i = x; i < endX; ++i) {
+                        covered[i + j * width] = true;
+                    }
+                }
+
+                result.add(new Rectangle(x, y, endX - x, endY - y));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Traces the outlines of all connected regions of solid cells, including the outlines of holes. Each outline is
+     * returned as a closed polyline that contains only the corners of the outline and never visits a vertex twice.
+     * Cells that only touch at a corner belong to different regions.
+     */
+    List<Polyline> traceOutlines() {
+        final int vertexWidth = width + 1;
+        // Outline edges indexed by start vertex and direction
+        final boolean[] edges = new boolean[vertexWidth * (height + 1) * 4];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                if (isSolid(x, y)) {
+                    if (!isSolid(x, y - 1)) {
+                        edges[(x + y * vertexWidth) * 4 + EAST] = true;
+                    }
+
+                    if (!isSolid(x + 1, y)) {
+                        edges[(x + 1 + y * vertexWidth) * 4 + NORTH] = true;
+                    }
+
+                    if (!isSolid(x, y + 1)) {
+                        edges[(x + 1 + (y + 1) * vertexWidth) * 4 + WEST] = true;
+                    }
+
+                    if (!isSolid(x - 1, y)) {
+                        edges[(x + (y + 1) * vertexWidth) * 4 + SOUTH] = true;
+                    }
+                }
+            }
+        }
+
+        final List<Polyline> result = new ArrayList<Polyline>();
+        final List<Integer> corners = new ArrayList<Integer>();
+        // Position of each vertex in the corners list, -1 if the vertex is not in the list
+        final int[] cornerIndex = new int[vertexWidth * (height + 1)];
+        Arrays.fill(cornerIndex, -1);
+        for (int start = 0; start < edges.length; ++start) {
+            if (!edges[start]) {
+                continue;
+            }
+
+            corners.clear();
+            int vertex = start / 4;
+            int direction = start % 4;
+            int previousDirection = -1;
+            int edge = start;
+            while (edges[edge]) {
+                edges[edge] = false;
+                if (direction != previousDirection) {
+                    corners.add(vertex);
+                }
+
+                previousDirection = direction;
+                vertex = vertex + DX[direction] + DY[direction] * vertexWidth;
+                for (int turn : TURNS) {
+                    final int next = (direction + turn) % 4;
+                    if (edges[vertex * 4 + next]) {
+                        direction = next;
+                        break;
+                    }
+                }
+
+                edge = vertex * 4 + direction;
+            }
+
+            // The start point is not a corner if the outline ends in the direction it started with
+            if (previousDirection == start % 4) {
+                corners.remove(0);
+            }
+
+            splitOutline(corners, cornerIndex, vertexWidth, result);
+        }
+
+        return result;
+    }
+
+    private static void addOutline(final List<Integer> corners, final int from, final int vertexWidth,
+                                   final List<Polyline> result) {
+        final int count = corners.size() - from;
+        final float[] outline = new float[2 * count + 2];
+        for (int i = 0; i < count; ++i) {
+            final int vertex = corners.get(from + i);
+            outline[2 * i] = vertex % vertexWidth;
+            outline[2 * i + 1] = vertex / vertexWidth;
+        }
+
+        outline[2 * count] = outline[0];
+        outline[2 * count + 1] = outline[1];
+        result.add(new Polyline(outline));
+    }
+
+    /**
+     * Adds an outline to the result. An outline that visits a vertex twice, e.g. when a hole touches the outer outline
+     * at a corner, is split at that vertex into simple loops, since a chain loop must not touch itself.
+     */
+    private static void splitOutline(final List<Integer> corners, final int[] cornerIndex, final int vertexWidth,
+                                     final List<Polyline> result) {
+        final List<Integer> stack = new ArrayList<Integer>(corners.size());
+        for (final int vertex : corners) {
+            final int index = cornerIndex[vertex];
+            if (index < 0) {
+                cornerIndex[vertex] = stack.size();
+                stack.add(vertex);
+            }
+            else {
+                // The corners since the first visit form a loop of their own, the vertex itself stays on the stack
+                addOutline(stack, index, vertexWidth, result);
+                for (int i = stack.size() - 1; i > index; --i) {
+                    cornerIndex[stack.remove(i)] = -1;
+                }
+            }
+        }
+
+        addOutline(stack, 0, vertexWidth, result);
+        for (final int vertex : stack) {
+            cornerIndex[vertex] = -1;
+        }
+    }
+
+    private boolean isFree(final boolean[] covered, final int x, final int y) {
+        return isSolid(x, y) && !covered[x + y * width];
+    }
+
+    private boolean isRowFree(final boolean[] covered, final int startX, final int endX, final int y) {
+        for (int x = startX; x < endX; ++x) {
+            if (!isFree(covered, x, y)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isSolid(final int x, final int y) {
+        return 0 <= x && x < width && 0 <= y && y < height && solid[x + y * width];
+    }
+}
@@ -49,7 +49,7 @@ import java.util.EnumMap;
  * canvas.fillCircle(200, 150, 100);</code></pre>
  *
  * @since 1.0
- * @version 5
+ * @version 7
  */
 public class Canvas {
 
@@ -72,6 +72,7 @@ public class Canvas {
     private int opacity;
     private float textSize;
     private Typeface typeface;
+    private float[] batchPoints;
     private float sx;
     private float slx;
     private float sly;
@@ -361,6 +362,94 @@ public class Canvas {
         drawPolyline(x1, y1, x2, y2);
     }
 
+    /**
+     * Draws a number of separate straight lines with the current color and line width. Each line is defined by four
+     * consecutive values of <code>points</code>: the coordinates of the start point followed by the coordinates of the
+     * end point. For example, the code
+     * <pre><code>drawLines(new float[]{x1, y1, x2, y2, x3, y3, x4, y4}, 2);</code></pre> will draw a line from (x1, y1)
+     * to (x2, y2) and a line from (x3, y3) to (x4, y4). Drawing many lines with one call is much faster than drawing
+     * them individually.
+     *
+     * @param points the coordinates of the start and end points of the lines
+     * @param count the number of lines to draw
+     * @throws IllegalArgumentException if <code>points</code> contains less than four times <code>count</code> values
+     *
+     * @since 2.2
+     */
+    public void drawLines(final float[] points, final int count) {
+        if (count <= 0) {
+            return;
+        }
+
+        if (points == null || points.length < 4 * count) {
+            throw new IllegalArgumentException("points");
+        }
+
+        imp.drawLines(convertBatchPoints(points, 4 * count), count);
+    }
+
+    /**
+     * Draws a block of pixels. The pixels are specified row by row, starting with the top row, as ARGB values. The
+     * block of <code>columns</code> times <code>rows</code> pixels is stretched to the rectangle of the specified
+     * width and height, which is positioned relative to (<code>x</code>, <code>y</code>) according to the current
+     * alignment. The pixels are drawn using the current opacity. Drawing a whole raster with one call is much faster
+     * than setting the pixels individually.
+     *
+     * @param x the x coordinate of the rectangle
+     * @param y the y coordinate of the rectangle
+     * @param width the width of the rectangle
+     * @param height the height of the rectangle
+     * @param columns the number of pixels per row
+     * @param rows the number of rows
+     * @param pixels the ARGB values of the pixels
+     * @throws IllegalArgumentException if <code>pixels</code> contains less than <code>columns</code> times
+     * <code>rows</code> values
+     *
+     * @since 2.2
+     */
+    public void drawPixels(final double x, final double y, final double width, final double height, final int columns,
+                           final int rows, final int[] pixels) {
+        drawPixels((float) x, (float) y, (float) width, (float) height, columns, rows, pixels);
+    }
+
+    /**
+     * Draws a block of pixels. The pixels are specified row by row, starting with the top row, as ARGB values. The
+     * block of <code>columns</code> times <code>rows</code> pixels is stretched to the rectangle of the specified
+     * width and height, which is positioned relative to (<code>x</code>, <code>y</code>) according to the current
+     * alignment. The pixels are drawn using the current opacity. Drawing a whole raster with one call is much faster
+     * than setting the pixels individually.
+     *
+     * @param x the x coordinate of the rectangle
+     * @param y the y coordinate of the rectangle
+     * @param width the width of the rectangle
+     * @param height the height of the rectangle
+     * @param columns the number of pixels per row
+     * @param rows the number of rows
+     * @param pixels the ARGB values of the pixels
+     * @throws IllegalArgumentException if <code>pixels</code> contains less than <code>columns</code> times
+     * <code>rows</code> values
+     *
+     * @since 2.2
+     */
+    public void drawPixels(float x, float y, float width, float height, final int columns, final int rows,
+                           final int[] pixels) {
+        if (columns <= 0 || rows <= 0) {
+            return;
+        }
+
+        if (pixels == null || pixels.length < columns * rows) {
+            throw new IllegalArgumentException("pixels");
+        }
+
+        if (opacity != 0) {
+            x = x * sx + tx;
+            y = y * sy + ty;
+            width = width * slx;
+            height = height * sly;
+            imp.drawPixels(alignX(x, width), alignY(y, height), width, height, columns, rows, pixels, opacity);
+        }
+    }
+
     /**
      * Draws a polygon. The polygon is drawn using the current color and line width. The polygon is defined by a
      * sequence of coordinate pairs specifiying the corners of the polygon. For example, the code
@@ -717,6 +806,30 @@ public class Canvas {
         imp.fillRectangle(alignX(x, width), alignY(y, height), width, height);
     }
 
+    /**
+     * Draws a number of filled triangles with the current color. Each triangle is defined by six consecutive values of
+     * <code>points</code>: the coordinates of its three corners. Any convex polygon can be drawn as a fan of triangles
+     * sharing its first corner. Filling many triangles with one call is much faster than filling polygons
+     * individually.
+     *
+     * @param points the coordinates of the corners of the triangles
+     * @param count the number of triangles to draw
+     * @throws IllegalArgumentException if <code>points</code> contains less than six times <code>count</code> values
+     *
+     * @since 2.2
+     */
+    public void fillTriangles(final float[] points, final int count) {
+        if (count <= 0) {
+            return;
+        }
+
+        if (points == null || points.length < 6 * count) {
+            throw new IllegalArgumentException("points");
+        }
+
+        imp.fillTriangles(convertBatchPoints(points, 6 * count), count);
+    }
+
     /**
      * Returns the current alignment.
      *
@@ -1093,6 +1206,20 @@ public class Canvas {
         return result;
     }
 
+    private float[] convertBatchPoints(final float[] values, final int length) {
+        // batches are large and drawn every frame, so the buffer is reused
+        if (batchPoints == null || batchPoints.length < length) {
+            batchPoints = new float[Math.max(length, 2 * (batchPoints == null ? 0 : batchPoints.length))];
+        }
+
+        for (int i = 0; i < length; i = i + 2) {
+            batchPoints[i] = values[i] * sx + tx;
+            batchPoints[i + 1] = values[i + 1] * sy + ty;
+        }
+
+        return batchPoints;
+    }
+
     float alignX(final float x, final float w) {
         switch (alignment.horiz) {
             case MAX:
@@ -394,10 +394,21 @@ public final class Image {
     }
 
     private static ImageImp loadImp(final String filePath) {
-        if (!CACHE.containsKey(filePath)) {
-            CACHE.put(filePath, JedaInternal.createImageImp(filePath));
+        synchronized (CACHE) {
+            if (CACHE.containsKey(filePath)) {
+                return CACHE.get(filePath);
+            }
         }
 
-        return CACHE.get(filePath);
+        // Decode outside of the lock, so that images can be loaded in parallel by a preloader.
+        final ImageImp result = JedaInternal.createImageImp(filePath);
+        synchronized (CACHE) {
+            if (CACHE.containsKey(filePath)) {
+                return CACHE.get(filePath);
+            }
+
+            CACHE.put(filePath, result);
+            return result;
+        }
     }
 }
@@ -200,6 +200,7 @@ public class View {
      */
     public final void close() {
         imp.close();
+        closed();
     }
 
     /**
@@ -629,6 +630,27 @@ public class View {
         translationY = translationY + (float) ty;
     }
 
+    /**
+     * This method is invoked after the view has been closed. Override this method to release resources held by the
+     * view.
+     *
+     * @since 2.2
+     */
+    protected void closed() {
+    }
+
+    /**
+     * This method is invoked once per frame after all elements with a negative draw order have been drawn and before
+     * the elements with a non-negative draw order are drawn. The canvas uses world coordinates. Override this method to
+     * draw on top of the virtual world, but below the widgets.
+     *
+     * @param canvas the canvas to draw on
+     *
+     * @since 2.2
+     */
+    protected void drawWorldOverlay(final Canvas canvas) {
+    }
+
     /**
      * This method is invoked after an element has been added to the view.
      *
@@ -687,6 +709,10 @@ public class View {
         if (imp.isVisible()) {
             updateElements();
             eventQueue.processEvents();
+            if (!event.isRenderFrame()) {
+                return;
+            }
+
             foreground.setWorldTransformation(1f, 1f, 0f, 0f);
             foreground.setOpacity(255);
             foreground.setAlignment(Alignment.BOTTOM_LEFT);
@@ -695,6 +721,7 @@ public class View {
             boolean world = true;
             for (int i = 0; i < elements.length; ++i) {
                 if (world && elements[i].getDrawOrder() >= 0) {
+                    drawWorldOverlay(foreground);
                     foreground.setWorldTransformation(1f, 1f, 0f, 0f);
                     world = false;
                 }
@@ -702,6 +729,10 @@ public class View {
                 elements[i].internalDraw(foreground);
             }
 
+            if (world) {
+                drawWorldOverlay(foreground);
+            }
+
             imp.update();
         }
     }
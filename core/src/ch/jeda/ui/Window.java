@@ -1152,7 +1152,9 @@ public class Window {
     private void tick(final TickEvent event) {
         if (imp.isVisible()) {
             eventQueue.processEvents();
-            imp.update();
+            if (event.isRenderFrame()) {
+                imp.update();
+            }
         }
     }
 
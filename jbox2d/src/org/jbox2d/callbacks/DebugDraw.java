@@ -54,6 +54,10 @@ public abstract class DebugDraw {
   public static final int e_dynamicTreeBit = 1 << 6;
   /** Draw only the wireframe for drawing performance */
   public static final int e_wireframeDrawingBit = 1 << 7;
+  /** Draw the contact points of touching contacts */
+  public static final int e_contactPointBit = 1 << 8;
+  /** Draw the awake bodies of each island in the same color */
+  public static final int e_islandBit = 1 << 9;
 
 
   protected int m_drawFlags;
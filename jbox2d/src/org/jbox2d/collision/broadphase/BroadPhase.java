@@ -41,6 +41,28 @@ public interface BroadPhase {
 
   AABB getFatAABB(int proxyId);
 
+  /**
+   * Set the fat AABB of a proxy as it is, without extending it. This is used to restore a snapshot
+   * of the broad-phase.
+   */
+  void setFatAABB(int proxyId, AABB fatAABB);
+
+  /**
+   * Get the number of proxies that have moved since the last pair update.
+   */
+  int getMoveCount();
+
+  /**
+   * Get a proxy that has moved since the last pair update. Returns NULL_PROXY for proxies that
+   * have been destroyed in the meantime.
+   */
+  int getMoveProxy(int index);
+
+  /**
+   * Forget all proxies that have moved since the last pair update.
+   */
+  void clearMoves();
+
   boolean testOverlap(int proxyIdA, int proxyIdB);
 
   /**
@@ -37,6 +37,12 @@ public interface BroadPhaseStrategy {
 
   AABB getFatAABB(int proxyId);
 
+  /**
+   * Set the fat AABB of a proxy as it is, without extending it. The proxy is re-inserted if the
+   * AABB changes. This is used to restore a snapshot of the broad-phase.
+   */
+  void setFatAABB(int proxyId, AABB fatAABB);
+
   /**
    * Query an AABB for overlapping proxies. The callback class is called for each proxy that
    * overlaps the supplied AABB.
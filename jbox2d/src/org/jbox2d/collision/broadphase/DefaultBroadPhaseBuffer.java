@@ -112,6 +112,26 @@ public class DefaultBroadPhaseBuffer implements TreeCallback, BroadPhase {
     return m_tree.getFatAABB(proxyId);
   }
 
+  @Override
+  public void setFatAABB(int proxyId, AABB fatAABB) {
+    m_tree.setFatAABB(proxyId, fatAABB);
+  }
+
+  @Override
+  public int getMoveCount() {
+    return m_moveCount;
+  }
+
+  @Override
+  public int getMoveProxy(int index) {
+    return m_moveBuffer[index];
+  }
+
+  @Override
+  public void clearMoves() {
+    m_moveCount = 0;
+  }
+
   @Override
   public boolean testOverlap(int proxyIdA, int proxyIdB) {
     // return AABB.testOverlap(proxyA.aabb, proxyB.aabb);
@@ -158,6 +158,23 @@ public class DynamicTree implements BroadPhaseStrategy {
     return m_nodes[proxyId].aabb;
   }
 
+  @Override
+  public final void setFatAABB(int proxyId, final AABB fatAABB) {
+    assert (0 <= proxyId && proxyId < m_nodeCapacity);
+    final DynamicTreeNode node = m_nodes[proxyId];
+    assert (node.child1 == null);
+
+    final AABB nodeAABB = node.aabb;
+    if (nodeAABB.lowerBound.x == fatAABB.lowerBound.x && nodeAABB.lowerBound.y == fatAABB.lowerBound.y
+        && nodeAABB.upperBound.x == fatAABB.upperBound.x && nodeAABB.upperBound.y == fatAABB.upperBound.y) {
+      return;
+    }
+
+    removeLeaf(node);
+    nodeAABB.set(fatAABB);
+    insertLeaf(proxyId);
+  }
+
   @Override
   public final void query(TreeCallback callback, AABB aabb) {
     assert(aabb.isValid());
@@ -870,8 +887,11 @@ public class DynamicTree implements BroadPhaseStrategy {
     color.set(1, (height - spot) * 1f / height, (height - spot) * 1f / height);
     argDraw.drawPolygon(drawVecs, 4, color);
 
-    argDraw.getViewportTranform().getWorldToScreen(node.aabb.upperBound, textVec);
-    argDraw.drawString(textVec.x, textVec.y, node.id + "-" + (spot + 1) + "/" + height, color);
+    // labels need a viewport, debug draws without one only get the boxes
+    if (argDraw.getViewportTranform() != null) {
+      argDraw.getViewportTranform().getWorldToScreen(node.aabb.upperBound, textVec);
+      argDraw.drawString(textVec.x, textVec.y, node.id + "-" + (spot + 1) + "/" + height, color);
+    }
 
     if (node.child1 != null) {
       drawTree(argDraw, node.child1, spot + 1, height);
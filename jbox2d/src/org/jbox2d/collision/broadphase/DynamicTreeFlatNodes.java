@@ -163,6 +163,22 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
     return m_aabb[proxyId];
   }
 
+  @Override
+  public final void setFatAABB(int proxyId, final AABB fatAABB) {
+    assert (0 <= proxyId && proxyId < m_nodeCapacity);
+    assert (m_child1[proxyId] == NULL_NODE);
+
+    final AABB nodeAABB = m_aabb[proxyId];
+    if (nodeAABB.lowerBound.x == fatAABB.lowerBound.x && nodeAABB.lowerBound.y == fatAABB.lowerBound.y
+        && nodeAABB.upperBound.x == fatAABB.upperBound.x && nodeAABB.upperBound.y == fatAABB.upperBound.y) {
+      return;
+    }
+
+    removeLeaf(proxyId);
+    nodeAABB.set(fatAABB);
+    insertLeaf(proxyId);
+  }
+
   private int[] nodeStack = new int[20];
   private int nodeStackIndex;
 
@@ -858,8 +874,11 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
     color.set(1, (height - spot) * 1f / height, (height - spot) * 1f / height);
     argDraw.drawPolygon(drawVecs, 4, color);
 
-    argDraw.getViewportTranform().getWorldToScreen(a.upperBound, textVec);
-    argDraw.drawString(textVec.x, textVec.y, node + "-" + (spot + 1) + "/" + height, color);
+    // labels need a viewport, debug draws without one only get the boxes
+    if (argDraw.getViewportTranform() != null) {
+      argDraw.getViewportTranform().getWorldToScreen(a.upperBound, textVec);
+      argDraw.drawString(textVec.x, textVec.y, node + "-" + (spot + 1) + "/" + height, color);
+    }
 
     int c1 = m_child1[node];
     int c2 = m_child2[node];
@@ -143,21 +143,24 @@ public class Transform implements Serializable {
     out.p.addLocal(A.p);
   }
 
-  private static Vec2 pool = new Vec2();
-
   public final static Transform mulTrans(final Transform A, final Transform B) {
     Transform C = new Transform();
     Rot.mulTransUnsafe(A.q, B.q, C.q);
-    pool.set(B.p).subLocal(A.p);
-    Rot.mulTransUnsafe(A.q, pool, C.p);
+    final float px = B.p.x - A.p.x;
+    final float py = B.p.y - A.p.y;
+    C.p.x = A.q.c * px + A.q.s * py;
+    C.p.y = -A.q.s * px + A.q.c * py;
     return C;
   }
 
   public final static void mulTransToOut(final Transform A, final Transform B, final Transform out) {
     assert (out != A);
     Rot.mulTrans(A.q, B.q, out.q);
-    pool.set(B.p).subLocal(A.p);
-    Rot.mulTrans(A.q, pool, out.p);
+    // no shared temporary, transforms are multiplied concurrently by the solver threads
+    final float px = B.p.x - A.p.x;
+    final float py = B.p.y - A.p.y;
+    out.p.x = A.q.c * px + A.q.s * py;
+    out.p.y = -A.q.s * px + A.q.c * py;
   }
 
   public final static void mulTransToOutUnsafe(final Transform A, final Transform B,
@@ -165,8 +168,10 @@ public class Transform implements Serializable {
     assert (out != A);
     assert (out != B);
     Rot.mulTransUnsafe(A.q, B.q, out.q);
-    pool.set(B.p).subLocal(A.p);
-    Rot.mulTransUnsafe(A.q, pool, out.p);
+    final float px = B.p.x - A.p.x;
+    final float py = B.p.y - A.p.y;
+    out.p.x = A.q.c * px + A.q.s * py;
+    out.p.y = -A.q.s * px + A.q.c * py;
   }
 
   @Override
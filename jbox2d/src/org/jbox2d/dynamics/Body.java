@@ -964,17 +964,32 @@ public class Body {
       if ((m_flags & e_awakeFlag) == 0) {
         m_flags |= e_awakeFlag;
         m_sleepTime = 0.0f;
+        if (m_world.m_sleepListener != null) {
+          m_world.m_sleepListener.bodyAwake(this);
+        }
       }
     } else {
-      m_flags &= ~e_awakeFlag;
-      m_sleepTime = 0.0f;
-      m_linearVelocity.setZero();
-      m_angularVelocity = 0.0f;
-      m_force.setZero();
-      m_torque = 0.0f;
+      boolean wasAwake = isAwake();
+      sleep();
+      if (wasAwake && m_world.m_sleepListener != null) {
+        m_world.m_sleepListener.bodyAsleep(this);
+      }
     }
   }
 
+  /**
+   * Puts this body to sleep without notifying the sleep listener. The island solver may run on a
+   * solver thread, so the world reports these transitions itself after the islands are solved.
+   */
+  void sleep() {
+    m_flags &= ~e_awakeFlag;
+    m_sleepTime = 0.0f;
+    m_linearVelocity.setZero();
+    m_angularVelocity = 0.0f;
+    m_force.setZero();
+    m_torque = 0.0f;
+  }
+
   /**
    * Get the sleeping state of this body.
    * 
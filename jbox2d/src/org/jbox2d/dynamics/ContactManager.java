@@ -29,6 +29,7 @@ import org.jbox2d.callbacks.PairCallback;
 import org.jbox2d.collision.broadphase.BroadPhase;
 import org.jbox2d.dynamics.contacts.Contact;
 import org.jbox2d.dynamics.contacts.ContactEdge;
+import org.jbox2d.pooling.IWorldPool;
 
 /**
  * Delegate of World.
@@ -45,6 +46,12 @@ public class ContactManager implements PairCallback {
 
   private final World pool;
 
+  // for evaluating contacts in parallel
+  SolverThreads m_solverThreads;
+  private static final int PARALLEL_COLLIDE_THRESHOLD = 256;
+  private static final int PARALLEL_COLLIDE_CHUNK_SIZE = 32;
+  private Contact[] m_evaluatedContacts = new Contact[0];
+
   public ContactManager(World argPool, BroadPhase broadPhase) {
     m_contactList = null;
     m_contactCount = 0;
@@ -122,10 +129,23 @@ public class ContactManager implements PairCallback {
     // Contact creation may swap fixtures.
     fixtureA = c.getFixtureA();
     fixtureB = c.getFixtureB();
-    indexA = c.getChildIndexA();
-    indexB = c.getChildIndexB();
     bodyA = fixtureA.getBody();
     bodyB = fixtureB.getBody();
+    insert(c);
+
+    // wake up the bodies
+    if (!fixtureA.isSensor() && !fixtureB.isSensor()) {
+      bodyA.setAwake(true);
+      bodyB.setAwake(true);
+    }
+  }
+
+  /**
+   * Insert a new contact into the world and connect it to the island graph.
+   */
+  void insert(Contact c) {
+    Body bodyA = c.getFixtureA().getBody();
+    Body bodyB = c.getFixtureB().getBody();
 
     // Insert into the world.
     c.m_prev = null;
@@ -159,12 +179,6 @@ public class ContactManager implements PairCallback {
     }
     bodyB.m_contactList = c.m_nodeB;
 
-    // wake up the bodies
-    if (!fixtureA.isSensor() && !fixtureB.isSensor()) {
-      bodyA.setAwake(true);
-      bodyB.setAwake(true);
-    }
-
     ++m_contactCount;
   }
 
@@ -231,9 +245,27 @@ public class ContactManager implements PairCallback {
    * processed for the world contact list.
    */
   public void collide() {
+    if (m_solverThreads != null && m_contactCount >= PARALLEL_COLLIDE_THRESHOLD) {
+      evaluateContacts();
+    }
+
     // Update awake contacts.
     Contact c = m_contactList;
     while (c != null) {
+      // Finish the contacts evaluated in parallel in list order, so the listener sees the same
+      // sequence of events.
+      if ((c.m_flags & Contact.EVALUATED_FLAG) == Contact.EVALUATED_FLAG) {
+        c.m_flags &= ~Contact.EVALUATED_FLAG;
+        if ((c.m_flags & Contact.FILTER_FLAG) == 0) {
+          c.finishUpdate(m_contactListener);
+          c = c.getNext();
+          continue;
+        }
+
+        // A listener has flagged the contact for filtering meanwhile.
+        c.cancelUpdate();
+      }
+
       Fixture fixtureA = c.getFixtureA();
       Fixture fixtureB = c.getFixtureB();
       int indexA = c.getChildIndexA();
@@ -289,4 +321,49 @@ public class ContactManager implements PairCallback {
       c = c.getNext();
     }
   }
+
+  /**
+   * Evaluates the manifolds of all contacts that the serial collide loop is going to update on
+   * the solver threads. Contacts that need filtering or whose bodies are asleep are left to the
+   * serial loop, since their fate can change while the loop runs.
+   */
+  private void evaluateContacts() {
+    if (m_evaluatedContacts.length < m_contactCount) {
+      m_evaluatedContacts = new Contact[m_contactCount];
+    }
+
+    int count = 0;
+    for (Contact c = m_contactList; c != null; c = c.getNext()) {
+      if ((c.m_flags & Contact.FILTER_FLAG) == Contact.FILTER_FLAG) {
+        continue;
+      }
+
+      Fixture fixtureA = c.getFixtureA();
+      Fixture fixtureB = c.getFixtureB();
+      Body bodyA = fixtureA.getBody();
+      Body bodyB = fixtureB.getBody();
+      boolean activeA = bodyA.isAwake() && bodyA.m_type != BodyType.STATIC;
+      boolean activeB = bodyB.isAwake() && bodyB.m_type != BodyType.STATIC;
+      if (activeA == false && activeB == false) {
+        continue;
+      }
+
+      int proxyIdA = fixtureA.m_proxies[c.getChildIndexA()].proxyId;
+      int proxyIdB = fixtureB.m_proxies[c.getChildIndexB()].proxyId;
+      if (m_broadPhase.testOverlap(proxyIdA, proxyIdB) == false) {
+        continue;
+      }
+
+      c.m_flags |= Contact.EVALUATED_FLAG;
+      m_evaluatedContacts[count++] = c;
+    }
+
+    m_solverThreads.run(evaluateTask, count, PARALLEL_COLLIDE_CHUNK_SIZE);
+  }
+
+  private final SolverThreads.Task evaluateTask = new SolverThreads.Task() {
+    public void run(int index, IWorldPool solverPool, Profile profile) {
+      m_evaluatedContacts[index].evaluateUpdate(solverPool);
+    }
+  };
 }
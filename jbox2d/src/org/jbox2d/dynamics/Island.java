@@ -181,7 +181,15 @@ public class Island {
   public int m_jointCapacity;
 
   public Island() {
+    this(ContactSolver.INITIAL_NUM_CONSTRAINTS);
+  }
 
+  /**
+   * @param constraintCapacity the initial number of contact constraints, the solvers grow as needed
+   */
+  public Island(int constraintCapacity) {
+    contactSolver = new ContactSolver(constraintCapacity);
+    toiContactSolver = new ContactSolver(constraintCapacity);
   }
 
   public void init(int bodyCapacity, int contactCapacity, int jointCapacity,
@@ -233,12 +241,25 @@ public class Island {
     m_jointCount = 0;
   }
 
-  private final ContactSolver contactSolver = new ContactSolver();
+  private final ContactSolver contactSolver;
   private final Timer timer = new Timer();
   private final SolverData solverData = new SolverData();
   private final ContactSolverDef solverDef = new ContactSolverDef();
 
+  private boolean positionSolved;
+
   public void solve(Profile profile, TimeStep step, Vec2 gravity, boolean allowSleep) {
+    initSolve(profile, step, gravity);
+    solveConstraints(profile, step);
+    finishSolve(step, allowSleep);
+  }
+
+  /**
+   * First phase of {@link #solve}: integrates the velocities and initializes the constraints. This
+   * reads the island indices of the bodies, so it must run before the next island is built, since
+   * static bodies can be part of several islands.
+   */
+  public void initSolve(Profile profile, TimeStep step, Vec2 gravity) {
 
     // System.out.println("Solving Island");
     float h = step.dt;
@@ -312,6 +333,15 @@ public class Island {
     }
 
     profile.solveInit.accum(timer.getMilliseconds());
+  }
+
+  /**
+   * Second phase of {@link #solve}: solves the velocity and position constraints and copies the
+   * result back to the bodies. Only touches the non-static bodies, contacts and joints of this
+   * island, so islands can be solved concurrently as long as the joints use separate pools.
+   */
+  public void solveConstraints(Profile profile, TimeStep step) {
+    float h = step.dt;
 
     // Solve velocity constraints
     timer.reset();
@@ -363,7 +393,7 @@ public class Island {
 
     // Solve position constraints
     timer.reset();
-    boolean positionSolved = false;
+    positionSolved = false;
     for (int i = 0; i < step.positionIterations; ++i) {
       boolean contactsOkay = contactSolver.solvePositionConstraints();
 
@@ -380,9 +410,14 @@ public class Island {
       }
     }
 
-    // Copy state buffers back to the bodies
+    // Copy state buffers back to the bodies. Static bodies do not move, and they may be shared with
+    // other islands.
     for (int i = 0; i < m_bodyCount; ++i) {
       Body body = m_bodies[i];
+      if (body.m_type == BodyType.STATIC) {
+        continue;
+      }
+
       body.m_sweep.c.x = m_positions[i].c.x;
       body.m_sweep.c.y = m_positions[i].c.y;
       body.m_sweep.a = m_positions[i].a;
@@ -393,7 +428,14 @@ public class Island {
     }
 
     profile.solvePosition.accum(timer.getMilliseconds());
+  }
 
+  /**
+   * Last phase of {@link #solve}: reports the contact impulses and puts the island to sleep if it
+   * has come to rest.
+   */
+  public void finishSolve(TimeStep step, boolean allowSleep) {
+    float h = step.dt;
     report(contactSolver.m_velocityConstraints);
 
     if (allowSleep) {
@@ -422,13 +464,13 @@ public class Island {
       if (minSleepTime >= Settings.timeToSleep && positionSolved) {
         for (int i = 0; i < m_bodyCount; ++i) {
           Body b = m_bodies[i];
-          b.setAwake(false);
+          b.sleep();
         }
       }
     }
   }
 
-  private final ContactSolver toiContactSolver = new ContactSolver();
+  private final ContactSolver toiContactSolver;
   private final ContactSolverDef toiSolverDef = new ContactSolverDef();
 
   public void solveTOI(TimeStep subStep, int toiIndexA, int toiIndexB) {
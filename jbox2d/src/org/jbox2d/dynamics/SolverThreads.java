@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2013, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 	* Redistributions of source code must retain the above copyright notice,
+ * 	  this list of conditions and the following disclaimer.
+ * 	* Redistributions in binary form must reproduce the above copyright notice,
+ * 	  this list of conditions and the following disclaimer in the documentation
+ * 	  and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.dynamics;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jbox2d.common.MathUtils;
+import org.jbox2d.pooling.IWorldPool;
+import org.jbox2d.pooling.normal.DefaultWorldPool;
+
+/**
+ * Threads that work on the independent parts of a time step, like islands or contacts. The
+ * stepping thread works as one of the threads. Each thread has its own pool for temporary objects
+ * and its own profile. The results must not depend on which thread handles which item.
+ * 
+ * This is an internal class.
+ */
+public final class SolverThreads {
+
+  public interface Task {
+    void run(int index, IWorldPool pool, Profile profile);
+  }
+
+  private final ExecutorService m_executor;
+  private final Worker[] m_workers;
+  private final Future<?>[] m_futures;
+  private final AtomicInteger m_next = new AtomicInteger();
+  private Task m_task;
+  private int m_count;
+  private int m_chunkSize;
+
+  /**
+   * @param threadCount the number of threads, including the stepping thread
+   * @param pool the pool of the stepping thread
+   */
+  SolverThreads(int threadCount, IWorldPool pool) {
+    m_executor = Executors.newFixedThreadPool(threadCount - 1, new ThreadFactory() {
+      public Thread newThread(Runnable runnable) {
+        Thread result = new Thread(runnable, "jbox2d solver");
+        result.setDaemon(true);
+        return result;
+      }
+    });
+    m_workers = new Worker[threadCount];
+    m_workers[0] = new Worker(pool);
+    for (int i = 1; i < threadCount; ++i) {
+      m_workers[i] =
+          new Worker(new DefaultWorldPool(World.WORLD_POOL_SIZE, World.WORLD_POOL_CONTAINER_SIZE));
+    }
+    m_futures = new Future<?>[threadCount - 1];
+  }
+
+  public int getThreadCount() {
+    return m_workers.length;
+  }
+
+  /**
+   * Runs the task for the items 0 to count - 1 and waits until all items are done. The threads
+   * claim chunks of items until no item is left.
+   */
+  public void run(Task task, int count, int chunkSize) {
+    m_task = task;
+    m_count = count;
+    m_chunkSize = chunkSize;
+    m_next.set(0);
+    int workers = MathUtils.min(m_workers.length, (count + chunkSize - 1) / chunkSize);
+    for (int i = 1; i < workers; ++i) {
+      m_futures[i - 1] = m_executor.submit(m_workers[i]);
+    }
+
+    Throwable failure = null;
+    if (workers > 0) {
+      try {
+        m_workers[0].call();
+      } catch (RuntimeException ex) {
+        failure = ex;
+      }
+    }
+
+    // The other threads must finish before the world can be touched again.
+    boolean interrupted = false;
+    for (int i = 1; i < workers; ++i) {
+      while (true) {
+        try {
+          m_futures[i - 1].get();
+          break;
+        } catch (InterruptedException ex) {
+          interrupted = true;
+        } catch (ExecutionException ex) {
+          failure = ex.getCause();
+          break;
+        }
+      }
+      m_futures[i - 1] = null;
+    }
+
+    m_task = null;
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+  }
+
+  /**
+   * Adds the solver times accumulated by all threads to the profile and resets them.
+   */
+  void addSolverTimes(Profile profile) {
+    for (int i = 0; i < m_workers.length; ++i) {
+      Profile workerProfile = m_workers[i].profile;
+      profile.solveVelocity.accum(workerProfile.solveVelocity.accum);
+      profile.solvePosition.accum(workerProfile.solvePosition.accum);
+      workerProfile.solveVelocity.startAccum();
+      workerProfile.solvePosition.startAccum();
+    }
+  }
+
+  void shutdown() {
+    m_executor.shutdown();
+  }
+
+  private final class Worker implements Callable<Void> {
+    private final IWorldPool pool;
+    private final Profile profile = new Profile();
+
+    Worker(IWorldPool pool) {
+      this.pool = pool;
+    }
+
+    public Void call() {
+      final Task task = m_task;
+      final int count = m_count;
+      final int chunkSize = m_chunkSize;
+      int start = m_next.getAndAdd(chunkSize);
+      while (start < count) {
+        int end = MathUtils.min(start + chunkSize, count);
+        for (int i = start; i < end; ++i) {
+          task.run(i, pool, profile);
+        }
+        start = m_next.getAndAdd(chunkSize);
+      }
+      return null;
+    }
+  }
+}
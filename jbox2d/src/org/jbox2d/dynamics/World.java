@@ -32,6 +32,7 @@ import org.jbox2d.callbacks.ParticleQueryCallback;
 import org.jbox2d.callbacks.ParticleRaycastCallback;
 import org.jbox2d.callbacks.QueryCallback;
 import org.jbox2d.callbacks.RayCastCallback;
+import org.jbox2d.callbacks.SleepListener;
 import org.jbox2d.callbacks.TreeCallback;
 import org.jbox2d.callbacks.TreeRayCastCallback;
 import org.jbox2d.collision.AABB;
@@ -40,6 +41,7 @@ import org.jbox2d.collision.RayCastOutput;
 import org.jbox2d.collision.TimeOfImpact.TOIInput;
 import org.jbox2d.collision.TimeOfImpact.TOIOutput;
 import org.jbox2d.collision.TimeOfImpact.TOIOutputState;
+import org.jbox2d.collision.WorldManifold;
 import org.jbox2d.collision.broadphase.BroadPhase;
 import org.jbox2d.collision.broadphase.BroadPhaseStrategy;
 import org.jbox2d.collision.broadphase.DefaultBroadPhaseBuffer;
@@ -112,6 +114,7 @@ public class World {
 
   private DestructionListener m_destructionListener;
   private ParticleDestructionListener m_particleDestructionListener;
+  SleepListener m_sleepListener;
   private DebugDraw m_debugDraw;
 
   private final IWorldPool pool;
@@ -119,7 +122,7 @@ public class World {
   /**
    * This is used to compute the time step ratio to support a variable time step.
    */
-  private float m_inv_dt0;
+  float m_inv_dt0;
 
   // these are for debugging the solver
   private boolean m_warmStarting;
@@ -214,6 +217,50 @@ public class World {
     return m_allowSleep;
   }
 
+  /**
+   * Set the number of threads that solve the islands of this world. With more than one thread, all
+   * awake islands are built first and their constraints are then solved concurrently, each thread
+   * using its own pool for temporary objects. The simulation result does not depend on the number
+   * of threads. However, the contact listener receives the post solve events of all islands after
+   * all islands have been solved.
+   * 
+   * @param count the number of threads, 1 solves all islands on the stepping thread
+   */
+  public void setSolverThreadCount(int count) {
+    assert (isLocked() == false);
+    if (count < 1) {
+      count = 1;
+    }
+
+    if (count == getSolverThreadCount()) {
+      return;
+    }
+
+    if (m_solverThreads != null) {
+      m_solverThreads.shutdown();
+      m_solverThreads = null;
+    }
+
+    if (count > 1) {
+      m_solverThreads = new SolverThreads(count, pool);
+    }
+    m_contactManager.m_solverThreads = m_solverThreads;
+    m_particleSystem.setSolverThreads(m_solverThreads);
+  }
+
+  /**
+   * Release the resources held by this world, i.e. the solver threads. The world can still be
+   * used afterwards, but solves all islands on the stepping thread. This must not be called during
+   * a time step.
+   */
+  public void dispose() {
+    setSolverThreadCount(1);
+  }
+
+  public int getSolverThreadCount() {
+    return m_solverThreads == null ? 1 : m_solverThreads.getThreadCount();
+  }
+
   private void addType(IDynamicStack<Contact> creator, ShapeType type1, ShapeType type2) {
     ContactRegister register = new ContactRegister();
     register.creator = creator;
@@ -242,6 +289,10 @@ public class World {
     return m_destructionListener;
   }
 
+  public SleepListener getSleepListener() {
+    return m_sleepListener;
+  }
+
   public ParticleDestructionListener getParticleDestructionListener() {
     return m_particleDestructionListener;
   }
@@ -299,6 +350,16 @@ public class World {
     m_destructionListener = listener;
   }
 
+  /**
+   * Register a sleep listener that is notified when bodies wake up or fall asleep. The listener is
+   * owned by you and must remain in scope.
+   * 
+   * @param listener
+   */
+  public void setSleepListener(SleepListener listener) {
+    m_sleepListener = listener;
+  }
+
   /**
    * Register a contact filter to provide specific control over collision. Otherwise the default
    * filter is used (_defaultFilter). The listener is owned by you and must remain in scope.
@@ -582,6 +643,41 @@ public class World {
     }
   }
 
+  /**
+   * Save the simulation state of this world to a snapshot. The snapshot can be restored later to
+   * continue the simulation from this point. This must not be called during a time step.
+   * 
+   * @param snapshot the snapshot to overwrite
+   * @see WorldSnapshot
+   */
+  public void saveSnapshot(WorldSnapshot snapshot) {
+    assert (isLocked() == false);
+    if (isLocked()) {
+      return;
+    }
+
+    snapshot.save(this);
+  }
+
+  /**
+   * Restore the simulation state of this world from a snapshot. Stepping the world afterwards gives
+   * exactly the same results as after the snapshot has been taken. No contact or sleep events are
+   * reported while restoring. This must not be called during a time step.
+   * 
+   * @param snapshot the snapshot to restore
+   * @return false if the snapshot has not been taken from this world or bodies, fixtures or joints
+   *         have been created or destroyed since, the world is not changed in this case
+   * @see WorldSnapshot
+   */
+  public boolean restoreSnapshot(WorldSnapshot snapshot) {
+    assert (isLocked() == false);
+    if (isLocked()) {
+      return false;
+    }
+
+    return snapshot.restore(this);
+  }
+
   // djm pooling
   private final TimeStep step = new TimeStep();
   private final Timer stepTimer = new Timer();
@@ -676,6 +772,11 @@ public class World {
   private final Vec2 cA = new Vec2();
   private final Vec2 cB = new Vec2();
   private final Vec2Array avs = new Vec2Array();
+  private final WorldManifold debugManifold = new WorldManifold();
+  private static final Color3f[] ISLAND_COLORS = {new Color3f(0.9f, 0.7f, 0.7f),
+      new Color3f(0.7f, 0.9f, 0.5f), new Color3f(0.6f, 0.7f, 1f), new Color3f(1f, 0.8f, 0.4f),
+      new Color3f(0.9f, 0.5f, 1f), new Color3f(0.4f, 0.9f, 0.9f), new Color3f(1f, 0.5f, 0.5f),
+      new Color3f(0.8f, 0.8f, 0.3f)};
 
   /**
    * Call this to draw shapes and other debug draw data.
@@ -690,7 +791,16 @@ public class World {
     boolean wireframe = (flags & DebugDraw.e_wireframeDrawingBit) != 0;
 
     if ((flags & DebugDraw.e_shapeBit) != 0) {
+      boolean islands = (flags & DebugDraw.e_islandBit) != 0;
+      if (islands) {
+        drawIslands(wireframe);
+      }
       for (Body b = m_bodyList; b != null; b = b.getNext()) {
+        if (islands && (b.m_flags & Body.e_islandFlag) != 0) {
+          // already drawn with the color of its island
+          b.m_flags &= ~Body.e_islandFlag;
+          continue;
+        }
         xf.set(b.getTransform());
         for (Fixture f = b.getFixtureList(); f != null; f = f.getNext()) {
           if (b.isActive() == false) {
@@ -731,6 +841,26 @@ public class World {
       }
     }
 
+    if ((flags & DebugDraw.e_contactPointBit) != 0) {
+      for (Contact c = m_contactManager.m_contactList; c != null; c = c.getNext()) {
+        if (c.isTouching() == false) {
+          continue;
+        }
+        if (c.isEnabled()) {
+          color.set(0.3f, 0.95f, 0.3f);
+        } else {
+          color.set(0.95f, 0.3f, 0.3f);
+        }
+        c.getWorldManifold(debugManifold);
+        for (int i = 0; i < c.getManifold().pointCount; ++i) {
+          Vec2 p = debugManifold.points[i];
+          m_debugDraw.drawPoint(p, 3f, color);
+          cA.set(debugManifold.normal).mulLocal(0.3f).addLocal(p);
+          m_debugDraw.drawSegment(p, cA, color);
+        }
+      }
+    }
+
     if ((flags & DebugDraw.e_aabbBit) != 0) {
       color.set(0.9f, 0.3f, 0.9f);
 
@@ -771,6 +901,63 @@ public class World {
     m_debugDraw.flush();
   }
 
+  /**
+   * Draws the awake bodies island by island, each island in its own color. The islands are found
+   * like in {@link #solve(TimeStep)}, but without waking up any bodies. The drawn bodies are marked
+   * with the island flag, which is cleared again by the caller.
+   */
+  private void drawIslands(boolean wireframe) {
+    if (stack.length < m_bodyCount) {
+      stack = new Body[m_bodyCount];
+    }
+    for (Body b = m_bodyList; b != null; b = b.m_next) {
+      b.m_flags &= ~Body.e_islandFlag;
+    }
+
+    int islandCount = 0;
+    for (Body seed = m_bodyList; seed != null; seed = seed.m_next) {
+      if ((seed.m_flags & Body.e_islandFlag) != 0 || seed.isAwake() == false
+          || seed.isActive() == false || seed.getType() == BodyType.STATIC) {
+        continue;
+      }
+
+      Color3f islandColor = ISLAND_COLORS[islandCount % ISLAND_COLORS.length];
+      ++islandCount;
+      int stackCount = 0;
+      stack[stackCount++] = seed;
+      seed.m_flags |= Body.e_islandFlag;
+      while (stackCount > 0) {
+        Body b = stack[--stackCount];
+        xf.set(b.getTransform());
+        for (Fixture f = b.getFixtureList(); f != null; f = f.getNext()) {
+          drawShape(f, xf, islandColor, wireframe);
+        }
+
+        // static bodies are not part of the island and are drawn with their own color
+        for (ContactEdge ce = b.m_contactList; ce != null; ce = ce.next) {
+          Contact contact = ce.contact;
+          Body other = ce.other;
+          if ((other.m_flags & Body.e_islandFlag) != 0 || other.getType() == BodyType.STATIC
+              || contact.isEnabled() == false || contact.isTouching() == false
+              || contact.m_fixtureA.m_isSensor || contact.m_fixtureB.m_isSensor) {
+            continue;
+          }
+          stack[stackCount++] = other;
+          other.m_flags |= Body.e_islandFlag;
+        }
+        for (JointEdge je = b.m_jointList; je != null; je = je.next) {
+          Body other = je.other;
+          if ((other.m_flags & Body.e_islandFlag) != 0 || other.getType() == BodyType.STATIC
+              || other.isActive() == false) {
+            continue;
+          }
+          stack[stackCount++] = other;
+          other.m_flags |= Body.e_islandFlag;
+        }
+      }
+    }
+  }
+
   private final WorldQueryWrapper wqwrapper = new WorldQueryWrapper();
 
   /**
@@ -1058,6 +1245,10 @@ public class World {
 
   private final Island island = new Island();
   private Body[] stack = new Body[10]; // TODO djm find a good initial stack number;
+  // for solving islands in parallel
+  private SolverThreads m_solverThreads;
+  private Island[] m_islands = new Island[0];
+  private int m_islandCount;
   private final Timer broadphaseTimer = new Timer();
 
   private void solve(TimeStep step) {
@@ -1187,7 +1378,11 @@ public class World {
           other.m_flags |= Body.e_islandFlag;
         }
       }
-      island.solve(m_profile, step, m_gravity, m_allowSleep);
+      if (m_solverThreads == null) {
+        island.solve(m_profile, step, m_gravity, m_allowSleep);
+      } else {
+        addIsland(step);
+      }
 
       // Post solve cleanup.
       for (int i = 0; i < island.m_bodyCount; ++i) {
@@ -1198,6 +1393,9 @@ public class World {
         }
       }
     }
+    if (m_solverThreads != null) {
+      solveIslands(step);
+    }
     m_profile.solveInit.endAccum();
     m_profile.solveVelocity.endAccum();
     m_profile.solvePosition.endAccum();
@@ -1214,6 +1412,11 @@ public class World {
         continue;
       }
 
+      // Report the bodies the island solver has put to sleep.
+      if (m_sleepListener != null && !b.isAwake()) {
+        m_sleepListener.bodyAsleep(b);
+      }
+
       // Update fixtures (for broad-phase).
       b.synchronizeFixtures();
     }
@@ -1223,6 +1426,77 @@ public class World {
     m_profile.broadphase.record(broadphaseTimer.getMilliseconds());
   }
 
+  /**
+   * Copies the island that has just been built and initializes its constraints. The constraints
+   * must be initialized now, since the next island may reassign the island index of shared static
+   * bodies.
+   */
+  private void addIsland(TimeStep step) {
+    if (m_islandCount == m_islands.length) {
+      Island[] old = m_islands;
+      m_islands = new Island[MathUtils.max(16, 2 * old.length)];
+      System.arraycopy(old, 0, m_islands, 0, old.length);
+    }
+
+    Island target = m_islands[m_islandCount];
+    if (target == null) {
+      // most islands are small, the solvers grow as needed
+      target = new Island(0);
+      m_islands[m_islandCount] = target;
+    }
+
+    target.init(island.m_bodyCount, island.m_contactCount, island.m_jointCount,
+        m_contactManager.m_contactListener);
+    for (int i = 0; i < island.m_bodyCount; ++i) {
+      target.add(island.m_bodies[i]);
+    }
+    for (int i = 0; i < island.m_contactCount; ++i) {
+      target.add(island.m_contacts[i]);
+    }
+    for (int i = 0; i < island.m_jointCount; ++i) {
+      target.add(island.m_joints[i]);
+    }
+
+    target.initSolve(m_profile, step, m_gravity);
+    ++m_islandCount;
+  }
+
+  /**
+   * Solves the constraints of all added islands on the solver threads, then reports the impulses
+   * and puts islands to sleep in the order the islands have been built.
+   */
+  private void solveIslands(TimeStep step) {
+    islandTask.step = step;
+    m_solverThreads.run(islandTask, m_islandCount, 1);
+    m_solverThreads.addSolverTimes(m_profile);
+    for (int i = 0; i < m_islandCount; ++i) {
+      m_islands[i].finishSolve(step, m_allowSleep);
+    }
+    m_islandCount = 0;
+  }
+
+  private final IslandTask islandTask = new IslandTask();
+
+  /**
+   * Solves the constraints of one island. The joints of the island use the pool of the solving
+   * thread meanwhile.
+   */
+  private final class IslandTask implements SolverThreads.Task {
+    private TimeStep step;
+
+    public void run(int index, IWorldPool solverPool, Profile profile) {
+      Island target = m_islands[index];
+      for (int i = 0; i < target.m_jointCount; ++i) {
+        target.m_joints[i].setPool(solverPool);
+      }
+
+      target.solveConstraints(profile, step);
+      for (int i = 0; i < target.m_jointCount; ++i) {
+        target.m_joints[i].setPool(pool);
+      }
+    }
+  }
+
   private final Island toiIsland = new Island();
   private final TOIInput toiInput = new TOIInput();
   private final TOIOutput toiOutput = new TOIOutput();
@@ -1929,6 +2203,22 @@ public class World {
     return m_particleSystem.getParticleVelocityBuffer();
   }
 
+  public float[] getParticlePositionXBuffer() {
+    return m_particleSystem.getParticlePositionXBuffer();
+  }
+
+  public float[] getParticlePositionYBuffer() {
+    return m_particleSystem.getParticlePositionYBuffer();
+  }
+
+  public float[] getParticleVelocityXBuffer() {
+    return m_particleSystem.getParticleVelocityXBuffer();
+  }
+
+  public float[] getParticleVelocityYBuffer() {
+    return m_particleSystem.getParticleVelocityYBuffer();
+  }
+
   public ParticleColor[] getParticleColorBuffer() {
     return m_particleSystem.getParticleColorBuffer();
   }
@@ -1951,13 +2241,13 @@ public class World {
     m_particleSystem.setParticleFlagsBuffer(buffer, capacity);
   }
 
-  public void setParticlePositionBuffer(Vec2[] buffer, int capacity) {
-    m_particleSystem.setParticlePositionBuffer(buffer, capacity);
+  public void setParticlePositionBuffer(float[] bufferX, float[] bufferY, int capacity) {
+    m_particleSystem.setParticlePositionBuffer(bufferX, bufferY, capacity);
 
   }
 
-  public void setParticleVelocityBuffer(Vec2[] buffer, int capacity) {
-    m_particleSystem.setParticleVelocityBuffer(buffer, capacity);
+  public void setParticleVelocityBuffer(float[] bufferX, float[] bufferY, int capacity) {
+    m_particleSystem.setParticleVelocityBuffer(bufferX, bufferY, capacity);
 
   }
 
@@ -1976,7 +2266,7 @@ public class World {
    * @return
    */
   public ParticleContact[] getParticleContacts() {
-    return m_particleSystem.m_contactBuffer;
+    return m_particleSystem.getParticleContacts();
   }
 
   public int getParticleContactCount() {
@@ -0,0 +1,411 @@
+/*******************************************************************************
+ * Copyright (c) 2013, Daniel Murphy
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 	* Redistributions of source code must retain the above copyright notice,
+ * 	  this list of conditions and the following disclaimer.
+ * 	* Redistributions in binary form must reproduce the above copyright notice,
+ * 	  this list of conditions and the following disclaimer in the documentation
+ * 	  and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package org.jbox2d.dynamics;
+
+import org.jbox2d.collision.AABB;
+import org.jbox2d.collision.Manifold;
+import org.jbox2d.collision.ManifoldPoint;
+import org.jbox2d.collision.broadphase.BroadPhase;
+import org.jbox2d.dynamics.contacts.Contact;
+import org.jbox2d.dynamics.joints.Joint;
+
+/**
+ * A binary snapshot of the simulation state of a world. It contains the state of all bodies,
+ * fixtures and broad-phase proxies, the contacts and joints including the impulses used for warm
+ * starting, and the sleep state. Particles are not included. A snapshot can only be restored to the
+ * world it has been taken from, as long as no bodies, fixtures or joints have been created or
+ * destroyed in the meantime. The state is kept in primitive arrays that are reused, so taking snapshots
+ * repeatedly does not allocate memory once the arrays are large enough.
+ * 
+ * @see World#saveSnapshot(WorldSnapshot)
+ * @see World#restoreSnapshot(WorldSnapshot)
+ */
+public class WorldSnapshot {
+
+  private static final BodyType[] BODY_TYPES = BodyType.values();
+  private static final Manifold.ManifoldType[] MANIFOLD_TYPES = Manifold.ManifoldType.values();
+
+  private final AABB aabb = new AABB();
+  // the proxy ids of all fixtures and the types of all joints, used to check that the world still
+  // has the same structure
+  private int[] structure = new int[16];
+  private int structureCount;
+  private int[] ints = new int[64];
+  private int intCount;
+  private float[] floats = new float[256];
+  private int floatCount;
+  // read positions while restoring
+  private int intIndex;
+  private int floatIndex;
+
+  /**
+   * Get the size of the snapshot in bytes.
+   */
+  public int getByteCount() {
+    return 4 * (structureCount + intCount + floatCount);
+  }
+
+  /**
+   * Check if this snapshot contains any state.
+   */
+  public boolean isEmpty() {
+    return structureCount == 0;
+  }
+
+  final void save(World world) {
+    structureCount = 0;
+    intCount = 0;
+    floatCount = 0;
+    final ContactManager contactManager = world.m_contactManager;
+    final BroadPhase broadPhase = contactManager.m_broadPhase;
+    putStructure(world.getBodyCount());
+    putInt(world.m_flags & (World.NEW_FIXTURE | World.CLEAR_FORCES));
+    putFloat(world.m_inv_dt0);
+    putFloat(world.getGravity().x);
+    putFloat(world.getGravity().y);
+    for (Body b = world.getBodyList(); b != null; b = b.m_next) {
+      putStructure(b.m_fixtureCount);
+      putInt(b.m_type.ordinal());
+      putInt(b.m_flags);
+      putFloat(b.m_xf.p.x);
+      putFloat(b.m_xf.p.y);
+      putFloat(b.m_xf.q.s);
+      putFloat(b.m_xf.q.c);
+      putFloat(b.m_sweep.localCenter.x);
+      putFloat(b.m_sweep.localCenter.y);
+      putFloat(b.m_sweep.c0.x);
+      putFloat(b.m_sweep.c0.y);
+      putFloat(b.m_sweep.c.x);
+      putFloat(b.m_sweep.c.y);
+      putFloat(b.m_sweep.a0);
+      putFloat(b.m_sweep.a);
+      putFloat(b.m_sweep.alpha0);
+      putFloat(b.m_linearVelocity.x);
+      putFloat(b.m_linearVelocity.y);
+      putFloat(b.m_angularVelocity);
+      putFloat(b.m_force.x);
+      putFloat(b.m_force.y);
+      putFloat(b.m_torque);
+      putFloat(b.m_mass);
+      putFloat(b.m_invMass);
+      putFloat(b.m_I);
+      putFloat(b.m_invI);
+      putFloat(b.m_linearDamping);
+      putFloat(b.m_angularDamping);
+      putFloat(b.m_gravityScale);
+      putFloat(b.m_sleepTime);
+      for (Fixture f = b.m_fixtureList; f != null; f = f.m_next) {
+        putStructure(f.m_proxyCount);
+        putInt(f.m_isSensor ? 1 : 0);
+        putInt(f.m_filter.categoryBits);
+        putInt(f.m_filter.maskBits);
+        putInt(f.m_filter.groupIndex);
+        putFloat(f.m_density);
+        putFloat(f.m_friction);
+        putFloat(f.m_restitution);
+        for (int i = 0; i < f.m_proxyCount; ++i) {
+          final FixtureProxy proxy = f.m_proxies[i];
+          putStructure(proxy.proxyId);
+          putAABB(proxy.aabb);
+          putAABB(broadPhase.getFatAABB(proxy.proxyId));
+        }
+      }
+    }
+
+    putStructure(world.getJointCount());
+    for (Joint j = world.getJointList(); j != null; j = j.m_next) {
+      putStructure(j.getType().ordinal());
+      final int stateSize = j.getStateSize();
+      ensureFloats(stateSize);
+      j.saveState(floats, floatCount);
+      floatCount += stateSize;
+    }
+
+    final int moveCount = broadPhase.getMoveCount();
+    putInt(moveCount);
+    for (int i = 0; i < moveCount; ++i) {
+      putInt(broadPhase.getMoveProxy(i));
+    }
+
+    // Store the contacts from the oldest to the newest, so that restoring them in this order
+    // recreates the same order of the contact lists.
+    putInt(contactManager.m_contactCount);
+    Contact last = contactManager.m_contactList;
+    while (last != null && last.m_next != null) {
+      last = last.m_next;
+    }
+
+    for (Contact c = last; c != null; c = c.m_prev) {
+      putInt(c.m_fixtureA.m_proxies[c.m_indexA].proxyId);
+      putInt(c.m_fixtureB.m_proxies[c.m_indexB].proxyId);
+      putInt(c.m_flags);
+      putFloat(c.m_toiCount);
+      putFloat(c.m_toi);
+      putFloat(c.m_friction);
+      putFloat(c.m_restitution);
+      putFloat(c.m_tangentSpeed);
+      final Manifold manifold = c.m_manifold;
+      putInt(manifold.type == null ? -1 : manifold.type.ordinal());
+      putInt(manifold.pointCount);
+      putFloat(manifold.localNormal.x);
+      putFloat(manifold.localNormal.y);
+      putFloat(manifold.localPoint.x);
+      putFloat(manifold.localPoint.y);
+      for (int i = 0; i < manifold.pointCount; ++i) {
+        final ManifoldPoint point = manifold.points[i];
+        putInt((point.id.indexA & 0xFF) << 24 | (point.id.indexB & 0xFF) << 16
+            | (point.id.typeA & 0xFF) << 8 | (point.id.typeB & 0xFF));
+        putFloat(point.localPoint.x);
+        putFloat(point.localPoint.y);
+        putFloat(point.normalImpulse);
+        putFloat(point.tangentImpulse);
+      }
+    }
+  }
+
+  final boolean restore(World world) {
+    if (isEmpty() || !matches(world)) {
+      return false;
+    }
+
+    final ContactManager contactManager = world.m_contactManager;
+    final BroadPhase broadPhase = contactManager.m_broadPhase;
+    // Restoring must not report any events.
+    final org.jbox2d.callbacks.ContactListener contactListener = contactManager.m_contactListener;
+    final org.jbox2d.callbacks.SleepListener sleepListener = world.m_sleepListener;
+    contactManager.m_contactListener = null;
+    world.m_sleepListener = null;
+    while (contactManager.m_contactList != null) {
+      contactManager.destroy(contactManager.m_contactList);
+    }
+
+    intIndex = 0;
+    floatIndex = 0;
+    world.m_flags = (world.m_flags & ~(World.NEW_FIXTURE | World.CLEAR_FORCES)) | getInt();
+    world.m_inv_dt0 = getFloat();
+    world.getGravity().x = getFloat();
+    world.getGravity().y = getFloat();
+    for (Body b = world.getBodyList(); b != null; b = b.m_next) {
+      b.m_type = BODY_TYPES[getInt()];
+      b.m_flags = getInt();
+      b.m_xf.p.x = getFloat();
+      b.m_xf.p.y = getFloat();
+      b.m_xf.q.s = getFloat();
+      b.m_xf.q.c = getFloat();
+      b.m_sweep.localCenter.x = getFloat();
+      b.m_sweep.localCenter.y = getFloat();
+      b.m_sweep.c0.x = getFloat();
+      b.m_sweep.c0.y = getFloat();
+      b.m_sweep.c.x = getFloat();
+      b.m_sweep.c.y = getFloat();
+      b.m_sweep.a0 = getFloat();
+      b.m_sweep.a = getFloat();
+      b.m_sweep.alpha0 = getFloat();
+      b.m_linearVelocity.x = getFloat();
+      b.m_linearVelocity.y = getFloat();
+      b.m_angularVelocity = getFloat();
+      b.m_force.x = getFloat();
+      b.m_force.y = getFloat();
+      b.m_torque = getFloat();
+      b.m_mass = getFloat();
+      b.m_invMass = getFloat();
+      b.m_I = getFloat();
+      b.m_invI = getFloat();
+      b.m_linearDamping = getFloat();
+      b.m_angularDamping = getFloat();
+      b.m_gravityScale = getFloat();
+      b.m_sleepTime = getFloat();
+      for (Fixture f = b.m_fixtureList; f != null; f = f.m_next) {
+        f.m_isSensor = getInt() != 0;
+        f.m_filter.categoryBits = getInt();
+        f.m_filter.maskBits = getInt();
+        f.m_filter.groupIndex = getInt();
+        f.m_density = getFloat();
+        f.m_friction = getFloat();
+        f.m_restitution = getFloat();
+        for (int i = 0; i < f.m_proxyCount; ++i) {
+          final FixtureProxy proxy = f.m_proxies[i];
+          getAABB(proxy.aabb);
+          getAABB(aabb);
+          broadPhase.setFatAABB(proxy.proxyId, aabb);
+        }
+      }
+    }
+
+    for (Joint j = world.getJointList(); j != null; j = j.m_next) {
+      j.restoreState(floats, floatIndex);
+      floatIndex += j.getStateSize();
+    }
+
+    broadPhase.clearMoves();
+    final int moveCount = getInt();
+    for (int i = 0; i < moveCount; ++i) {
+      final int proxyId = getInt();
+      if (proxyId != BroadPhase.NULL_PROXY) {
+        broadPhase.touchProxy(proxyId);
+      }
+    }
+
+    final int contactCount = getInt();
+    for (int i = 0; i < contactCount; ++i) {
+      final FixtureProxy proxyA = (FixtureProxy) broadPhase.getUserData(getInt());
+      final FixtureProxy proxyB = (FixtureProxy) broadPhase.getUserData(getInt());
+      final Contact c =
+          world.popContact(proxyA.fixture, proxyA.childIndex, proxyB.fixture, proxyB.childIndex);
+      assert (c.m_fixtureA == proxyA.fixture);
+      contactManager.insert(c);
+      c.m_flags = getInt();
+      c.m_toiCount = getFloat();
+      c.m_toi = getFloat();
+      c.m_friction = getFloat();
+      c.m_restitution = getFloat();
+      c.m_tangentSpeed = getFloat();
+      final Manifold manifold = c.m_manifold;
+      final int type = getInt();
+      manifold.type = type < 0 ? null : MANIFOLD_TYPES[type];
+      manifold.pointCount = getInt();
+      manifold.localNormal.x = getFloat();
+      manifold.localNormal.y = getFloat();
+      manifold.localPoint.x = getFloat();
+      manifold.localPoint.y = getFloat();
+      for (int j = 0; j < manifold.pointCount; ++j) {
+        final ManifoldPoint point = manifold.points[j];
+        final int key = getInt();
+        point.id.indexA = (byte) (key >> 24);
+        point.id.indexB = (byte) (key >> 16);
+        point.id.typeA = (byte) (key >> 8);
+        point.id.typeB = (byte) key;
+        point.localPoint.x = getFloat();
+        point.localPoint.y = getFloat();
+        point.normalImpulse = getFloat();
+        point.tangentImpulse = getFloat();
+      }
+    }
+
+    contactManager.m_contactListener = contactListener;
+    world.m_sleepListener = sleepListener;
+    return true;
+  }
+
+  private boolean matches(World world) {
+    intIndex = 0;
+    if (!nextStructure(world.getBodyCount())) {
+      return false;
+    }
+
+    for (Body b = world.getBodyList(); b != null; b = b.m_next) {
+      if (!nextStructure(b.m_fixtureCount)) {
+        return false;
+      }
+
+      for (Fixture f = b.m_fixtureList; f != null; f = f.m_next) {
+        if (!nextStructure(f.m_proxyCount)) {
+          return false;
+        }
+
+        for (int i = 0; i < f.m_proxyCount; ++i) {
+          if (!nextStructure(f.m_proxies[i].proxyId)) {
+            return false;
+          }
+        }
+      }
+    }
+
+    if (!nextStructure(world.getJointCount())) {
+      return false;
+    }
+
+    for (Joint j = world.getJointList(); j != null; j = j.m_next) {
+      if (!nextStructure(j.getType().ordinal())) {
+        return false;
+      }
+    }
+
+    return intIndex == structureCount;
+  }
+
+  private boolean nextStructure(int value) {
+    return intIndex < structureCount && structure[intIndex++] == value;
+  }
+
+  private void ensureFloats(int count) {
+    if (floatCount + count > floats.length) {
+      final float[] old = floats;
+      floats = new float[Math.max(2 * old.length, floatCount + count)];
+      System.arraycopy(old, 0, floats, 0, floatCount);
+    }
+  }
+
+  private void getAABB(AABB out) {
+    out.lowerBound.x = getFloat();
+    out.lowerBound.y = getFloat();
+    out.upperBound.x = getFloat();
+    out.upperBound.y = getFloat();
+  }
+
+  private float getFloat() {
+    return floats[floatIndex++];
+  }
+
+  private int getInt() {
+    return ints[intIndex++];
+  }
+
+  private void putAABB(AABB aabb) {
+    putFloat(aabb.lowerBound.x);
+    putFloat(aabb.lowerBound.y);
+    putFloat(aabb.upperBound.x);
+    putFloat(aabb.upperBound.y);
+  }
+
+  private void putFloat(float value) {
+    if (floatCount == floats.length) {
+      final float[] old = floats;
+      floats = new float[2 * old.length];
+      System.arraycopy(old, 0, floats, 0, floatCount);
+    }
+
+    floats[floatCount++] = value;
+  }
+
+  private void putInt(int value) {
+    if (intCount == ints.length) {
+      final int[] old = ints;
+      ints = new int[2 * old.length];
+      System.arraycopy(old, 0, ints, 0, intCount);
+    }
+
+    ints[intCount++] = value;
+  }
+
+  private void putStructure(int value) {
+    if (structureCount == structure.length) {
+      final int[] old = structure;
+      structure = new int[2 * old.length];
+      System.arraycopy(old, 0, structure, 0, structureCount);
+    }
+
+    structure[structureCount++] = value;
+  }
+}
@@ -58,6 +58,8 @@ public abstract class Contact {
   public static final int BULLET_HIT_FLAG = 0x0010;
 
   public static final int TOI_FLAG = 0x0020;
+  // The manifold has been evaluated by the parallel collide phase, the update must be finished.
+  public static final int EVALUATED_FLAG = 0x0040;
 
   public int m_flags;
 
@@ -85,7 +87,7 @@ public abstract class Contact {
 
   public float m_tangentSpeed;
 
-  protected final IWorldPool pool;
+  protected IWorldPool pool;
 
   protected Contact(IWorldPool argPool) {
     m_fixtureA = null;
@@ -259,7 +261,24 @@ public abstract class Contact {
   // djm pooling
   private final Manifold oldManifold = new Manifold();
 
+  private boolean m_updateSensor;
+  private boolean m_updateTouching;
+
   public void update(ContactListener listener) {
+    evaluateUpdate(pool);
+    finishUpdate(listener);
+  }
+
+  /**
+   * First part of {@link #update}: evaluates the manifold using the given pool for temporary
+   * objects. Neither wakes the bodies nor calls the listener, so different contacts can be evaluated
+   * concurrently.
+   * 
+   * @param updatePool
+   */
+  public void evaluateUpdate(IWorldPool updatePool) {
+    final IWorldPool contactPool = pool;
+    pool = updatePool;
 
     oldManifold.set(m_manifold);
 
@@ -267,7 +286,6 @@ public abstract class Contact {
     m_flags |= ENABLED_FLAG;
 
     boolean touching = false;
-    boolean wasTouching = (m_flags & TOUCHING_FLAG) == TOUCHING_FLAG;
 
     boolean sensorA = m_fixtureA.isSensor();
     boolean sensorB = m_fixtureB.isSensor();
@@ -309,11 +327,37 @@ public abstract class Contact {
           }
         }
       }
+    }
 
-      if (touching != wasTouching) {
-        bodyA.setAwake(true);
-        bodyB.setAwake(true);
-      }
+    m_updateSensor = sensor;
+    m_updateTouching = touching;
+    pool = contactPool;
+  }
+
+  /**
+   * Undoes {@link #evaluateUpdate} if the update cannot be finished, e.g. because the contact has
+   * been flagged for filtering meanwhile.
+   */
+  public void cancelUpdate() {
+    m_manifold.set(oldManifold);
+  }
+
+  /**
+   * Second part of {@link #update}: updates the touching state, wakes the bodies and calls the
+   * listener.
+   * 
+   * @param listener
+   */
+  public void finishUpdate(ContactListener listener) {
+    boolean touching = m_updateTouching;
+    boolean wasTouching = (m_flags & TOUCHING_FLAG) == TOUCHING_FLAG;
+    boolean sensor = m_updateSensor;
+
+    if (sensor == false && touching != wasTouching) {
+      Body bodyA = m_fixtureA.getBody();
+      Body bodyB = m_fixtureB.getBody();
+      bodyA.setAwake(true);
+      bodyB.setAwake(true);
     }
 
     if (touching) {
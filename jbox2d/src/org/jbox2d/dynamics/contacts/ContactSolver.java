@@ -65,9 +65,13 @@ public class ContactSolver {
   public int m_count;
 
   public ContactSolver() {
-    m_positionConstraints = new ContactPositionConstraint[INITIAL_NUM_CONSTRAINTS];
-    m_velocityConstraints = new ContactVelocityConstraint[INITIAL_NUM_CONSTRAINTS];
-    for (int i = 0; i < INITIAL_NUM_CONSTRAINTS; i++) {
+    this(INITIAL_NUM_CONSTRAINTS);
+  }
+
+  public ContactSolver(int initialCapacity) {
+    m_positionConstraints = new ContactPositionConstraint[initialCapacity];
+    m_velocityConstraints = new ContactVelocityConstraint[initialCapacity];
+    for (int i = 0; i < initialCapacity; i++) {
       m_positionConstraints[i] = new ContactPositionConstraint();
       m_velocityConstraints[i] = new ContactVelocityConstraint();
     }
@@ -255,4 +255,19 @@ public class ConstantVolumeJoint extends Joint {
   public float getReactionTorque(float inv_dt) {
     return 0;
   }
+
+  @Override
+  public int getStateSize() {
+    return 1;
+  }
+
+  @Override
+  public void saveState(float[] out, int offset) {
+    out[offset] = m_impulse;
+  }
+
+  @Override
+  public void restoreState(float[] in, int offset) {
+    m_impulse = in[offset];
+  }
 }
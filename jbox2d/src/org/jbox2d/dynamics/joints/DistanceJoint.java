@@ -353,4 +353,19 @@ public class DistanceJoint extends Joint {
 
     return MathUtils.abs(C) < Settings.linearSlop;
   }
+
+  @Override
+  public int getStateSize() {
+    return 1;
+  }
+
+  @Override
+  public void saveState(float[] out, int offset) {
+    out[offset] = m_impulse;
+  }
+
+  @Override
+  public void restoreState(float[] in, int offset) {
+    m_impulse = in[offset];
+  }
 }
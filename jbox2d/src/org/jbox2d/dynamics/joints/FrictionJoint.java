@@ -291,4 +291,23 @@ public class FrictionJoint extends Joint {
   public boolean solvePositionConstraints(final SolverData data) {
     return true;
   }
+
+  @Override
+  public int getStateSize() {
+    return 3;
+  }
+
+  @Override
+  public void saveState(float[] out, int offset) {
+    out[offset] = m_linearImpulse.x;
+    out[offset + 1] = m_linearImpulse.y;
+    out[offset + 2] = m_angularImpulse;
+  }
+
+  @Override
+  public void restoreState(float[] in, int offset) {
+    m_linearImpulse.x = in[offset];
+    m_linearImpulse.y = in[offset + 1];
+    m_angularImpulse = in[offset + 2];
+  }
 }
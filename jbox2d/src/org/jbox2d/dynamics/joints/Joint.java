@@ -124,6 +124,16 @@ public abstract class Joint {
     // m_localCenterB = new Vec2();
   }
 
+  /**
+   * Set the pool for temporary objects. Internal: the parallel island solver hands each joint the
+   * pool of the thread that solves it.
+   * 
+   * @param pool
+   */
+  public void setPool(IWorldPool pool) {
+    this.pool = pool;
+  }
+
   /**
    * get the type of the concrete joint.
    * 
@@ -228,6 +238,24 @@ public abstract class Joint {
    */
   public abstract boolean solvePositionConstraints(SolverData data);
 
+  /**
+   * Get the number of values written by {@link #saveState(float[], int)}. Internal.
+   */
+  public int getStateSize() {
+    return 0;
+  }
+
+  /**
+   * Save the state that carries over from one step to the next, i.e. the impulses used for warm
+   * starting and the limit state. Internal.
+   */
+  public void saveState(float[] out, int offset) {}
+
+  /**
+   * Restore the state saved by {@link #saveState(float[], int)}. Internal.
+   */
+  public void restoreState(float[] in, int offset) {}
+
   /**
    * Override to handle destruction of joint
    */
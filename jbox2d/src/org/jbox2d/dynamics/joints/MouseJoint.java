@@ -259,4 +259,20 @@ public class MouseJoint extends Joint {
     pool.pushVec2(3);
   }
 
+  @Override
+  public int getStateSize() {
+    return 2;
+  }
+
+  @Override
+  public void saveState(float[] out, int offset) {
+    out[offset] = m_impulse.x;
+    out[offset + 1] = m_impulse.y;
+  }
+
+  @Override
+  public void restoreState(float[] in, int offset) {
+    m_impulse.x = in[offset];
+    m_impulse.y = in[offset + 1];
+  }
 }
@@ -109,6 +109,8 @@ import org.jbox2d.pooling.IWorldPool;
  * @author Daniel
  */
 public class PrismaticJoint extends Joint {
+  private static final LimitState[] LIMIT_STATES = LimitState.values();
+
 
   // Solver shared
   protected final Vec2 m_localAnchorA;
@@ -805,4 +807,27 @@ public class PrismaticJoint extends Joint {
 
     return linearError <= Settings.linearSlop && angularError <= Settings.angularSlop;
   }
+
+  @Override
+  public int getStateSize() {
+    return 5;
+  }
+
+  @Override
+  public void saveState(float[] out, int offset) {
+    out[offset] = m_impulse.x;
+    out[offset + 1] = m_impulse.y;
+    out[offset + 2] = m_impulse.z;
+    out[offset + 3] = m_motorImpulse;
+    out[offset + 4] = m_limitState.ordinal();
+  }
+
+  @Override
+  public void restoreState(float[] in, int offset) {
+    m_impulse.x = in[offset];
+    m_impulse.y = in[offset + 1];
+    m_impulse.z = in[offset + 2];
+    m_motorImpulse = in[offset + 3];
+    m_limitState = LIMIT_STATES[(int) in[offset + 4]];
+  }
 }
@@ -390,4 +390,19 @@ public class PulleyJoint extends Joint {
 
     return linearError < Settings.linearSlop;
   }
+
+  @Override
+  public int getStateSize() {
+    return 1;
+  }
+
+  @Override
+  public void saveState(float[] out, int offset) {
+    out[offset] = m_impulse;
+  }
+
+  @Override
+  public void restoreState(float[] in, int offset) {
+    m_impulse = in[offset];
+  }
 }
@@ -17,6 +17,7 @@ import org.jbox2d.pooling.IWorldPool;
  * @author Daniel Murphy
  */
 public class RopeJoint extends Joint {
+  private static final LimitState[] LIMIT_STATES = LimitState.values();
   // Solver shared
   private final Vec2 m_localAnchorA = new Vec2();
   private final Vec2 m_localAnchorB = new Vec2();
@@ -273,4 +274,20 @@ public class RopeJoint extends Joint {
     return m_state;
   }
 
+  @Override
+  public int getStateSize() {
+    return 2;
+  }
+
+  @Override
+  public void saveState(float[] out, int offset) {
+    out[offset] = m_impulse;
+    out[offset + 1] = m_state.ordinal();
+  }
+
+  @Override
+  public void restoreState(float[] in, int offset) {
+    m_impulse = in[offset];
+    m_state = LIMIT_STATES[(int) in[offset + 1]];
+  }
 }
@@ -421,4 +421,23 @@ public class WeldJoint extends Joint {
 
     return positionError <= Settings.linearSlop && angularError <= Settings.angularSlop;
   }
+
+  @Override
+  public int getStateSize() {
+    return 3;
+  }
+
+  @Override
+  public void saveState(float[] out, int offset) {
+    out[offset] = m_impulse.x;
+    out[offset + 1] = m_impulse.y;
+    out[offset + 2] = m_impulse.z;
+  }
+
+  @Override
+  public void restoreState(float[] in, int offset) {
+    m_impulse.x = in[offset];
+    m_impulse.y = in[offset + 1];
+    m_impulse.z = in[offset + 2];
+  }
 }
@@ -495,4 +495,23 @@ public class WheelJoint extends Joint {
 
     return MathUtils.abs(C) <= Settings.linearSlop;
   }
+
+  @Override
+  public int getStateSize() {
+    return 3;
+  }
+
+  @Override
+  public void saveState(float[] out, int offset) {
+    out[offset] = m_impulse;
+    out[offset + 1] = m_motorImpulse;
+    out[offset + 2] = m_springImpulse;
+  }
+
+  @Override
+  public void restoreState(float[] in, int offset) {
+    m_impulse = in[offset];
+    m_motorImpulse = in[offset + 1];
+    m_springImpulse = in[offset + 2];
+  }
 }
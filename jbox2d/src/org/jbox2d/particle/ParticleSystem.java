@@ -19,9 +19,12 @@ import org.jbox2d.common.Transform;
 import org.jbox2d.common.Vec2;
 import org.jbox2d.dynamics.Body;
 import org.jbox2d.dynamics.Fixture;
+import org.jbox2d.dynamics.Profile;
+import org.jbox2d.dynamics.SolverThreads;
 import org.jbox2d.dynamics.TimeStep;
 import org.jbox2d.dynamics.World;
 import org.jbox2d.particle.VoronoiDiagram.VoronoiDiagramCallback;
+import org.jbox2d.pooling.IWorldPool;
 
 public class ParticleSystem {
   /** All particle types that require creating pairs */
@@ -68,10 +71,15 @@ public class ParticleSystem {
   int m_internalAllocatedCapacity;
   int m_maxCount;
   ParticleBufferInt m_flagsBuffer;
-  ParticleBuffer<Vec2> m_positionBuffer;
-  ParticleBuffer<Vec2> m_velocityBuffer;
+  // Positions and velocities are kept as separate x and y arrays, so the solvers are plain loops
+  // over primitive arrays instead of chasing a Vec2 per particle.
+  ParticleBufferFloat m_positionXBuffer;
+  ParticleBufferFloat m_positionYBuffer;
+  ParticleBufferFloat m_velocityXBuffer;
+  ParticleBufferFloat m_velocityYBuffer;
   float[] m_accumulationBuffer; // temporary values
-  Vec2[] m_accumulation2Buffer; // temporary vector values
+  float[] m_accumulation2XBuffer; // temporary vector values
+  float[] m_accumulation2YBuffer;
   float[] m_depthBuffer; // distance from the surface
 
   public ParticleBuffer<ParticleColor> m_colorBuffer;
@@ -84,7 +92,17 @@ public class ParticleSystem {
 
   public int m_contactCount;
   int m_contactCapacity;
-  public ParticleContact[] m_contactBuffer;
+  int[] m_contactIndexABuffer;
+  int[] m_contactIndexBBuffer;
+  int[] m_contactFlagsBuffer;
+  float[] m_contactWeightBuffer;
+  float[] m_contactNormalXBuffer;
+  float[] m_contactNormalYBuffer;
+  // impulses of the contacts, computed by the solver threads and applied in contact order
+  float[] m_contactImpulseXBuffer;
+  float[] m_contactImpulseYBuffer;
+  // copy of the contacts for getParticleContacts()
+  private ParticleContact[] m_contactBuffer;
 
   public int m_bodyContactCount;
   int m_bodyContactCapacity;
@@ -113,6 +131,9 @@ public class ParticleSystem {
   float m_colorMixingStrength;
 
   World m_world;
+  SolverThreads m_solverThreads;
+  private Vec2[] m_positionCopy;
+  private Vec2[] m_velocityCopy;
 
   public ParticleSystem(World world) {
     m_world = world;
@@ -159,18 +180,19 @@ public class ParticleSystem {
     m_colorMixingStrength = 0.5f;
 
     m_flagsBuffer = new ParticleBufferInt();
-    m_positionBuffer = new ParticleBuffer<Vec2>(Vec2.class);
-    m_velocityBuffer = new ParticleBuffer<Vec2>(Vec2.class);
+    m_positionXBuffer = new ParticleBufferFloat();
+    m_positionYBuffer = new ParticleBufferFloat();
+    m_velocityXBuffer = new ParticleBufferFloat();
+    m_velocityYBuffer = new ParticleBufferFloat();
     m_colorBuffer = new ParticleBuffer<ParticleColor>(ParticleColor.class);
     m_userDataBuffer = new ParticleBuffer<Object>(Object.class);
   }
   
 //  public void assertNotSamePosition() {
 //    for (int i = 0; i < m_count; i++) {
-//      Vec2 vi = m_positionBuffer.data[i];
 //      for (int j = i + 1; j < m_count; j++) {
-//        Vec2 vj = m_positionBuffer.data[j];
-//        assert(vi.x != vj.x || vi.y != vj.y);
+//        assert(m_positionXBuffer.data[i] != m_positionXBuffer.data[j]
+//            || m_positionYBuffer.data[i] != m_positionYBuffer.data[j]);
 //      }
 //    }
 //  }
@@ -180,23 +202,32 @@ public class ParticleSystem {
       int capacity = m_count != 0 ? 2 * m_count : Settings.minParticleBufferCapacity;
       capacity = limitCapacity(capacity, m_maxCount);
       capacity = limitCapacity(capacity, m_flagsBuffer.userSuppliedCapacity);
-      capacity = limitCapacity(capacity, m_positionBuffer.userSuppliedCapacity);
-      capacity = limitCapacity(capacity, m_velocityBuffer.userSuppliedCapacity);
+      capacity = limitCapacity(capacity, m_positionXBuffer.userSuppliedCapacity);
+      capacity = limitCapacity(capacity, m_positionYBuffer.userSuppliedCapacity);
+      capacity = limitCapacity(capacity, m_velocityXBuffer.userSuppliedCapacity);
+      capacity = limitCapacity(capacity, m_velocityYBuffer.userSuppliedCapacity);
       capacity = limitCapacity(capacity, m_colorBuffer.userSuppliedCapacity);
       capacity = limitCapacity(capacity, m_userDataBuffer.userSuppliedCapacity);
       if (m_internalAllocatedCapacity < capacity) {
         m_flagsBuffer.data =
             reallocateBuffer(m_flagsBuffer, m_internalAllocatedCapacity, capacity, false);
-        m_positionBuffer.data =
-            reallocateBuffer(m_positionBuffer, m_internalAllocatedCapacity, capacity, false);
-        m_velocityBuffer.data =
-            reallocateBuffer(m_velocityBuffer, m_internalAllocatedCapacity, capacity, false);
+        m_positionXBuffer.data =
+            reallocateBuffer(m_positionXBuffer, m_internalAllocatedCapacity, capacity, false);
+        m_positionYBuffer.data =
+            reallocateBuffer(m_positionYBuffer, m_internalAllocatedCapacity, capacity, false);
+        m_velocityXBuffer.data =
+            reallocateBuffer(m_velocityXBuffer, m_internalAllocatedCapacity, capacity, false);
+        m_velocityYBuffer.data =
+            reallocateBuffer(m_velocityYBuffer, m_internalAllocatedCapacity, capacity, false);
         m_accumulationBuffer =
             BufferUtils.reallocateBuffer(m_accumulationBuffer, 0, m_internalAllocatedCapacity,
                 capacity, false);
-        m_accumulation2Buffer =
-            BufferUtils.reallocateBuffer(Vec2.class, m_accumulation2Buffer, 0,
-                m_internalAllocatedCapacity, capacity, true);
+        m_accumulation2XBuffer =
+            BufferUtils.reallocateBuffer(m_accumulation2XBuffer, 0, m_internalAllocatedCapacity,
+                capacity, true);
+        m_accumulation2YBuffer =
+            BufferUtils.reallocateBuffer(m_accumulation2YBuffer, 0, m_internalAllocatedCapacity,
+                capacity, true);
         m_depthBuffer =
             BufferUtils.reallocateBuffer(m_depthBuffer, 0, m_internalAllocatedCapacity, capacity,
                 true);
@@ -215,9 +246,11 @@ public class ParticleSystem {
     }
     int index = m_count++;
     m_flagsBuffer.data[index] = def.flags;
-    m_positionBuffer.data[index].set(def.position);
+    m_positionXBuffer.data[index] = def.position.x;
+    m_positionYBuffer.data[index] = def.position.y;
 //    assertNotSamePosition();
-    m_velocityBuffer.data[index].set(def.velocity);
+    m_velocityXBuffer.data[index] = def.velocity.x;
+    m_velocityYBuffer.data[index] = def.velocity.y;
     m_groupBuffer[index] = null;
     if (m_depthBuffer != null) {
       m_depthBuffer[index] = 0;
@@ -345,9 +378,8 @@ public class ParticleSystem {
     updateContacts(true);
     if ((groupDef.flags & k_pairFlags) != 0) {
       for (int k = 0; k < m_contactCount; k++) {
-        ParticleContact contact = m_contactBuffer[k];
-        int a = contact.indexA;
-        int b = contact.indexB;
+        int a = m_contactIndexABuffer[k];
+        int b = m_contactIndexBBuffer[k];
         if (a > b) {
           int temp = a;
           a = b;
@@ -365,9 +397,9 @@ public class ParticleSystem {
           Pair pair = m_pairBuffer[m_pairCount];
           pair.indexA = a;
           pair.indexB = b;
-          pair.flags = contact.flags;
+          pair.flags = m_contactFlagsBuffer[k];
           pair.strength = groupDef.strength;
-          pair.distance = MathUtils.distance(m_positionBuffer.data[a], m_positionBuffer.data[b]);
+          pair.distance = particleDistance(a, b);
           m_pairCount++;
         }
       }
@@ -375,7 +407,9 @@ public class ParticleSystem {
     if ((groupDef.flags & k_triadFlags) != 0) {
       VoronoiDiagram diagram = new VoronoiDiagram(lastIndex - firstIndex);
       for (int i = firstIndex; i < lastIndex; i++) {
-        diagram.addGenerator(m_positionBuffer.data[i], i);
+        tempVec.x = m_positionXBuffer.data[i];
+        tempVec.y = m_positionYBuffer.data[i];
+        diagram.addGenerator(tempVec, i);
       }
       diagram.generate(stride / 2);
       createParticleGroupCallback.system = this;
@@ -405,9 +439,8 @@ public class ParticleSystem {
     updateContacts(true);
     if ((particleFlags & k_pairFlags) != 0) {
       for (int k = 0; k < m_contactCount; k++) {
-        final ParticleContact contact = m_contactBuffer[k];
-        int a = contact.indexA;
-        int b = contact.indexB;
+        int a = m_contactIndexABuffer[k];
+        int b = m_contactIndexBBuffer[k];
         if (a > b) {
           int temp = a;
           a = b;
@@ -426,9 +459,9 @@ public class ParticleSystem {
           Pair pair = m_pairBuffer[m_pairCount];
           pair.indexA = a;
           pair.indexB = b;
-          pair.flags = contact.flags;
+          pair.flags = m_contactFlagsBuffer[k];
           pair.strength = MathUtils.min(groupA.m_strength, groupB.m_strength);
-          pair.distance = MathUtils.distance(m_positionBuffer.data[a], m_positionBuffer.data[b]);
+          pair.distance = particleDistance(a, b);
           m_pairCount++;
         }
       }
@@ -437,7 +470,9 @@ public class ParticleSystem {
       VoronoiDiagram diagram = new VoronoiDiagram(groupB.m_lastIndex - groupA.m_firstIndex);
       for (int i = groupA.m_firstIndex; i < groupB.m_lastIndex; i++) {
         if ((m_flagsBuffer.data[i] & ParticleType.b2_zombieParticle) == 0) {
-          diagram.addGenerator(m_positionBuffer.data[i], i);
+          tempVec.x = m_positionXBuffer.data[i];
+          tempVec.y = m_positionYBuffer.data[i];
+          diagram.addGenerator(tempVec, i);
         }
       }
       diagram.generate(getParticleStride() / 2);
@@ -493,12 +528,11 @@ public class ParticleSystem {
       m_accumulationBuffer[i] = 0;
     }
     for (int k = 0; k < m_contactCount; k++) {
-      final ParticleContact contact = m_contactBuffer[k];
-      int a = contact.indexA;
-      int b = contact.indexB;
+      int a = m_contactIndexABuffer[k];
+      int b = m_contactIndexBBuffer[k];
       if (a >= group.m_firstIndex && a < group.m_lastIndex && b >= group.m_firstIndex
           && b < group.m_lastIndex) {
-        float w = contact.weight;
+        float w = m_contactWeightBuffer[k];
         m_accumulationBuffer[a] += w;
         m_accumulationBuffer[b] += w;
       }
@@ -512,12 +546,11 @@ public class ParticleSystem {
     for (int t = 0; t < interationCount; t++) {
       boolean updated = false;
       for (int k = 0; k < m_contactCount; k++) {
-        final ParticleContact contact = m_contactBuffer[k];
-        int a = contact.indexA;
-        int b = contact.indexB;
+        int a = m_contactIndexABuffer[k];
+        int b = m_contactIndexBBuffer[k];
         if (a >= group.m_firstIndex && a < group.m_lastIndex && b >= group.m_firstIndex
             && b < group.m_lastIndex) {
-          float r = 1 - contact.weight;
+          float r = 1 - m_contactWeightBuffer[k];
           float ap0 = m_depthBuffer[a];
           float bp0 = m_depthBuffer[b];
           float ap1 = bp0 + r;
@@ -548,10 +581,10 @@ public class ParticleSystem {
 
   public void addContact(int a, int b) {
     assert(a != b);
-    Vec2 pa = m_positionBuffer.data[a];
-    Vec2 pb = m_positionBuffer.data[b];
-    float dx = pb.x - pa.x;
-    float dy = pb.y - pa.y;
+    final float[] positionX = m_positionXBuffer.data;
+    final float[] positionY = m_positionYBuffer.data;
+    float dx = positionX[b] - positionX[a];
+    float dy = positionY[b] - positionY[a];
     float d2 = dx * dx + dy * dy;
 //    assert(d2 != 0);
     if (d2 < m_squaredDiameter) {
@@ -559,29 +592,68 @@ public class ParticleSystem {
         int oldCapacity = m_contactCapacity;
         int newCapacity =
             m_contactCount != 0 ? 2 * m_contactCount : Settings.minParticleBufferCapacity;
-        m_contactBuffer =
-            BufferUtils.reallocateBuffer(ParticleContact.class, m_contactBuffer, oldCapacity,
-                newCapacity);
+        reallocateContactBuffers(oldCapacity, newCapacity);
         m_contactCapacity = newCapacity;
       }
       float invD = d2 != 0 ? MathUtils.sqrt(1 / d2) : Float.MAX_VALUE;
-      ParticleContact contact = m_contactBuffer[m_contactCount];
-      contact.indexA = a;
-      contact.indexB = b;
-      contact.flags = m_flagsBuffer.data[a] | m_flagsBuffer.data[b];
-      contact.weight = 1 - d2 * invD * m_inverseDiameter;
-      contact.normal.x = invD * dx;
-      contact.normal.y = invD * dy;
+      final int k = m_contactCount;
+      m_contactIndexABuffer[k] = a;
+      m_contactIndexBBuffer[k] = b;
+      m_contactFlagsBuffer[k] = m_flagsBuffer.data[a] | m_flagsBuffer.data[b];
+      m_contactWeightBuffer[k] = 1 - d2 * invD * m_inverseDiameter;
+      m_contactNormalXBuffer[k] = invD * dx;
+      m_contactNormalYBuffer[k] = invD * dy;
       m_contactCount++;
     }
   }
 
+  private void reallocateContactBuffers(int oldCapacity, int newCapacity) {
+    m_contactIndexABuffer =
+        BufferUtils.reallocateBuffer(m_contactIndexABuffer, oldCapacity, newCapacity);
+    m_contactIndexBBuffer =
+        BufferUtils.reallocateBuffer(m_contactIndexBBuffer, oldCapacity, newCapacity);
+    m_contactFlagsBuffer =
+        BufferUtils.reallocateBuffer(m_contactFlagsBuffer, oldCapacity, newCapacity);
+    m_contactWeightBuffer =
+        BufferUtils.reallocateBuffer(m_contactWeightBuffer, oldCapacity, newCapacity);
+    m_contactNormalXBuffer =
+        BufferUtils.reallocateBuffer(m_contactNormalXBuffer, oldCapacity, newCapacity);
+    m_contactNormalYBuffer =
+        BufferUtils.reallocateBuffer(m_contactNormalYBuffer, oldCapacity, newCapacity);
+    m_contactImpulseXBuffer = new float[newCapacity];
+    m_contactImpulseYBuffer = new float[newCapacity];
+  }
+
+  // Copies the contact from one index to another, used for removing contacts.
+  private void moveContact(int from, int to) {
+    m_contactIndexABuffer[to] = m_contactIndexABuffer[from];
+    m_contactIndexBBuffer[to] = m_contactIndexBBuffer[from];
+    m_contactFlagsBuffer[to] = m_contactFlagsBuffer[from];
+    m_contactWeightBuffer[to] = m_contactWeightBuffer[from];
+    m_contactNormalXBuffer[to] = m_contactNormalXBuffer[from];
+    m_contactNormalYBuffer[to] = m_contactNormalYBuffer[from];
+  }
+
+  // Copies the position of a particle into the given vector, for the methods taking a Vec2.
+  Vec2 positionOf(int index, Vec2 out) {
+    out.x = m_positionXBuffer.data[index];
+    out.y = m_positionYBuffer.data[index];
+    return out;
+  }
+
+  private float particleDistance(int a, int b) {
+    float dx = m_positionXBuffer.data[a] - m_positionXBuffer.data[b];
+    float dy = m_positionYBuffer.data[a] - m_positionYBuffer.data[b];
+    return MathUtils.sqrt(dx * dx + dy * dy);
+  }
+
   public void updateContacts(boolean exceptZombie) {
+    final float[] positionX = m_positionXBuffer.data;
+    final float[] positionY = m_positionYBuffer.data;
     for (int p = 0; p < m_proxyCount; p++) {
       Proxy proxy = m_proxyBuffer[p];
       int i = proxy.index;
-      Vec2 pos = m_positionBuffer.data[i];
-      proxy.tag = computeTag(m_inverseDiameter * pos.x, m_inverseDiameter * pos.y);
+      proxy.tag = computeTag(m_inverseDiameter * positionX[i], m_inverseDiameter * positionY[i]);
     }
     Arrays.sort(m_proxyBuffer, 0, m_proxyCount);
     m_contactCount = 0;
@@ -616,11 +688,9 @@ public class ParticleSystem {
     if (exceptZombie) {
       int j = m_contactCount;
       for (int i = 0; i < j; i++) {
-        if ((m_contactBuffer[i].flags & ParticleType.b2_zombieParticle) != 0) {
+        if ((m_contactFlagsBuffer[i] & ParticleType.b2_zombieParticle) != 0) {
           --j;
-          ParticleContact temp = m_contactBuffer[j];
-          m_contactBuffer[j] = m_contactBuffer[i];
-          m_contactBuffer[i] = temp;
+          moveContact(j, i);
           --i;
         }
       }
@@ -636,10 +706,15 @@ public class ParticleSystem {
     aabb.lowerBound.y = Float.MAX_VALUE;
     aabb.upperBound.x = -Float.MAX_VALUE;
     aabb.upperBound.y = -Float.MAX_VALUE;
+    final float[] positionX = m_positionXBuffer.data;
+    final float[] positionY = m_positionYBuffer.data;
     for (int i = 0; i < m_count; i++) {
-      Vec2 p = m_positionBuffer.data[i];
-      Vec2.minToOut(aabb.lowerBound, p, aabb.lowerBound);
-      Vec2.maxToOut(aabb.upperBound, p, aabb.upperBound);
+      final float px = positionX[i];
+      final float py = positionY[i];
+      aabb.lowerBound.x = aabb.lowerBound.x < px ? aabb.lowerBound.x : px;
+      aabb.lowerBound.y = aabb.lowerBound.y < py ? aabb.lowerBound.y : py;
+      aabb.upperBound.x = aabb.upperBound.x > px ? aabb.upperBound.x : px;
+      aabb.upperBound.y = aabb.upperBound.y > py ? aabb.upperBound.y : py;
     }
     aabb.lowerBound.x -= m_particleDiameter;
     aabb.lowerBound.y -= m_particleDiameter;
@@ -661,13 +736,15 @@ public class ParticleSystem {
     lowerBound.y = Float.MAX_VALUE;
     upperBound.x = -Float.MAX_VALUE;
     upperBound.y = -Float.MAX_VALUE;
+    final float[] positionX = m_positionXBuffer.data;
+    final float[] positionY = m_positionYBuffer.data;
+    final float[] velocityX = m_velocityXBuffer.data;
+    final float[] velocityY = m_velocityYBuffer.data;
     for (int i = 0; i < m_count; i++) {
-      final Vec2 v = m_velocityBuffer.data[i];
-      final Vec2 p1 = m_positionBuffer.data[i];
-      final float p1x = p1.x;
-      final float p1y = p1.y;
-      final float p2x = p1x + step.dt * v.x;
-      final float p2y = p1y + step.dt * v.y;
+      final float p1x = positionX[i];
+      final float p1y = positionY[i];
+      final float p2x = p1x + step.dt * velocityX[i];
+      final float p2y = p1y + step.dt * velocityY[i];
       final float bx = p1x < p2x ? p1x : p2x;
       final float by = p1y < p2y ? p1y : p2y;
       lowerBound.x = lowerBound.x < bx ? lowerBound.x : bx;
@@ -704,16 +781,19 @@ public class ParticleSystem {
     final float gravityx = step.dt * m_gravityScale * m_world.getGravity().x;
     final float gravityy = step.dt * m_gravityScale * m_world.getGravity().y;
     float criticalVelocytySquared = getCriticalVelocitySquared(step);
+    final float[] velocityX = m_velocityXBuffer.data;
+    final float[] velocityY = m_velocityYBuffer.data;
     for (int i = 0; i < m_count; i++) {
-      Vec2 v = m_velocityBuffer.data[i];
-      v.x += gravityx;
-      v.y += gravityy;
-      float v2 = v.x * v.x + v.y * v.y;
+      float vx = velocityX[i] + gravityx;
+      float vy = velocityY[i] + gravityy;
+      float v2 = vx * vx + vy * vy;
       if (v2 > criticalVelocytySquared) {
         float a = v2 == 0 ? Float.MAX_VALUE : MathUtils.sqrt(criticalVelocytySquared / v2);
-        v.x *= a;
-        v.y *= a;
+        vx *= a;
+        vy *= a;
       }
+      velocityX[i] = vx;
+      velocityY[i] = vy;
     }
     solveCollision(step);
     if ((m_allGroupFlags & ParticleGroupType.b2_rigidParticleGroup) != 0) {
@@ -722,11 +802,12 @@ public class ParticleSystem {
     if ((m_allParticleFlags & ParticleType.b2_wallParticle) != 0) {
       solveWall(step);
     }
+    final float[] positionX = m_positionXBuffer.data;
+    final float[] positionY = m_positionYBuffer.data;
+    final float dt = step.dt;
     for (int i = 0; i < m_count; i++) {
-      Vec2 pos = m_positionBuffer.data[i];
-      Vec2 vel = m_velocityBuffer.data[i];
-      pos.x += step.dt * vel.x;
-      pos.y += step.dt * vel.y;
+      positionX[i] += dt * velocityX[i];
+      positionY[i] += dt * velocityY[i];
     }
     updateBodyContacts();
     updateContacts(false);
@@ -755,46 +836,96 @@ public class ParticleSystem {
     solveDamping(step);
   }
 
+  /**
+   * Computes the impulses of the particle contacts for a solver stage into the impulse buffers. The
+   * impulses may only depend on state the stage does not change, so that the contact ranges can be
+   * computed by the solver threads. The stage then applies them in contact order, which gives the
+   * same result for any number of threads.
+   */
+  private abstract class ContactImpulseTask implements SolverThreads.Task {
+    public void run(int chunk, IWorldPool pool, Profile profile) {
+      int start = chunk * CONTACT_CHUNK_SIZE;
+      compute(start, MathUtils.min(start + CONTACT_CHUNK_SIZE, m_contactCount));
+    }
+
+    abstract void compute(int start, int end);
+  }
+
+  private static final int CONTACT_CHUNK_SIZE = 1024;
+
+  private void computeContactImpulses(ContactImpulseTask task) {
+    int chunks = (m_contactCount + CONTACT_CHUNK_SIZE - 1) / CONTACT_CHUNK_SIZE;
+    if (m_solverThreads != null && chunks > 1) {
+      m_solverThreads.run(task, chunks, 1);
+    } else {
+      task.compute(0, m_contactCount);
+    }
+  }
+
+  private final class PressureImpulseTask extends ContactImpulseTask {
+    float velocityPerPressure;
+
+    void compute(int start, int end) {
+      final int[] indexA = m_contactIndexABuffer;
+      final int[] indexB = m_contactIndexBBuffer;
+      final float[] weight = m_contactWeightBuffer;
+      final float[] normalX = m_contactNormalXBuffer;
+      final float[] normalY = m_contactNormalYBuffer;
+      final float[] accumulation = m_accumulationBuffer;
+      for (int k = start; k < end; k++) {
+        float w = weight[k];
+        float h = accumulation[indexA[k]] + accumulation[indexB[k]];
+        m_contactImpulseXBuffer[k] = velocityPerPressure * w * h * normalX[k];
+        m_contactImpulseYBuffer[k] = velocityPerPressure * w * h * normalY[k];
+      }
+    }
+  }
+
+  private final PressureImpulseTask pressureImpulseTask = new PressureImpulseTask();
+
   void solvePressure(TimeStep step) {
+    final float[] accumulation = m_accumulationBuffer;
+    final int[] indexA = m_contactIndexABuffer;
+    final int[] indexB = m_contactIndexBBuffer;
+    final float[] weight = m_contactWeightBuffer;
     // calculates the sum of contact-weights for each particle
     // that means dimensionless density
     for (int i = 0; i < m_count; i++) {
-      m_accumulationBuffer[i] = 0;
+      accumulation[i] = 0;
     }
     for (int k = 0; k < m_bodyContactCount; k++) {
       ParticleBodyContact contact = m_bodyContactBuffer[k];
       int a = contact.index;
       float w = contact.weight;
-      m_accumulationBuffer[a] += w;
+      accumulation[a] += w;
     }
     for (int k = 0; k < m_contactCount; k++) {
-      ParticleContact contact = m_contactBuffer[k];
-      int a = contact.indexA;
-      int b = contact.indexB;
-      float w = contact.weight;
-      m_accumulationBuffer[a] += w;
-      m_accumulationBuffer[b] += w;
+      float w = weight[k];
+      accumulation[indexA[k]] += w;
+      accumulation[indexB[k]] += w;
     }
     // ignores powder particles
     if ((m_allParticleFlags & k_noPressureFlags) != 0) {
       for (int i = 0; i < m_count; i++) {
         if ((m_flagsBuffer.data[i] & k_noPressureFlags) != 0) {
-          m_accumulationBuffer[i] = 0;
+          accumulation[i] = 0;
         }
       }
     }
     // calculates pressure as a linear function of density
     float pressurePerWeight = m_pressureStrength * getCriticalPressure(step);
     for (int i = 0; i < m_count; i++) {
-      float w = m_accumulationBuffer[i];
+      float w = accumulation[i];
       float h =
           pressurePerWeight
               * MathUtils.max(0.0f, MathUtils.min(w, Settings.maxParticleWeight)
                   - Settings.minParticleWeight);
-      m_accumulationBuffer[i] = h;
+      accumulation[i] = h;
     }
     // applies pressure between each particles in contact
     float velocityPerPressure = step.dt / (m_density * m_particleDiameter);
+    final float[] velocityX = m_velocityXBuffer.data;
+    final float[] velocityY = m_velocityYBuffer.data;
     for (int k = 0; k < m_bodyContactCount; k++) {
       ParticleBodyContact contact = m_bodyContactBuffer[k];
       int a = contact.index;
@@ -802,37 +933,38 @@ public class ParticleSystem {
       float w = contact.weight;
       float m = contact.mass;
       Vec2 n = contact.normal;
-      Vec2 p = m_positionBuffer.data[a];
-      float h = m_accumulationBuffer[a] + pressurePerWeight * w;
+      final Vec2 p = tempVec2;
+      p.x = m_positionXBuffer.data[a];
+      p.y = m_positionYBuffer.data[a];
+      float h = accumulation[a] + pressurePerWeight * w;
       final Vec2 f = tempVec;
       final float coef = velocityPerPressure * w * m * h;
       f.x = coef * n.x;
       f.y = coef * n.y;
-      final Vec2 velData = m_velocityBuffer.data[a];
       final float particleInvMass = getParticleInvMass();
-      velData.x -= particleInvMass * f.x;
-      velData.y -= particleInvMass * f.y;
+      velocityX[a] -= particleInvMass * f.x;
+      velocityY[a] -= particleInvMass * f.y;
       b.applyLinearImpulse(f, p, true);
     }
+    pressureImpulseTask.velocityPerPressure = velocityPerPressure;
+    computeContactImpulses(pressureImpulseTask);
+    final float[] impulseX = m_contactImpulseXBuffer;
+    final float[] impulseY = m_contactImpulseYBuffer;
     for (int k = 0; k < m_contactCount; k++) {
-      ParticleContact contact = m_contactBuffer[k];
-      int a = contact.indexA;
-      int b = contact.indexB;
-      float w = contact.weight;
-      Vec2 n = contact.normal;
-      float h = m_accumulationBuffer[a] + m_accumulationBuffer[b];
-      final float fx = velocityPerPressure * w * h * n.x;
-      final float fy = velocityPerPressure * w * h * n.y;
-      final Vec2 velDataA = m_velocityBuffer.data[a];
-      final Vec2 velDataB = m_velocityBuffer.data[b];
-      velDataA.x -= fx;
-      velDataA.y -= fy;
-      velDataB.x += fx;
-      velDataB.y += fy;
+      int a = indexA[k];
+      int b = indexB[k];
+      final float fx = impulseX[k];
+      final float fy = impulseY[k];
+      velocityX[a] -= fx;
+      velocityY[a] -= fy;
+      velocityX[b] += fx;
+      velocityY[b] += fy;
     }
   }
 
   void solveDamping(TimeStep step) {
+    final float[] velocityX = m_velocityXBuffer.data;
+    final float[] velocityY = m_velocityYBuffer.data;
     // reduces normal velocity of each contact
     float damping = m_dampingStrength;
     for (int k = 0; k < m_bodyContactCount; k++) {
@@ -842,13 +974,14 @@ public class ParticleSystem {
       float w = contact.weight;
       float m = contact.mass;
       Vec2 n = contact.normal;
-      Vec2 p = m_positionBuffer.data[a];
+      final Vec2 p = tempVec2;
+      p.x = m_positionXBuffer.data[a];
+      p.y = m_positionYBuffer.data[a];
       final float tempX = p.x - b.m_sweep.c.x;
       final float tempY = p.y - b.m_sweep.c.y;
-      final Vec2 velA = m_velocityBuffer.data[a];
       // getLinearVelocityFromWorldPointToOut, with -= velA
-      float vx = -b.m_angularVelocity * tempY + b.m_linearVelocity.x - velA.x;
-      float vy = b.m_angularVelocity * tempX + b.m_linearVelocity.y - velA.y;
+      float vx = -b.m_angularVelocity * tempY + b.m_linearVelocity.x - velocityX[a];
+      float vy = b.m_angularVelocity * tempX + b.m_linearVelocity.y - velocityY[a];
       // done
       float vn = vx * n.x + vy * n.y;
       if (vn < 0) {
@@ -856,31 +989,36 @@ public class ParticleSystem {
         f.x = damping * w * m * vn * n.x;
         f.y = damping * w * m * vn * n.y;
         final float invMass = getParticleInvMass();
-        velA.x += invMass * f.x;
-        velA.y += invMass * f.y;
+        velocityX[a] += invMass * f.x;
+        velocityY[a] += invMass * f.y;
         f.x = -f.x;
         f.y = -f.y;
         b.applyLinearImpulse(f, p, true);
       }
     }
+    // Each contact sees the velocities changed by the contacts before it, so this stage stays on
+    // one thread.
+    final int[] indexA = m_contactIndexABuffer;
+    final int[] indexB = m_contactIndexBBuffer;
+    final float[] weight = m_contactWeightBuffer;
+    final float[] normalX = m_contactNormalXBuffer;
+    final float[] normalY = m_contactNormalYBuffer;
     for (int k = 0; k < m_contactCount; k++) {
-      final ParticleContact contact = m_contactBuffer[k];
-      int a = contact.indexA;
-      int b = contact.indexB;
-      float w = contact.weight;
-      Vec2 n = contact.normal;
-      final Vec2 velA = m_velocityBuffer.data[a];
-      final Vec2 velB = m_velocityBuffer.data[b];
-      final float vx = velB.x - velA.x;
-      final float vy = velB.y - velA.y;
-      float vn = vx * n.x + vy * n.y;
+      int a = indexA[k];
+      int b = indexB[k];
+      float w = weight[k];
+      final float nx = normalX[k];
+      final float ny = normalY[k];
+      final float vx = velocityX[b] - velocityX[a];
+      final float vy = velocityY[b] - velocityY[a];
+      float vn = vx * nx + vy * ny;
       if (vn < 0) {
-        float fx = damping * w * vn * n.x;
-        float fy = damping * w * vn * n.y;
-        velA.x += fx;
-        velA.y += fy;
-        velB.x -= fx;
-        velB.y -= fy;
+        float fx = damping * w * vn * nx;
+        float fy = damping * w * vn * ny;
+        velocityX[a] += fx;
+        velocityY[a] += fy;
+        velocityX[b] -= fx;
+        velocityY[b] -= fy;
       }
     }
   }
@@ -888,9 +1026,8 @@ public class ParticleSystem {
   public void solveWall(TimeStep step) {
     for (int i = 0; i < m_count; i++) {
       if ((m_flagsBuffer.data[i] & ParticleType.b2_wallParticle) != 0) {
-        final Vec2 r = m_velocityBuffer.data[i];
-        r.x = 0.0f;
-        r.y = 0.0f;
+        m_velocityXBuffer.data[i] = 0.0f;
+        m_velocityYBuffer.data[i] = 0.0f;
       }
     }
   }
@@ -901,6 +1038,10 @@ public class ParticleSystem {
   private final Transform tempXf2 = new Transform();
 
   void solveRigid(final TimeStep step) {
+    final float[] positionX = m_positionXBuffer.data;
+    final float[] positionY = m_positionYBuffer.data;
+    final float[] velocityX = m_velocityXBuffer.data;
+    final float[] velocityY = m_velocityYBuffer.data;
     for (ParticleGroup group = m_groupList; group != null; group = group.getNext()) {
       if ((group.m_groupFlags & ParticleGroupType.b2_rigidParticleGroup) != 0) {
         group.updateStatistics();
@@ -918,15 +1059,26 @@ public class ParticleSystem {
         velocityTransform.p.y = step.inv_dt * tempXf.p.y;
         velocityTransform.q.s = step.inv_dt * tempXf.q.s;
         velocityTransform.q.c = step.inv_dt * (tempXf.q.c - 1);
+        final float c = velocityTransform.q.c;
+        final float s = velocityTransform.q.s;
+        final float tx = velocityTransform.p.x;
+        final float ty = velocityTransform.p.y;
         for (int i = group.m_firstIndex; i < group.m_lastIndex; i++) {
-          Transform.mulToOutUnsafe(velocityTransform, m_positionBuffer.data[i],
-              m_velocityBuffer.data[i]);
+          // Transform.mulToOutUnsafe(velocityTransform, position, velocity)
+          final float px = positionX[i];
+          final float py = positionY[i];
+          velocityX[i] = (c * px - s * py) + tx;
+          velocityY[i] = (s * px + c * py) + ty;
         }
       }
     }
   }
 
   void solveElastic(final TimeStep step) {
+    final float[] positionX = m_positionXBuffer.data;
+    final float[] positionY = m_positionYBuffer.data;
+    final float[] velocityX = m_velocityXBuffer.data;
+    final float[] velocityY = m_velocityYBuffer.data;
     float elasticStrength = step.inv_dt * m_elasticStrength;
     for (int k = 0; k < m_triadCount; k++) {
       final Triad triad = m_triadBuffer[k];
@@ -937,13 +1089,18 @@ public class ParticleSystem {
         final Vec2 oa = triad.pa;
         final Vec2 ob = triad.pb;
         final Vec2 oc = triad.pc;
-        final Vec2 pa = m_positionBuffer.data[a];
-        final Vec2 pb = m_positionBuffer.data[b];
-        final Vec2 pc = m_positionBuffer.data[c];
-        final float px = 1f / 3 * (pa.x + pb.x + pc.x);
-        final float py = 1f / 3 * (pa.y + pb.y + pc.y);
-        float rs = Vec2.cross(oa, pa) + Vec2.cross(ob, pb) + Vec2.cross(oc, pc);
-        float rc = Vec2.dot(oa, pa) + Vec2.dot(ob, pb) + Vec2.dot(oc, pc);
+        final float pax = positionX[a];
+        final float pay = positionY[a];
+        final float pbx = positionX[b];
+        final float pby = positionY[b];
+        final float pcx = positionX[c];
+        final float pcy = positionY[c];
+        final float px = 1f / 3 * (pax + pbx + pcx);
+        final float py = 1f / 3 * (pay + pby + pcy);
+        float rs =
+            (oa.x * pay - oa.y * pax) + (ob.x * pby - ob.y * pbx) + (oc.x * pcy - oc.y * pcx);
+        float rc =
+            (oa.x * pax + oa.y * pay) + (ob.x * pbx + ob.y * pby) + (oc.x * pcx + oc.y * pcy);
         float r2 = rs * rs + rc * rc;
         float invR = r2 == 0 ? Float.MAX_VALUE : MathUtils.sqrt(1f / r2);
         rs *= invR;
@@ -955,98 +1112,132 @@ public class ParticleSystem {
         final float roby = rs * ob.x + rc * ob.y;
         final float rocx = rc * oc.x - rs * oc.y;
         final float rocy = rs * oc.x + rc * oc.y;
-        final Vec2 va = m_velocityBuffer.data[a];
-        final Vec2 vb = m_velocityBuffer.data[b];
-        final Vec2 vc = m_velocityBuffer.data[c];
-        va.x += strength * (roax - (pa.x - px));
-        va.y += strength * (roay - (pa.y - py));
-        vb.x += strength * (robx - (pb.x - px));
-        vb.y += strength * (roby - (pb.y - py));
-        vc.x += strength * (rocx - (pc.x - px));
-        vc.y += strength * (rocy - (pc.y - py));
+        velocityX[a] += strength * (roax - (pax - px));
+        velocityY[a] += strength * (roay - (pay - py));
+        velocityX[b] += strength * (robx - (pbx - px));
+        velocityY[b] += strength * (roby - (pby - py));
+        velocityX[c] += strength * (rocx - (pcx - px));
+        velocityY[c] += strength * (rocy - (pcy - py));
       }
     }
   }
 
   void solveSpring(final TimeStep step) {
+    final float[] positionX = m_positionXBuffer.data;
+    final float[] positionY = m_positionYBuffer.data;
+    final float[] velocityX = m_velocityXBuffer.data;
+    final float[] velocityY = m_velocityYBuffer.data;
     float springStrength = step.inv_dt * m_springStrength;
     for (int k = 0; k < m_pairCount; k++) {
       final Pair pair = m_pairBuffer[k];
       if ((pair.flags & ParticleType.b2_springParticle) != 0) {
         int a = pair.indexA;
         int b = pair.indexB;
-        final Vec2 pa = m_positionBuffer.data[a];
-        final Vec2 pb = m_positionBuffer.data[b];
-        final float dx = pb.x - pa.x;
-        final float dy = pb.y - pa.y;
+        final float dx = positionX[b] - positionX[a];
+        final float dy = positionY[b] - positionY[a];
         float r0 = pair.distance;
         float r1 = MathUtils.sqrt(dx * dx + dy * dy);
         if (r1 == 0) r1 = Float.MAX_VALUE;
         float strength = springStrength * pair.strength;
         final float fx = strength * (r0 - r1) / r1 * dx;
         final float fy = strength * (r0 - r1) / r1 * dy;
-        final Vec2 va = m_velocityBuffer.data[a];
-        final Vec2 vb = m_velocityBuffer.data[b];
-        va.x -= fx;
-        va.y -= fy;
-        vb.x += fx;
-        vb.y += fy;
+        velocityX[a] -= fx;
+        velocityY[a] -= fy;
+        velocityX[b] += fx;
+        velocityY[b] += fy;
       }
     }
   }
 
+  private final class TensileImpulseTask extends ContactImpulseTask {
+    float strengthA;
+    float strengthB;
+
+    void compute(int start, int end) {
+      final int[] indexA = m_contactIndexABuffer;
+      final int[] indexB = m_contactIndexBBuffer;
+      final int[] flags = m_contactFlagsBuffer;
+      final float[] weight = m_contactWeightBuffer;
+      final float[] normalX = m_contactNormalXBuffer;
+      final float[] normalY = m_contactNormalYBuffer;
+      final float[] accumulation = m_accumulationBuffer;
+      final float[] accumulation2X = m_accumulation2XBuffer;
+      final float[] accumulation2Y = m_accumulation2YBuffer;
+      for (int k = start; k < end; k++) {
+        if ((flags[k] & ParticleType.b2_tensileParticle) != 0) {
+          int a = indexA[k];
+          int b = indexB[k];
+          float w = weight[k];
+          final float nx = normalX[k];
+          final float ny = normalY[k];
+          float h = accumulation[a] + accumulation[b];
+          final float sx = accumulation2X[b] - accumulation2X[a];
+          final float sy = accumulation2Y[b] - accumulation2Y[a];
+          float fn = (strengthA * (h - 2) + strengthB * (sx * nx + sy * ny)) * w;
+          m_contactImpulseXBuffer[k] = fn * nx;
+          m_contactImpulseYBuffer[k] = fn * ny;
+        }
+      }
+    }
+  }
+
+  private final TensileImpulseTask tensileImpulseTask = new TensileImpulseTask();
+
   void solveTensile(final TimeStep step) {
-    m_accumulation2Buffer = requestParticleBuffer(Vec2.class, m_accumulation2Buffer);
+    m_accumulation2XBuffer = requestParticleBuffer(m_accumulation2XBuffer);
+    m_accumulation2YBuffer = requestParticleBuffer(m_accumulation2YBuffer);
+    final float[] accumulation = m_accumulationBuffer;
+    final float[] accumulation2X = m_accumulation2XBuffer;
+    final float[] accumulation2Y = m_accumulation2YBuffer;
     for (int i = 0; i < m_count; i++) {
-      m_accumulationBuffer[i] = 0;
-      m_accumulation2Buffer[i].setZero();
-    }
+      accumulation[i] = 0;
+      accumulation2X[i] = 0;
+      accumulation2Y[i] = 0;
+    }
+    final int[] indexA = m_contactIndexABuffer;
+    final int[] indexB = m_contactIndexBBuffer;
+    final int[] flags = m_contactFlagsBuffer;
+    final float[] weight = m_contactWeightBuffer;
+    final float[] normalX = m_contactNormalXBuffer;
+    final float[] normalY = m_contactNormalYBuffer;
     for (int k = 0; k < m_contactCount; k++) {
-      final ParticleContact contact = m_contactBuffer[k];
-      if ((contact.flags & ParticleType.b2_tensileParticle) != 0) {
-        int a = contact.indexA;
-        int b = contact.indexB;
-        float w = contact.weight;
-        Vec2 n = contact.normal;
-        m_accumulationBuffer[a] += w;
-        m_accumulationBuffer[b] += w;
-        final Vec2 a2A = m_accumulation2Buffer[a];
-        final Vec2 a2B = m_accumulation2Buffer[b];
+      if ((flags[k] & ParticleType.b2_tensileParticle) != 0) {
+        int a = indexA[k];
+        int b = indexB[k];
+        float w = weight[k];
+        accumulation[a] += w;
+        accumulation[b] += w;
         final float inter = (1 - w) * w;
-        a2A.x -= inter * n.x;
-        a2A.y -= inter * n.y;
-        a2B.x += inter * n.x;
-        a2B.y += inter * n.y;
+        accumulation2X[a] -= inter * normalX[k];
+        accumulation2Y[a] -= inter * normalY[k];
+        accumulation2X[b] += inter * normalX[k];
+        accumulation2Y[b] += inter * normalY[k];
       }
     }
-    float strengthA = m_surfaceTensionStrengthA * getCriticalVelocity(step);
-    float strengthB = m_surfaceTensionStrengthB * getCriticalVelocity(step);
+    tensileImpulseTask.strengthA = m_surfaceTensionStrengthA * getCriticalVelocity(step);
+    tensileImpulseTask.strengthB = m_surfaceTensionStrengthB * getCriticalVelocity(step);
+    computeContactImpulses(tensileImpulseTask);
+    final float[] velocityX = m_velocityXBuffer.data;
+    final float[] velocityY = m_velocityYBuffer.data;
+    final float[] impulseX = m_contactImpulseXBuffer;
+    final float[] impulseY = m_contactImpulseYBuffer;
     for (int k = 0; k < m_contactCount; k++) {
-      final ParticleContact contact = m_contactBuffer[k];
-      if ((contact.flags & ParticleType.b2_tensileParticle) != 0) {
-        int a = contact.indexA;
-        int b = contact.indexB;
-        float w = contact.weight;
-        Vec2 n = contact.normal;
-        final Vec2 a2A = m_accumulation2Buffer[a];
-        final Vec2 a2B = m_accumulation2Buffer[b];
-        float h = m_accumulationBuffer[a] + m_accumulationBuffer[b];
-        final float sx = a2B.x - a2A.x;
-        final float sy = a2B.y - a2A.y;
-        float fn = (strengthA * (h - 2) + strengthB * (sx * n.x + sy * n.y)) * w;
-        final float fx = fn * n.x;
-        final float fy = fn * n.y;
-        final Vec2 va = m_velocityBuffer.data[a];
-        final Vec2 vb = m_velocityBuffer.data[b];
-        va.x -= fx;
-        va.y -= fy;
-        vb.x += fx;
-        vb.y += fy;
+      if ((flags[k] & ParticleType.b2_tensileParticle) != 0) {
+        int a = indexA[k];
+        int b = indexB[k];
+        final float fx = impulseX[k];
+        final float fy = impulseY[k];
+        velocityX[a] -= fx;
+        velocityY[a] -= fy;
+        velocityX[b] += fx;
+        velocityY[b] += fy;
       }
     }
   }
 
   void solveViscous(final TimeStep step) {
+    final float[] velocityX = m_velocityXBuffer.data;
+    final float[] velocityY = m_velocityYBuffer.data;
     float viscousStrength = m_viscousStrength;
     for (int k = 0; k < m_bodyContactCount; k++) {
       final ParticleBodyContact contact = m_bodyContactBuffer[k];
@@ -1055,44 +1246,74 @@ public class ParticleSystem {
         Body b = contact.body;
         float w = contact.weight;
         float m = contact.mass;
-        Vec2 p = m_positionBuffer.data[a];
-        final Vec2 va = m_velocityBuffer.data[a];
+        final Vec2 p = tempVec2;
+        p.x = m_positionXBuffer.data[a];
+        p.y = m_positionYBuffer.data[a];
         final float tempX = p.x - b.m_sweep.c.x;
         final float tempY = p.y - b.m_sweep.c.y;
-        final float vx = -b.m_angularVelocity * tempY + b.m_linearVelocity.x - va.x;
-        final float vy = b.m_angularVelocity * tempX + b.m_linearVelocity.y - va.y;
+        final float vx = -b.m_angularVelocity * tempY + b.m_linearVelocity.x - velocityX[a];
+        final float vy = b.m_angularVelocity * tempX + b.m_linearVelocity.y - velocityY[a];
         final Vec2 f = tempVec;
         final float pInvMass = getParticleInvMass();
         f.x = viscousStrength * m * w * vx;
         f.y = viscousStrength * m * w * vy;
-        va.x += pInvMass * f.x;
-        va.y += pInvMass * f.y;
+        velocityX[a] += pInvMass * f.x;
+        velocityY[a] += pInvMass * f.y;
         f.x = -f.x;
         f.y = -f.y;
         b.applyLinearImpulse(f, p, true);
       }
     }
+    // Each contact sees the velocities changed by the contacts before it, so this stage stays on
+    // one thread.
+    final int[] indexA = m_contactIndexABuffer;
+    final int[] indexB = m_contactIndexBBuffer;
+    final int[] flags = m_contactFlagsBuffer;
+    final float[] weight = m_contactWeightBuffer;
     for (int k = 0; k < m_contactCount; k++) {
-      final ParticleContact contact = m_contactBuffer[k];
-      if ((contact.flags & ParticleType.b2_viscousParticle) != 0) {
-        int a = contact.indexA;
-        int b = contact.indexB;
-        float w = contact.weight;
-        final Vec2 va = m_velocityBuffer.data[a];
-        final Vec2 vb = m_velocityBuffer.data[b];
-        final float vx = vb.x - va.x;
-        final float vy = vb.y - va.y;
+      if ((flags[k] & ParticleType.b2_viscousParticle) != 0) {
+        int a = indexA[k];
+        int b = indexB[k];
+        float w = weight[k];
+        final float vx = velocityX[b] - velocityX[a];
+        final float vy = velocityY[b] - velocityY[a];
         final float fx = viscousStrength * w * vx;
         final float fy = viscousStrength * w * vy;
-        va.x += fx;
-        va.y += fy;
-        vb.x -= fx;
-        vb.y -= fy;
+        velocityX[a] += fx;
+        velocityY[a] += fy;
+        velocityX[b] -= fx;
+        velocityY[b] -= fy;
+      }
+    }
+  }
+
+  private final class PowderImpulseTask extends ContactImpulseTask {
+    float powderStrength;
+    float minWeight;
+
+    void compute(int start, int end) {
+      final int[] flags = m_contactFlagsBuffer;
+      final float[] weight = m_contactWeightBuffer;
+      final float[] normalX = m_contactNormalXBuffer;
+      final float[] normalY = m_contactNormalYBuffer;
+      for (int k = start; k < end; k++) {
+        if ((flags[k] & ParticleType.b2_powderParticle) != 0) {
+          float w = weight[k];
+          if (w > minWeight) {
+            final float inter = powderStrength * (w - minWeight);
+            m_contactImpulseXBuffer[k] = inter * normalX[k];
+            m_contactImpulseYBuffer[k] = inter * normalY[k];
+          }
+        }
       }
     }
   }
 
+  private final PowderImpulseTask powderImpulseTask = new PowderImpulseTask();
+
   void solvePowder(final TimeStep step) {
+    final float[] velocityX = m_velocityXBuffer.data;
+    final float[] velocityY = m_velocityYBuffer.data;
     float powderStrength = m_powderStrength * getCriticalVelocity(step);
     float minWeight = 1.0f - Settings.particleStride;
     for (int k = 0; k < m_bodyContactCount; k++) {
@@ -1103,63 +1324,91 @@ public class ParticleSystem {
         if (w > minWeight) {
           Body b = contact.body;
           float m = contact.mass;
-          Vec2 p = m_positionBuffer.data[a];
+          final Vec2 p = tempVec2;
+          p.x = m_positionXBuffer.data[a];
+          p.y = m_positionYBuffer.data[a];
           Vec2 n = contact.normal;
           final Vec2 f = tempVec;
-          final Vec2 va = m_velocityBuffer.data[a];
           final float inter = powderStrength * m * (w - minWeight);
           final float pInvMass = getParticleInvMass();
           f.x = inter * n.x;
           f.y = inter * n.y;
-          va.x -= pInvMass * f.x;
-          va.y -= pInvMass * f.y;
+          velocityX[a] -= pInvMass * f.x;
+          velocityY[a] -= pInvMass * f.y;
           b.applyLinearImpulse(f, p, true);
         }
       }
     }
+    powderImpulseTask.powderStrength = powderStrength;
+    powderImpulseTask.minWeight = minWeight;
+    computeContactImpulses(powderImpulseTask);
+    final int[] indexA = m_contactIndexABuffer;
+    final int[] indexB = m_contactIndexBBuffer;
+    final int[] flags = m_contactFlagsBuffer;
+    final float[] weight = m_contactWeightBuffer;
+    final float[] impulseX = m_contactImpulseXBuffer;
+    final float[] impulseY = m_contactImpulseYBuffer;
     for (int k = 0; k < m_contactCount; k++) {
-      final ParticleContact contact = m_contactBuffer[k];
-      if ((contact.flags & ParticleType.b2_powderParticle) != 0) {
-        float w = contact.weight;
-        if (w > minWeight) {
-          int a = contact.indexA;
-          int b = contact.indexB;
-          Vec2 n = contact.normal;
-          final Vec2 va = m_velocityBuffer.data[a];
-          final Vec2 vb = m_velocityBuffer.data[b];
-          final float inter = powderStrength * (w - minWeight);
-          final float fx = inter * n.x;
-          final float fy = inter * n.y;
-          va.x -= fx;
-          va.y -= fy;
-          vb.x += fx;
-          vb.y += fy;
+      if ((flags[k] & ParticleType.b2_powderParticle) != 0 && weight[k] > minWeight) {
+        int a = indexA[k];
+        int b = indexB[k];
+        final float fx = impulseX[k];
+        final float fy = impulseY[k];
+        velocityX[a] -= fx;
+        velocityY[a] -= fy;
+        velocityX[b] += fx;
+        velocityY[b] += fy;
+      }
+    }
+  }
+
+  private final class SolidImpulseTask extends ContactImpulseTask {
+    float ejectionStrength;
+
+    void compute(int start, int end) {
+      final int[] indexA = m_contactIndexABuffer;
+      final int[] indexB = m_contactIndexBBuffer;
+      final float[] weight = m_contactWeightBuffer;
+      final float[] normalX = m_contactNormalXBuffer;
+      final float[] normalY = m_contactNormalYBuffer;
+      final float[] depth = m_depthBuffer;
+      for (int k = start; k < end; k++) {
+        int a = indexA[k];
+        int b = indexB[k];
+        if (m_groupBuffer[a] != m_groupBuffer[b]) {
+          float w = weight[k];
+          float h = depth[a] + depth[b];
+          final float inter = ejectionStrength * h * w;
+          m_contactImpulseXBuffer[k] = inter * normalX[k];
+          m_contactImpulseYBuffer[k] = inter * normalY[k];
         }
       }
     }
   }
 
+  private final SolidImpulseTask solidImpulseTask = new SolidImpulseTask();
+
   void solveSolid(final TimeStep step) {
     // applies extra repulsive force from solid particle groups
     m_depthBuffer = requestParticleBuffer(m_depthBuffer);
-    float ejectionStrength = step.inv_dt * m_ejectionStrength;
+    solidImpulseTask.ejectionStrength = step.inv_dt * m_ejectionStrength;
+    computeContactImpulses(solidImpulseTask);
+    final float[] velocityX = m_velocityXBuffer.data;
+    final float[] velocityY = m_velocityYBuffer.data;
+    final int[] indexA = m_contactIndexABuffer;
+    final int[] indexB = m_contactIndexBBuffer;
+    final float[] impulseX = m_contactImpulseXBuffer;
+    final float[] impulseY = m_contactImpulseYBuffer;
     for (int k = 0; k < m_contactCount; k++) {
-      final ParticleContact contact = m_contactBuffer[k];
-      int a = contact.indexA;
-      int b = contact.indexB;
+      int a = indexA[k];
+      int b = indexB[k];
       if (m_groupBuffer[a] != m_groupBuffer[b]) {
-        float w = contact.weight;
-        Vec2 n = contact.normal;
-        float h = m_depthBuffer[a] + m_depthBuffer[b];
-        final Vec2 va = m_velocityBuffer.data[a];
-        final Vec2 vb = m_velocityBuffer.data[b];
-        final float inter = ejectionStrength * h * w;
-        final float fx = inter * n.x;
-        final float fy = inter * n.y;
-        va.x -= fx;
-        va.y -= fy;
-        vb.x += fx;
-        vb.y += fy;
+        final float fx = impulseX[k];
+        final float fy = impulseY[k];
+        velocityX[a] -= fx;
+        velocityY[a] -= fy;
+        velocityX[b] += fx;
+        velocityY[b] += fy;
       }
     }
   }
@@ -1169,9 +1418,8 @@ public class ParticleSystem {
     m_colorBuffer.data = requestParticleBuffer(ParticleColor.class, m_colorBuffer.data);
     int colorMixing256 = (int) (256 * m_colorMixingStrength);
     for (int k = 0; k < m_contactCount; k++) {
-      final ParticleContact contact = m_contactBuffer[k];
-      int a = contact.indexA;
-      int b = contact.indexB;
+      int a = m_contactIndexABuffer[k];
+      int b = m_contactIndexBBuffer[k];
       if ((m_flagsBuffer.data[a] & m_flagsBuffer.data[b] & ParticleType.b2_colorMixingParticle) != 0) {
         ParticleColor colorA = m_colorBuffer.data[a];
         ParticleColor colorB = m_colorBuffer.data[b];
@@ -1207,8 +1455,10 @@ public class ParticleSystem {
         newIndices[i] = newCount;
         if (i != newCount) {
           m_flagsBuffer.data[newCount] = m_flagsBuffer.data[i];
-          m_positionBuffer.data[newCount].set(m_positionBuffer.data[i]);
-          m_velocityBuffer.data[newCount].set(m_velocityBuffer.data[i]);
+          m_positionXBuffer.data[newCount] = m_positionXBuffer.data[i];
+          m_positionYBuffer.data[newCount] = m_positionYBuffer.data[i];
+          m_velocityXBuffer.data[newCount] = m_velocityXBuffer.data[i];
+          m_velocityYBuffer.data[newCount] = m_velocityYBuffer.data[i];
           m_groupBuffer[newCount] = m_groupBuffer[i];
           if (m_depthBuffer != null) {
             m_depthBuffer[newCount] = m_depthBuffer[i];
@@ -1248,9 +1498,8 @@ public class ParticleSystem {
 
     // update contacts
     for (int k = 0; k < m_contactCount; k++) {
-      ParticleContact contact = m_contactBuffer[k];
-      contact.indexA = newIndices[contact.indexA];
-      contact.indexB = newIndices[contact.indexB];
+      m_contactIndexABuffer[k] = newIndices[m_contactIndexABuffer[k]];
+      m_contactIndexBBuffer[k] = newIndices[m_contactIndexBBuffer[k]];
     }
     // ParticleContact lastContact = std.remove_if(
     // m_contactBuffer, m_contactBuffer + m_contactCount,
@@ -1258,11 +1507,9 @@ public class ParticleSystem {
     // m_contactCount = (int) (lastContact - m_contactBuffer);
     j = m_contactCount;
     for (int i = 0; i < j; i++) {
-      if (Test.IsContactInvalid(m_contactBuffer[i])) {
+      if (m_contactIndexABuffer[i] < 0 || m_contactIndexBBuffer[i] < 0) {
         --j;
-        ParticleContact temp = m_contactBuffer[j];
-        m_contactBuffer[j] = m_contactBuffer[i];
-        m_contactBuffer[i] = temp;
+        moveContact(j, i);
         --i;
       }
     }
@@ -1407,8 +1654,10 @@ public class ParticleSystem {
     newIndices.end = end;
 
     BufferUtils.rotate(m_flagsBuffer.data, start, mid, end);
-    BufferUtils.rotate(m_positionBuffer.data, start, mid, end);
-    BufferUtils.rotate(m_velocityBuffer.data, start, mid, end);
+    BufferUtils.rotate(m_positionXBuffer.data, start, mid, end);
+    BufferUtils.rotate(m_positionYBuffer.data, start, mid, end);
+    BufferUtils.rotate(m_velocityXBuffer.data, start, mid, end);
+    BufferUtils.rotate(m_velocityYBuffer.data, start, mid, end);
     BufferUtils.rotate(m_groupBuffer, start, mid, end);
     if (m_depthBuffer != null) {
       BufferUtils.rotate(m_depthBuffer, start, mid, end);
@@ -1428,9 +1677,8 @@ public class ParticleSystem {
 
     // update contacts
     for (int k = 0; k < m_contactCount; k++) {
-      ParticleContact contact = m_contactBuffer[k];
-      contact.indexA = newIndices.getIndex(contact.indexA);
-      contact.indexB = newIndices.getIndex(contact.indexB);
+      m_contactIndexABuffer[k] = newIndices.getIndex(m_contactIndexABuffer[k]);
+      m_contactIndexBBuffer[k] = newIndices.getIndex(m_contactIndexBBuffer[k]);
     }
 
     // update particle-body contacts
@@ -1526,12 +1774,79 @@ public class ParticleSystem {
     return m_flagsBuffer.data;
   }
 
+  /**
+   * Returns a copy of the particle positions. The positions are stored in the x and y buffers, use
+   * {@link #getParticlePositionXBuffer()} and {@link #getParticlePositionYBuffer()} to access them
+   * directly. Changes to the copy have no effect.
+   */
   public Vec2[] getParticlePositionBuffer() {
-    return m_positionBuffer.data;
+    m_positionCopy = copyToVec2(m_positionXBuffer.data, m_positionYBuffer.data, m_positionCopy);
+    return m_positionCopy;
+  }
+
+  public float[] getParticlePositionXBuffer() {
+    return m_positionXBuffer.data;
+  }
+
+  public float[] getParticlePositionYBuffer() {
+    return m_positionYBuffer.data;
   }
 
+  /**
+   * Returns a copy of the particle velocities. The velocities are stored in the x and y buffers,
+   * use {@link #getParticleVelocityXBuffer()} and {@link #getParticleVelocityYBuffer()} to access
+   * them directly. Changes to the copy have no effect.
+   */
   public Vec2[] getParticleVelocityBuffer() {
-    return m_velocityBuffer.data;
+    m_velocityCopy = copyToVec2(m_velocityXBuffer.data, m_velocityYBuffer.data, m_velocityCopy);
+    return m_velocityCopy;
+  }
+
+  public float[] getParticleVelocityXBuffer() {
+    return m_velocityXBuffer.data;
+  }
+
+  public float[] getParticleVelocityYBuffer() {
+    return m_velocityYBuffer.data;
+  }
+
+  private Vec2[] copyToVec2(float[] x, float[] y, Vec2[] copy) {
+    if (x == null) {
+      return copy;
+    }
+    if (copy == null || copy.length < m_count) {
+      copy = BufferUtils.reallocateBuffer(Vec2.class, copy, copy == null ? 0 : copy.length, x.length);
+    }
+    for (int i = 0; i < m_count; i++) {
+      copy[i].x = x[i];
+      copy[i].y = y[i];
+    }
+    return copy;
+  }
+
+  /**
+   * Returns a copy of the contacts between particles. Changes to the copy have no effect.
+   */
+  public ParticleContact[] getParticleContacts() {
+    if (m_contactBuffer == null || m_contactBuffer.length < m_contactCapacity) {
+      m_contactBuffer =
+          BufferUtils.reallocateBuffer(ParticleContact.class, m_contactBuffer,
+              m_contactBuffer == null ? 0 : m_contactBuffer.length, m_contactCapacity);
+    }
+    for (int k = 0; k < m_contactCount; k++) {
+      ParticleContact contact = m_contactBuffer[k];
+      contact.indexA = m_contactIndexABuffer[k];
+      contact.indexB = m_contactIndexBBuffer[k];
+      contact.flags = m_contactFlagsBuffer[k];
+      contact.weight = m_contactWeightBuffer[k];
+      contact.normal.x = m_contactNormalXBuffer[k];
+      contact.normal.y = m_contactNormalYBuffer[k];
+    }
+    return m_contactBuffer;
+  }
+
+  public void setSolverThreads(SolverThreads solverThreads) {
+    m_solverThreads = solverThreads;
   }
 
   public ParticleColor[] getParticleColorBuffer() {
@@ -1562,6 +1877,12 @@ public class ParticleSystem {
     buffer.userSuppliedCapacity = newCapacity;
   }
 
+  void setParticleBuffer(ParticleBufferFloat buffer, float[] newData, int newCapacity) {
+    assert ((newData != null && newCapacity != 0) || (newData == null && newCapacity == 0));
+    buffer.data = newData;
+    buffer.userSuppliedCapacity = newCapacity;
+  }
+
   <T> void setParticleBuffer(ParticleBuffer<T> buffer, T[] newData, int newCapacity) {
     assert ((newData != null && newCapacity != 0) || (newData == null && newCapacity == 0));
     if (buffer.userSuppliedCapacity != 0) {
@@ -1575,12 +1896,14 @@ public class ParticleSystem {
     setParticleBuffer(m_flagsBuffer, buffer, capacity);
   }
 
-  public void setParticlePositionBuffer(Vec2[] buffer, int capacity) {
-    setParticleBuffer(m_positionBuffer, buffer, capacity);
+  public void setParticlePositionBuffer(float[] bufferX, float[] bufferY, int capacity) {
+    setParticleBuffer(m_positionXBuffer, bufferX, capacity);
+    setParticleBuffer(m_positionYBuffer, bufferY, capacity);
   }
 
-  public void setParticleVelocityBuffer(Vec2[] buffer, int capacity) {
-    setParticleBuffer(m_velocityBuffer, buffer, capacity);
+  public void setParticleVelocityBuffer(float[] bufferX, float[] bufferY, int capacity) {
+    setParticleBuffer(m_velocityXBuffer, bufferX, capacity);
+    setParticleBuffer(m_velocityYBuffer, bufferY, capacity);
   }
 
   public void setParticleColorBuffer(ParticleColor[] buffer, int capacity) {
@@ -1656,8 +1979,9 @@ public class ParticleSystem {
             computeTag(m_inverseDiameter * upperBoundX, m_inverseDiameter * upperBoundY));
     for (int proxy = firstProxy; proxy < lastProxy; ++proxy) {
       int i = m_proxyBuffer[proxy].index;
-      final Vec2 p = m_positionBuffer.data[i];
-      if (lowerBoundX < p.x && p.x < upperBoundX && lowerBoundY < p.y && p.y < upperBoundY) {
+      final float px = m_positionXBuffer.data[i];
+      final float py = m_positionYBuffer.data[i];
+      if (lowerBoundX < px && px < upperBoundX && lowerBoundY < py && py < upperBoundY) {
         if (!callback.reportParticle(i)) {
           break;
         }
@@ -1696,9 +2020,8 @@ public class ParticleSystem {
     if (v2 == 0) v2 = Float.MAX_VALUE;
     for (int proxy = firstProxy; proxy < lastProxy; ++proxy) {
       int i = m_proxyBuffer[proxy].index;
-      final Vec2 posI = m_positionBuffer.data[i];
-      final float px = point1.x - posI.x;
-      final float py = point1.y - posI.y;
+      final float px = point1.x - m_positionXBuffer.data[i];
+      final float py = point1.y - m_positionYBuffer.data[i];
       float pv = px * vx + py * vy;
       float p2 = px * px + py * py;
       float determinant = pv * pv - v2 * (p2 - m_squaredDiameter);
@@ -1733,16 +2056,14 @@ public class ParticleSystem {
 
   public float computeParticleCollisionEnergy() {
     float sum_v2 = 0;
+    final float[] velocityX = m_velocityXBuffer.data;
+    final float[] velocityY = m_velocityYBuffer.data;
     for (int k = 0; k < m_contactCount; k++) {
-      final ParticleContact contact = m_contactBuffer[k];
-      int a = contact.indexA;
-      int b = contact.indexB;
-      Vec2 n = contact.normal;
-      final Vec2 va = m_velocityBuffer.data[a];
-      final Vec2 vb = m_velocityBuffer.data[b];
-      final float vx = vb.x - va.x;
-      final float vy = vb.y - va.y;
-      float vn = vx * n.x + vy * n.y;
+      int a = m_contactIndexABuffer[k];
+      int b = m_contactIndexBBuffer[k];
+      final float vx = velocityX[b] - velocityX[a];
+      final float vy = velocityY[b] - velocityY[a];
+      float vn = vx * m_contactNormalXBuffer[k] + vy * m_contactNormalYBuffer[k];
       if (vn < 0) {
         sum_v2 += vn * vn;
       }
@@ -1758,6 +2079,13 @@ public class ParticleSystem {
         oldCapacity, newCapacity, deferred);
   }
 
+  static float[] reallocateBuffer(ParticleBufferFloat buffer, int oldCapacity, int newCapacity,
+      boolean deferred) {
+    assert (newCapacity > oldCapacity);
+    return BufferUtils.reallocateBuffer(buffer.data, buffer.userSuppliedCapacity, oldCapacity,
+        newCapacity, deferred);
+  }
+
   static int[] reallocateBuffer(ParticleBufferInt buffer, int oldCapacity, int newCapacity,
       boolean deferred) {
     assert (newCapacity > oldCapacity);
@@ -1800,6 +2128,10 @@ public class ParticleSystem {
     int[] data;
     int userSuppliedCapacity;
   }
+  static class ParticleBufferFloat {
+    float[] data;
+    int userSuppliedCapacity;
+  }
 
   /** Used for detecting particle contacts */
   public static class Proxy implements Comparable<Proxy> {
@@ -1842,9 +2174,9 @@ public class ParticleSystem {
   // Callback used with VoronoiDiagram.
   static class CreateParticleGroupCallback implements VoronoiDiagramCallback {
     public void callback(int a, int b, int c) {
-      final Vec2 pa = system.m_positionBuffer.data[a];
-      final Vec2 pb = system.m_positionBuffer.data[b];
-      final Vec2 pc = system.m_positionBuffer.data[c];
+      final Vec2 pa = system.positionOf(a, this.pa);
+      final Vec2 pb = system.positionOf(b, this.pb);
+      final Vec2 pc = system.positionOf(c, this.pc);
       final float dabx = pa.x - pb.x;
       final float daby = pa.y - pb.y;
       final float dbcx = pb.x - pc.x;
@@ -1893,6 +2225,7 @@ public class ParticleSystem {
     ParticleSystem system;
     ParticleGroupDef def; // pointer
     int firstIndex;
+    private final Vec2 pa = new Vec2(), pb = new Vec2(), pc = new Vec2();
   }
 
   // Callback used with VoronoiDiagram.
@@ -1907,9 +2240,9 @@ public class ParticleSystem {
         int bf = system.m_flagsBuffer.data[b];
         int cf = system.m_flagsBuffer.data[c];
         if ((af & bf & cf & k_triadFlags) != 0) {
-          final Vec2 pa = system.m_positionBuffer.data[a];
-          final Vec2 pb = system.m_positionBuffer.data[b];
-          final Vec2 pc = system.m_positionBuffer.data[c];
+          final Vec2 pa = system.positionOf(a, this.pa);
+          final Vec2 pb = system.positionOf(b, this.pb);
+          final Vec2 pc = system.positionOf(c, this.pc);
           final float dabx = pa.x - pb.x;
           final float daby = pa.y - pb.y;
           final float dbcx = pb.x - pc.x;
@@ -1958,6 +2291,7 @@ public class ParticleSystem {
     ParticleSystem system;
     ParticleGroup groupA;
     ParticleGroup groupB;
+    private final Vec2 pa = new Vec2(), pb = new Vec2(), pc = new Vec2();
   };
 
   static class DestroyParticlesInShapeCallback implements ParticleQueryCallback {
@@ -1966,6 +2300,7 @@ public class ParticleSystem {
     Transform xf;
     boolean callDestructionListener;
     int destroyed;
+    private final Vec2 position = new Vec2();
 
     public DestroyParticlesInShapeCallback() {
       // TODO Auto-generated constructor stub
@@ -1983,7 +2318,7 @@ public class ParticleSystem {
     @Override
     public boolean reportParticle(int index) {
       assert (index >= 0 && index < system.m_count);
-      if (shape.testPoint(xf, system.m_positionBuffer.data[index])) {
+      if (shape.testPoint(xf, system.positionOf(index, position))) {
         system.destroyParticle(index, callDestructionListener);
         destroyed++;
       }
@@ -1995,6 +2330,7 @@ public class ParticleSystem {
     ParticleSystem system;
 
     private final Vec2 tempVec = new Vec2();
+    private final Vec2 position = new Vec2();
 
     @Override
     public boolean reportFixture(Fixture fixture) {
@@ -2030,7 +2366,7 @@ public class ParticleSystem {
 
         for (int proxy = firstProxy; proxy != lastProxy; ++proxy) {
           int a = system.m_proxyBuffer[proxy].index;
-          Vec2 ap = system.m_positionBuffer.data[a];
+          Vec2 ap = system.positionOf(a, position);
           if (aabblowerBoundx <= ap.x && ap.x <= aabbupperBoundx && aabblowerBoundy <= ap.y
               && ap.y <= aabbupperBoundy) {
             float d;
@@ -2078,6 +2414,7 @@ public class ParticleSystem {
     private final RayCastOutput output = new RayCastOutput();
     private final Vec2 tempVec = new Vec2();
     private final Vec2 tempVec2 = new Vec2();
+    private final Vec2 position = new Vec2();
 
     @Override
     public boolean reportFixture(Fixture fixture) {
@@ -2108,15 +2445,16 @@ public class ParticleSystem {
 
         for (int proxy = firstProxy; proxy != lastProxy; ++proxy) {
           int a = system.m_proxyBuffer[proxy].index;
-          Vec2 ap = system.m_positionBuffer.data[a];
+          Vec2 ap = system.positionOf(a, position);
           if (aabblowerBoundx <= ap.x && ap.x <= aabbupperBoundx && aabblowerBoundy <= ap.y
               && ap.y <= aabbupperBoundy) {
-            Vec2 av = system.m_velocityBuffer.data[a];
+            final float avx = system.m_velocityXBuffer.data[a];
+            final float avy = system.m_velocityYBuffer.data[a];
             final Vec2 temp = tempVec;
             Transform.mulTransToOutUnsafe(body.m_xf0, ap, temp);
             Transform.mulToOutUnsafe(body.m_xf, temp, input.p1);
-            input.p2.x = ap.x + step.dt * av.x;
-            input.p2.y = ap.y + step.dt * av.y;
+            input.p2.x = ap.x + step.dt * avx;
+            input.p2.y = ap.y + step.dt * avy;
             input.maxFraction = 1;
             if (fixture.raycast(output, input, childIndex)) {
               final Vec2 p = tempVec;
@@ -2129,11 +2467,13 @@ public class ParticleSystem {
 
               final float vx = step.inv_dt * (p.x - ap.x);
               final float vy = step.inv_dt * (p.y - ap.y);
-              av.x = vx;
-              av.y = vy;
+              final float[] velocityX = system.m_velocityXBuffer.data;
+              final float[] velocityY = system.m_velocityYBuffer.data;
+              velocityX[a] = vx;
+              velocityY[a] = vy;
               final float particleMass = system.getParticleMass();
-              final float ax = particleMass * (av.x - vx);
-              final float ay = particleMass * (av.y - vy);
+              final float ax = particleMass * (velocityX[a] - vx);
+              final float ay = particleMass * (velocityY[a] - vy);
               Vec2 b = output.normal;
               final float fdn = ax * b.x + ay * b.y;
               final Vec2 f = tempVec2;
@@ -2153,10 +2493,6 @@ public class ParticleSystem {
       return proxy.index < 0;
     }
 
-    static boolean IsContactInvalid(final ParticleContact contact) {
-      return contact.indexA < 0 || contact.indexB < 0;
-    }
-
     static boolean IsBodyContactInvalid(final ParticleBodyContact contact) {
       return contact.index < 0;
     }
@@ -16,15 +16,17 @@
  */
 package ch.jeda.platform.java;
 
+import ch.jeda.AssetCache;
 import ch.jeda.Log;
 import ch.jeda.platform.AudioManagerImp;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -38,13 +40,14 @@ import javax.sound.sampled.UnsupportedAudioFileException;
 
 class JavaAudioManagerImp implements AudioManagerImp, LineListener {
 
+    private static final String SOUND_CACHE_KIND = "sound";
     private Callback callback;
     private AudioPlayer musicPlayer;
-    private final Map<String, SoundData> soundMap;
+    private final ConcurrentHashMap<String, SoundData> soundMap;
     private final List<Clip> soundStreams;
 
     JavaAudioManagerImp() {
-        soundMap = new HashMap<String, SoundData>();
+        soundMap = new ConcurrentHashMap<String, SoundData>();
         soundStreams = new ArrayList<Clip>();
     }
 
@@ -59,18 +62,16 @@ class JavaAudioManagerImp implements AudioManagerImp, LineListener {
             return;
         }
 
-        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        try {
-            final AudioInputStream in = AudioSystem.getAudioInputStream(
-                new BufferedInputStream(ResourceManager.openInputStream(path)));
-            AudioSystem.write(in, AudioFileFormat.Type.WAVE, buffer);
-            soundMap.put(path, new SoundData(buffer.toByteArray()));
+        final ByteBuffer pcmData;
+        if (AssetCache.isEnabled()) {
+            pcmData = loadCachedSound(path);
         }
-        catch (final UnsupportedAudioFileException ex) {
-            Log.e("Detected unsupported audio format in file '", path, "'.");
+        else {
+            pcmData = transcode(path, ResourceManager.openInputStream(path));
         }
-        catch (final IOException ex) {
-            Log.e(ex, "Error while reading audio file '", path, "'.");
+
+        if (pcmData != null) {
+            soundMap.putIfAbsent(path, new SoundData(pcmData));
         }
     }
 
@@ -168,6 +169,26 @@ class JavaAudioManagerImp implements AudioManagerImp, LineListener {
         }
     }
 
+    private ByteBuffer loadCachedSound(final String path) {
+        final ByteBuffer content = ResourceManager.readFully(path);
+        if (content == null) {
+            return null;
+        }
+
+        final String key = AssetCache.createKey(SOUND_CACHE_KIND, content);
+        final ByteBuffer cached = AssetCache.read(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final ByteBuffer result = transcode(path, new ByteBufferInputStream(content.duplicate()));
+        if (result != null) {
+            AssetCache.write(key, result);
+        }
+
+        return result;
+    }
+
     private Clip startClip(final DataLine.Info info, final AudioInputStream in) throws IOException {
         int tries = 0;
         Clip result = null;
@@ -194,4 +215,32 @@ class JavaAudioManagerImp implements AudioManagerImp, LineListener {
         return result;
     }
 
+    /**
+     * Converts an audio file to PCM data in WAVE format.
+     */
+    private static ByteBuffer transcode(final String path, InputStream source) {
+        if (source == null) {
+            return null;
+        }
+
+        if (!source.markSupported()) {
+            source = new BufferedInputStream(source);
+        }
+
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            final AudioInputStream in = AudioSystem.getAudioInputStream(source);
+            AudioSystem.write(in, AudioFileFormat.Type.WAVE, buffer);
+            return ByteBuffer.wrap(buffer.toByteArray());
+        }
+        catch (final UnsupportedAudioFileException ex) {
+            Log.e("Detected unsupported audio format in file '", path, "'.");
+        }
+        catch (final IOException ex) {
+            Log.e(ex, "Error while reading audio file '", path, "'.");
+        }
+
+        return null;
+    }
+
 }
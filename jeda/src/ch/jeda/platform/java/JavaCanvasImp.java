@@ -32,7 +32,9 @@ import java.awt.Transparency;
 import java.awt.font.FontRenderContext;
 import java.awt.font.TextLayout;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -42,11 +44,14 @@ class JavaCanvasImp implements CanvasImp {
     private static final Map<?, ?> ANTI_ALIASING_RENDERING_HINTS = initAntiAliasingRenderingHints();
     private static final AffineTransform IDENTITY = new AffineTransform();
     private final BufferedImage bitmap;
+    private final Path2D.Float batchPath;
     private final Graphics2D graphics;
     private final Map<FontRenderContext, Map<java.awt.Font, Map<String, TextLayout>>> textLayoutCache;
+    private BufferedImage pixelBuffer;
 
     JavaCanvasImp(final int width, final int height) {
         bitmap = createBufferedImage(width, height);
+        batchPath = new Path2D.Float(Path2D.WIND_NON_ZERO);
         graphics = bitmap.createGraphics();
         textLayoutCache = new HashMap();
     }
@@ -89,6 +94,66 @@ class JavaCanvasImp implements CanvasImp {
         }
     }
 
+    @Override
+    public void drawLines(final float[] points, final int count) {
+        assert points != null;
+        assert points.length >= 4 * count;
+
+        // One path for all lines, so that Java2D strokes and rasterizes them in a single pass
+        batchPath.reset();
+        for (int i = 0; i < 4 * count; i = i + 4) {
+            batchPath.moveTo(points[i], points[i + 1]);
+            batchPath.lineTo(points[i + 2], points[i + 3]);
+        }
+
+        graphics.draw(batchPath);
+    }
+
+    @Override
+    public void drawPixels(final float x, final float y, final float width, final float height, final int columns,
+                           final int rows, final int[] pixels, final int opacity) {
+        assert pixels != null;
+        assert pixels.length >= columns * rows;
+        assert 0 < opacity && opacity <= 255;
+
+        // The buffer only grows, so that a fluid whose bounds change every frame does not allocate an image per frame
+        if (pixelBuffer == null || pixelBuffer.getWidth() < columns || pixelBuffer.getHeight() < rows) {
+            final int bufferWidth = pixelBuffer == null ? columns : Math.max(columns, pixelBuffer.getWidth());
+            final int bufferHeight = pixelBuffer == null ? rows : Math.max(rows, pixelBuffer.getHeight());
+            pixelBuffer = new BufferedImage(bufferWidth, bufferHeight, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        // Copy the pixels directly into the raster instead of converting them one by one with setRGB
+        final int[] data = ((DataBufferInt) pixelBuffer.getRaster().getDataBuffer()).getData();
+        final int stride = pixelBuffer.getWidth();
+        for (int row = 0; row < rows; ++row) {
+            System.arraycopy(pixels, row * columns, data, row * stride, columns);
+        }
+
+        if (opacity != 255) {
+            graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity / 255f));
+        }
+
+        final Object interpolation = graphics.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        final int dx = (int) x;
+        final int dy = (int) y;
+        graphics.drawImage(pixelBuffer, dx, dy, dx + (int) width, dy + (int) height, 0, 0, columns, rows, null);
+        if (interpolation == null) {
+            // getRenderingHints returns a copy, so the hint is removed from the copy and the copy is set again
+            final RenderingHints hints = graphics.getRenderingHints();
+            hints.remove(RenderingHints.KEY_INTERPOLATION);
+            graphics.setRenderingHints(hints);
+        }
+        else {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        }
+
+        if (opacity != 255) {
+            graphics.setPaintMode();
+        }
+    }
+
     @Override
     public void drawPolygon(final float[] points) {
         assert points != null;
@@ -156,6 +221,22 @@ class JavaCanvasImp implements CanvasImp {
         graphics.fillRect((int) x, (int) y, (int) width, (int) height);
     }
 
+    @Override
+    public void fillTriangles(final float[] points, final int count) {
+        assert points != null;
+        assert points.length >= 6 * count;
+
+        batchPath.reset();
+        for (int i = 0; i < 6 * count; i = i + 6) {
+            batchPath.moveTo(points[i], points[i + 1]);
+            batchPath.lineTo(points[i + 2], points[i + 3]);
+            batchPath.lineTo(points[i + 4], points[i + 5]);
+            batchPath.closePath();
+        }
+
+        graphics.fill(batchPath);
+    }
+
     @Override
     public int getHeight() {
         return bitmap.getHeight();
@@ -16,29 +16,43 @@
  */
 package ch.jeda.platform.java;
 
+import ch.jeda.AssetCache;
 import ch.jeda.Log;
 import ch.jeda.platform.TypefaceImp;
 import java.awt.Font;
 import java.awt.FontFormatException;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import javax.imageio.ImageIO;
 
 class ResourceManager {
 
+    private static final String FILE_PROTOCOL = "file";
     private static final String HTTP_PREFIX = "http://";
+    private static final String IMAGE_CACHE_KIND = "image";
+    private static final int IMAGE_CACHE_MAGIC = 0x4a445231;
+    // Files smaller than this are read through a stream, mapping them does not pay off.
+    private static final long MAPPING_THRESHOLD = 64 * 1024;
     private static final String NEW_RESOURCE_PREFIX = "res:";
     private static final ResourceFinder RESOURCE_FINDER = new ResourceFinder();
+    private static final ConcurrentHashMap<String, ResolvedResource> RESOLVED_RESOURCES =
+        new ConcurrentHashMap<String, ResolvedResource>();
 
     static Class<?>[] loadClasses()
         throws Exception {
@@ -72,6 +86,10 @@ class ResourceManager {
     }
 
     static BufferedImage loadImage(final String path) {
+        if (AssetCache.isEnabled()) {
+            return loadCachedImage(path);
+        }
+
         final InputStream in = openInputStream(path);
         if (in == null) {
             return null;
@@ -93,6 +111,75 @@ class ResourceManager {
         }
     }
 
+    /**
+     * Maps a local file or a resource located in a directory into memory. Returns <tt>null</tt> if the file or resource
+     * does not exist, is packed in a jar file or cannot be mapped.
+     *
+     * @param path the path to the file or resource
+     * @return a read-only buffer containing the contents of the file or resource
+     */
+    static ByteBuffer mapFile(final String path) {
+        if (path == null) {
+            throw new NullPointerException("path");
+        }
+        else if (path.startsWith(NEW_RESOURCE_PREFIX)) {
+            final ResolvedResource resource = resolveResource(path.substring(NEW_RESOURCE_PREFIX.length()));
+            if (resource.file == null) {
+                return null;
+            }
+            else {
+                return mapFile(resource.file);
+            }
+        }
+        else if (path.startsWith(HTTP_PREFIX)) {
+            return null;
+        }
+        else {
+            return mapFile(new File(path));
+        }
+    }
+
+    /**
+     * Reads the complete contents of a file or resource. Local files are mapped into memory.
+     *
+     * @param path the path to the file or resource
+     * @return a buffer containing the contents or <tt>null</tt> if the file or resource cannot be read
+     */
+    static ByteBuffer readFully(final String path) {
+        final ByteBuffer mapped = mapFile(path);
+        if (mapped != null) {
+            return mapped;
+        }
+
+        final InputStream in = openInputStream(path);
+        if (in == null) {
+            return null;
+        }
+
+        try {
+            final ByteArrayOutputStream result = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int count = in.read(buffer);
+            while (count != -1) {
+                result.write(buffer, 0, count);
+                count = in.read(buffer);
+            }
+
+            return ByteBuffer.wrap(result.toByteArray());
+        }
+        catch (final IOException ex) {
+            Log.e(ex, "Error while reading file '", path, "'.");
+            return null;
+        }
+        finally {
+            try {
+                in.close();
+            }
+            catch (IOException ex) {
+            }
+        }
+    }
+
     static InputStream openInputStream(final String path) {
         if (path == null) {
             throw new NullPointerException("path");
@@ -108,9 +195,73 @@ class ResourceManager {
         }
     }
 
+    private static BufferedImage loadCachedImage(final String path) {
+        final ByteBuffer content = readFully(path);
+        if (content == null) {
+            return null;
+        }
+
+        final String key = AssetCache.createKey(IMAGE_CACHE_KIND, content);
+        final BufferedImage cached = decodeRaster(AssetCache.read(key));
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            final BufferedImage result = ImageIO.read(new ByteBufferInputStream(content.duplicate()));
+            if (result != null) {
+                AssetCache.write(key, encodeRaster(result));
+            }
+
+            return result;
+        }
+        catch (Exception ex) {
+            Log.e(ex, "Error while reading image file '", path, "'.");
+            return null;
+        }
+    }
+
+    private static BufferedImage decodeRaster(final ByteBuffer buffer) {
+        if (buffer == null || buffer.remaining() < 12 || buffer.getInt() != IMAGE_CACHE_MAGIC) {
+            return null;
+        }
+
+        final int width = buffer.getInt();
+        final int height = buffer.getInt();
+        if (width <= 0 || height <= 0 || buffer.remaining() != width * height * 4) {
+            return null;
+        }
+
+        final int[] pixels = new int[width * height];
+        buffer.asIntBuffer().get(pixels);
+        final BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        result.getRaster().setDataElements(0, 0, width, height, pixels);
+        return result;
+    }
+
+    private static ByteBuffer encodeRaster(final BufferedImage image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final ByteBuffer result = ByteBuffer.allocate(12 + width * height * 4);
+        result.putInt(IMAGE_CACHE_MAGIC);
+        result.putInt(width);
+        result.putInt(height);
+        result.asIntBuffer().put(image.getRGB(0, 0, width, height, null, 0, width));
+        result.rewind();
+        return result;
+    }
+
     private static InputStream openFileInputStream(final String path) {
+        final File file = new File(path);
+        if (file.length() >= MAPPING_THRESHOLD) {
+            final ByteBuffer buffer = mapFile(file);
+            if (buffer != null) {
+                return new ByteBufferInputStream(buffer);
+            }
+        }
+
         try {
-            return new FileInputStream(path);
+            return new FileInputStream(file);
         }
         catch (FileNotFoundException ex) {
             Log.e(ex, "File '", path, "' not found.");
@@ -134,19 +285,21 @@ class ResourceManager {
     }
 
     private static InputStream openResourceInputStream(final String path, final int prefixLength) {
-        String resourcePath = path.substring(prefixLength);
-        URL url = findResource("res/" + resourcePath);
-        if (url == null) {
-            url = findResource(resourcePath);
-        }
-
-        if (url == null) {
+        final ResolvedResource resource = resolveResource(path.substring(prefixLength));
+        if (resource.url == null) {
             Log.e("Resource file '", path, "' not found.");
             return null;
         }
 
+        if (resource.file != null && resource.file.length() >= MAPPING_THRESHOLD) {
+            final ByteBuffer buffer = mapFile(resource.file);
+            if (buffer != null) {
+                return new ByteBufferInputStream(buffer);
+            }
+        }
+
         try {
-            return url.openStream();
+            return resource.url.openStream();
         }
         catch (IOException ex) {
             Log.e(ex, "Error while reading resource file '", path, "'.");
@@ -155,6 +308,53 @@ class ResourceManager {
         return null;
     }
 
+    private static ByteBuffer mapFile(final File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        RandomAccessFile in = null;
+        try {
+            in = new RandomAccessFile(file, "r");
+            final FileChannel channel = in.getChannel();
+            // The mapping stays valid after the channel has been closed.
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        catch (final IOException ex) {
+            Log.d(ex, "Cannot map file '", file, "' into memory.");
+            return null;
+        }
+        finally {
+            if (in != null) {
+                try {
+                    in.close();
+                }
+                catch (final IOException ex) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves a resource path to an URL. The result is cached, including the information that a resource does not
+     * exist.
+     */
+    private static ResolvedResource resolveResource(final String resourcePath) {
+        ResolvedResource result = RESOLVED_RESOURCES.get(resourcePath);
+        if (result == null) {
+            URL url = findResource("res/" + resourcePath);
+            if (url == null) {
+                url = findResource(resourcePath);
+            }
+
+            result = new ResolvedResource(url);
+            RESOLVED_RESOURCES.putIfAbsent(resourcePath, result);
+        }
+
+        return result;
+    }
+
     private static URL findResource(final String resourcePath) {
         URL result = Thread.currentThread().getContextClassLoader().getResource(resourcePath);
         if (result == null) {
@@ -165,6 +365,33 @@ class ResourceManager {
         }
     }
 
+    private static final class ResolvedResource {
+
+        final File file;
+        final URL url;
+
+        ResolvedResource(final URL url) {
+            this.file = toFile(url);
+            this.url = url;
+        }
+
+        private static File toFile(final URL url) {
+            if (url == null || !FILE_PROTOCOL.equals(url.getProtocol())) {
+                return null;
+            }
+
+            try {
+                return new File(url.toURI());
+            }
+            catch (final URISyntaxException ex) {
+                return null;
+            }
+            catch (final IllegalArgumentException ex) {
+                return null;
+            }
+        }
+    }
+
     private static class ResourceFinder {
 
         private final Set<Class<?>> classesSet;
@@ -16,20 +16,19 @@
  */
 package ch.jeda.platform.java;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 final class SoundData {
 
-    private final byte[] buffer;
+    private final ByteBuffer buffer;
 
-    SoundData(byte[] buffer) {
+    SoundData(final ByteBuffer buffer) {
         this.buffer = buffer;
     }
 
     InputStream openStream() {
-        return new BufferedInputStream(new ByteArrayInputStream(buffer));
+        return new ByteBufferInputStream(buffer.duplicate());
     }
 
 }
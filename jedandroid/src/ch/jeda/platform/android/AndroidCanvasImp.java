@@ -32,21 +32,31 @@ import ch.jeda.ui.Color;
 
 class AndroidCanvasImp implements CanvasImp {
 
+    private final Path batchPath;
     private final Paint fillPaint;
     private final Paint imagePaint;
     private final Paint pixelPaint;
+    private final Rect pixelSource;
+    private final RectF pixelTarget;
+    private final Paint rasterPaint;
     private final Paint strokePaint;
     private final Paint textMeasurePaint;
     private final Paint textPaint;
     private Bitmap bitmap;
     private Canvas canvas;
+    private Bitmap pixelBuffer;
 
     AndroidCanvasImp() {
+        batchPath = new Path();
         fillPaint = new Paint();
         fillPaint.setStyle(Paint.Style.FILL);
         fillPaint.setAntiAlias(true);
         imagePaint = new Paint();
         pixelPaint = new Paint();
+        pixelSource = new Rect();
+        pixelTarget = new RectF();
+        rasterPaint = new Paint();
+        rasterPaint.setFilterBitmap(true);
         strokePaint = new Paint();
         strokePaint.setStyle(Paint.Style.STROKE);
         strokePaint.setAntiAlias(true);
@@ -81,6 +91,41 @@ class AndroidCanvasImp implements CanvasImp {
         canvas.drawBitmap(((AndroidImageImp) image).bitmap, null, dest, imagePaint);
     }
 
+    @Override
+    public void drawLines(final float[] points, final int count) {
+        assert points != null;
+        assert points.length >= 4 * count;
+
+        canvas.drawLines(points, 0, 4 * count, strokePaint);
+    }
+
+    @Override
+    public void drawPixels(final float x, final float y, final float width, final float height, final int columns,
+                           final int rows, final int[] pixels, final int opacity) {
+        assert pixels != null;
+        assert pixels.length >= columns * rows;
+        assert 0 < opacity && opacity <= 255;
+
+        // The buffer only grows, so that a fluid whose bounds change every frame does not allocate a bitmap per frame
+        if (pixelBuffer == null || pixelBuffer.getWidth() < columns || pixelBuffer.getHeight() < rows) {
+            int bufferWidth = columns;
+            int bufferHeight = rows;
+            if (pixelBuffer != null) {
+                bufferWidth = Math.max(columns, pixelBuffer.getWidth());
+                bufferHeight = Math.max(rows, pixelBuffer.getHeight());
+                pixelBuffer.recycle();
+            }
+
+            pixelBuffer = Bitmap.createBitmap(bufferWidth, bufferHeight, Config.ARGB_8888);
+        }
+
+        pixelBuffer.setPixels(pixels, 0, columns, 0, 0, columns, rows);
+        rasterPaint.setAlpha(opacity);
+        pixelSource.set(0, 0, columns, rows);
+        pixelTarget.set(x, y, x + width, y + height);
+        canvas.drawBitmap(pixelBuffer, pixelSource, pixelTarget, rasterPaint);
+    }
+
     @Override
     public void drawPolyline(final float[] points) {
         for (int i = 0; i < points.length - 2; i = i + 2) {
@@ -134,6 +179,23 @@ class AndroidCanvasImp implements CanvasImp {
         canvas.drawRect(x, y, x + width, y + height, fillPaint);
     }
 
+    @Override
+    public void fillTriangles(final float[] points, final int count) {
+        assert points != null;
+        assert points.length >= 6 * count;
+
+        // Canvas.drawVertices() is not supported by hardware acceleration, so the triangles are collected in one path
+        batchPath.rewind();
+        for (int i = 0; i < 6 * count; i = i + 6) {
+            batchPath.moveTo(points[i], points[i + 1]);
+            batchPath.lineTo(points[i + 2], points[i + 3]);
+            batchPath.lineTo(points[i + 4], points[i + 5]);
+            batchPath.close();
+        }
+
+        canvas.drawPath(batchPath, fillPaint);
+    }
+
     @Override
     public int getHeight() {
         return bitmap.getHeight();
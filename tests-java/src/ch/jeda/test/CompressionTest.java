@@ -0,0 +1,173 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import ch.jeda.event.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the same data objects over a TCP connection with and without compression and compares the number of bytes
+ * passing a relay between client and server.
+ */
+public class CompressionTest extends Program implements MessageReceivedListener {
+
+    private static final int PORT = 1260;
+    private static final int MESSAGES = 2000;
+    private final AtomicInteger received = new AtomicInteger();
+    private final AtomicInteger wrong = new AtomicInteger();
+    private final AtomicLong relayed = new AtomicLong();
+    private int port = PORT;
+
+    @Override
+    public void run() {
+        Jeda.addEventListener(this);
+        writeLines("Text, uncompressed: ", measure(false, false), " bytes");
+        writeLines("Text, compressed: ", measure(false, true), " bytes");
+        writeLines("Binary, uncompressed: ", measure(true, false), " bytes");
+        writeLines("Binary, compressed: ", measure(true, true), " bytes");
+    }
+
+    @Override
+    public void onMessageReceived(MessageEvent event) {
+        Data data = event.getData();
+        if (data == null) {
+            return;
+        }
+
+        if (!"player".equals(data.readString("name")) || data.readInt("score") != received.get()) {
+            wrong.incrementAndGet();
+        }
+
+        received.incrementAndGet();
+    }
+
+    private long measure(boolean binary, boolean compressed) {
+        received.set(0);
+        wrong.set(0);
+        relayed.set(0);
+        // Use fresh ports for each run, closed ports may linger for a while
+        int serverPort = port++;
+        int relayPort = port++;
+        TcpServer server = new TcpServer();
+        server.setBinaryEnabled(binary);
+        server.setCompressionEnabled(compressed);
+        if (!server.start(serverPort)) {
+            writeLines("Cannot start server.");
+            return -1;
+        }
+
+        Relay relay = new Relay(relayPort, serverPort);
+        relay.start();
+        TcpConnection client = new TcpConnection();
+        client.setBinaryEnabled(binary);
+        client.setCompressionEnabled(compressed);
+        if (!client.open("127.0.0.1", relayPort)) {
+            writeLines("Cannot connect to relay.");
+            server.stop();
+            return -1;
+        }
+
+        // Give the endpoints time to negotiate
+        sleep(200);
+        for (int i = 0; i < MESSAGES; ++i) {
+            Data data = new Data();
+            data.writeString("name", "player");
+            data.writeInt("score", i);
+            data.writeDouble("x", 100 + i % 10);
+            data.writeDouble("y", 200);
+            data.writeBoolean("alive", true);
+            client.sendData(data);
+        }
+
+        long start = System.currentTimeMillis();
+        while (received.get() < MESSAGES && System.currentTimeMillis() - start < 10000) {
+            sleep(10);
+        }
+
+        if (received.get() != MESSAGES || wrong.get() != 0) {
+            writeLines("Received ", received.get(), "/", MESSAGES, " messages, ", wrong.get(), " wrong.");
+        }
+
+        writeLines("Client compressed: ", client.isCompressed());
+        client.close();
+        server.stop();
+        relay.close();
+        return relayed.get();
+    }
+
+    private class Relay extends Thread {
+
+        private final ServerSocket serverSocket;
+        private final int serverPort;
+        private Socket in;
+        private Socket out;
+
+        Relay(int relayPort, int serverPort) {
+            this.serverPort = serverPort;
+            try {
+                serverSocket = new ServerSocket(relayPort);
+            }
+            catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                in = serverSocket.accept();
+                out = new Socket("127.0.0.1", serverPort);
+                Thread back = new Thread() {
+
+                    @Override
+                    public void run() {
+                        copy(out, in);
+                    }
+                };
+                back.start();
+                copy(in, out);
+            }
+            catch (IOException ex) {
+                // relay is closed
+            }
+        }
+
+        void close() {
+            try {
+                serverSocket.close();
+                if (in != null) {
+                    in.close();
+                }
+
+                if (out != null) {
+                    out.close();
+                }
+            }
+            catch (IOException ex) {
+                // ignore
+            }
+        }
+
+        private void copy(Socket from, Socket to) {
+            try {
+                InputStream input = from.getInputStream();
+                OutputStream output = to.getOutputStream();
+                byte[] buffer = new byte[8192];
+                int count = input.read(buffer);
+                while (count != -1) {
+                    relayed.addAndGet(count);
+                    output.write(buffer, 0, count);
+                    count = input.read(buffer);
+                }
+            }
+            catch (IOException ex) {
+                // relay is closed
+            }
+        }
+    }
+}
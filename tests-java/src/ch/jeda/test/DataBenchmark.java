@@ -0,0 +1,65 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+
+public class DataBenchmark extends Program {
+
+    private static final int ROUNDS = 5;
+    private static final int ITERATIONS = 20000;
+    private static final int OBJECTS = 10000;
+
+    @Override
+    public void run() {
+        int[] values = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        int checksum = 0;
+        for (int round = 0; round < ROUNDS; ++round) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; ++i) {
+                Data data = new Data();
+                data.writeInt("id", i);
+                data.writeDouble("x", 1.5);
+                data.writeString("name", "player");
+                data.writeInts("values", values);
+                data.writeObject("circle", new DataTest.Circle(i));
+                Data copy = new Data(data.toLine());
+                checksum += copy.readInt("id") + copy.readInts("values").length;
+                DataTest.Circle circle = copy.readObject("circle");
+                checksum += circle.getRadius();
+            }
+
+            long duration = System.nanoTime() - start;
+            writeLines("Round ", round + 1, ": ", ITERATIONS * 1000000000L / duration, " round trips per second");
+        }
+
+        writeLines("Checksum: ", checksum);
+        Data objects = new Data();
+        for (int i = 0; i < OBJECTS; ++i) {
+            objects.writeObject("o" + i, new DataTest.Circle(i));
+        }
+
+        benchmarkObjects("Reflection", objects);
+        FactoryRegistry.register(DataTest.Circle.class, new Factory<DataTest.Circle>() {
+
+            @Override
+            public DataTest.Circle create(Data data) {
+                return new DataTest.Circle(data);
+            }
+        });
+        benchmarkObjects("Registered factory", objects);
+        FactoryRegistry.unregister(DataTest.Circle.class);
+    }
+
+    private void benchmarkObjects(String title, Data objects) {
+        for (int round = 0; round < ROUNDS; ++round) {
+            int checksum = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < OBJECTS; ++i) {
+                DataTest.Circle circle = objects.readObject("o" + i);
+                checksum += circle.getRadius();
+            }
+
+            long duration = System.nanoTime() - start;
+            writeLines(title, ", round ", round + 1, ": ", OBJECTS * 1000000000L / duration, " objects per second");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import java.io.File;
+import java.io.RandomAccessFile;
+
+/**
+ * Autosaves a world of 1000 objects, of which 10 change between saves, once with Data.save and once with a DataStore.
+ * Then simulates a crash in the middle of a write and during a compaction and checks that the store recovers.
+ */
+public class DataStoreTest extends Program {
+
+    private static final int OBJECTS = 1000;
+    private static final int CHANGES = 10;
+    private static final int SAVES = 200;
+
+    @Override
+    public void run() {
+        try {
+            File dir = File.createTempFile("jeda", "store");
+            dir.delete();
+            dir.mkdir();
+            String savePath = new File(dir, "world.xml").getPath();
+            String storePath = new File(dir, "world.store").getPath();
+            int[] world = new int[OBJECTS];
+
+            long start = System.nanoTime();
+            for (int save = 0; save < SAVES; ++save) {
+                change(world, save);
+                Data data = new Data();
+                for (int i = 0; i < OBJECTS; ++i) {
+                    data.writeObject("o" + i, new DataTest.Circle(world[i]));
+                }
+
+                data.save(savePath);
+            }
+
+            writeLines("Data.save: ", (System.nanoTime() - start) / SAVES / 1000, " us per autosave");
+
+            DataStore store = new DataStore(storePath);
+            start = System.nanoTime();
+            for (int save = 0; save < SAVES; ++save) {
+                change(world, save);
+                for (int i = 0; i < OBJECTS; ++i) {
+                    Data data = new Data();
+                    data.writeInt("radius", world[i]);
+                    store.put("o" + i, data);
+                }
+            }
+
+            store.sync();
+            writeLines("DataStore: ", (System.nanoTime() - start) / SAVES / 1000, " us per autosave, file size ",
+                       store.getFileSize(), " bytes");
+            store.close();
+
+            // Simulate a crash: append a partially written record.
+            RandomAccessFile file = new RandomAccessFile(storePath, "rw");
+            file.seek(file.length());
+            file.write(new byte[]{0, 0, 0, 50, 1, 2, 3});
+            file.close();
+
+            store = new DataStore(storePath);
+            int errors = 0;
+            for (int i = 0; i < OBJECTS; ++i) {
+                if (store.get("o" + i).readInt("radius") != world[i]) {
+                    ++errors;
+                }
+            }
+
+            writeLines("Recovered ", store.size(), " objects, ", errors, " errors");
+            store.compact();
+            writeLines("Compacted file size: ", store.getFileSize(), " bytes");
+            store.close();
+
+            // Simulate a crash during compaction after the store has been deleted, only the compacted file is left.
+            new File(storePath).renameTo(new File(storePath + ".compact"));
+            store = new DataStore(storePath);
+            writeLines("Recovered ", store.size(), " objects from compacted file");
+            store.close();
+        }
+        catch (Exception ex) {
+            writeLines("Error: ", ex);
+        }
+    }
+
+    private static void change(int[] world, int save) {
+        for (int i = 0; i < CHANGES; ++i) {
+            world[(save * CHANGES + i) % OBJECTS] = save;
+        }
+    }
+}
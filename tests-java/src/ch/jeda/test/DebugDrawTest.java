@@ -0,0 +1,63 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import ch.jeda.event.*;
+import ch.jeda.geometry.*;
+import ch.jeda.physics.*;
+import ch.jeda.ui.*;
+
+/**
+ * Drops ten thousand boxes and balls into a physics view with debugging enabled. The keys 1 to 8 toggle the debug
+ * features, the title shows the number of bodies and the average frame time.
+ */
+public class DebugDrawTest extends Program implements KeyDownListener, TickListener {
+
+    private static final int BODY_COUNT = 10000;
+    private static final DebugFeature[] FEATURES = DebugFeature.values();
+    PhysicsView view;
+    int frames;
+    double time;
+
+    @Override
+    public void run() {
+        view = new PhysicsView(800, 600);
+        view.setDebugging(true);
+        view.add(new Box(view));
+        double width = view.getWidthM();
+        for (int i = 0; i < BODY_COUNT; ++i) {
+            Body body = new Body();
+            if (i % 2 == 0) {
+                body.addShape(new Rectangle(-0.03, -0.03, 0.06, 0.06));
+            }
+            else {
+                body.addShape(new Circle(0, 0, 0.03));
+            }
+
+            body.setPosition(0.2 + (i % 100) * (width - 0.4) / 100, 0.5 + (i / 100) * 0.08);
+            view.add(body);
+        }
+
+        view.addEventListener(this);
+    }
+
+    @Override
+    public void onKeyDown(KeyEvent event) {
+        int index = event.getKey().ordinal() - Key.DIGIT_1.ordinal();
+        if (0 <= index && index < FEATURES.length) {
+            DebugFeature feature = FEATURES[index];
+            view.setDebugFeature(feature, !view.hasDebugFeature(feature));
+        }
+    }
+
+    @Override
+    public void onTick(TickEvent event) {
+        ++frames;
+        time += event.getDuration();
+        if (frames == 60) {
+            view.setTitle("Bodies: " + view.getElements(Body.class).length + ", " + Math.round(1000 * time / frames) +
+                          " ms per frame");
+            frames = 0;
+            time = 0;
+        }
+    }
+}
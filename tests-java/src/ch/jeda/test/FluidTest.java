@@ -0,0 +1,62 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import ch.jeda.event.*;
+import ch.jeda.geometry.*;
+import ch.jeda.physics.*;
+import ch.jeda.ui.*;
+
+/**
+ * Fills a tank with water, a viscous fluid and an elastic block. Click into the view to drop a box into the tank. The
+ * number of particles and the frame rate are shown in the title.
+ */
+public class FluidTest extends Program implements PointerDownListener, TickListener {
+
+    PhysicsView view;
+    Fluid water;
+    Fluid honey;
+    Fluid jelly;
+
+    @Override
+    public void run() {
+        view = new PhysicsView(800, 600);
+        view.getBackground().setColor(Color.WHITE);
+        view.getBackground().fill();
+        view.setParticleRadius(0.08);
+        view.setDebugging(true);
+
+        Body tank = new Body();
+        tank.setType(BodyType.STATIC);
+        tank.addShape(new Rectangle(0, 0, 16, 0.5));
+        tank.addShape(new Rectangle(0, 0, 0.5, 12));
+        tank.addShape(new Rectangle(15.5, 0, 0.5, 12));
+        view.add(tank);
+
+        water = new Fluid(new Rectangle(1, 1, 5, 8));
+        view.add(water);
+
+        honey = new Fluid(new Rectangle(10, 4, 4, 3), FluidType.VISCOUS);
+        honey.setColor(Color.AMBER_500);
+        view.add(honey);
+
+        jelly = new Fluid(new Circle(8, 10, 1.2), FluidType.ELASTIC);
+        jelly.setColor(new Color(229, 57, 53, 200));
+        view.add(jelly);
+
+        view.addEventListener(this);
+    }
+
+    @Override
+    public void onPointerDown(PointerEvent event) {
+        Body box = new Body();
+        box.addShape(new Rectangle(-0.5, -0.5, 1, 1));
+        box.setPosition(event.getWorldX(), event.getWorldY());
+        view.add(box);
+    }
+
+    @Override
+    public void onTick(TickEvent event) {
+        view.setTitle("Particles: " + (water.getParticleCount() + honey.getParticleCount() + jelly.getParticleCount()) +
+                      ", FPS: " + Math.round(event.getFrameRate()));
+    }
+}
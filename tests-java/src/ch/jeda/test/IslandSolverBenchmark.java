@@ -0,0 +1,183 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import org.jbox2d.callbacks.ContactImpulse;
+import org.jbox2d.callbacks.ContactListener;
+import org.jbox2d.collision.Manifold;
+import org.jbox2d.collision.shapes.PolygonShape;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.BodyType;
+import org.jbox2d.dynamics.World;
+import org.jbox2d.dynamics.contacts.Contact;
+import org.jbox2d.dynamics.joints.RevoluteJointDef;
+
+/**
+ * Steps worlds with an increasing number of independent piles of boxes and of chains of links connected by revolute
+ * joints with one and more solver threads. Reports the time per step and checks that all thread counts produce the same
+ * simulation result and the same sequence of contact events.
+ */
+public class IslandSolverBenchmark extends Program {
+
+    private static final int BODIES = 4096;
+    private static final int STEPS = 300;
+    private static final int[] ISLANDS = {1, 4, 16, 64, 256};
+
+    @Override
+    public void run() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = cores > 4 ? new int[]{1, 2, 4, cores} : new int[]{1, 2, 4};
+        writeLines("Cores: ", cores, ", bodies: ", BODIES, ", steps: ", STEPS);
+        for (int islands : ISLANDS) {
+            measure("Islands: ", islands, false, threadCounts);
+        }
+
+        for (int islands : ISLANDS) {
+            measure("Chain islands: ", islands, true, threadCounts);
+        }
+    }
+
+    private void measure(String label, int islands, boolean chains, int[] threadCounts) {
+        long serialTime = 0;
+        long serialChecksum = 0;
+        for (int threads : threadCounts) {
+            World world = chains ? createChainWorld(islands) : createWorld(islands);
+            EventChecksum events = new EventChecksum();
+            world.setContactListener(events);
+            world.setSolverThreadCount(threads);
+            long start = System.nanoTime();
+            for (int i = 0; i < STEPS; ++i) {
+                world.step(1f / 60f, 8, 3);
+            }
+
+            long time = System.nanoTime() - start;
+            long checksum = 31 * checksum(world) + events.checksum;
+            world.setSolverThreadCount(1);
+            if (threads == 1) {
+                serialTime = time;
+                serialChecksum = checksum;
+            }
+
+            writeLines(label, islands, ", joints: ", world.getJointCount(), ", threads: ", threads, ", ",
+                       time / STEPS / 1000, " us per step", ", collide ms: ", world.getProfile().collide,
+                       ", speed-up: ", Math.round(100.0 * serialTime / time) / 100.0, ", deterministic: ",
+                       checksum == serialChecksum);
+        }
+    }
+
+    private static World createChainWorld(int islands) {
+        World world = new World(new Vec2(0f, -10f));
+        world.setAllowSleep(false);
+        int perIsland = BODIES / islands;
+        int chains = (int) Math.ceil(Math.sqrt(perIsland / 4.0));
+        int links = perIsland / chains;
+        PolygonShape link = new PolygonShape();
+        link.setAsBox(0.25f, 0.06f);
+        for (int island = 0; island < islands; ++island) {
+            float x = island * (chains * 2f + links * 0.5f + 5f);
+            BodyDef groundDef = new BodyDef();
+            groundDef.position.set(x, 0f);
+            Body ground = world.createBody(groundDef);
+            PolygonShape groundShape = new PolygonShape();
+            groundShape.setAsBox(chains * 1f + links * 0.5f + 2f, 0.5f);
+            ground.createFixture(groundShape, 0f);
+            int id = island * perIsland;
+            for (int chain = 0; chain < chains; ++chain) {
+                // each chain hangs horizontally from a pin and swings down onto the other chains
+                float y = links * 0.5f + 2f + chain * 0.3f;
+                float left = x - chains + chain * 2f;
+                Body previous = ground;
+                for (int i = 0; i < links; ++i) {
+                    BodyDef def = new BodyDef();
+                    def.type = BodyType.DYNAMIC;
+                    def.userData = id;
+                    def.position.set(left + i * 0.5f + 0.25f, y);
+                    Body body = world.createBody(def);
+                    body.createFixture(link, 1f);
+                    RevoluteJointDef joint = new RevoluteJointDef();
+                    joint.initialize(previous, body, new Vec2(left + i * 0.5f, y));
+                    world.createJoint(joint);
+                    previous = body;
+                    ++id;
+                }
+            }
+        }
+
+        return world;
+    }
+
+    private static World createWorld(int islands) {
+        World world = new World(new Vec2(0f, -10f));
+        world.setAllowSleep(false);
+        int perIsland = BODIES / islands;
+        int columns = (int) Math.ceil(Math.sqrt(perIsland));
+        PolygonShape box = new PolygonShape();
+        box.setAsBox(0.5f, 0.5f);
+        for (int island = 0; island < islands; ++island) {
+            float x = island * (columns * 1.5f + 5f);
+            BodyDef groundDef = new BodyDef();
+            groundDef.position.set(x, 0f);
+            Body ground = world.createBody(groundDef);
+            PolygonShape groundShape = new PolygonShape();
+            groundShape.setAsBox(columns * 0.75f + 2f, 0.5f);
+            ground.createFixture(groundShape, 0f);
+            for (int i = 0; i < perIsland; ++i) {
+                BodyDef def = new BodyDef();
+                def.type = BodyType.DYNAMIC;
+                def.userData = island * perIsland + i;
+                def.position.set(x - columns * 0.5f + (i % columns) * 1.05f + (i / columns % 2) * 0.1f,
+                                 1f + (i / columns) * 1.05f);
+                world.createBody(def).createFixture(box, 1f);
+            }
+        }
+
+        return world;
+    }
+
+    private static long checksum(World world) {
+        long result = 17;
+        for (Body body = world.getBodyList(); body != null; body = body.getNext()) {
+            result = 31 * result + Float.floatToIntBits(body.getPosition().x);
+            result = 31 * result + Float.floatToIntBits(body.getPosition().y);
+            result = 31 * result + Float.floatToIntBits(body.getAngle());
+        }
+
+        return result;
+    }
+
+    private static class EventChecksum implements ContactListener {
+
+        long checksum;
+
+        @Override
+        public void beginContact(Contact contact) {
+            add(1, contact);
+        }
+
+        @Override
+        public void endContact(Contact contact) {
+            add(2, contact);
+        }
+
+        @Override
+        public void preSolve(Contact contact, Manifold oldManifold) {
+            add(3, contact);
+        }
+
+        @Override
+        public void postSolve(Contact contact, ContactImpulse impulse) {
+            add(4, contact);
+        }
+
+        private void add(int event, Contact contact) {
+            checksum = 31 * checksum + event;
+            checksum = 31 * checksum + id(contact.getFixtureA().getBody());
+            checksum = 31 * checksum + id(contact.getFixtureB().getBody());
+        }
+
+        private static int id(Body body) {
+            return body.getUserData() == null ? -1 : (Integer) body.getUserData();
+        }
+    }
+}
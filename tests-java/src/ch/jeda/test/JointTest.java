@@ -0,0 +1,83 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import ch.jeda.event.*;
+import ch.jeda.geometry.*;
+import ch.jeda.physics.*;
+import ch.jeda.ui.*;
+
+/**
+ * Shows a bridge of revolute joints, a car with motorized wheels, a pendulum on a rope and a slider. All bodies can be
+ * dragged with the pointer. Pressing the space key reverses the motor of the car, pressing D destroys the rope.
+ */
+public class JointTest extends Program implements KeyDownListener {
+
+    PhysicsView view;
+    WheelJoint rearWheel;
+    WheelJoint frontWheel;
+    RopeJoint rope;
+
+    @Override
+    public void run() {
+        view = new PhysicsView(800, 600);
+        view.setDebugging(true);
+        view.add(new Box(view));
+        Body leftPier = createBody(new Rectangle(-0.2, -0.5, 0.4, 1.0), 0.6, 2.5, BodyType.STATIC);
+        Body previous = leftPier;
+        for (int i = 0; i < 10; ++i) {
+            Body plank = createBody(new Rectangle(-0.2, -0.05, 0.4, 0.1), 1.0 + i * 0.4, 3.0, BodyType.DYNAMIC);
+            view.createRevoluteJoint(previous, plank, 0.8 + i * 0.4, 3.0);
+            previous = plank;
+        }
+
+        Body rightPier = createBody(new Rectangle(-0.2, -0.5, 0.4, 1.0), 5.0, 2.5, BodyType.STATIC);
+        view.createRevoluteJoint(previous, rightPier, 4.8, 3.0);
+
+        Body car = createBody(new Rectangle(-0.6, -0.15, 1.2, 0.3), 1.5, 0.7, BodyType.DYNAMIC);
+        Body rear = createBody(new Circle(0, 0, 0.2), 1.1, 0.4, BodyType.DYNAMIC);
+        Body front = createBody(new Circle(0, 0, 0.2), 1.9, 0.4, BodyType.DYNAMIC);
+        rear.setFriction(0.9);
+        front.setFriction(0.9);
+        rearWheel = view.createWheelJoint(car, rear, 1.1, 0.4, 0, 1);
+        rearWheel.setMaxMotorTorque(20);
+        rearWheel.setMotorSpeed(-5);
+        rearWheel.setMotorEnabled(true);
+        frontWheel = view.createWheelJoint(car, front, 1.9, 0.4, 0, 1);
+
+        Body hook = createBody(new Circle(0, 0, 0.05), 6.5, 5.5, BodyType.STATIC);
+        Body weight = createBody(new Circle(0, 0, 0.25), 7.5, 4.5, BodyType.DYNAMIC);
+        rope = view.createRopeJoint(hook, 6.5, 5.5, weight, 7.5, 4.5, 1.5);
+
+        Body rail = createBody(new Rectangle(-0.05, -0.05, 0.1, 0.1), 6.5, 2.0, BodyType.STATIC);
+        Body slider = createBody(new Rectangle(-0.3, -0.2, 0.6, 0.4), 6.5, 2.0, BodyType.DYNAMIC);
+        PrismaticJoint slide = view.createPrismaticJoint(rail, slider, 6.5, 2.0, 1, 0);
+        slide.setLimits(-1, 1);
+        slide.setLimitEnabled(true);
+
+        view.setDragEnabled(true);
+        view.addEventListener(this);
+    }
+
+    @Override
+    public void onKeyDown(KeyEvent event) {
+        switch (event.getKey()) {
+            case SPACE:
+                rearWheel.setMotorSpeed(-rearWheel.getMotorSpeed());
+                break;
+            case D:
+                view.destroyJoint(rope);
+                break;
+        }
+
+        view.setTitle("Joints: " + view.getJoints().length + ", rope destroyed: " + rope.isDestroyed());
+    }
+
+    private Body createBody(Shape shape, double x, double y, BodyType type) {
+        Body result = new Body();
+        result.addShape(shape);
+        result.setPosition(x, y);
+        result.setType(type);
+        view.add(result);
+        return result;
+    }
+}
@@ -0,0 +1,105 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import ch.jeda.event.*;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NioServerLoadTest extends Program implements MessageReceivedListener {
+
+    private static final int PORT = 1249;
+    private static final int CLIENTS = 1000;
+    private static final int CLIENT_THREADS = 10;
+    private static final int MESSAGES = 20;
+    private NioTcpServer server;
+
+    @Override
+    public void run() {
+        server = new NioTcpServer();
+        if (!server.start(PORT)) {
+            writeLines("Cannot start server.");
+            return;
+        }
+
+        Jeda.addEventListener(this);
+        final AtomicInteger received = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < CLIENT_THREADS; ++i) {
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+                    runClients(received, failed);
+                }
+            };
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            }
+            catch (InterruptedException ex) {
+                return;
+            }
+        }
+
+        long duration = System.nanoTime() - start;
+        writeLines("Clients: ", CLIENTS, ", echoed messages: ", received.get(), ", failed clients: ", failed.get());
+        writeLines("Duration: ", duration / 1000000, " ms, ", received.get() * 1000000000L / duration, " messages per second");
+        writeLines("Live threads: ", Thread.activeCount());
+        server.stop();
+    }
+
+    @Override
+    public void onMessageReceived(MessageEvent event) {
+        event.getConnection().sendLine(event.getLine());
+    }
+
+    private void runClients(AtomicInteger received, AtomicInteger failed) {
+        List<Socket> sockets = new ArrayList<Socket>();
+        List<BufferedReader> readers = new ArrayList<BufferedReader>();
+        try {
+            for (int i = 0; i < CLIENTS / CLIENT_THREADS; ++i) {
+                Socket socket = new Socket("localhost", PORT);
+                sockets.add(socket);
+                readers.add(new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8")));
+            }
+
+            for (int m = 0; m < MESSAGES; ++m) {
+                for (Socket socket : sockets) {
+                    OutputStream out = socket.getOutputStream();
+                    out.write(("message " + m + "\n").getBytes("UTF-8"));
+                    out.flush();
+                }
+
+                for (BufferedReader in : readers) {
+                    if (in.readLine() != null) {
+                        received.incrementAndGet();
+                    }
+                }
+            }
+        }
+        catch (Exception ex) {
+            failed.incrementAndGet();
+        }
+        finally {
+            for (Socket socket : sockets) {
+                try {
+                    socket.close();
+                }
+                catch (Exception ex) {
+                    // ignore
+                }
+            }
+        }
+    }
+}
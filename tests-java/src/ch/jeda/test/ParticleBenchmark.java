@@ -0,0 +1,118 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import org.jbox2d.collision.shapes.ChainShape;
+import org.jbox2d.collision.shapes.PolygonShape;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.BodyType;
+import org.jbox2d.dynamics.World;
+import org.jbox2d.particle.ParticleGroupDef;
+import org.jbox2d.particle.ParticleType;
+
+/**
+ * Steps a tank of water, a viscous and tensile blob and an elastic block with an increasing number of particles. Reports
+ * the time per step and a checksum of the particle state, which must be the same for all solver thread counts.
+ */
+public class ParticleBenchmark extends Program {
+
+    private static final int STEPS = 200;
+    private static final float[] SIZES = {4f, 8f, 12f};
+
+    @Override
+    public void run() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = cores > 4 ? new int[]{1, 2, 4, cores} : new int[]{1, 2, 4};
+        writeLines("Cores: ", cores, ", steps: ", STEPS);
+        for (float size : SIZES) {
+            long serialTime = 0;
+            long serialChecksum = 0;
+            for (int threads : threadCounts) {
+                World world = createWorld(size);
+                world.setSolverThreadCount(threads);
+                // warm up
+                for (int i = 0; i < 20; ++i) {
+                    world.step(1f / 60f, 8, 3);
+                }
+
+                long start = System.nanoTime();
+                for (int i = 0; i < STEPS; ++i) {
+                    world.step(1f / 60f, 8, 3);
+                }
+
+                long time = System.nanoTime() - start;
+                long checksum = checksum(world);
+                world.setSolverThreadCount(1);
+                if (threads == 1) {
+                    serialTime = time;
+                    serialChecksum = checksum;
+                }
+
+                writeLines("Particles: ", world.getParticleCount(), ", contacts: ", world.getParticleContactCount(),
+                           ", threads: ", threads, ", ", time / STEPS / 1000, " us per step, speed-up: ",
+                           Math.round(100.0 * serialTime / time) / 100.0, ", checksum: ",
+                           Long.toHexString(checksum), ", deterministic: ", checksum == serialChecksum);
+            }
+        }
+    }
+
+    private static World createWorld(float size) {
+        World world = new World(new Vec2(0f, -10f));
+        world.setParticleRadius(0.05f);
+        float width = 3f * size;
+        Body tank = world.createBody(new BodyDef());
+        ChainShape walls = new ChainShape();
+        walls.createLoop(new Vec2[]{new Vec2(-width, 0f), new Vec2(width, 0f), new Vec2(width, 4f * size),
+                                    new Vec2(-width, 4f * size)}, 4);
+        tank.createFixture(walls, 0f);
+
+        PolygonShape shape = new PolygonShape();
+        ParticleGroupDef water = new ParticleGroupDef();
+        shape.setAsBox(size, size * 0.5f, new Vec2(-size, size), 0f);
+        water.shape = shape;
+        world.createParticleGroup(water);
+
+        ParticleGroupDef blob = new ParticleGroupDef();
+        shape.setAsBox(size * 0.5f, size * 0.5f, new Vec2(size, size * 2f), 0f);
+        blob.shape = shape;
+        blob.flags = ParticleType.b2_viscousParticle | ParticleType.b2_tensileParticle |
+                     ParticleType.b2_colorMixingParticle;
+        world.createParticleGroup(blob);
+
+        ParticleGroupDef elastic = new ParticleGroupDef();
+        shape.setAsBox(1f, 1f, new Vec2(size * 2f, size * 3f), 0f);
+        elastic.shape = shape;
+        elastic.flags = ParticleType.b2_elasticParticle | ParticleType.b2_springParticle;
+        world.createParticleGroup(elastic);
+
+        BodyDef boxDef = new BodyDef();
+        boxDef.type = BodyType.DYNAMIC;
+        boxDef.position.set(0f, size * 3f);
+        PolygonShape box = new PolygonShape();
+        box.setAsBox(1f, 1f);
+        world.createBody(boxDef).createFixture(box, 0.5f);
+        return world;
+    }
+
+    private static long checksum(World world) {
+        long result = 17;
+        float[] positionX = world.getParticlePositionXBuffer();
+        float[] positionY = world.getParticlePositionYBuffer();
+        float[] velocityX = world.getParticleVelocityXBuffer();
+        float[] velocityY = world.getParticleVelocityYBuffer();
+        for (int i = 0; i < world.getParticleCount(); ++i) {
+            result = 31 * result + Float.floatToIntBits(positionX[i]);
+            result = 31 * result + Float.floatToIntBits(positionY[i]);
+            result = 31 * result + Float.floatToIntBits(velocityX[i]);
+            result = 31 * result + Float.floatToIntBits(velocityY[i]);
+        }
+
+        for (Body body = world.getBodyList(); body != null; body = body.getNext()) {
+            result = 31 * result + Float.floatToIntBits(body.getPosition().x);
+            result = 31 * result + Float.floatToIntBits(body.getPosition().y);
+        }
+
+        return result;
+    }
+}
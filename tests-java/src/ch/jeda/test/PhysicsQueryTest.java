@@ -0,0 +1,47 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import ch.jeda.event.*;
+import ch.jeda.geometry.*;
+import ch.jeda.physics.*;
+import ch.jeda.ui.*;
+
+/**
+ * Shows the results of spatial queries in the title: the body under the pointer, the bodies hit by a ray from the
+ * lower left corner to the pointer and the number of bodies near the pointer.
+ */
+public class PhysicsQueryTest extends Program implements PointerMovedListener {
+
+    PhysicsView view;
+    RaycastHit[] hits = new RaycastHit[10];
+    Body[] nearBodies = new Body[100];
+
+    @Override
+    public void run() {
+        view = new PhysicsView(800, 600);
+        view.setGravity(0, 0);
+        view.setDebugging(true);
+        for (int i = 0; i < 30; ++i) {
+            Body body = new Body();
+            body.setName("Body " + i);
+            body.addShape(new Rectangle(-0.4, -0.4, 0.8, 0.8));
+            body.setPosition(1 + (i % 6) * 1.2, 1 + (i / 6) * 1.2);
+            view.add(body);
+        }
+
+        view.addEventListener(this);
+    }
+
+    @Override
+    public void onPointerMoved(PointerEvent event) {
+        double x = event.getWorldX();
+        double y = event.getWorldY();
+        Body picked = view.queryPoint(x, y);
+        int hitCount = view.raycastAll(0, 0, x, y, hits);
+        int nearCount = view.queryArea(x - 1, y - 1, x + 1, y + 1, nearBodies);
+        String first = hitCount > 0 ? hits[0].getBody().getName() : "-";
+        view.setTitle("Picked: " + (picked == null ? "-" : picked.getName()) + ", ray hits: " + hitCount +
+                      ", first: " + first + ", line of sight: " + !view.raycastAny(0, 0, x, y) + ", near: " +
+                      nearCount);
+    }
+}
@@ -0,0 +1,48 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import ch.jeda.event.*;
+import ch.jeda.tiled.*;
+import ch.jeda.ui.*;
+import java.util.concurrent.Future;
+
+/**
+ * Preloads a few images and a Tiled map and cancels two of the futures, one before and one after starting the
+ * preloader. Checks that the cancelled assets count as failed and that the preloader still reports done.
+ */
+public class PreloaderTest extends Program implements LoadProgressListener {
+
+    private static final String[] IMAGES = {"res:drawable/asteroid.png", "res:drawable/background.jpg",
+                                            "res:drawable/basketball.png", "res:drawable/spain.jpg"};
+    private volatile boolean done;
+
+    @Override
+    public void run() {
+        Jeda.addEventListener(this);
+        Preloader preloader = new Preloader();
+        Future<Image> first = preloader.addImage(IMAGES[0]);
+        for (int i = 1; i < IMAGES.length; ++i) {
+            preloader.addImage(IMAGES[i]);
+        }
+
+        Future<TiledMap> map = preloader.addTiledMap("res:raw/racetrack.tmx");
+        first.cancel(false);
+        preloader.start();
+        map.cancel(true);
+        preloader.waitUntilDone();
+        long start = System.currentTimeMillis();
+        while (!done && System.currentTimeMillis() - start < 5000) {
+            sleep(10);
+        }
+
+        writeLines("Loaded: ", preloader.getLoadedCount(), "/", preloader.getTotalCount(), ", failed: ",
+                   preloader.getFailedCount(), ", done: ", preloader.isDone(), ", done event: ", done);
+    }
+
+    @Override
+    public void onLoadProgress(LoadEvent event) {
+        if (event.isDone()) {
+            done = true;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import ch.jeda.event.*;
+import ch.jeda.ui.*;
+
+/**
+ * Replicates moving balls from one view to two others, over a loopback TCP connection and over a loopback UDP
+ * connection. Only a few balls move, so most snapshots contain only their positions. The complete snapshot of all balls
+ * is larger than a single UDP message, so it is sent in several parts.
+ */
+public class ReplicationTest extends Program implements ConnectionAcceptedListener, TickListener {
+
+    private static final int PORT = 1251;
+    private static final int UDP_PORT = 1252;
+    private static final int BALLS = 50;
+    private static final int MOVING_BALLS = 5;
+    private Ball[] balls;
+    private ViewReplicator replicator;
+    private ViewReplica replica;
+    private TcpServer server;
+    private UdpServer udpServer;
+    private ViewReplica udpReplica;
+    private double time;
+
+    @Override
+    public void run() {
+        server = new TcpServer();
+        server.setBinaryEnabled(true);
+        if (!server.start(PORT)) {
+            writeLines("Cannot start server.");
+            return;
+        }
+
+        udpServer = new UdpServer();
+        if (!udpServer.start(UDP_PORT)) {
+            writeLines("Cannot start UDP server.");
+            return;
+        }
+
+        View source = new View(400, 400);
+        source.setTitle("Source");
+        replicator = new ViewReplicator();
+        balls = new Ball[BALLS];
+        for (int i = 0; i < BALLS; ++i) {
+            balls[i] = new Ball(i < MOVING_BALLS ? Color.RED : Color.BLUE);
+            balls[i].setPosition(1 + (i % 10) * 1.5, 1 + (i / 10) * 1.5);
+            source.add(balls[i]);
+            replicator.addElement(balls[i]);
+        }
+
+        Jeda.addEventListener(this);
+        TcpConnection connection = new TcpConnection();
+        connection.setBinaryEnabled(true);
+        if (!connection.open("localhost", PORT)) {
+            writeLines("Cannot connect to server.");
+            return;
+        }
+
+        View target = new View(400, 400);
+        target.setTitle("Replica (TCP)");
+        replica = new ViewReplica(target, connection);
+
+        UdpConnection udpConnection = new UdpConnection();
+        if (!udpConnection.open("localhost", UDP_PORT)) {
+            writeLines("Cannot connect to UDP server.");
+            return;
+        }
+
+        View udpTarget = new View(400, 400);
+        udpTarget.setTitle("Replica (UDP)");
+        udpReplica = new ViewReplica(udpTarget, udpConnection);
+    }
+
+    @Override
+    public void onConnectionAccepted(ConnectionEvent event) {
+        replicator.addConnection(event.getConnection());
+    }
+
+    @Override
+    public void onTick(TickEvent event) {
+        time = time + event.getDuration();
+        for (int i = 0; i < MOVING_BALLS; ++i) {
+            balls[i].setPosition(5 + 3 * Math.cos(time + i), 5 + 3 * Math.sin(time + i));
+            balls[i].setAngleRad(time);
+        }
+
+        if (((int) (time * 10)) % 3 == 0) {
+            balls[MOVING_BALLS].color = new Color(Color.BLUE.getRed(), Color.BLUE.getGreen(), (int) (time * 10) % 255);
+        }
+
+        // Send snapshots at about 20 Hz.
+        if ((int) (time * 20) != (int) ((time - event.getDuration()) * 20)) {
+            replicator.update();
+        }
+    }
+
+    public static class Ball extends Element implements Replicable {
+
+        Color color;
+
+        public Ball() {
+            color = Color.BLACK;
+        }
+
+        Ball(Color color) {
+            this.color = color;
+        }
+
+        @Override
+        public void readFrom(Data data) {
+            color = new Color(data.readInt("color"));
+        }
+
+        @Override
+        public void writeTo(Data data) {
+            data.writeInt("color", color.getValue());
+        }
+
+        @Override
+        protected void draw(Canvas canvas) {
+            canvas.setColor(color);
+            canvas.fillCircle(0, 0, 0.5);
+            canvas.setColor(Color.WHITE);
+            canvas.drawPolyline(0, 0, 0.5, 0);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import org.jbox2d.callbacks.ContactImpulse;
+import org.jbox2d.callbacks.ContactListener;
+import org.jbox2d.collision.Manifold;
+import org.jbox2d.collision.shapes.CircleShape;
+import org.jbox2d.collision.shapes.PolygonShape;
+import org.jbox2d.common.Vec2;
+import org.jbox2d.dynamics.Body;
+import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.BodyType;
+import org.jbox2d.dynamics.World;
+import org.jbox2d.dynamics.WorldSnapshot;
+import org.jbox2d.dynamics.contacts.Contact;
+
+/**
+ * Saves and restores snapshots of worlds with an increasing number of bodies. Reports the size of a snapshot and the
+ * time needed to save and restore it. Checks that stepping a world after restoring a snapshot gives the same simulation
+ * result and the same sequence of contact events as stepping it after saving the snapshot.
+ */
+public class SnapshotBenchmark extends Program {
+
+    private static final int REPEAT = 200;
+    private static final int STEPS = 120;
+    private static final int[] BODIES = {64, 256, 1024, 4096};
+
+    @Override
+    public void run() {
+        writeLines("Steps before and after snapshot: ", STEPS);
+        for (int bodies : BODIES) {
+            World world = createWorld(bodies);
+            EventChecksum events = new EventChecksum();
+            world.setContactListener(events);
+            step(world, STEPS);
+            WorldSnapshot snapshot = new WorldSnapshot();
+            WorldSnapshot scratch = new WorldSnapshot();
+            world.saveSnapshot(snapshot);
+
+            events.checksum = 0;
+            step(world, STEPS);
+            long expected = 31 * checksum(world) + events.checksum;
+
+            long saveTime = 0;
+            long restoreTime = 0;
+            for (int i = 0; i < REPEAT; ++i) {
+                long start = System.nanoTime();
+                world.saveSnapshot(scratch);
+                saveTime += System.nanoTime() - start;
+                start = System.nanoTime();
+                world.restoreSnapshot(snapshot);
+                restoreTime += System.nanoTime() - start;
+            }
+
+            events.checksum = 0;
+            step(world, STEPS);
+            long actual = 31 * checksum(world) + events.checksum;
+            writeLines("Bodies: ", bodies, ", contacts: ", world.getContactCount(), ", snapshot: ",
+                       snapshot.getByteCount() / 1024, " KB, save: ", saveTime / REPEAT / 1000, " us, restore: ",
+                       restoreTime / REPEAT / 1000, " us, deterministic: ", actual == expected);
+        }
+    }
+
+    private static World createWorld(int bodies) {
+        World world = new World(new Vec2(0f, -10f));
+        int columns = (int) Math.ceil(Math.sqrt(bodies));
+        BodyDef groundDef = new BodyDef();
+        Body ground = world.createBody(groundDef);
+        PolygonShape groundShape = new PolygonShape();
+        groundShape.setAsBox(columns + 2f, 0.5f);
+        ground.createFixture(groundShape, 0f);
+        PolygonShape box = new PolygonShape();
+        box.setAsBox(0.5f, 0.5f);
+        CircleShape ball = new CircleShape();
+        ball.m_radius = 0.5f;
+        for (int i = 0; i < bodies; ++i) {
+            BodyDef def = new BodyDef();
+            def.type = BodyType.DYNAMIC;
+            def.userData = i;
+            def.position.set(-columns + (i % columns) * 2.05f + (i / columns % 2) * 0.3f, 1f + (i / columns) * 1.1f);
+            world.createBody(def).createFixture(i % 3 == 0 ? ball : box, 1f);
+        }
+
+        return world;
+    }
+
+    private static void step(World world, int steps) {
+        for (int i = 0; i < steps; ++i) {
+            world.step(1f / 60f, 8, 3);
+        }
+    }
+
+    private static long checksum(World world) {
+        long result = 17;
+        for (Body body = world.getBodyList(); body != null; body = body.getNext()) {
+            result = 31 * result + Float.floatToIntBits(body.getPosition().x);
+            result = 31 * result + Float.floatToIntBits(body.getPosition().y);
+            result = 31 * result + Float.floatToIntBits(body.getAngle());
+            result = 31 * result + (body.isAwake() ? 1 : 0);
+        }
+
+        return result;
+    }
+
+    private static class EventChecksum implements ContactListener {
+
+        long checksum;
+
+        @Override
+        public void beginContact(Contact contact) {
+            add(1, contact);
+        }
+
+        @Override
+        public void endContact(Contact contact) {
+            add(2, contact);
+        }
+
+        @Override
+        public void preSolve(Contact contact, Manifold oldManifold) {
+            add(3, contact);
+        }
+
+        @Override
+        public void postSolve(Contact contact, ContactImpulse impulse) {
+            add(4, contact);
+        }
+
+        private void add(int event, Contact contact) {
+            checksum = 31 * checksum + event;
+            checksum = 31 * checksum + id(contact.getFixtureA().getBody());
+            checksum = 31 * checksum + id(contact.getFixtureB().getBody());
+        }
+
+        private static int id(Body body) {
+            return body.getUserData() == null ? -1 : (Integer) body.getUserData();
+        }
+    }
+}
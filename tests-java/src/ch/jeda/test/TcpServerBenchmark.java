@@ -0,0 +1,188 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import ch.jeda.event.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts a TcpServer and simulated clients over loopback. Each client sends data messages at a fixed rate. The
+ * latency is measured from sendData() on the client to the invocation of the message listener on the server. The
+ * load can be configured with system properties, e.g. -Dbenchmark.clients=200 -Dbenchmark.rate=50
+ * -Dbenchmark.seconds=10 -Dbenchmark.binary=true -Dbenchmark.compression=true.
+ */
+public class TcpServerBenchmark extends Program implements MessageReceivedListener {
+
+    private static final int PORT = 1270;
+    private static final int MAX_SAMPLES = 1000000;
+    private static final int TICK_MILLIS = 10;
+    private static final int WARM_UP_SECONDS = 1;
+    private final int clients = Integer.getInteger("benchmark.clients", 100);
+    private final int rate = Integer.getInteger("benchmark.rate", 50);
+    private final int seconds = Integer.getInteger("benchmark.seconds", 5);
+    private final boolean binary = Boolean.getBoolean("benchmark.binary");
+    private final boolean compression = Boolean.getBoolean("benchmark.compression");
+    private final AtomicInteger received = new AtomicInteger();
+    private final long origin = System.nanoTime();
+    private final int[] samples = new int[MAX_SAMPLES];
+    private int sampleCount;
+    private volatile boolean measuring;
+
+    @Override
+    public void run() {
+        writeLines("Clients: ", clients, ", messages per client and second: ", rate, ", binary: ", binary,
+                   ", compression: ", compression);
+        TcpServer server = new TcpServer();
+        server.setBinaryEnabled(binary);
+        server.setCompressionEnabled(compression);
+        if (!server.start(PORT)) {
+            writeLines("Cannot start server.");
+            return;
+        }
+
+        Jeda.addEventListener(this);
+        int threadsBefore = threadCount();
+        List<TcpConnection> connections = new ArrayList<TcpConnection>();
+        for (int i = 0; i < clients; ++i) {
+            TcpConnection connection = new TcpConnection();
+            connection.setBinaryEnabled(binary);
+            connection.setCompressionEnabled(compression);
+            if (!connection.open("127.0.0.1", PORT)) {
+                writeLines("Cannot connect client ", i, ".");
+                break;
+            }
+
+            connections.add(connection);
+        }
+
+        sleep(500);
+        writeLines("Connected clients: ", connections.size(), ", threads: ", threadsBefore, " -> ", threadCount());
+        send(connections, WARM_UP_SECONDS, false);
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        measuring = true;
+        int sent = send(connections, seconds, true);
+        long duration = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        sleep(500);
+        measuring = false;
+        for (TcpConnection connection : connections) {
+            connection.close();
+        }
+
+        server.stop();
+        writeLines("Sent: ", sent, ", received: ", received.get(), ", throughput: ",
+                   received.get() * 1000000000L / duration, " messages per second");
+        int[] sorted;
+        synchronized (samples) {
+            sorted = Arrays.copyOf(samples, sampleCount);
+        }
+
+        Arrays.sort(sorted);
+        writeLines("Latency (us): p50 ", percentile(sorted, 0.5), ", p90 ", percentile(sorted, 0.9), ", p99 ",
+                   percentile(sorted, 0.99), ", p99.9 ", percentile(sorted, 0.999), ", max ",
+                   percentile(sorted, 1.0));
+        if (allocated >= 0) {
+            writeLines("Allocation rate: ", allocated * 1000 / duration, " MB/s, ",
+                       received.get() > 0 ? allocated / received.get() : 0, " bytes per message");
+        }
+        else {
+            writeLines("Allocation rate: not supported by this JVM");
+        }
+
+        writeLines("Peak threads: ", ManagementFactory.getThreadMXBean().getPeakThreadCount());
+    }
+
+    @Override
+    public void onMessageReceived(MessageEvent event) {
+        Data data = event.getData();
+        if (data == null || !data.readBoolean("measured")) {
+            return;
+        }
+
+        received.incrementAndGet();
+        if (measuring) {
+            int latency = micros() - data.readInt("sent");
+            synchronized (samples) {
+                if (sampleCount < MAX_SAMPLES) {
+                    samples[sampleCount] = latency;
+                    ++sampleCount;
+                }
+            }
+        }
+    }
+
+    private int send(List<TcpConnection> connections, int seconds, boolean measured) {
+        int sent = 0;
+        double due = 0.0;
+        long start = System.nanoTime();
+        long end = start + seconds * 1000000000L;
+        long next = start;
+        while (next < end) {
+            due += rate * TICK_MILLIS / 1000.0;
+            while (due >= 1.0) {
+                for (TcpConnection connection : connections) {
+                    Data data = new Data();
+                    data.writeInt("sent", micros());
+                    data.writeInt("id", sent);
+                    data.writeBoolean("measured", measured);
+                    data.writeDouble("x", 100.0);
+                    data.writeDouble("y", 200.0);
+                    connection.sendData(data);
+                    ++sent;
+                }
+
+                due -= 1.0;
+            }
+
+            next += TICK_MILLIS * 1000000L;
+            long wait = (next - System.nanoTime()) / 1000000L;
+            if (wait > 0) {
+                sleep((int) wait);
+            }
+        }
+
+        return sent;
+    }
+
+    private int micros() {
+        return (int) ((System.nanoTime() - origin) / 1000L);
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+
+        long result = 0;
+        for (long bytes : sunBean.getThreadAllocatedBytes(bean.getAllThreadIds())) {
+            if (bytes > 0) {
+                result += bytes;
+            }
+        }
+
+        return result;
+    }
+
+    private static int percentile(int[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+
+    private static int threadCount() {
+        return ManagementFactory.getThreadMXBean().getThreadCount();
+    }
+}
@@ -0,0 +1,104 @@
+package ch.jeda.test;
+
+import ch.jeda.*;
+import ch.jeda.event.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends messages with every delivery mode over a loopback UDP connection. Run with
+ * -Djeda.udp.simulated.loss=0.2 to see the effect of lost datagrams.
+ */
+public class UdpLoopbackTest extends Program implements ConnectionAcceptedListener, MessageReceivedListener {
+
+    private static final int PORT = 1250;
+    private static final int MESSAGES = 500;
+    private final AtomicInteger reliable = new AtomicInteger();
+    private final AtomicInteger sequenced = new AtomicInteger();
+    private final AtomicInteger unreliable = new AtomicInteger();
+    private final AtomicInteger outOfOrder = new AtomicInteger();
+    private volatile int lastReliable = -1;
+    private volatile int lastSequenced = -1;
+    private volatile UdpConnection accepted;
+
+    @Override
+    public void run() {
+        UdpServer server = new UdpServer();
+        if (!server.start(PORT)) {
+            writeLines("Cannot start server.");
+            return;
+        }
+
+        Jeda.addEventListener(this);
+        UdpConnection client = new UdpConnection();
+        if (!client.open("127.0.0.1", PORT)) {
+            writeLines("Cannot connect to server.");
+            server.stop();
+            return;
+        }
+
+        for (int i = 0; i < MESSAGES; ++i) {
+            client.sendLine("r " + i, DeliveryMode.RELIABLE);
+            client.sendLine("s " + i, DeliveryMode.SEQUENCED);
+            client.sendLine("u " + i, DeliveryMode.UNRELIABLE);
+            Data data = new Data();
+            data.writeInt("index", i);
+            client.sendData(data);
+            sleep(2);
+        }
+
+        long start = System.currentTimeMillis();
+        while (reliable.get() < 2 * MESSAGES && System.currentTimeMillis() - start < 10000) {
+            sleep(10);
+        }
+
+        writeLines("Reliable: ", reliable.get(), "/", 2 * MESSAGES, ", out of order: ", outOfOrder.get());
+        writeLines("Sequenced: ", sequenced.get(), "/", MESSAGES, ", unreliable: ", unreliable.get(), "/", MESSAGES);
+        writeLines("Round trip time: ", client.getRoundTripTime(), " ms, packet loss: ", client.getPacketLoss(),
+                   ", sent packets: ", client.getSentPacketCount(), ", lost packets: ", client.getLostPacketCount());
+        client.close();
+        sleep(100);
+        writeLines("Server connections after close: ", server.getConnectionCount());
+        server.stop();
+    }
+
+    @Override
+    public void onConnectionAccepted(ConnectionEvent event) {
+        accepted = (UdpConnection) event.getConnection();
+    }
+
+    @Override
+    public void onMessageReceived(MessageEvent event) {
+        if (event.getConnection() != accepted) {
+            return;
+        }
+
+        String line = event.getLine();
+        if (line.startsWith("<")) {
+            reliable.incrementAndGet();
+            return;
+        }
+
+        int index = Integer.parseInt(line.substring(2));
+        switch (line.charAt(0)) {
+            case 'r':
+                reliable.incrementAndGet();
+                if (index != lastReliable + 1) {
+                    outOfOrder.incrementAndGet();
+                }
+
+                lastReliable = index;
+                break;
+            case 's':
+                sequenced.incrementAndGet();
+                if (index <= lastSequenced) {
+                    outOfOrder.incrementAndGet();
+                }
+
+                lastSequenced = index;
+                break;
+            case 'u':
+                unreliable.incrementAndGet();
+                break;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ch.jeda.tiled;
+
+import ch.jeda.*;
+import ch.jeda.geometry.*;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Traces the outlines of a grid with a hole that touches the outer outline at a corner and of many random grids. Checks
+ * that no outline visits a vertex twice and that the area enclosed by the outlines equals the number of solid cells.
+ */
+public class TileMergerTest extends Program {
+
+    private static final int GRIDS = 10000;
+
+    @Override
+    public void run() {
+        // Rows from bottom to top, the hole at (1, 1) touches the free cell (2, 2) at a corner
+        boolean[] solid = {true, true, true,
+                           true, false, true,
+                           true, true, false};
+        List<Polyline> outlines = new TileMerger(solid, 3, 3).traceOutlines();
+        writeLines("Diagonal hole: ", outlines.size(), " outlines, simple: ", isSimple(outlines), ", area: ",
+                   area(outlines));
+
+        Random random = new Random(1);
+        int errors = 0;
+        for (int i = 0; i < GRIDS; ++i) {
+            int width = 1 + random.nextInt(8);
+            int height = 1 + random.nextInt(8);
+            solid = new boolean[width * height];
+            int cells = 0;
+            for (int j = 0; j < solid.length; ++j) {
+                solid[j] = random.nextBoolean();
+                if (solid[j]) {
+                    ++cells;
+                }
+            }
+
+            outlines = new TileMerger(solid, width, height).traceOutlines();
+            if (!isSimple(outlines) || area(outlines) != cells) {
+                ++errors;
+            }
+        }
+
+        writeLines("Random grids: ", GRIDS, ", errors: ", errors);
+    }
+
+    private static float area(List<Polyline> outlines) {
+        // Outer outlines are counterclockwise, holes clockwise
+        float result = 0;
+        for (Polyline outline : outlines) {
+            for (int i = 0; i < outline.getPointCount() - 1; ++i) {
+                result += outline.getPointX(i) * outline.getPointY(i + 1) -
+                          outline.getPointX(i + 1) * outline.getPointY(i);
+            }
+        }
+
+        return result / 2;
+    }
+
+    private static boolean isSimple(List<Polyline> outlines) {
+        for (Polyline outline : outlines) {
+            Set<String> vertices = new HashSet<String>();
+            // The last point closes the outline
+            for (int i = 0; i < outline.getPointCount() - 1; ++i) {
+                if (!vertices.add(outline.getPointX(i) + "," + outline.getPointY(i))) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+}